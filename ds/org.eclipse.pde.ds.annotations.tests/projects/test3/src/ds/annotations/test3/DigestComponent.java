@@ -0,0 +1,12 @@
+package ds.annotations.test3;
+
+import org.osgi.service.component.annotations.Component;
+
+@Component
+public class DigestComponent implements Runnable {
+
+	@Override
+	public void run() {
+
+	}
+}
@@ -36,6 +36,8 @@ import org.osgi.framework.Bundle;
 	ErrorProjectTest.class,
 	DefaultComponentTest.class,
 	FullComponentTest.class,
+	ProjectStateTest.class,
+	ComponentDigestTest.class,
 })
 public class AllDSAnnotationsTests {
 
@@ -46,6 +48,7 @@ public class AllDSAnnotationsTests {
 		map.put("ds.annotations.test0", "projects/test0/");
 		map.put("ds.annotations.test1", "projects/test1/");
 		map.put("ds.annotations.test2", "projects/test2/");
+		map.put("ds.annotations.test3", "projects/test3/");
 		projects = Collections.unmodifiableMap(map);
 	}
 
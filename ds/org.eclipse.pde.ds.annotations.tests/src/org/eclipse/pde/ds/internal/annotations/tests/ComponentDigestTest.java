@@ -0,0 +1,155 @@
+package org.eclipse.pde.ds.internal.annotations.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourceAttributes;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.pde.ds.internal.annotations.DSAnnotationCompilationParticipant;
+import org.eclipse.pde.ds.internal.annotations.ProjectState;
+import org.junit.After;
+import org.junit.Test;
+
+@SuppressWarnings("restriction")
+public class ComponentDigestTest extends CompilationParticipantTest {
+
+	private static final String CU_KEY = "ds/annotations/test3/DigestComponent.java";
+
+	private static final String COMPONENT_NAME = "name=\"ds.annotations.test3.DigestComponent\"";
+
+	private static final String EDITED_NAME = "name=\"digest.test\"";
+
+	private String originalSource;
+
+	@Override
+	protected String getTestProjectName() {
+		return "ds.annotations.test3";
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (originalSource != null) {
+			write(getSource(), originalSource);
+			build();
+		}
+	}
+
+	private IFile getSource() {
+		return testProject.getFile("src/ds/annotations/test3/DigestComponent.java");
+	}
+
+	private IFile getModel() {
+		return testProject.getFile("OSGI-INF/ds.annotations.test3.DigestComponent.xml");
+	}
+
+	private ProjectState getState() {
+		return DSAnnotationCompilationParticipant.getState(JavaCore.create(testProject));
+	}
+
+	private void build() throws Exception {
+		Job.getJobManager().join(ResourcesPlugin.FAMILY_AUTO_BUILD, null);
+		testProject.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, null);
+	}
+
+	private static void setReadOnly(IFile file, boolean readOnly) throws Exception {
+		ResourceAttributes attributes = file.getResourceAttributes();
+		attributes.setReadOnly(readOnly);
+		file.setResourceAttributes(attributes);
+	}
+
+	private static String read(IFile file) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = file.getContents(true)) {
+			byte[] buf = new byte[4096];
+			int read;
+			while ((read = in.read(buf)) != -1) {
+				out.write(buf, 0, read);
+			}
+		}
+
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static void write(IFile file, String contents) throws Exception {
+		file.setContents(new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8)), true, false, null);
+	}
+
+	private String editModel() throws Exception {
+		String model = read(getModel());
+		assertTrue("Unexpected component name!", model.contains(COMPONENT_NAME));
+		write(getModel(), model.replace(COMPONENT_NAME, EDITED_NAME));
+		return model;
+	}
+
+	@Test
+	public void unchangedDigestSkipped() throws Exception {
+		String digest = getState().getDigest(CU_KEY);
+		assertNotNull("Missing digest!", digest);
+		String model = editModel();
+		try {
+			// recompiled with identical contents
+			originalSource = read(getSource());
+			write(getSource(), originalSource);
+			build();
+
+			assertEquals(digest, getState().getDigest(CU_KEY));
+			assertTrue("Unchanged compilation unit was processed again!", read(getModel()).contains(EDITED_NAME));
+		} finally {
+			write(getModel(), model);
+		}
+	}
+
+	@Test
+	public void changedDigestRegenerated() throws Exception {
+		String digest = getState().getDigest(CU_KEY);
+		assertNotNull("Missing digest!", digest);
+		editModel();
+
+		originalSource = read(getSource());
+		write(getSource(), originalSource.replace("@Component", "@Component(property = \"digest=changed\")"));
+		build();
+
+		String newDigest = getState().getDigest(CU_KEY);
+		assertNotNull("Missing digest!", newDigest);
+		assertNotEquals(digest, newDigest);
+		String model = read(getModel());
+		assertTrue("Changed compilation unit was not processed again!", model.contains(COMPONENT_NAME));
+		assertTrue("Missing component property!", model.contains("value=\"changed\""));
+	}
+
+	@Test
+	public void failedWriteNotRecorded() throws Exception {
+		assertNotNull("Missing digest!", getState().getDigest(CU_KEY));
+
+		originalSource = read(getSource());
+		String changedSource = originalSource.replace("@Component", "@Component(property = \"digest=changed\")");
+		setReadOnly(getModel(), true);
+		try {
+			write(getSource(), changedSource);
+			build();
+
+			assertNull("Digest recorded for unwritten output!", getState().getDigest(CU_KEY));
+		} finally {
+			setReadOnly(getModel(), false);
+		}
+
+		// recompiled with identical contents, but output must still be written
+		write(getSource(), changedSource);
+		build();
+
+		assertNotNull("Missing digest!", getState().getDigest(CU_KEY));
+		assertTrue("Output was not written!", read(getModel()).contains("value=\"changed\""));
+	}
+}
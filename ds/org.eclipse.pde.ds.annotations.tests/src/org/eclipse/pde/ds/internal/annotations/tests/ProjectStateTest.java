@@ -0,0 +1,60 @@
+package org.eclipse.pde.ds.internal.annotations.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.eclipse.pde.ds.internal.annotations.DSAnnotationVersion;
+import org.eclipse.pde.ds.internal.annotations.ProjectState;
+import org.eclipse.pde.ds.internal.annotations.ValidationErrorLevel;
+import org.junit.Test;
+
+@SuppressWarnings("restriction")
+public class ProjectStateTest {
+
+	@Test
+	public void roundTrip() throws Exception {
+		ProjectState state = new ProjectState();
+		state.setPath("OSGI-INF");
+		state.setSpecVersion(DSAnnotationVersion.V1_2);
+		state.setErrorLevel(ValidationErrorLevel.warning);
+
+		HashMap<String, String> dsKeys = new HashMap<>();
+		dsKeys.put("test.A", "OSGI-INF/test.A.xml");
+		dsKeys.put("test.A.B", "OSGI-INF/test.A.B.xml");
+		state.updateMappings("test/A.java", dsKeys);
+		state.setDigest("test/A.java", "0123456789abcdef", Collections.singletonMap("test.Service", Long.valueOf(42L)));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		state.write(out);
+
+		ProjectState copy = ProjectState.read(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(state, copy);
+		assertEquals("OSGI-INF/test.A.B.xml", copy.getModelFile("test.A.B"));
+		assertEquals(Long.valueOf(42L), copy.getDependencies("test/A.java").get("test.Service"));
+		assertNull(copy.getModelFile("test.C"));
+	}
+
+	@Test
+	public void sharedStrings() throws Exception {
+		ProjectState state = new ProjectState();
+		state.updateMappings("test/A.java", new HashMap<>(Collections.singletonMap("test.A", "OSGI-INF/test.xml")));
+		state.updateMappings("test/B.java", new HashMap<>(Collections.singletonMap("test.B", "OSGI-INF/test.xml")));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		state.write(out);
+
+		ProjectState copy = ProjectState.read(new ByteArrayInputStream(out.toByteArray()));
+		assertSame(copy.getModelFile("test.A"), copy.getModelFile("test.B"));
+	}
+
+	@Test
+	public void unknownStream() throws Exception {
+		assertNull(ProjectState.read(new ByteArrayInputStream(new byte[] { 0, 0, 0, 1, 0, 0, 0, 1 })));
+	}
+}
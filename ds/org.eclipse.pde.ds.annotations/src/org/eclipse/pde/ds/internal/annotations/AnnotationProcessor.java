@@ -14,9 +14,12 @@ import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -45,9 +48,14 @@ import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IProjectDescription;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jdt.core.ICompilationUnit;
@@ -68,6 +76,7 @@ import org.eclipse.jdt.core.dom.EnumDeclaration;
 import org.eclipse.jdt.core.dom.Expression;
 import org.eclipse.jdt.core.dom.FieldDeclaration;
 import org.eclipse.jdt.core.dom.IAnnotationBinding;
+import org.eclipse.jdt.core.dom.IBinding;
 import org.eclipse.jdt.core.dom.IMemberValuePairBinding;
 import org.eclipse.jdt.core.dom.IMethodBinding;
 import org.eclipse.jdt.core.dom.ITypeBinding;
@@ -76,10 +85,12 @@ import org.eclipse.jdt.core.dom.MemberValuePair;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.Modifier;
 import org.eclipse.jdt.core.dom.NormalAnnotation;
+import org.eclipse.jdt.core.dom.SimpleName;
 import org.eclipse.jdt.core.dom.SingleMemberAnnotation;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.DocumentRewriteSession;
 import org.eclipse.jface.text.DocumentRewriteSessionType;
 import org.eclipse.jface.text.IDocument;
@@ -87,6 +98,7 @@ import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.jface.text.link.LinkedModeModel;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.pde.core.IModelChangedEvent;
+import org.eclipse.pde.core.IModelChangedListener;
 import org.eclipse.pde.core.ModelChangedEvent;
 import org.eclipse.pde.internal.core.project.PDEProject;
 import org.eclipse.pde.internal.core.text.IDocumentAttributeNode;
@@ -128,6 +140,12 @@ public class AnnotationProcessor extends ASTRequestor {
 
 	private boolean hasBuilder;
 
+	// generated component descriptions to be written, in order of generation
+	private final Map<IFile, byte[]> output = new LinkedHashMap<>();
+
+	// dependency stamps of CUs processed without problems, recorded once their output is written
+	private final Map<String, Map<String, Long>> pendingDigests = new HashMap<>();
+
 	public AnnotationProcessor(ProjectContext context, Map<ICompilationUnit, BuildContext> fileMap) {
 		this.context = context;
 		this.fileMap = fileMap;
@@ -172,6 +190,23 @@ public class AnnotationProcessor extends ASTRequestor {
 			BuildContext buildContext = fileMap.get(source);
 			if (buildContext != null)
 				buildContext.recordNewProblems(problems.toArray(new CategorizedProblem[problems.size()]));
+
+			// problems must be reported again on next compile
+			state.setDigest(cuKey, null, null);
+			pendingDigests.remove(cuKey);
+		} else {
+			// remember dependencies so CU can be skipped if recompiled with identical contents
+			HashMap<String, IType> dependencies = new HashMap<>();
+			ast.accept(new DependencyVisitor(source, dependencies));
+
+			HashMap<String, Long> stamps = new HashMap<>(dependencies.size());
+			for (Map.Entry<String, IType> entry : dependencies.entrySet()) {
+				stamps.put(entry.getKey(), context.getStamp(entry.getValue()));
+			}
+
+			// CU must be processed again if its output cannot be written
+			state.setDigest(cuKey, null, null);
+			pendingDigests.put(cuKey, stamps);
 		}
 	}
 
@@ -204,6 +239,64 @@ public class AnnotationProcessor extends ASTRequestor {
 		folder.create(true, true, null);
 	}
 
+	void queueOutput(IFile file, byte[] contents) {
+		output.put(file, contents);
+	}
+
+	byte[] getQueuedOutput(IFile file) {
+		return output.get(file);
+	}
+
+	/**
+	 * Writes all queued component descriptions in a single workspace operation.
+	 * Digests of the processed CUs are only recorded if all descriptions were written.
+	 */
+	public void writeOutput() throws CoreException {
+		if (output.isEmpty()) {
+			recordDigests();
+			return;
+		}
+
+		final ArrayList<IStatus> statuses = new ArrayList<>(2);
+		ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+			@Override
+			public void run(IProgressMonitor monitor) throws CoreException {
+				for (Map.Entry<IFile, byte[]> entry : output.entrySet()) {
+					IFile file = entry.getKey();
+					if (debug.isDebugging())
+						debug.trace(String.format("Saving model: %s", file.getFullPath())); //$NON-NLS-1$
+
+					try {
+						if (file.exists())
+							file.setContents(new ByteArrayInputStream(entry.getValue()), true, true, null);
+						else
+							file.create(new ByteArrayInputStream(entry.getValue()), true, null);
+					} catch (CoreException e) {
+						statuses.add(e.getStatus());
+					}
+				}
+			}
+		}, null, IWorkspace.AVOID_UPDATE, null);
+
+		output.clear();
+
+		if (!statuses.isEmpty()) {
+			pendingDigests.clear();
+			throw new CoreException(new MultiStatus(Activator.PLUGIN_ID, 0, statuses.toArray(new IStatus[statuses.size()]), "Error saving component models.", null)); //$NON-NLS-1$
+		}
+
+		recordDigests();
+	}
+
+	private void recordDigests() {
+		ProjectState state = context.getState();
+		for (Map.Entry<String, Map<String, Long>> entry : pendingDigests.entrySet()) {
+			state.setDigest(entry.getKey(), context.getDigests().get(entry.getKey()), entry.getValue());
+		}
+
+		pendingDigests.clear();
+	}
+
 	void verifyOutputLocation(IFile file) throws CoreException {
 		if (hasBuilder)
 			return;
@@ -519,6 +612,73 @@ class AnnotationVisitor extends ASTVisitor {
 		}
 
 		ITextFileBufferManager bufferManager = FileBuffers.getTextFileBufferManager();
+		if (bufferManager.getTextFileBuffer(filePath, LocationKind.IFILE) != null) {
+			// file is open (e.g., in an editor); edit it through its buffer
+			processBufferedComponent(bufferManager, file, type, typeBinding, annotation, annotationBinding, params, name, implClass);
+			return;
+		}
+
+		// file may have been generated earlier in this batch but not yet written
+		byte[] oldContents = processor.getQueuedOutput(file);
+		Charset charset = StandardCharsets.UTF_8;
+		if (file.exists()) {
+			if (oldContents == null)
+				oldContents = readContents(file);
+
+			charset = Charset.forName(file.getCharset());
+		}
+
+		final DSModel dsModel = new DSModel(new Document(oldContents == null ? "" : new String(oldContents, charset)), true); //$NON-NLS-1$
+		dsModel.setUnderlyingResource(file);
+		dsModel.setCharset("UTF-8"); //$NON-NLS-1$
+		dsModel.load();
+
+		final boolean[] changed = new boolean[1];
+		dsModel.addModelChangedListener(new IModelChangedListener() {
+			@Override
+			public void modelChanged(IModelChangedEvent event) {
+				changed[0] = true;
+			}
+		});
+
+		try {
+			processComponent(dsModel, type, typeBinding, annotation, annotationBinding, params, name, implClass);
+
+			if (changed[0]) {
+				byte[] contents = dsModel.getContents().getBytes(charset);
+				if (oldContents == null || !Arrays.equals(oldContents, contents)) {
+					processor.queueOutput(file, contents);
+				}
+			}
+		} finally {
+			dsModel.dispose();
+		}
+	}
+
+	private byte[] readContents(IFile file) throws CoreException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		InputStream in = file.getContents(true);
+		try {
+			byte[] buf = new byte[8192];
+			int count;
+			while ((count = in.read(buf)) != -1) {
+				out.write(buf, 0, count);
+			}
+		} catch (IOException e) {
+			throw new CoreException(new Status(IStatus.ERROR, Activator.PLUGIN_ID, String.format("Error reading component model '%s'.", file.getFullPath()), e)); //$NON-NLS-1$
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+
+		return out.toByteArray();
+	}
+
+	private void processBufferedComponent(ITextFileBufferManager bufferManager, IFile file, TypeDeclaration type, ITypeBinding typeBinding, Annotation annotation, IAnnotationBinding annotationBinding, Map<String, ?> params, String name, String implClass) throws CoreException {
+		IPath filePath = file.getFullPath();
 		bufferManager.connect(filePath, LocationKind.IFILE, null);
 		ITextFileBuffer buffer = bufferManager.getTextFileBuffer(filePath, LocationKind.IFILE);
 		if (buffer.isDirty()) {
@@ -2950,4 +3110,70 @@ class AnnotationVisitor extends ASTVisitor {
 			problems.add(problem);
 		}
 	}
-}
\ No newline at end of file
+}
+
+class DependencyVisitor extends ASTVisitor {
+
+	private final ICompilationUnit source;
+
+	private final Map<String, IType> dependencies;
+
+	private final HashSet<ITypeBinding> visited = new HashSet<>();
+
+	public DependencyVisitor(ICompilationUnit source, Map<String, IType> dependencies) {
+		this.source = source;
+		this.dependencies = dependencies;
+	}
+
+	@Override
+	public boolean visit(SimpleName node) {
+		IBinding binding = node.resolveBinding();
+		if (binding instanceof ITypeBinding) {
+			addDependency((ITypeBinding) binding);
+		} else if (binding instanceof IVariableBinding) {
+			IVariableBinding variableBinding = (IVariableBinding) binding;
+			addDependency(variableBinding.isField() ? variableBinding.getDeclaringClass() : variableBinding.getType());
+		} else if (binding instanceof IMethodBinding) {
+			addDependency(((IMethodBinding) binding).getDeclaringClass());
+		}
+
+		return false;
+	}
+
+	private void addDependency(ITypeBinding binding) {
+		if (binding == null) {
+			return;
+		}
+
+		if (binding.isArray()) {
+			binding = binding.getElementType();
+		}
+
+		binding = binding.getErasure();
+		if (binding.isPrimitive() || binding.isTypeVariable() || binding.isCapture() || binding.isWildcardType() || !visited.add(binding)) {
+			return;
+		}
+
+		IJavaElement element = binding.getJavaElement();
+		if (!(element instanceof IType)) {
+			return;
+		}
+
+		IType type = (IType) element;
+		if (type.isBinary() && type.getPackageFragment().getElementName().startsWith("java.")) { //$NON-NLS-1$
+			// JRE changes always trigger a full build
+			return;
+		}
+
+		// types declared in the CU itself are covered by its digest
+		if (!source.equals(type.getCompilationUnit())) {
+			dependencies.put(binding.getQualifiedName(), type);
+		}
+
+		// validation also depends on the hierarchy of each referenced type
+		addDependency(binding.getSuperclass());
+		for (ITypeBinding interfaceBinding : binding.getInterfaces()) {
+			addDependency(interfaceBinding);
+		}
+	}
+}
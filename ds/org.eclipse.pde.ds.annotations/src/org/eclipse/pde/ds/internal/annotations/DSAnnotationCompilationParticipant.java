@@ -11,13 +11,19 @@
  *******************************************************************************/
 package org.eclipse.pde.ds.internal.annotations;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -59,6 +65,7 @@ import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.BuildContext;
+import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.core.compiler.CompilationParticipant;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
@@ -96,6 +103,8 @@ public class DSAnnotationCompilationParticipant extends CompilationParticipant {
 
 	private static final String STATE_FILENAME = "state.dat"; //$NON-NLS-1$
 
+	private static final String DIGEST_ALGORITHM = "SHA-1"; //$NON-NLS-1$
+
 	static final String BUILDPATH_PROBLEM_MARKER = "org.eclipse.pde.ds.annotations.buildpath_problem"; //$NON-NLS-1$
 
 	private static final Debug debug = Debug.getDebug("ds-annotation-builder"); //$NON-NLS-1$
@@ -184,11 +193,21 @@ public class DSAnnotationCompilationParticipant extends CompilationParticipant {
 			result = NEEDS_FULL_BUILD;
 		}
 
+		if (result == NEEDS_FULL_BUILD) {
+			state.clearDigests();
+		}
+
 		Activator.getDefault().listenForClasspathPreferenceChanges(project);
 
 		return result;
 	}
 
+	@Override
+	public void cleanStarting(IJavaProject project) {
+		// full build; all CUs must be processed again
+		getState(project).clearDigests();
+	}
+
 	private <E extends Enum<E>> E getEnumValue(String property, Class<E> enumType, E defaultValue) {
 		try {
 			return Enum.valueOf(enumType, property);
@@ -246,23 +265,43 @@ public class DSAnnotationCompilationParticipant extends CompilationParticipant {
 			return null;
 		}
 
-		ObjectInputStream in = new ObjectInputStream(new FileInputStream(stateFile));
+		long start = System.currentTimeMillis();
+		ProjectState state;
+		BufferedInputStream in = new BufferedInputStream(new FileInputStream(stateFile));
 		try {
-			ProjectState state = (ProjectState) in.readObject();
+			in.mark(4);
+			int magic = new DataInputStream(in).readInt();
+			in.reset();
 
-			if (debug.isDebugging()) {
-				debug.trace(String.format("Loaded state for project: %s", project.getName())); //$NON-NLS-1$
+			if (magic == ProjectState.STREAM_MAGIC) {
+				state = ProjectState.read(in);
+			} else {
+				// state written by older version using Java serialization
+				state = readLegacyState(in);
+			}
+		} finally {
+			in.close();
+		}
+
+		if (debug.isDebugging()) {
+			debug.trace(String.format("Loaded state for project %s in %d ms", project.getName(), System.currentTimeMillis() - start)); //$NON-NLS-1$
+			if (state != null) {
 				for (String cuKey : state.getCompilationUnits())
 					debug.trace(String.format("%s -> %s", cuKey, state.getModelFiles(cuKey))); //$NON-NLS-1$
 			}
+		}
 
-			return state;
+		return state;
+	}
+
+	private static ProjectState readLegacyState(InputStream in) throws IOException {
+		ObjectInputStream objIn = new ObjectInputStream(in);
+		try {
+			return (ProjectState) objIn.readObject();
 		} catch (ClassNotFoundException e) {
 			IOException ex = new IOException("Unable to deserialize project state."); //$NON-NLS-1$
 			ex.initCause(e);
 			throw ex;
-		} finally {
-			in.close();
 		}
 	}
 
@@ -442,12 +481,17 @@ public class DSAnnotationCompilationParticipant extends CompilationParticipant {
 			}
 		}
 
-		ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(stateFile));
+		long start = System.currentTimeMillis();
+		BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(stateFile));
 		try {
-			out.writeObject(state);
+			state.write(out);
 		} finally {
 			out.close();
 		}
+
+		if (debug.isDebugging()) {
+			debug.trace(String.format("Saved state for project %s in %d ms", project.getName(), System.currentTimeMillis() - start)); //$NON-NLS-1$
+		}
 	}
 
 	private void updateProject(IProject project, final Collection<String> retained, final Collection<String> abandoned) {
@@ -644,11 +688,20 @@ public class DSAnnotationCompilationParticipant extends CompilationParticipant {
 				continue;
 			}
 
-			if (canSkipFile(cu)) {
+			// CUs without any annotations cannot contain components
+			if (!file.hasAnnotations() || canSkipFile(cu)) {
 				markAsAbandoned(cu);
 				continue;
 			}
 
+			if (isUpToDate(cu, file)) {
+				if (debug.isDebugging()) {
+					debug.trace(String.format("Skipping unchanged compilation unit %s.", file.getFile().getFullPath())); //$NON-NLS-1$
+				}
+
+				continue;
+			}
+
 			Map<ICompilationUnit, BuildContext> map = filesByProject.get(cu.getJavaProject());
 			if (map == null) {
 				map = new HashMap<>();
@@ -700,6 +753,87 @@ public class DSAnnotationCompilationParticipant extends CompilationParticipant {
 		return false;
 	}
 
+	private boolean isUpToDate(ICompilationUnit cu, BuildContext file) {
+		ProjectContext projectContext = processingContext.get(cu.getJavaProject());
+		if (projectContext == null) {
+			return false;
+		}
+
+		String cuKey = AnnotationProcessor.getCompilationUnitKey(cu);
+		String digest = getDigest(file.getContents());
+		if (digest == null) {
+			return false;
+		}
+
+		// remember digest so it can be recorded once the CU is processed
+		projectContext.getDigests().put(cuKey, digest);
+
+		ProjectState state = projectContext.getState();
+		if (!digest.equals(state.getDigest(cuKey)) || state.getModelFiles(cuKey) == null) {
+			return false;
+		}
+
+		// CU is recompiled with identical contents if any of its dependencies changed
+		Map<String, Long> dependencies = state.getDependencies(cuKey);
+		if (dependencies == null) {
+			return false;
+		}
+
+		for (Map.Entry<String, Long> entry : dependencies.entrySet()) {
+			Long stamp = projectContext.getStamp(cu.getJavaProject(), entry.getKey());
+			if (stamp == null || !stamp.equals(entry.getValue())) {
+				if (debug.isDebugging()) {
+					debug.trace(String.format("Dependency %s of compilation unit %s changed.", entry.getKey(), cuKey)); //$NON-NLS-1$
+				}
+
+				return false;
+			}
+		}
+
+		// previous results (and mappings) still apply
+		projectContext.getUnprocessed().remove(cuKey);
+		return true;
+	}
+
+	private static String getDigest(char[] contents) {
+		if (contents == null || contents == CharOperation.NO_CHAR) {
+			return null;
+		}
+
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+
+		byte[] bytes = md.digest(new String(contents).getBytes(StandardCharsets.UTF_8));
+		StringBuilder buf = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			buf.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+
+		return buf.toString();
+	}
+
+	static long getStamp(IType type) {
+		IResource resource = type.getResource();
+		if (resource == null) {
+			// binary type in an external archive
+			IJavaElement root = type.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+			if (root == null) {
+				return IResource.NULL_STAMP;
+			}
+
+			resource = root.getResource();
+			if (resource == null) {
+				return root.getPath().toFile().lastModified();
+			}
+		}
+
+		return resource.getModificationStamp();
+	}
+
 	public void markAsAbandoned(ICompilationUnit cu) {
 		ProjectContext projectContext = processingContext.get(cu.getJavaProject());
 
@@ -728,7 +862,14 @@ public class DSAnnotationCompilationParticipant extends CompilationParticipant {
 		parser.setIgnoreMethodBodies(state.getErrorLevel() == ValidationErrorLevel.ignore);
 
 		ICompilationUnit[] cuArr = fileMap.keySet().toArray(new ICompilationUnit[fileMap.size()]);
-		parser.createASTs(cuArr, new String[0], new AnnotationProcessor(projectContext, fileMap), null);
+		AnnotationProcessor processor = new AnnotationProcessor(projectContext, fileMap);
+		parser.createASTs(cuArr, new String[0], processor, null);
+
+		try {
+			processor.writeOutput();
+		} catch (CoreException e) {
+			Activator.log(e);
+		}
 	}
 
 	public static boolean isManaged(IProject project) {
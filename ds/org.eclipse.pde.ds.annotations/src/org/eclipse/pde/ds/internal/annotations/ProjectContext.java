@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2016 Ecliptical Software Inc. and others.
+ * Copyright (c) 2012, 2017 Ecliptical Software Inc. and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,7 +11,13 @@
 package org.eclipse.pde.ds.internal.annotations;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
 
 public class ProjectContext {
 
@@ -25,6 +31,12 @@ public class ProjectContext {
 
 	private final ProjectState oldState;
 
+	// digests of CUs queued for processing in this run
+	private final Map<String, String> digests = new HashMap<>();
+
+	// stamps of referenced types looked up in this run
+	private final Map<String, Long> stamps = new HashMap<>();
+
 	public ProjectContext(ProjectState state) {
 		this.state = state;
 
@@ -50,4 +62,38 @@ public class ProjectContext {
 	public Collection<String> getUnprocessed() {
 		return unprocessed;
 	}
-}
\ No newline at end of file
+
+	public Map<String, String> getDigests() {
+		return digests;
+	}
+
+	public Long getStamp(IJavaProject project, String typeName) {
+		if (stamps.containsKey(typeName)) {
+			return stamps.get(typeName);
+		}
+
+		Long stamp = null;
+		try {
+			IType type = project.findType(typeName);
+			if (type != null) {
+				stamp = Long.valueOf(DSAnnotationCompilationParticipant.getStamp(type));
+			}
+		} catch (JavaModelException e) {
+			Activator.log(e);
+		}
+
+		stamps.put(typeName, stamp);
+		return stamp;
+	}
+
+	public Long getStamp(IType type) {
+		String typeName = type.getFullyQualifiedName('.');
+		Long stamp = stamps.get(typeName);
+		if (stamp == null) {
+			stamp = Long.valueOf(DSAnnotationCompilationParticipant.getStamp(type));
+			stamps.put(typeName, stamp);
+		}
+
+		return stamp;
+	}
+}
@@ -10,6 +10,14 @@
  *******************************************************************************/
 package org.eclipse.pde.ds.internal.annotations;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -28,6 +36,12 @@ public class ProjectState implements Serializable, Cloneable {
 	// current state file format version
 	public static final int FORMAT_VERSION = 1;
 
+	// leading bytes of state files written in binary (rather than serialized) form
+	static final int STREAM_MAGIC = 0x44534153;
+
+	// current binary stream layout version
+	private static final int STREAM_VERSION = 1;
+
 	// package-prefixed CU name (w/out file extension) to plugin-root-relative (portable) paths of generated DS files (deprecated)
 	// note: we keep it non-null in case user downgrades to older plugin version where old logic depends on that
 	private /*final*/ Map<String, Collection<String>> mappings = new HashMap<>();
@@ -46,6 +60,12 @@ public class ProjectState implements Serializable, Cloneable {
 	// fully-qualified component type to plugin-root-relative (portable) path of corresponding generated DS file
 	private Map<String, String> files;
 
+	// package fragment root-relative CU path to digest of CU contents when last processed without problems
+	private Map<String, String> digests;
+
+	// package fragment root-relative CU path to stamps of types referenced by the CU when last processed without problems
+	private Map<String, Map<String, Long>> dependencies;
+
 	// (de)serialized state file format version
 	private int formatVersion = FORMAT_VERSION;
 
@@ -76,6 +96,8 @@ public class ProjectState implements Serializable, Cloneable {
 	}
 
 	public Collection<String> removeMappings(String cuKey) {
+		removeDigest(cuKey);
+
 		if (types == null) {
 			// fall back to (deprecated) mappings
 			return mappings.remove(toLegacyCUKey(cuKey));
@@ -141,6 +163,52 @@ public class ProjectState implements Serializable, Cloneable {
 		return oldDSKeys;
 	}
 
+	public String getDigest(String cuKey) {
+		return digests == null ? null : digests.get(cuKey);
+	}
+
+	public Map<String, Long> getDependencies(String cuKey) {
+		if (dependencies == null) {
+			return null;
+		}
+
+		Map<String, Long> stamps = dependencies.get(cuKey);
+		return stamps == null ? null : Collections.unmodifiableMap(stamps);
+	}
+
+	public void setDigest(String cuKey, String digest, Map<String, Long> stamps) {
+		if (digest == null || stamps == null) {
+			removeDigest(cuKey);
+			return;
+		}
+
+		if (digests == null) {
+			digests = new HashMap<>();
+		}
+
+		if (dependencies == null) {
+			dependencies = new HashMap<>();
+		}
+
+		digests.put(cuKey, digest);
+		dependencies.put(cuKey, new HashMap<>(stamps));
+	}
+
+	private void removeDigest(String cuKey) {
+		if (digests != null) {
+			digests.remove(cuKey);
+		}
+
+		if (dependencies != null) {
+			dependencies.remove(cuKey);
+		}
+	}
+
+	public void clearDigests() {
+		digests = null;
+		dependencies = null;
+	}
+
 	public String getPath() {
 		return path;
 	}
@@ -189,6 +257,217 @@ public class ProjectState implements Serializable, Cloneable {
 		return files;
 	}
 
+	/**
+	 * Writes this state in compact binary form. All strings are written once
+	 * into a leading string table and referred to by index afterwards.
+	 */
+	public void write(OutputStream out) throws IOException {
+		StringTable strings = new StringTable();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream body = new DataOutputStream(bytes);
+
+		body.writeInt(formatVersion);
+		strings.write(body, path);
+		strings.write(body, specVersion == null ? null : specVersion.name());
+		strings.write(body, errorLevel == null ? null : errorLevel.name());
+		strings.write(body, missingUnbindMethodLevel == null ? null : missingUnbindMethodLevel.name());
+		writeCollectionMap(body, strings, mappings);
+		writeCollectionMap(body, strings, types);
+		writeStringMap(body, strings, files);
+		writeStringMap(body, strings, digests);
+
+		if (dependencies == null) {
+			body.writeInt(-1);
+		} else {
+			body.writeInt(dependencies.size());
+			for (Map.Entry<String, Map<String, Long>> entry : dependencies.entrySet()) {
+				strings.write(body, entry.getKey());
+				body.writeInt(entry.getValue().size());
+				for (Map.Entry<String, Long> stamp : entry.getValue().entrySet()) {
+					strings.write(body, stamp.getKey());
+					body.writeLong(stamp.getValue().longValue());
+				}
+			}
+		}
+
+		body.flush();
+
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(STREAM_MAGIC);
+		data.writeInt(STREAM_VERSION);
+		data.writeInt(strings.values.size());
+		for (String value : strings.values) {
+			data.writeUTF(value);
+		}
+
+		bytes.writeTo(data);
+		data.flush();
+	}
+
+	/**
+	 * Reads state previously written with {@link #write(OutputStream)}.
+	 *
+	 * @return the state, or <code>null</code> if the stream layout is not supported
+	 */
+	public static ProjectState read(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != STREAM_MAGIC || data.readInt() != STREAM_VERSION) {
+			return null;
+		}
+
+		String[] strings = new String[data.readInt()];
+		for (int i = 0; i < strings.length; ++i) {
+			strings[i] = data.readUTF();
+		}
+
+		ProjectState state = new ProjectState();
+		state.formatVersion = data.readInt();
+		state.path = readString(data, strings);
+		state.specVersion = readEnum(data, strings, DSAnnotationVersion.class);
+		state.errorLevel = readEnum(data, strings, ValidationErrorLevel.class);
+		state.missingUnbindMethodLevel = readEnum(data, strings, ValidationErrorLevel.class);
+
+		Map<String, Collection<String>> mappings = readCollectionMap(data, strings);
+		if (mappings != null) {
+			state.mappings = mappings;
+		}
+
+		state.types = readCollectionMap(data, strings);
+		state.files = readStringMap(data, strings);
+		state.digests = readStringMap(data, strings);
+
+		int size = data.readInt();
+		if (size >= 0) {
+			state.dependencies = new HashMap<>(size);
+			for (int i = 0; i < size; ++i) {
+				String key = readString(data, strings);
+				int count = data.readInt();
+				HashMap<String, Long> stamps = new HashMap<>(count);
+				for (int j = 0; j < count; ++j) {
+					stamps.put(readString(data, strings), Long.valueOf(data.readLong()));
+				}
+
+				state.dependencies.put(key, stamps);
+			}
+		}
+
+		return state;
+	}
+
+	private static void writeCollectionMap(DataOutput out, StringTable strings, Map<String, Collection<String>> map) throws IOException {
+		if (map == null) {
+			out.writeInt(-1);
+			return;
+		}
+
+		out.writeInt(map.size());
+		for (Map.Entry<String, Collection<String>> entry : map.entrySet()) {
+			strings.write(out, entry.getKey());
+			out.writeInt(entry.getValue().size());
+			for (String value : entry.getValue()) {
+				strings.write(out, value);
+			}
+		}
+	}
+
+	private static void writeStringMap(DataOutput out, StringTable strings, Map<String, String> map) throws IOException {
+		if (map == null) {
+			out.writeInt(-1);
+			return;
+		}
+
+		out.writeInt(map.size());
+		for (Map.Entry<String, String> entry : map.entrySet()) {
+			strings.write(out, entry.getKey());
+			strings.write(out, entry.getValue());
+		}
+	}
+
+	private static Map<String, Collection<String>> readCollectionMap(DataInput in, String[] strings) throws IOException {
+		int size = in.readInt();
+		if (size < 0) {
+			return null;
+		}
+
+		HashMap<String, Collection<String>> map = new HashMap<>(size);
+		for (int i = 0; i < size; ++i) {
+			String key = readString(in, strings);
+			int count = in.readInt();
+			HashSet<String> values = new HashSet<>(count);
+			for (int j = 0; j < count; ++j) {
+				values.add(readString(in, strings));
+			}
+
+			map.put(key, values);
+		}
+
+		return map;
+	}
+
+	private static Map<String, String> readStringMap(DataInput in, String[] strings) throws IOException {
+		int size = in.readInt();
+		if (size < 0) {
+			return null;
+		}
+
+		HashMap<String, String> map = new HashMap<>(size);
+		for (int i = 0; i < size; ++i) {
+			map.put(readString(in, strings), readString(in, strings));
+		}
+
+		return map;
+	}
+
+	private static String readString(DataInput in, String[] strings) throws IOException {
+		int index = in.readInt();
+		if (index < 0) {
+			return null;
+		}
+
+		if (index >= strings.length) {
+			throw new IOException("Invalid string index: " + index); //$NON-NLS-1$
+		}
+
+		return strings[index];
+	}
+
+	private static <E extends Enum<E>> E readEnum(DataInput in, String[] strings, Class<E> enumType) throws IOException {
+		String name = readString(in, strings);
+		if (name == null) {
+			return null;
+		}
+
+		try {
+			return Enum.valueOf(enumType, name);
+		} catch (IllegalArgumentException e) {
+			// unknown constant (e.g., written by newer version); fall back to default
+			return null;
+		}
+	}
+
+	private static class StringTable {
+
+		final ArrayList<String> values = new ArrayList<>();
+
+		private final HashMap<String, Integer> indices = new HashMap<>();
+
+		void write(DataOutput out, String value) throws IOException {
+			if (value == null) {
+				out.writeInt(-1);
+				return;
+			}
+
+			Integer index = indices.get(value);
+			if (index == null) {
+				index = Integer.valueOf(values.size());
+				values.add(value);
+				indices.put(value, index);
+			}
+
+			out.writeInt(index.intValue());
+		}
+	}
+
 	@Override
 	public ProjectState clone() {
 		ProjectState clone;
@@ -214,6 +493,17 @@ public class ProjectState implements Serializable, Cloneable {
 			clone.files = new HashMap<>(files);
 		}
 
+		if (digests != null) {
+			clone.digests = new HashMap<>(digests);
+		}
+
+		if (dependencies != null) {
+			clone.dependencies = new HashMap<>(dependencies.size());
+			for (Map.Entry<String, Map<String, Long>> entry : dependencies.entrySet()) {
+				clone.dependencies.put(entry.getKey(), new HashMap<>(entry.getValue()));
+			}
+		}
+
 		return clone;
 	}
 
@@ -235,7 +525,9 @@ public class ProjectState implements Serializable, Cloneable {
 				&& missingUnbindMethodLevel == o.missingUnbindMethodLevel
 				&& mappings.equals(o.mappings)
 				&& (files == null ? o.files == null : files.equals(o.files))
-				&& (types == null ? o.types == null : types.equals(o.types));
+				&& (types == null ? o.types == null : types.equals(o.types))
+				&& (digests == null ? o.digests == null : digests.equals(o.digests))
+				&& (dependencies == null ? o.dependencies == null : dependencies.equals(o.dependencies));
 	}
 
 	@Override
@@ -244,7 +536,8 @@ public class ProjectState implements Serializable, Cloneable {
 		buf.append(path).append(";mappings="); //$NON-NLS-1$
 		buf.append(mappings).append(";types="); //$NON-NLS-1$
 		buf.append(types).append(";files="); //$NON-NLS-1$
-		buf.append(files).append(";errorLevel="); //$NON-NLS-1$
+		buf.append(files).append(";digests="); //$NON-NLS-1$
+		buf.append(digests).append(";errorLevel="); //$NON-NLS-1$
 		buf.append(specVersion).append(";specVersion="); //$NON-NLS-1$
 		buf.append(errorLevel).append(";missingUnbindMethodLevel="); //$NON-NLS-1$
 		buf.append(missingUnbindMethodLevel).append(";formatVersion="); //$NON-NLS-1$
@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.core;
+
+import java.util.*;
+import org.eclipse.osgi.service.resolver.*;
+
+/**
+ * Keeps a forward and a reverse dependency graph over the bundles of a resolver
+ * {@link State}. An edge from bundle A to bundle B exists if A is wired to B
+ * through a Require-Bundle, an Import-Package or a Fragment-Host header.
+ * <p>
+ * The graph is built lazily on the first query and is then kept up to date
+ * from the {@link StateDelta}s produced when the state is re-resolved, so that
+ * dependents of a bundle can be found without walking the whole state.
+ * </p>
+ * <p>
+ * Nodes are tracked by bundle id. Descriptions are looked up in the state on
+ * query, so updated bundle descriptions are always returned.
+ * </p>
+ * <p>
+ * The edges do not record whether a requirement is optional, and only the state
+ * of the {@link PluginModelManager} is indexed. {@link DependencyManager}, which
+ * can skip optional requirements and computes dependencies in any state, and the
+ * launch validation, which resolves a state of its own, therefore still walk the
+ * state. The classpath update after a resolve uses the bundles of the resolver's
+ * {@link StateDelta}, which already contains the re-resolved dependents.
+ * </p>
+ */
+public class BundleDependencyIndex {
+
+	private static final BundleDescription[] NO_BUNDLES = new BundleDescription[0];
+
+	private State fState;
+	private boolean fInitialized;
+
+	// bundle id -> ids of the bundles it depends on
+	private final Map<Long, Set<Long>> fDependencies = new HashMap<>();
+	// bundle id -> ids of the bundles depending on it
+	private final Map<Long, Set<Long>> fDependents = new HashMap<>();
+
+	/**
+	 * Discards the current graph and associates the index with the given state.
+	 * The graph is rebuilt on the next query.
+	 *
+	 * @param state the state to index, may be <code>null</code>
+	 */
+	public synchronized void reset(State state) {
+		fState = state;
+		fInitialized = false;
+		fDependencies.clear();
+		fDependents.clear();
+	}
+
+	/**
+	 * Updates the graph for the bundles affected by the given delta. If the
+	 * graph has not been built yet, nothing needs to be done as it will be
+	 * computed from the current state on the next query.
+	 *
+	 * @param delta the delta of the last resolve operation, or <code>null</code>
+	 * 			if the entire state must be considered changed
+	 */
+	public synchronized void update(StateDelta delta) {
+		if (delta == null || delta.getState() != fState) {
+			reset(delta == null ? fState : delta.getState());
+			return;
+		}
+		if (!fInitialized)
+			return;
+
+		BundleDelta[] changes = delta.getChanges();
+		for (BundleDelta change : changes) {
+			BundleDescription desc = change.getBundle();
+			if (desc == null)
+				continue;
+			Long id = Long.valueOf(desc.getBundleId());
+			removeOutgoingEdges(id);
+			if ((change.getType() & BundleDelta.REMOVED) != 0) {
+				// dependents of a removed bundle are re-resolved and will appear in the delta too,
+				// but drop the reverse entries now so no stale ids are handed out
+				Set<Long> dependents = fDependents.remove(id);
+				if (dependents != null) {
+					for (Long dependent : dependents) {
+						Set<Long> forward = fDependencies.get(dependent);
+						if (forward != null)
+							forward.remove(id);
+					}
+				}
+			} else {
+				addOutgoingEdges(desc);
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the given bundle belongs to the state covered by this index.
+	 * Queries for bundles from other states always return empty results.
+	 *
+	 * @param desc the bundle description
+	 * @return <code>true</code> if the bundle is part of the indexed state
+	 */
+	public synchronized boolean isIndexed(BundleDescription desc) {
+		return desc != null && fState != null && desc.getContainingState() == fState;
+	}
+
+	/**
+	 * Returns the bundles the given bundle is directly wired to.
+	 *
+	 * @param desc the bundle description
+	 * @return the direct dependencies of the bundle, never <code>null</code>
+	 */
+	public synchronized BundleDescription[] getDependencies(BundleDescription desc) {
+		if (!isIndexed(desc))
+			return NO_BUNDLES;
+		ensureInitialized();
+		return toDescriptions(fDependencies.get(Long.valueOf(desc.getBundleId())));
+	}
+
+	/**
+	 * Returns the bundles that are directly wired to the given bundle.
+	 *
+	 * @param desc the bundle description
+	 * @return the direct dependents of the bundle, never <code>null</code>
+	 */
+	public synchronized BundleDescription[] getDependents(BundleDescription desc) {
+		if (!isIndexed(desc))
+			return NO_BUNDLES;
+		ensureInitialized();
+		return toDescriptions(fDependents.get(Long.valueOf(desc.getBundleId())));
+	}
+
+	/**
+	 * Returns the transitive closure of the dependencies of the given bundles.
+	 * The roots themselves are only part of the result if they are reachable
+	 * from one of the roots (i.e. they take part in a cycle).
+	 *
+	 * @param roots the bundles to start from
+	 * @return all bundles reachable from the roots
+	 */
+	public synchronized Set<BundleDescription> getTransitiveDependencies(Collection<BundleDescription> roots) {
+		ensureInitialized();
+		return closure(roots, fDependencies);
+	}
+
+	/**
+	 * Returns the transitive closure of the dependents of the given bundles.
+	 * The roots themselves are only part of the result if they depend on one
+	 * of the roots (i.e. they take part in a cycle).
+	 *
+	 * @param roots the bundles to start from
+	 * @return all bundles that directly or indirectly depend on one of the roots
+	 */
+	public synchronized Set<BundleDescription> getTransitiveDependents(Collection<BundleDescription> roots) {
+		ensureInitialized();
+		return closure(roots, fDependents);
+	}
+
+	private Set<BundleDescription> closure(Collection<BundleDescription> roots, Map<Long, Set<Long>> edges) {
+		Set<Long> visited = new HashSet<>();
+		Deque<Long> queue = new ArrayDeque<>();
+		for (BundleDescription root : roots) {
+			if (isIndexed(root))
+				queue.add(Long.valueOf(root.getBundleId()));
+		}
+		while (!queue.isEmpty()) {
+			Set<Long> next = edges.get(queue.poll());
+			if (next == null)
+				continue;
+			for (Long id : next) {
+				if (visited.add(id))
+					queue.add(id);
+			}
+		}
+		Set<BundleDescription> result = new LinkedHashSet<>(visited.size());
+		for (Long id : visited) {
+			BundleDescription desc = fState.getBundle(id.longValue());
+			if (desc != null)
+				result.add(desc);
+		}
+		return result;
+	}
+
+	private void ensureInitialized() {
+		if (fInitialized)
+			return;
+		fInitialized = true;
+		if (fState == null)
+			return;
+		long start = System.currentTimeMillis();
+		BundleDescription[] bundles = fState.getBundles();
+		for (BundleDescription bundle : bundles) {
+			addOutgoingEdges(bundle);
+		}
+		if (PDECore.DEBUG_MODEL) {
+			System.out.println("Bundle dependency index for " + bundles.length + " bundles built in " + (System.currentTimeMillis() - start) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+	}
+
+	private void addOutgoingEdges(BundleDescription desc) {
+		Long id = Long.valueOf(desc.getBundleId());
+		BundleSpecification[] required = desc.getRequiredBundles();
+		for (BundleSpecification spec : required) {
+			addEdge(id, (BundleDescription) spec.getSupplier());
+		}
+		ImportPackageSpecification[] imports = desc.getImportPackages();
+		for (ImportPackageSpecification spec : imports) {
+			ExportPackageDescription exporter = (ExportPackageDescription) spec.getSupplier();
+			if (exporter != null)
+				addEdge(id, exporter.getExporter());
+		}
+		HostSpecification host = desc.getHost();
+		if (host != null) {
+			addEdge(id, (BundleDescription) host.getSupplier());
+		}
+	}
+
+	private void addEdge(Long from, BundleDescription supplier) {
+		if (supplier == null)
+			return;
+		Long to = Long.valueOf(supplier.getBundleId());
+		if (from.equals(to))
+			return;
+		getOrCreate(fDependencies, from).add(to);
+		getOrCreate(fDependents, to).add(from);
+	}
+
+	private void removeOutgoingEdges(Long id) {
+		Set<Long> dependencies = fDependencies.remove(id);
+		if (dependencies == null)
+			return;
+		for (Long dependency : dependencies) {
+			Set<Long> reverse = fDependents.get(dependency);
+			if (reverse != null) {
+				reverse.remove(id);
+				if (reverse.isEmpty())
+					fDependents.remove(dependency);
+			}
+		}
+	}
+
+	private static Set<Long> getOrCreate(Map<Long, Set<Long>> map, Long key) {
+		Set<Long> set = map.get(key);
+		if (set == null) {
+			set = new HashSet<>();
+			map.put(key, set);
+		}
+		return set;
+	}
+
+	private BundleDescription[] toDescriptions(Set<Long> ids) {
+		if (ids == null || ids.isEmpty() || fState == null)
+			return NO_BUNDLES;
+		List<BundleDescription> result = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			BundleDescription desc = fState.getBundle(id.longValue());
+			if (desc != null)
+				result.add(desc);
+		}
+		return result.toArray(new BundleDescription[result.size()]);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2013 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.pde.internal.core;
 
+import java.lang.ref.WeakReference;
+import java.lang.reflect.*;
 import java.util.*;
 import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.runtime.*;
@@ -21,17 +23,119 @@ public class BundleValidationOperation implements IWorkspaceRunnable {
 
 	private static StateObjectFactory FACTORY;
 
+	/**
+	 * Maximum number of resolved states kept in {@link #fgCache}
+	 */
+	private static final int CACHE_SIZE = 5;
+
+	/**
+	 * Resolved states of previous validations, by cache key and platform properties,
+	 * least recently used first
+	 */
+	private static final Map<CacheKey, CachedState> fgCache = new LinkedHashMap<CacheKey, CachedState>(CACHE_SIZE, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedState> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	/**
+	 * Identifies a cached state: the key given by the caller, such as a launch
+	 * configuration name, and the platform properties of the execution environment
+	 * profiles the state is resolved against. A configuration launched with
+	 * different execution environments keeps one state per environment.
+	 */
+	private static class CacheKey {
+		private final Object key;
+		private final List<Dictionary<?, ?>> properties;
+
+		CacheKey(Object key, Dictionary<?, ?>[] properties) {
+			this.key = key;
+			this.properties = Arrays.asList(properties);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof CacheKey))
+				return false;
+			CacheKey other = (CacheKey) obj;
+			return key.equals(other.key) && properties.equals(other.properties);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * key.hashCode() + properties.hashCode();
+		}
+	}
+
+	/**
+	 * The bundle description a copy in a cached state was created from. The
+	 * description is only weakly referenced, so descriptions of models that were
+	 * changed or removed since are not kept in memory by the cache.
+	 */
+	private static class Source {
+		final WeakReference<BundleDescription> description;
+		final long copyId;
+
+		Source(BundleDescription description, long copyId) {
+			this.description = new WeakReference<>(description);
+			this.copyId = copyId;
+		}
+	}
+
+	/**
+	 * A validation state together with the bundle descriptions it was created from,
+	 * so it can be brought up to date by only adding, updating and removing the
+	 * bundles whose descriptions changed since the last validation.
+	 */
+	private static class CachedState {
+		final State state;
+		final State view;
+		// bundle location -> description the copy in the state was created from
+		final Map<String, Source> sources = new HashMap<>();
+		// id of a copy in the state -> location of the bundle it was created from
+		final Map<Long, String> locations = new HashMap<>();
+
+		CachedState(State state) {
+			this.state = state;
+			this.view = createReadOnlyView(state, this);
+		}
+	}
+
 	private IPluginModelBase[] fModels;
 	private Dictionary<?, ?>[] fProperties;
+	private Object fCacheKey;
 	private State fState;
+	// the state returned to callers, a read-only view of fState if it is cached
+	private State fView;
+	// held while reading fState, which is shared with other operations if it is cached
+	private Object fStateLock = this;
 
 	public BundleValidationOperation(IPluginModelBase[] models) {
 		this(models, new Dictionary[] {TargetPlatformHelper.getTargetEnvironment()});
 	}
 
 	public BundleValidationOperation(IPluginModelBase[] models, Dictionary<?, ?>[] properties) {
+		this(models, properties, null);
+	}
+
+	/**
+	 * Creates an operation that reuses the state resolved by the last operation with
+	 * the same cache key and platform properties. Only the bundles that changed since
+	 * then are updated and re-resolved. The state returned by {@link #getState()} is
+	 * shared with later operations using the same key and is read-only.
+	 *
+	 * @param models the models to validate
+	 * @param properties the platform properties to resolve against
+	 * @param cacheKey key identifying the validated set of bundles, such as a launch
+	 * 			configuration name, or <code>null</code> to always resolve a new state
+	 */
+	public BundleValidationOperation(IPluginModelBase[] models, Dictionary<?, ?>[] properties, Object cacheKey) {
 		fModels = models;
 		fProperties = properties;
+		fCacheKey = cacheKey;
 	}
 
 	@Override
@@ -39,49 +143,194 @@ public class BundleValidationOperation implements IWorkspaceRunnable {
 		if (FACTORY == null) {
 			FACTORY = Platform.getPlatformAdmin().getFactory();
 		}
+		if (fCacheKey == null) {
+			SubMonitor subMonitor = SubMonitor.convert(monitor, fModels.length + 1);
+			fState = FACTORY.createState(true);
+			for (IPluginModelBase fModel : fModels) {
+				BundleDescription bundle = fModel.getBundleDescription();
+				if (bundle != null) {
+					fState.addBundle(FACTORY.createBundleDescription(bundle));
+				}
+				subMonitor.split(1);
+			}
+			fState.setPlatformProperties(fProperties);
+			fState.resolve(false);
+			fView = fState;
+			subMonitor.split(1);
+			return;
+		}
+
+		CachedState cached;
+		boolean created = false;
+		synchronized (fgCache) {
+			CacheKey key = new CacheKey(fCacheKey, fProperties);
+			cached = fgCache.get(key);
+			if (cached == null) {
+				State state = FACTORY.createState(true);
+				state.setPlatformProperties(fProperties);
+				cached = new CachedState(state);
+				fgCache.put(key, cached);
+				created = true;
+			}
+		}
+		synchronized (cached) {
+			update(cached, created, monitor);
+			fState = cached.state;
+			fView = cached.view;
+			fStateLock = cached;
+		}
+	}
+
+	private void update(CachedState cached, boolean created, IProgressMonitor monitor) {
 		SubMonitor subMonitor = SubMonitor.convert(monitor, fModels.length + 1);
-		fState = FACTORY.createState(true);
-		for (IPluginModelBase fModel : fModels) {
-			BundleDescription bundle = fModel.getBundleDescription();
+		State state = cached.state;
+		boolean changed = false;
+
+		Set<String> current = new HashSet<>();
+		for (IPluginModelBase model : fModels) {
+			BundleDescription bundle = model.getBundleDescription();
 			if (bundle != null) {
-				fState.addBundle(FACTORY.createBundleDescription(bundle));
+				String location = getLocation(bundle);
+				current.add(location);
+				Source source = cached.sources.get(location);
+				if (source == null || source.description.get() != bundle) {
+					BundleDescription copy = FACTORY.createBundleDescription(bundle);
+					Long id = Long.valueOf(copy.getBundleId());
+					if (source != null && source.copyId != copy.getBundleId())
+						removeCopy(cached, location, source.copyId);
+					String replaced = cached.locations.put(id, location);
+					if (replaced != null && !replaced.equals(location)) {
+						// the copy of another bundle is replaced, that bundle is copied again if still validated
+						cached.sources.remove(replaced);
+					}
+					if (state.getBundle(copy.getBundleId()) != null) {
+						state.updateBundle(copy);
+					} else {
+						state.addBundle(copy);
+					}
+					cached.sources.put(location, new Source(bundle, copy.getBundleId()));
+					changed = true;
+				}
 			}
 			subMonitor.split(1);
 		}
-		fState.setPlatformProperties(fProperties);
-		fState.resolve(false);
+
+		// remove bundles that are no longer validated
+		for (Iterator<Map.Entry<String, Source>> iter = cached.sources.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry<String, Source> entry = iter.next();
+			if (current.contains(entry.getKey()))
+				continue;
+			iter.remove();
+			removeCopy(cached, entry.getKey(), entry.getValue().copyId);
+			changed = true;
+		}
+
+		if (created || changed) {
+			state.resolve(!created);
+		}
 		subMonitor.split(1);
+
+		if (PDECore.DEBUG_MODEL) {
+			System.out.println("Launch validation state " + fCacheKey + (created ? " resolved" : changed ? " re-resolved incrementally" : " reused")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		}
+	}
+
+	/**
+	 * Removes the copy with the given id from the state, unless it has been replaced
+	 * by the copy of another bundle
+	 */
+	private static void removeCopy(CachedState cached, String location, long copyId) {
+		Long id = Long.valueOf(copyId);
+		if (location.equals(cached.locations.get(id))) {
+			cached.locations.remove(id);
+			cached.state.removeBundle(copyId);
+		}
+	}
+
+	private static String getLocation(BundleDescription bundle) {
+		String location = bundle.getLocation();
+		return location != null ? location : bundle.getSymbolicName() + '_' + bundle.getVersion();
+	}
+
+	/**
+	 * Returns a view of a cached state that reads it while holding the lock of the
+	 * cached state and that rejects modifications.
+	 */
+	private static State createReadOnlyView(final State state, final Object lock) {
+		return (State) Proxy.newProxyInstance(State.class.getClassLoader(), new Class<?>[] {State.class}, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				String name = method.getName();
+				if (method.getDeclaringClass() == Object.class) {
+					if (name.equals("equals")) //$NON-NLS-1$
+						return Boolean.valueOf(proxy == args[0]);
+					if (name.equals("hashCode")) //$NON-NLS-1$
+						return Integer.valueOf(System.identityHashCode(proxy));
+				} else if (name.startsWith("add") || name.startsWith("remove") || name.startsWith("update") || name.startsWith("resolve") || name.startsWith("set") || name.startsWith("link")) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+					throw new UnsupportedOperationException(name);
+				}
+				synchronized (lock) {
+					try {
+						return method.invoke(state, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				}
+			}
+		});
 	}
 
 	public Map<Object, Object[]> getResolverErrors() {
 		Set<String> alreadyDuplicated = new HashSet<>();
 		Map<Object, Object[]> map = new HashMap<>();
-		BundleDescription[] bundles = fState.getBundles();
-		for (BundleDescription bundle : bundles) {
-			if (!bundle.isResolved()) {
-				map.put(bundle, fState.getResolverErrors(bundle));
-			} else if (bundle.isSingleton() && !alreadyDuplicated.contains(bundle.getSymbolicName())) {
-				BundleDescription[] dups = fState.getBundles(bundle.getSymbolicName());
-				if (dups.length > 1) {
-					// more than 1 singleton present
-					alreadyDuplicated.add(bundle.getSymbolicName());
-					MultiStatus status = new MultiStatus(PDECore.PLUGIN_ID, 0, NLS.bind(PDECoreMessages.BundleValidationOperation_multiple_singletons, new String[] {Integer.toString(dups.length), bundle.getSymbolicName()}), null);
-					for (BundleDescription dup : dups) {
-						status.add(new Status(IStatus.ERROR, PDECore.PLUGIN_ID, dup.getLocation()));
+		synchronized (fStateLock) {
+			BundleDescription[] bundles = fState.getBundles();
+			for (BundleDescription bundle : bundles) {
+				if (!bundle.isResolved()) {
+					map.put(bundle, fState.getResolverErrors(bundle));
+				} else if (bundle.isSingleton() && !alreadyDuplicated.contains(bundle.getSymbolicName())) {
+					BundleDescription[] dups = fState.getBundles(bundle.getSymbolicName());
+					if (dups.length > 1) {
+						// more than 1 singleton present
+						alreadyDuplicated.add(bundle.getSymbolicName());
+						MultiStatus status = new MultiStatus(PDECore.PLUGIN_ID, 0, NLS.bind(PDECoreMessages.BundleValidationOperation_multiple_singletons, new String[] {Integer.toString(dups.length), bundle.getSymbolicName()}), null);
+						for (BundleDescription dup : dups) {
+							status.add(new Status(IStatus.ERROR, PDECore.PLUGIN_ID, dup.getLocation()));
+						}
+						map.put(bundle, new Object[] {status});
 					}
-					map.put(bundle, new Object[] {status});
 				}
 			}
 		}
 		return map;
 	}
 
+	/**
+	 * Returns the resolved state. If the operation has a cache key, the state is
+	 * shared with later operations and a read-only view of it is returned. The view
+	 * waits for operations updating the state before each call.
+	 *
+	 * @return the resolved state
+	 */
 	public State getState() {
-		return fState;
+		return fView;
+	}
+
+	/**
+	 * Returns whether the validated state contains no bundles. The bundle ids of a
+	 * cached state are not reset when its bundles are removed, so the highest
+	 * bundle id cannot be used for this.
+	 *
+	 * @return whether the state contains no bundles
+	 */
+	public boolean isEmpty() {
+		synchronized (fStateLock) {
+			return fState.getBundles().length == 0;
+		}
 	}
 
 	public boolean hasErrors() {
-		if (fState.getHighestBundleId() > -1) {
+		synchronized (fStateLock) {
 			BundleDescription[] bundles = fState.getBundles();
 			for (BundleDescription bundle : bundles) {
 				if (!bundle.isResolved()) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2013 IBM Corporation and others.
+ *  Copyright (c) 2000, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@ package org.eclipse.pde.internal.core;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 import org.eclipse.core.runtime.IPath;
@@ -38,8 +39,8 @@ public class ExternalModelManager extends AbstractModelManager {
 	 * Returns all libraries extracted from an external jarred plug-in.  Will return an empty
 	 * array if the plug-in is not jarred or if no jarred libraries exist inside it.
 	 * <p>
-	 * Previously cached libraries will be returned.  Any libraries not found in the cache will
-	 * extracted from the plug-in and placed in PDE's metadata location.
+	 * Previously cached libraries with the same content will be returned.  Any libraries not
+	 * found in the cache will be extracted from the plug-in and placed in PDE's metadata location.
 	 * </p>
 	 * @param model model to get the libraries for
 	 * @return all extracted libraries or an empty array
@@ -55,7 +56,15 @@ public class ExternalModelManager extends AbstractModelManager {
  * header also need to be added to the classpath for the JDT compiler.  This is handled by the
  * {@link PDEClasspathContainer}.  However, because the classpath does not support nested jars, we
  * must extract any libraries from within a jarred bundle.  This class manages the set of libraries
- * that we have extracted and deletes them when the list of external models changes.
+ * that we have extracted.
+ * <p>
+ * Libraries are only extracted when the classpath of a project using the bundle is computed, and
+ * the libraries of a bundle are extracted concurrently. Extracted libraries are stored by content,
+ * using the checksum and size recorded in the bundle's jar, so a library that did not change is
+ * shared by all versions of a bundle and is never extracted again. The cache is bounded in size:
+ * when it grows beyond {@link #MAX_CACHE_SIZE}, the least recently used libraries that are not
+ * on the classpath of a bundle of the current target are deleted.
+ * </p>
  *
  * @see PDEClasspathContainer#addExternalPlugin(IPluginModelBase, org.eclipse.pde.internal.core.PDEClasspathContainer.Rule[], ArrayList)
  * @since 3.7
@@ -64,20 +73,48 @@ class ExternalLibraryCache {
 
 	/**
 	 * Location inside the PDE metadata area where extracted libraries will be stored.
-	 * Extracted libraries will be stored under a directory named from the plug-in it
-	 * was extracted from.
+	 * Extracted libraries will be stored under a directory named from the checksum and
+	 * size of their content.
 	 * <p>
-	 * [workspace]/.metadata/.plugins/org.eclipse.pde.core/.external_libraries/[plugin_name]_[plugin_version]/[library_name].jar
+	 * [workspace]/.metadata/.plugins/org.eclipse.pde.core/.external_libraries/[crc]_[size]/[library_name].jar
 	 * </p>
 	 */
 	private static final String LIB_CACHE_DIR = ".external_libraries"; //$NON-NLS-1$
 
+	/**
+	 * Size in bytes the cache may grow to before least recently used libraries are deleted.
+	 */
+	private static final long MAX_CACHE_SIZE = 256L * 1024 * 1024;
+
+	/**
+	 * Suffix of files being extracted, which are renamed once complete.
+	 */
+	private static final String TEMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+
+	/**
+	 * Extractions in progress by target file, so that concurrent requests for the same library
+	 * wait for a single extraction
+	 */
+	private final Map<File, CompletableFuture<File>> fExtractions = new ConcurrentHashMap<>();
+
+	/**
+	 * Cache directories of the libraries returned for each bundle location, which are in use by
+	 * classpath containers and must not be evicted. Guarded by this cache.
+	 */
+	private final Map<String, Set<File>> fUsedDirs = new HashMap<>();
+
+	/**
+	 * Estimated size of the cache in bytes, or <code>-1</code> if not computed yet.
+	 * Guarded by this cache.
+	 */
+	private long fCacheSize = -1;
+
 	/**
 	 * Returns all libraries extracted from an external jarred plug-in.  Will return an empty
 	 * array if the plug-in is not jarred or if no jarred libraries exist inside it.
 	 * <p>
-	 * Previously cached libraries will be returned.  Any libraries not found in the cache will
-	 * extracted from the plug-in and placed in PDE's metadata location.
+	 * Previously cached libraries with the same content will be returned.  Any libraries not
+	 * found in the cache will be extracted from the plug-in and placed in PDE's metadata location.
 	 * </p>
 	 * @param model model to get the libraries for
 	 * @return all extracted libraries or an empty array
@@ -90,64 +127,171 @@ class ExternalLibraryCache {
 		BundleDescription desc = model.getBundleDescription();
 		IPluginLibrary[] libs = model.getPluginBase().getLibraries();
 
-		File fCacheDir = new File(getLibraryCacheDir(), getBundleLibsCacheDirName(desc));
-
-		List<File> files = new ArrayList<>();
-
+		List<String> libNames = new ArrayList<>();
 		for (IPluginLibrary lib : libs) {
 			String libName = lib.getName();
-			if (!".".equals(libName)) { //$NON-NLS-1$
-				libName = ClasspathUtilCore.expandLibraryName(libName);
-				File fDestFile = new File(fCacheDir, libName);
-				// assume that an existing file is always valid
-				if (!fDestFile.isFile()) {
-					try {
-						File extractedLib = extractJar(fJarFile, libName, fDestFile);
-						if (extractedLib != null) {
-							files.add(extractedLib);
-						}
-					} catch (IOException ie) {
-						// do not add file, but log error
-						PDECore.logException(ie, "Could not extract library from jarred bundle " + desc.getSymbolicName()); //$NON-NLS-1$
-					}
-				} else
+			if (!".".equals(libName)) //$NON-NLS-1$
+				libNames.add(ClasspathUtilCore.expandLibraryName(libName));
+		}
+		if (libNames.isEmpty())
+			return new File[0];
+
+		List<File> files = new ArrayList<>();
+		List<CompletableFuture<File>> extractions = new ArrayList<>();
+		long extractedSize = 0;
+		// only the jar's directory is read here, libraries are extracted concurrently below
+		try (JarFile jar = new JarFile(fJarFile)) {
+			for (String libName : libNames) {
+				ZipEntry libEntry = jar.getEntry(libName);
+				if (libEntry == null || libEntry.isDirectory())
+					continue;
+				File fDestFile = new File(new File(getLibraryCacheDir(), getLibraryCacheDirName(desc, libEntry)), libName);
+				// assume that an existing file is always valid, as it is only renamed once complete
+				if (fDestFile.isFile()) {
+					fDestFile.getParentFile().setLastModified(System.currentTimeMillis());
 					files.add(fDestFile);
+				} else {
+					extractions.add(extract(fJarFile, libName, fDestFile));
+					extractedSize += Math.max(libEntry.getSize(), 0);
+				}
+			}
+		} catch (IOException e) {
+			PDECore.logException(e, "Could not read jarred bundle " + desc.getSymbolicName()); //$NON-NLS-1$
+			return new File[0];
+		}
+
+		for (CompletableFuture<File> extraction : extractions) {
+			try {
+				File extractedLib = extraction.get();
+				if (extractedLib != null)
+					files.add(extractedLib);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				// do not add file, but log error
+				PDECore.logException(e.getCause(), "Could not extract library from jarred bundle " + desc.getSymbolicName()); //$NON-NLS-1$
 			}
 		}
 
-		return files.toArray(new File[0]);
+		File[] result = files.toArray(new File[files.size()]);
+		synchronized (this) {
+			Set<File> dirs = new HashSet<>();
+			for (File file : result) {
+				dirs.add(getCacheEntryDir(file));
+			}
+			fUsedDirs.put(model.getInstallLocation(), dirs);
+			if (extractedSize > 0 && fCacheSize >= 0) {
+				fCacheSize += extractedSize;
+				if (fCacheSize > MAX_CACHE_SIZE)
+					evict();
+			}
+		}
+		return result;
 	}
 
 	/**
-	 * Deletes all the cached JARs of libraries which are currently not contained
-	 * or enabled in the target platform. Will ignore any errors when trying to
+	 * Returns the future extraction of a library, starting it unless the same library is
+	 * already being extracted.
+	 */
+	private CompletableFuture<File> extract(File fJarFile, String libName, File fDestFile) {
+		CompletableFuture<File> extraction = new CompletableFuture<>();
+		CompletableFuture<File> running = fExtractions.putIfAbsent(fDestFile, extraction);
+		if (running != null)
+			return running;
+
+		ForkJoinPool.commonPool().execute(() -> {
+			try {
+				extraction.complete(extractJar(fJarFile, libName, fDestFile));
+			} catch (IOException | RuntimeException e) {
+				extraction.completeExceptionally(e);
+			} finally {
+				fExtractions.remove(fDestFile);
+			}
+		});
+		return extraction;
+	}
+
+	/**
+	 * Forgets the libraries of bundles which are currently not contained or enabled in the
+	 * target platform, and deletes the least recently used libraries which are not in use if
+	 * the cache is larger than {@link #MAX_CACHE_SIZE}. Will ignore any errors when trying to
 	 * delete a directory.
 	 *
 	 * @param targetModels The current contents of the target platform.
 	 */
-	public void cleanExtractedLibraries(IPluginModelBase[] targetModels) {
+	public synchronized void cleanExtractedLibraries(IPluginModelBase[] targetModels) {
+		Set<String> locations = new HashSet<>();
+		for (IPluginModelBase targetModel : targetModels) {
+			if (targetModel.isEnabled())
+				locations.add(targetModel.getInstallLocation());
+		}
+		fUsedDirs.keySet().retainAll(locations);
+
 		File fCacheDir = getLibraryCacheDir();
 		if (!fCacheDir.isDirectory())
 			return;
 
-		// build a list with all potential directory names for quick check
-		Set<String> bundleKeys = new HashSet<>();
+		evict();
 
-		for (IPluginModelBase targetModel : targetModels) {
-			if (targetModel.isEnabled()) {
-				BundleDescription desc = targetModel.getBundleDescription();
-				bundleKeys.add(getBundleLibsCacheDirName(desc));
+		// Delete the cache folder if it is empty
+		fCacheDir.delete();
+	}
+
+	/**
+	 * Deletes the least recently used cache directories which are not in use, until the cache
+	 * is no larger than {@link #MAX_CACHE_SIZE}, and updates the size of the cache.
+	 */
+	private void evict() {
+		File[] fDirs = getLibraryCacheDir().listFiles();
+		if (fDirs == null) {
+			fCacheSize = 0;
+			return;
+		}
+
+		Set<File> used = new HashSet<>();
+		for (Set<File> dirs : fUsedDirs.values()) {
+			used.addAll(dirs);
+		}
+		for (File extracting : fExtractions.keySet()) {
+			used.add(getCacheEntryDir(extracting));
+		}
+
+		final Map<File, Long> lastUsed = new HashMap<>();
+		Map<File, Long> sizes = new HashMap<>();
+		long size = 0;
+		for (File fDir : fDirs) {
+			if (!fDir.isDirectory())
+				continue;
+			long dirSize = getSize(fDir);
+			size += dirSize;
+			if (!used.contains(fDir)) {
+				lastUsed.put(fDir, Long.valueOf(fDir.lastModified()));
+				sizes.put(fDir, Long.valueOf(dirSize));
 			}
 		}
 
-		File[] fDirs = fCacheDir.listFiles();
-		for (int i = 0; i < fDirs.length; i++) {
-			if (fDirs[i].isDirectory() && !bundleKeys.contains(fDirs[i].getName()))
-				CoreUtility.deleteContent(fDirs[i]);
+		List<File> candidates = new ArrayList<>(lastUsed.keySet());
+		Collections.sort(candidates, (f1, f2) -> lastUsed.get(f1).compareTo(lastUsed.get(f2)));
+		for (File fDir : candidates) {
+			if (size <= MAX_CACHE_SIZE)
+				break;
+			CoreUtility.deleteContent(fDir);
+			size -= sizes.get(fDir).longValue();
 		}
+		fCacheSize = size;
+	}
 
-		// Delete the cache folder if it is empty
-		fCacheDir.delete();
+	private static long getSize(File file) {
+		if (file.isFile())
+			return file.length();
+		long size = 0;
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				size += getSize(child);
+			}
+		}
+		return size;
 	}
 
 	/**
@@ -160,14 +304,30 @@ class ExternalLibraryCache {
 	}
 
 	/**
-	 * Returns the name of the library cache directory for the given bundle.
+	 * Returns the cache directory a cached library is stored in.
+	 */
+	private File getCacheEntryDir(File library) {
+		File cacheDir = getLibraryCacheDir();
+		File dir = library.getParentFile();
+		while (dir != null && !cacheDir.equals(dir.getParentFile())) {
+			dir = dir.getParentFile();
+		}
+		return dir;
+	}
+
+	/**
+	 * Returns the name of the library cache directory for a library of the given bundle.
 	 *
 	 * @param desc Bundle descriptor.
+	 * @param libEntry the library's entry in the bundle's jar
 	 *
-	 * @return <code>[bundle ID]_[bundle version]</code>
+	 * @return <code>[library checksum]_[library size]</code>, or <code>[bundle ID]_[bundle version]</code>
+	 * if the jar does not record the checksum and size of the library
 	 */
-	private String getBundleLibsCacheDirName(BundleDescription desc) {
-		return desc.getSymbolicName() + "_" + desc.getVersion(); //$NON-NLS-1$
+	private String getLibraryCacheDirName(BundleDescription desc, ZipEntry libEntry) {
+		if (libEntry.getCrc() == -1 || libEntry.getSize() == -1)
+			return desc.getSymbolicName() + "_" + desc.getVersion(); //$NON-NLS-1$
+		return Long.toHexString(libEntry.getCrc()) + "_" + libEntry.getSize(); //$NON-NLS-1$
 	}
 
 	/**
@@ -192,7 +352,13 @@ class ExternalLibraryCache {
 			if (in == null)
 				throw new IOException();
 
-			CoreUtility.readFile(in, fTargetFile);
+			// extract to a temporary file first, so an incomplete library is never used
+			File fTempFile = new File(fTargetFile.getPath() + TEMP_SUFFIX);
+			CoreUtility.readFile(in, fTempFile);
+			if (!fTempFile.renameTo(fTargetFile) && !fTargetFile.isFile()) {
+				fTempFile.delete();
+				throw new IOException("Could not rename " + fTempFile); //$NON-NLS-1$
+			}
 			return fTargetFile;
 		} finally {
 			try {
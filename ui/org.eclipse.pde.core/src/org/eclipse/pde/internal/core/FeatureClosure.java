@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.core;
+
+import java.util.*;
+import org.eclipse.pde.internal.core.ifeature.*;
+
+/**
+ * The transitive closure of a root feature: the root feature, all features it
+ * includes directly or indirectly and the plug-ins of all these features.
+ * Entries restricted to an environment are part of the closure for all
+ * environments.
+ *
+ * Closures are immutable. They are computed and cached by the
+ * {@link FeatureModelManager}, see
+ * {@link FeatureModelManager#getFeatureClosure(String, String)}.
+ */
+public final class FeatureClosure {
+
+	private final IFeatureModel[] fFeatures;
+	private final IFeatureModel[] fPostOrder;
+	private final IFeaturePlugin[] fPlugins;
+	// ids of all features looked up, including the ones that were not found
+	private final Set<String> fFeatureIds;
+
+	/**
+	 * Visits the features of a closure depth first.
+	 */
+	private static class Collector {
+		final FeatureModelManager manager;
+		final Set<IFeatureModel> features = new LinkedHashSet<>();
+		final List<IFeatureModel> postOrder = new ArrayList<>();
+		final Map<String, IFeaturePlugin> plugins = new LinkedHashMap<>();
+		final Set<String> featureIds = new HashSet<>();
+
+		Collector(FeatureModelManager manager) {
+			this.manager = manager;
+		}
+
+		void visit(IFeatureModel model) {
+			if (!features.add(model))
+				return;
+
+			IFeature feature = model.getFeature();
+			for (IFeaturePlugin plugin : feature.getPlugins()) {
+				String pluginId = plugin.getId();
+				if (pluginId == null)
+					continue;
+				String key = pluginId + '_' + plugin.getVersion();
+				if (!plugins.containsKey(key))
+					plugins.put(key, plugin);
+			}
+
+			for (IFeatureChild child : feature.getIncludedFeatures()) {
+				if (child.getId() == null)
+					continue;
+				featureIds.add(child.getId());
+				IFeatureModel childModel = manager.findFeatureModel(child.getId(), child.getVersion());
+				if (childModel != null)
+					visit(childModel);
+			}
+			postOrder.add(model);
+		}
+	}
+
+	private FeatureClosure(Collector collector) {
+		fFeatures = collector.features.toArray(new IFeatureModel[collector.features.size()]);
+		fPostOrder = collector.postOrder.toArray(new IFeatureModel[collector.postOrder.size()]);
+		fPlugins = collector.plugins.values().toArray(new IFeaturePlugin[collector.plugins.size()]);
+		fFeatureIds = collector.featureIds;
+	}
+
+	/**
+	 * Computes the closure of a root feature.
+	 *
+	 * @param manager manager to find the included features with
+	 * @param id id of the root feature
+	 * @param version version of the root feature, newest version is used for empty version
+	 * @return the closure of the root feature
+	 */
+	static FeatureClosure compute(FeatureModelManager manager, String id, String version) {
+		Collector collector = new Collector(manager);
+		collector.featureIds.add(id);
+		IFeatureModel root = manager.findFeatureModel(id, version);
+		if (root != null)
+			collector.visit(root);
+		return new FeatureClosure(collector);
+	}
+
+	/**
+	 * Returns the root feature followed by all features it includes, in depth
+	 * first order. Included features that cannot be found are omitted.
+	 *
+	 * @return the features of the closure, empty if the root feature cannot be found
+	 */
+	public IFeatureModel[] getFeatures() {
+		return fFeatures.clone();
+	}
+
+	/**
+	 * Returns the features of the closure in depth first post-order: each
+	 * feature follows the features it includes, and the root feature comes
+	 * last. A feature including one of the features it is included by follows
+	 * that feature.
+	 *
+	 * @return the features of the closure, empty if the root feature cannot be found
+	 */
+	public IFeatureModel[] getFeaturesInPostOrder() {
+		return fPostOrder.clone();
+	}
+	/**
+	 * Returns the plug-in entries of all features of the closure. An entry
+	 * listed by several features with the same id and version is only
+	 * returned once.
+	 *
+	 * @return the plug-in entries of the closure
+	 */
+	public IFeaturePlugin[] getPlugins() {
+		return fPlugins.clone();
+	}
+
+	/**
+	 * Returns whether the closure depends on the features of the given model,
+	 * because it contains the model or has looked up a feature with the same id.
+	 */
+	boolean dependsOn(IFeatureModel model) {
+		String id = model.getFeature().getId();
+		if (id != null && fFeatureIds.contains(id))
+			return true;
+		for (IFeatureModel feature : fFeatures) {
+			if (feature == model)
+				return true;
+		}
+		return false;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2015 IBM Corporation and others.
+ *  Copyright (c) 2000, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -11,6 +11,7 @@
 package org.eclipse.pde.internal.core;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.WorkspaceJob;
 import org.eclipse.core.runtime.*;
@@ -44,7 +45,10 @@ public class FeatureModelManager {
 
 	private ExternalFeatureModelManager fExternalManager;
 
-	private boolean fReloadExternalNeeded = false;
+	private volatile boolean fReloadExternalNeeded = false;
+
+	// whether the tables are filled, so lookups need not synchronize
+	private volatile boolean fInitialized = false;
 
 	private WorkspaceFeatureModelManager fWorkspaceManager;
 
@@ -55,6 +59,14 @@ public class FeatureModelManager {
 	 */
 	private ArrayList<IFeatureModelListener> fListeners;
 
+	/**
+	 * Cached feature closures by root feature
+	 */
+	private final Map<String, FeatureClosure> fClosures = new ConcurrentHashMap<>();
+
+	// incremented whenever closures are invalidated, guarded by fClosures
+	private int fClosureGeneration;
+
 	public FeatureModelManager() {
 		fWorkspaceManager = new WorkspaceFeatureModelManager();
 		fListeners = new ArrayList<>();
@@ -68,7 +80,13 @@ public class FeatureModelManager {
 		}
 	}
 
-	private synchronized void init() {
+	private void init() {
+		if (fInitialized && !fReloadExternalNeeded)
+			return;
+		initialize();
+	}
+
+	private synchronized void initialize() {
 		if (fActiveModels != null) {
 			if (fReloadExternalNeeded) {
 				fReloadExternalNeeded = false;
@@ -117,7 +135,7 @@ public class FeatureModelManager {
 			initializeExternalManager.schedule();
 		} else
 			fExternalManager.initialize();
-
+		fInitialized = true;
 	}
 
 	/*
@@ -224,28 +242,28 @@ public class FeatureModelManager {
 		return valid.toArray(new IFeatureModel[valid.size()]);
 	}
 
+	/**
+	 * Finds the active model with the given id and the highest version
+	 *
+	 * @param id
+	 * @return IFeatureModel or null
+	 */
 	public IFeatureModel findFeatureModel(String id) {
-		IFeatureModel[] models = findFeatureModels(id);
-		IFeatureModel result = null;
-		for (final IFeatureModel model : models) {
-			if (result == null) {
-				result = model;
-			} else {
-				final String version = result.getFeature().getVersion();
-				final String version2 = model.getFeature().getVersion();
-				Version vid = Version.parseVersion(version);
-				Version vid2 = Version.parseVersion(version2);
-				if (VersionUtil.isGreaterOrEqualTo(vid2, vid)) {
-					result = model;
-				}
+		init();
+		// models are sorted by ascending version
+		IFeatureModel[] models = fActiveModels.get(id);
+		for (int i = models.length - 1; i >= 0; i--) {
+			if (models[i].isValid()) {
+				return models[i];
 			}
 		}
-		return result;
+		return null;
 	}
 
 	private void handleModelsChanged(IModelProviderEvent e) {
 		init();
 		IFeatureModelDelta delta = processEvent(e);
+		invalidateClosures(delta);
 
 		Object[] entries = fListeners.toArray();
 		for (final Object entry : entries) {
@@ -403,6 +421,64 @@ public class FeatureModelManager {
 		}
 	}
 
+	/**
+	 * Returns the transitive closure of a root feature: the feature, all
+	 * features it includes directly or indirectly and their plug-ins,
+	 * including the entries restricted to an environment.
+	 *
+	 * Closures are cached until a feature they depend on is added, removed or
+	 * changed.
+	 *
+	 * @param id id of the root feature
+	 * @param version version of the root feature, newest version is used for empty version
+	 * @return the closure of the root feature, which has no features if the
+	 *  root feature cannot be found
+	 */
+	public FeatureClosure getFeatureClosure(String id, String version) {
+		init();
+		String key = id + '_' + version;
+		FeatureClosure closure = fClosures.get(key);
+		if (closure != null)
+			return closure;
+
+		int generation;
+		synchronized (fClosures) {
+			generation = fClosureGeneration;
+		}
+		// compute without holding a lock, the lookups may initialize the models
+		closure = FeatureClosure.compute(this, id, version);
+		synchronized (fClosures) {
+			// do not cache a closure computed from models that have changed since
+			if (generation == fClosureGeneration)
+				fClosures.put(key, closure);
+		}
+		return closure;
+	}
+
+	private void invalidateClosures(IFeatureModelDelta delta) {
+		synchronized (fClosures) {
+			fClosureGeneration++;
+			if (fClosures.isEmpty())
+				return;
+			List<IFeatureModel> models = new ArrayList<>();
+			if ((delta.getKind() & IFeatureModelDelta.ADDED) != 0)
+				models.addAll(Arrays.asList(delta.getAdded()));
+			if ((delta.getKind() & IFeatureModelDelta.REMOVED) != 0)
+				models.addAll(Arrays.asList(delta.getRemoved()));
+			if ((delta.getKind() & IFeatureModelDelta.CHANGED) != 0)
+				models.addAll(Arrays.asList(delta.getChanged()));
+			for (Iterator<FeatureClosure> iter = fClosures.values().iterator(); iter.hasNext();) {
+				FeatureClosure closure = iter.next();
+				for (IFeatureModel model : models) {
+					if (closure.dependsOn(model)) {
+						iter.remove();
+						break;
+					}
+				}
+			}
+		}
+	}
+
 	public void addFeatureModelListener(IFeatureModelListener listener) {
 		if (!fListeners.contains(listener))
 			fListeners.add(listener);
@@ -415,6 +491,10 @@ public class FeatureModelManager {
 
 	public void targetReloaded() {
 		fReloadExternalNeeded = true;
+		synchronized (fClosures) {
+			fClosureGeneration++;
+			fClosures.clear();
+		}
 	}
 
 	public IFeatureModel getDeltaPackFeature() {
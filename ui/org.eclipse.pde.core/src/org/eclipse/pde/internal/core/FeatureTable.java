@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2005, 2012 IBM Corporation and others.
+ *  Copyright (c) 2005, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -11,16 +11,24 @@
 package org.eclipse.pde.internal.core;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.pde.internal.core.ifeature.IFeature;
 import org.eclipse.pde.internal.core.ifeature.IFeatureModel;
+import org.osgi.framework.Version;
 
 /**
  * Stores IFeatureModels. Models are indexed by id and id with version for fast
  * retrieval. Given id or version may have more than one corresponding model. A
  * model has only one id and version that can be null. When models changes, its
  * Idver stays unchanged until the models reinserted.
+ * <p>
+ * The models of an id are kept sorted by version, so the models of a version
+ * are found by binary search. Changes are serialized, and replace the immutable
+ * entries of the changed id, so lookups do not lock and always see a
+ * consistent snapshot of an id's models.
+ * </p>
  */
-class FeatureTable {
+public class FeatureTable {
 	public class Idver {
 		private final String fId;
 
@@ -74,70 +82,152 @@ class FeatureTable {
 
 	private static final IFeatureModel[] NO_MODELS = new IFeatureModel[0];
 
+	private static final VersionEntry[] NO_ENTRIES = new VersionEntry[0];
+
+	// key of the models without id, as the concurrent maps do not allow null keys
+	private static final Object NULL_ID = new Object();
+
+	/**
+	 * Models of one id and version. Entries are never modified once published.
+	 */
+	private static class VersionEntry {
+		final Idver idver;
+		// null if the version is not a valid OSGi version
+		final Version version;
+		final IFeatureModel[] models;
+
+		VersionEntry(Idver idver, Version version, IFeatureModel[] models) {
+			this.idver = idver;
+			this.version = version;
+			this.models = models;
+		}
+	}
+
 	/**
 	 * Map of IFeatureModel to Idver
 	 */
-	private Map<IFeatureModel, Idver> fModel2idver;
+	private final Map<IFeatureModel, Idver> fModel2idver = new ConcurrentHashMap<>();
 
 	/**
-	 * Map of Idver to ArrayList of IFeatureModel
+	 * Map of id to the entries of its versions, sorted by version
 	 */
-	private Map<Idver, ArrayList<IFeatureModel>> fIdver2models;
+	private final Map<Object, VersionEntry[]> fId2entries = new ConcurrentHashMap<>();
 
 	/**
-	 * Map of Id to ArrayList of Idver
+	 * All models, or <code>null</code> if the table changed since they were
+	 * last collected
 	 */
-	private Map<String, ArrayList<Idver>> fId2idvers;
+	private volatile IFeatureModel[] fAllModels;
 
 	public FeatureTable() {
-
-		fModel2idver = new HashMap<>();
-		fIdver2models = new HashMap<>();
-		fId2idvers = new HashMap<>();
 	}
 
-	public synchronized Idver get(IFeatureModel model) {
+	public Idver get(IFeatureModel model) {
 		return fModel2idver.get(model);
 	}
 
-	public synchronized IFeatureModel[] get(String id, String version) {
-		return getImpl(new Idver(id, version));
+	public IFeatureModel[] get(String id, String version) {
+		VersionEntry[] entries = getEntries(id);
+		int index = indexOf(entries, parseVersion(version), version);
+		if (index < 0)
+			return NO_MODELS;
+		return entries[index].models.clone();
 	}
 
-	public synchronized IFeatureModel[] get(Idver idver) {
-		return getImpl(idver);
+	public IFeatureModel[] get(Idver idver) {
+		return get(idver.getId(), idver.getVer());
 	}
 
-	private IFeatureModel[] getImpl(Idver idver) {
-		ArrayList<?> models = fIdver2models.get(idver);
-		if (models == null) {
-			return NO_MODELS;
+	/**
+	 * Returns the models with the given id, sorted by ascending version.
+	 */
+	public IFeatureModel[] get(String id) {
+		VersionEntry[] entries = getEntries(id);
+		if (entries.length == 1)
+			return entries[0].models.clone();
+
+		ArrayList<IFeatureModel> allModels = new ArrayList<>();
+		for (VersionEntry entry : entries) {
+			Collections.addAll(allModels, entry.models);
 		}
-		return models.toArray(new IFeatureModel[models.size()]);
+		return allModels.toArray(new IFeatureModel[allModels.size()]);
 	}
 
-	public synchronized IFeatureModel[] get(String id) {
-		ArrayList<Idver> idvers = fId2idvers.get(id);
-		if (idvers == null)
-			return NO_MODELS;
-		ArrayList<IFeatureModel> allModels = new ArrayList<>();
-		for (int i = 0; i < idvers.size(); i++) {
-			Idver idver = idvers.get(i);
-			ArrayList<IFeatureModel> models = fIdver2models.get(idver);
-			if (models == null) {
-				continue;
+	public IFeatureModel[] getAll() {
+		IFeatureModel[] models = fAllModels;
+		if (models == null) {
+			synchronized (this) {
+				models = fAllModels;
+				if (models == null) {
+					models = fModel2idver.keySet().toArray(new IFeatureModel[fModel2idver.size()]);
+					fAllModels = models;
+				}
 			}
-			allModels.addAll(models);
 		}
-		return allModels.toArray(new IFeatureModel[allModels.size()]);
+		return models.clone();
+	}
+
+	private VersionEntry[] getEntries(String id) {
+		VersionEntry[] entries = fId2entries.get(getKey(id));
+		return entries == null ? NO_ENTRIES : entries;
 	}
 
-	public synchronized IFeatureModel[] getAll() {
-		return getAllImpl();
+	private static Object getKey(String id) {
+		return id == null ? NULL_ID : id;
 	}
 
-	private IFeatureModel[] getAllImpl() {
-		return fModel2idver.keySet().toArray(new IFeatureModel[fModel2idver.size()]);
+	private static Version parseVersion(String version) {
+		if (version == null)
+			return null;
+		try {
+			return Version.parseVersion(version);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Orders versions by their OSGi version, with invalid versions first, and
+	 * versions that are equal as OSGi versions by their text.
+	 */
+	private static int compare(Version version1, String text1, Version version2, String text2) {
+		if (version1 != null && version2 != null) {
+			int result = version1.compareTo(version2);
+			if (result != 0)
+				return result;
+		} else if (version1 != null) {
+			return 1;
+		} else if (version2 != null) {
+			return -1;
+		}
+
+		if (text1 == null)
+			return text2 == null ? 0 : -1;
+		if (text2 == null)
+			return 1;
+		return text1.compareTo(text2);
+	}
+
+	/**
+	 * Searches the entry of the given version.
+	 *
+	 * @return the index of the entry, or <code>-(insertion point) - 1</code>
+	 * if there is no entry for the version
+	 */
+	private static int indexOf(VersionEntry[] entries, Version version, String text) {
+		int low = 0;
+		int high = entries.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int result = compare(entries[mid].version, entries[mid].idver.getVer(), version, text);
+			if (result < 0)
+				low = mid + 1;
+			else if (result > 0)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return -(low + 1);
 	}
 
 	/**
@@ -154,26 +244,33 @@ class FeatureTable {
 		if (idver == null) {
 			return null;
 		}
-		ArrayList<?> models = fIdver2models.get(idver);
-		for (int i = 0; i < models.size(); i++) {
-			if (models.get(i) == model) {
-				models.remove(i);
-				break;
-			}
+		fAllModels = null;
+
+		Object key = getKey(idver.getId());
+		VersionEntry[] entries = getEntries(idver.getId());
+		int index = indexOf(entries, parseVersion(idver.getVer()), idver.getVer());
+		if (index < 0) {
+			return idver;
 		}
-		if (models.size() <= 0) {
-			fIdver2models.remove(idver);
 
-			ArrayList<?> idvers = fId2idvers.get(idver.getId());
-			for (int i = 0; i < idvers.size(); i++) {
-				if (idvers.get(i).equals(idver)) {
-					idvers.remove(i);
-					break;
-				}
-			}
-			if (idvers.size() <= 0) {
-				fId2idvers.remove(idver.getId());
+		VersionEntry entry = entries[index];
+		if (entry.models.length > 1) {
+			IFeatureModel[] models = new IFeatureModel[entry.models.length - 1];
+			int size = 0;
+			for (IFeatureModel other : entry.models) {
+				if (other != model && size < models.length)
+					models[size++] = other;
 			}
+			VersionEntry[] newEntries = entries.clone();
+			newEntries[index] = new VersionEntry(entry.idver, entry.version, models);
+			fId2entries.put(key, newEntries);
+		} else if (entries.length > 1) {
+			VersionEntry[] newEntries = new VersionEntry[entries.length - 1];
+			System.arraycopy(entries, 0, newEntries, 0, index);
+			System.arraycopy(entries, index + 1, newEntries, index, entries.length - index - 1);
+			fId2entries.put(key, newEntries);
+		} else {
+			fId2entries.remove(key);
 		}
 		return idver;
 	}
@@ -192,27 +289,33 @@ class FeatureTable {
 		Idver idver = new Idver(id, ver);
 
 		fModel2idver.put(model, idver);
-
-		ArrayList<IFeatureModel> models = fIdver2models.get(idver);
-		if (models == null) {
-			models = new ArrayList<>(1);
-			fIdver2models.put(idver, models);
-		}
-		models.add(model);
-
-		ArrayList<Idver> idvers = fId2idvers.get(id);
-		if (idvers == null) {
-			idvers = new ArrayList<>(1);
-			fId2idvers.put(id, idvers);
+		fAllModels = null;
+
+		Version version = parseVersion(ver);
+		VersionEntry[] entries = getEntries(id);
+		int index = indexOf(entries, version, ver);
+		VersionEntry[] newEntries;
+		if (index >= 0) {
+			VersionEntry entry = entries[index];
+			IFeatureModel[] models = Arrays.copyOf(entry.models, entry.models.length + 1);
+			models[entry.models.length] = model;
+			newEntries = entries.clone();
+			newEntries[index] = new VersionEntry(entry.idver, entry.version, models);
+		} else {
+			index = -index - 1;
+			newEntries = new VersionEntry[entries.length + 1];
+			System.arraycopy(entries, 0, newEntries, 0, index);
+			newEntries[index] = new VersionEntry(idver, version, new IFeatureModel[] {model});
+			System.arraycopy(entries, index, newEntries, index + 1, entries.length - index);
 		}
-		idvers.add(idver);
+		fId2entries.put(getKey(id), newEntries);
 
 		return idver;
 	}
 
 	@Override
-	public synchronized String toString() {
-		IFeatureModel[] models = getAllImpl();
+	public String toString() {
+		IFeatureModel[] models = getAll();
 		StringBuffer buf = new StringBuffer(30 * models.length);
 		buf.append("["); //$NON-NLS-1$
 		for (int i = 0; i < models.length; i++) {
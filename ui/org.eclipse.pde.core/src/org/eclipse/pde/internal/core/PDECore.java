@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,9 +23,11 @@ import org.eclipse.pde.core.plugin.IPluginModelBase;
 import org.eclipse.pde.core.project.IBundleProjectService;
 import org.eclipse.pde.core.target.ITargetPlatformService;
 import org.eclipse.pde.internal.core.builders.FeatureRebuilder;
+import org.eclipse.pde.internal.core.builders.ManifestConsistencyChecker;
 import org.eclipse.pde.internal.core.builders.PluginRebuilder;
 import org.eclipse.pde.internal.core.project.BundleProjectService;
 import org.eclipse.pde.internal.core.schema.SchemaRegistry;
+import org.eclipse.pde.internal.core.search.PluginSearchIndex;
 import org.eclipse.pde.internal.core.target.P2TargetUtils;
 import org.eclipse.pde.internal.core.target.TargetPlatformService;
 import org.eclipse.update.configurator.ConfiguratorUtils;
@@ -141,6 +143,7 @@ public class PDECore extends Plugin implements DebugOptionsListener {
 	private SourceLocationManager fSourceLocationManager;
 	private JavadocLocationManager fJavadocLocationManager;
 	private SearchablePluginsManager fSearchablePluginsManager;
+	private PluginSearchIndex fPluginSearchIndex;
 	private ClasspathContainerResolverManager fClasspathContainerResolverManager;
 
 	// Tracing options manager
@@ -245,6 +248,13 @@ public class PDECore extends Plugin implements DebugOptionsListener {
 		return fTracingOptionsManager;
 	}
 
+	public synchronized PluginSearchIndex getPluginSearchIndex() {
+		if (fPluginSearchIndex == null) {
+			fPluginSearchIndex = new PluginSearchIndex();
+		}
+		return fPluginSearchIndex;
+	}
+
 	public synchronized SearchablePluginsManager getSearchablePluginsManager() {
 		if (fSearchablePluginsManager == null) {
 			fSearchablePluginsManager = new SearchablePluginsManager();
@@ -312,6 +322,7 @@ public class PDECore extends Plugin implements DebugOptionsListener {
 		fJavaElementChangeListener.shutdown();
 		fPluginRebuilder.stop();
 		fFeatureRebuilder.stop();
+		ManifestConsistencyChecker.shutdown();
 
 		if (fSchemaRegistry != null) {
 			fSchemaRegistry.shutdown();
@@ -325,10 +336,18 @@ public class PDECore extends Plugin implements DebugOptionsListener {
 			fSearchablePluginsManager.shutdown();
 			fSearchablePluginsManager = null;
 		}
+		if (fPluginSearchIndex != null) {
+			fPluginSearchIndex.shutdown();
+			fPluginSearchIndex = null;
+		}
 		if (fFeatureModelManager != null) {
 			fFeatureModelManager.shutdown();
 			fFeatureModelManager = null;
 		}
+		if (fSourceLocationManager != null) {
+			fSourceLocationManager.shutdown();
+			fSourceLocationManager = null;
+		}
 		// always shut down extension registry before model manager (since it needs data from model manager)
 		if (fExtensionRegistry != null) {
 			fExtensionRegistry.stop();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2015 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -299,6 +299,18 @@ public class PDECoreMessages extends NLS {
 
 	public static String FeatureExportOperation_runningPackagerScript;
 
+	public static String FeatureExportOperation_runningAssemblyInParallel;
+
+	public static String FeatureExportOperation_assemblyTimes;
+
+	public static String FeatureExportOperation_configurationTime;
+
+	public static String FeatureExportOperation_exportCacheSummary;
+
+	public static String FeatureExportOperation_reusedBundle;
+
+	public static String FeatureExportOperation_rebuiltBundle;
+
 	public static String FeatureExportOperation_workspaceBuildErrorsFoundDuringExport;
 
 	public static String FeatureModelManager_initializingFeatureTargetPlatform;
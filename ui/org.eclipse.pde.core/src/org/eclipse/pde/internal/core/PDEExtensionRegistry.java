@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2012 IBM Corporation and others.
+ * Copyright (c) 2006, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,7 +10,8 @@
  *******************************************************************************/
 package org.eclipse.pde.internal.core;
 
-import java.io.File;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.spi.RegistryContributor;
@@ -29,13 +30,29 @@ public class PDEExtensionRegistry {
 	private PDERegistryStrategy fStrategy = null;
 
 	private IPluginModelBase[] fModels = null;
+	// directory holding the registry cache and the caches of previous sets of models
+	private File fStateDir = null;
 	private ArrayList<IRegistryChangeListener> fListeners = new ArrayList<>();
 
 	private static final String EXTENSION_DIR = ".extensions"; //$NON-NLS-1$
 
+	/**
+	 * Directory holding the registry caches of previous sets of models, so that
+	 * switching back to a target platform reuses the registry built for it.
+	 */
+	private static final String EXTENSION_CACHE_DIR = ".extensions_cache"; //$NON-NLS-1$
+
+	/**
+	 * File recording the key of the set of models the registry cache was written for
+	 */
+	private static final String MODELS_KEY_FILENAME = ".modelsKey"; //$NON-NLS-1$
+
+	private static final int MAX_CACHED_REGISTRIES = 3;
+
 	public PDEExtensionRegistry() {
+		fStateDir = PDECore.getDefault().getStateLocation().toFile();
 		if (fStrategy == null) {
-			File extensionsDir = new File(PDECore.getDefault().getStateLocation().toFile(), EXTENSION_DIR);
+			File extensionsDir = getExtensionsDir();
 			// create the strategy without creating registry.  That way we create the registry at the last possible moment.
 			// This way we can listen to events in PDE without creating the registry until we need it.
 			fStrategy = new PDERegistryStrategy(new File[] {extensionsDir}, new boolean[] {false}, fMasterKey, this);
@@ -43,9 +60,20 @@ public class PDEExtensionRegistry {
 	}
 
 	public PDEExtensionRegistry(IPluginModelBase[] models) {
+		this(models, PDECore.getDefault().getStateLocation().toFile());
+	}
+
+	/**
+	 * Creates a registry for the given models which keeps its caches in the given directory.
+	 *
+	 * @param models the models to create the registry for
+	 * @param stateDir the directory to keep the registry caches in
+	 */
+	public PDEExtensionRegistry(IPluginModelBase[] models, File stateDir) {
 		fModels = models;
+		fStateDir = stateDir;
 		if (fStrategy == null) {
-			File extensionsDir = new File(PDECore.getDefault().getStateLocation().toFile(), EXTENSION_DIR);
+			File extensionsDir = getExtensionsDir();
 			// Use TargetPDERegistryStrategy so we don't connect listeners to PluginModelManager.  This is used only in target so we don't need change events.
 			fStrategy = new TargetPDERegistryStrategy(new File[] {extensionsDir}, new boolean[] {false}, fMasterKey, this);
 		}
@@ -68,7 +96,7 @@ public class PDEExtensionRegistry {
 
 	public void stop() {
 		if (fRegistry != null)
-			fRegistry.stop(fMasterKey);
+			stopRegistry();
 		dispose();
 	}
 
@@ -82,18 +110,92 @@ public class PDEExtensionRegistry {
 	}
 
 	private IExtensionRegistry createRegistry() {
+		restoreCache();
 		return RegistryFactory.createRegistry(fStrategy, fMasterKey, fUserKey);
 	}
 
 	public void targetReloaded() {
-		// stop old registry (which will write contents to FS) and delete the cache it creates
-		// might see if we can dispose of a registry without writing to file system.  NOTE: Don't call stop() because we want to still reuse fStrategy
+		// stop old registry (which will write contents to FS) and keep the cache it creates for the models it was built from,
+		// the next registry restores it if the same models are loaded again.  NOTE: Don't call stop() because we want to still reuse fStrategy
 		if (fRegistry != null)
-			fRegistry.stop(fMasterKey);
-		CoreUtility.deleteContent(new File(PDECore.getDefault().getStateLocation().toFile(), EXTENSION_DIR));
+			stopRegistry();
 		fRegistry = null;
 	}
 
+	/**
+	 * Stops the registry, which writes its cache, and records the key of the models it contains
+	 * with the cache.  The current models may already differ, such as when the target platform
+	 * has been reloaded.
+	 */
+	private void stopRegistry() {
+		String key = fStrategy.computeContributionsKey();
+		fRegistry.stop(fMasterKey);
+		File file = new File(getExtensionsDir(), MODELS_KEY_FILENAME);
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+			writer.write(key);
+		} catch (IOException e) {
+			// the cache will not be reused
+			file.delete();
+		}
+	}
+
+	private static String readModelsKey(File dir) {
+		File file = new File(dir, MODELS_KEY_FILENAME);
+		if (!file.isFile())
+			return null;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+			return reader.readLine();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Makes the registry cache written for the current set of models, if any, the cache the
+	 * registry reads on creation.  The cache currently in place is kept for its set of models,
+	 * and only the most recently used caches are kept.
+	 */
+	private void restoreCache() {
+		File extensionsDir = getExtensionsDir();
+		String key = fStrategy.computeModelsKey(getModels());
+		String currentKey = readModelsKey(extensionsDir);
+		if (key.equals(currentKey))
+			return;
+
+		File cacheDir = new File(fStateDir, EXTENSION_CACHE_DIR);
+		if (currentKey != null) {
+			File previous = new File(cacheDir, currentKey);
+			CoreUtility.deleteContent(previous);
+			cacheDir.mkdirs();
+			if (extensionsDir.renameTo(previous))
+				previous.setLastModified(System.currentTimeMillis());
+		}
+		// remove a cache that was not written for a known set of models
+		CoreUtility.deleteContent(extensionsDir);
+
+		File cached = new File(cacheDir, key);
+		if (cached.isDirectory() && !cached.renameTo(extensionsDir))
+			CoreUtility.deleteContent(cached);
+		extensionsDir.mkdirs();
+
+		File[] caches = cacheDir.listFiles();
+		if (caches != null && caches.length > MAX_CACHED_REGISTRIES) {
+			Arrays.sort(caches, new Comparator<File>() {
+				@Override
+				public int compare(File f1, File f2) {
+					return Long.compare(f2.lastModified(), f1.lastModified());
+				}
+			});
+			for (int i = MAX_CACHED_REGISTRIES; i < caches.length; i++) {
+				CoreUtility.deleteContent(caches[i]);
+			}
+		}
+	}
+
+	private File getExtensionsDir() {
+		return new File(fStateDir, EXTENSION_DIR);
+	}
+
 	// dispose of registry without writing contents.
 	public void dispose() {
 		fStrategy.dispose();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2012 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,9 @@
 package org.eclipse.pde.internal.core;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import javax.xml.parsers.SAXParserFactory;
@@ -34,6 +37,9 @@ public class PDERegistryStrategy extends RegistryStrategy {
 	private ExtensionListener fExtensionListener = null;
 	private PDEExtensionRegistry fPDERegistry = null;
 
+	// locations of the models contributed to the registry by bundle id
+	private Map<String, String> fLocations = new HashMap<>();
+
 	class RegistryListener {
 		IExtensionRegistry fRegistry;
 
@@ -81,6 +87,8 @@ public class PDERegistryStrategy extends RegistryStrategy {
 						for (IContributor contributor : contributors) {
 							if (entry.getId().equals(contributor.getName())) {
 								registry.removeContributor(contributor, fKey);
+								if (contributor instanceof RegistryContributor)
+									removeLocation(((RegistryContributor) contributor).getActualId());
 								break;
 							}
 						}
@@ -150,9 +158,21 @@ public class PDERegistryStrategy extends RegistryStrategy {
 	@Override
 	public void onStart(IExtensionRegistry registry, boolean loadedFromCache) {
 		super.onStart(registry, loadedFromCache);
+		synchronized (fLocations) {
+			fLocations.clear();
+		}
 		setListenerRegistry(registry);
-		if (!loadedFromCache)
+		if (!loadedFromCache) {
 			processBundles(registry);
+		} else {
+			// the cache was checked against the current models using getContributionsTimestamp()
+			for (IPluginModelBase base : fPDERegistry.getModels()) {
+				IContributor contributor = createContributor(base);
+				File input = getFile(base);
+				if (contributor != null && input != null)
+					addLocation(((RegistryContributor) contributor).getActualId(), input);
+			}
+		}
 	}
 
 	@Override
@@ -189,6 +209,7 @@ public class PDERegistryStrategy extends RegistryStrategy {
 		File input = getFile(base);
 		if (input == null)
 			return;
+		addLocation(((RegistryContributor) contributor).getActualId(), input);
 		InputStream is = null;
 		ZipFile jfile = null;
 
@@ -225,7 +246,62 @@ public class PDERegistryStrategy extends RegistryStrategy {
 			if (contributor != null && ((IDynamicExtensionRegistry) registry).hasContributor(contributor)) {
 				((IDynamicExtensionRegistry) registry).removeContributor(createContributor(base), fKey);
 			}
+			if (contributor != null)
+				removeLocation(((RegistryContributor) contributor).getActualId());
+		}
+	}
+
+	private void addLocation(String bundleId, File input) {
+		synchronized (fLocations) {
+			fLocations.put(bundleId, input.getPath());
+		}
+	}
+
+	private void removeLocation(String bundleId) {
+		synchronized (fLocations) {
+			fLocations.remove(bundleId);
+		}
+	}
+
+	/**
+	 * Computes a key identifying the given set of models by the models that would be contributed
+	 * to a registry.  Contributors are identified by bundle id, so a registry cache can only be
+	 * reused for models with the same locations and bundle ids.  Whether the models changed since
+	 * the cache was written is checked by the registry using {@link #getContributionsTimestamp()}.
+	 *
+	 * @param bases the models
+	 * @return key of the models
+	 */
+	public String computeModelsKey(IPluginModelBase[] bases) {
+		Map<String, String> locations = new HashMap<>();
+		for (IPluginModelBase base : bases) {
+			IContributor contributor = createContributor(base);
+			File input = getFile(base);
+			if (contributor != null && input != null)
+				locations.put(((RegistryContributor) contributor).getActualId(), input.getPath());
+		}
+		return computeKey(locations);
+	}
+
+	/**
+	 * Computes the key of the models contributed to the current registry, including the models
+	 * added and removed since it was created.
+	 *
+	 * @return key of the contributed models
+	 * @see #computeModelsKey(IPluginModelBase[])
+	 */
+	public String computeContributionsKey() {
+		synchronized (fLocations) {
+			return computeKey(fLocations);
+		}
+	}
+
+	private static String computeKey(Map<String, String> locations) {
+		CRC32 crc = new CRC32();
+		for (Map.Entry<String, String> entry : new TreeMap<>(locations).entrySet()) {
+			crc.update((entry.getValue() + '@' + entry.getKey() + '\n').getBytes(StandardCharsets.UTF_8));
 		}
+		return Long.toHexString(crc.getValue()) + '_' + locations.size();
 	}
 
 	//	added for releasing cached information from IPluginModelBase
@@ -151,8 +151,65 @@ public class PluginModelManager implements IModelProviderListener {
 	private ExternalModelManager fExternalManager; // keeps track of changes in target models
 	private WorkspacePluginModelManager fWorkspaceManager; // keeps track of changes in the workspace
 	private PDEState fState; // keeps the combined view of the target and workspace
+	private BundleDependencyIndex fDependencyIndex = new BundleDependencyIndex(); // forward and reverse wiring of the bundles in fState
 
-	private Map<String, LocalModelEntry> fEntries; // a master table keyed by plugin ID and the value is a ModelEntry
+	/**
+	 * Immutable snapshot of the master table handed out to readers. A new snapshot
+	 * is published after every change to the table, so readers never lock and the
+	 * arrays computed from a snapshot can be cached until it is replaced.
+	 */
+	private static final class ModelTable {
+		final SortedMap<String, LocalModelEntry> entries;
+		private IPluginModelBase[] fActiveModels;
+		private IPluginModelBase[] fActivePlugins;
+		private IPluginModelBase[] fAllModels;
+		private IPluginModelBase[] fAllPlugins;
+
+		ModelTable(Map<String, LocalModelEntry> entries) {
+			this.entries = Collections.unmodifiableSortedMap(new TreeMap<>(entries));
+		}
+
+		synchronized IPluginModelBase[] getActiveModels(boolean includeFragments) {
+			if (includeFragments) {
+				if (fActiveModels == null)
+					fActiveModels = collect(true, true);
+				return fActiveModels;
+			}
+			if (fActivePlugins == null)
+				fActivePlugins = collect(true, false);
+			return fActivePlugins;
+		}
+
+		synchronized IPluginModelBase[] getAllModels(boolean includeFragments) {
+			if (includeFragments) {
+				if (fAllModels == null)
+					fAllModels = collect(false, true);
+				return fAllModels;
+			}
+			if (fAllPlugins == null)
+				fAllPlugins = collect(false, false);
+			return fAllPlugins;
+		}
+
+		private IPluginModelBase[] collect(boolean activeOnly, boolean includeFragments) {
+			ArrayList<IPluginModelBase> result = new ArrayList<>(entries.size());
+			for (ModelEntry entry : entries.values()) {
+				IPluginModelBase[] models;
+				if (activeOnly)
+					models = entry.getActiveModels();
+				else
+					models = entry.hasWorkspaceModels() ? entry.getWorkspaceModels() : entry.getExternalModels();
+				for (IPluginModelBase model : models) {
+					if (model instanceof IPluginModel || includeFragments)
+						result.add(model);
+				}
+			}
+			return result.toArray(new IPluginModelBase[result.size()]);
+		}
+	}
+
+	private Map<String, LocalModelEntry> fEntries; // a master table keyed by plugin ID and the value is a ModelEntry, only modified while holding the manager's lock
+	private volatile ModelTable fTable; // the last published snapshot of fEntries
 	private ArrayList<IPluginModelListener> fListeners; // a list of listeners interested in changes to the plug-in models
 	private ArrayList<IStateDeltaListener> fStateListeners; // a list of listeners interested in changes to the PDE/resolver State
 	private boolean fCancelled = false;
@@ -194,62 +251,73 @@ public class PluginModelManager implements IModelProviderListener {
 	@Override
 	public void modelsChanged(IModelProviderEvent e) {
 		PluginModelDelta delta = new PluginModelDelta();
+		StateDelta stateDelta = null;
+		boolean resolved = false;
+
+		synchronized (this) {
+			// Removes from the master table and the state all workspace plug-ins that have been
+			// removed (project closed/deleted) from the workspace.
+			// Also if the target location changes, all models from the old target are removed
+			if ((e.getEventTypes() & IModelProviderEvent.MODELS_REMOVED) != 0) {
+				IModel[] removed = e.getRemovedModels();
+				for (IModel element : removed) {
+					IPluginModelBase model = (IPluginModelBase) element;
+					String id = model.getPluginBase().getId();
+					if (id != null)
+						handleRemove(id, model, delta);
+				}
+			}
+
+			Set<String> addedBSNs = new HashSet<>();
+			// Adds to the master table and the state newly created plug-ins in the workspace
+			// (ie. new plug-in project or a closed project that has just been re-opened).
+			// Also, if the target location changes, we add all plug-ins from the new target
+			if ((e.getEventTypes() & IModelProviderEvent.MODELS_ADDED) != 0) {
+				IModel[] added = e.getAddedModels();
+				for (IModel element : added) {
+					IPluginModelBase model = (IPluginModelBase) element;
+					String id = model.getPluginBase().getId();
+					if (id != null) {
+						handleAdd(id, model, delta);
+						addedBSNs.add(id);
+					}
+				}
+			}
 
-		// Removes from the master table and the state all workspace plug-ins that have been
-		// removed (project closed/deleted) from the workspace.
-		// Also if the target location changes, all models from the old target are removed
-		if ((e.getEventTypes() & IModelProviderEvent.MODELS_REMOVED) != 0) {
-			IModel[] removed = e.getRemovedModels();
-			for (IModel element : removed) {
-				IPluginModelBase model = (IPluginModelBase) element;
-				String id = model.getPluginBase().getId();
-				if (id != null)
-					handleRemove(id, model, delta);
+			// Update the bundle description of plug-ins whose state has changed.
+			// A plug-in changes state if the MANIFEST.MF has been touched.
+			// or if a plug-in on the Target Platform has changed state (from checked to unchecked,
+			// and vice versa.
+			if ((e.getEventTypes() & IModelProviderEvent.MODELS_CHANGED) != 0) {
+				IModel[] changed = e.getChangedModels();
+				for (IModel element : changed)
+					handleChange((IPluginModelBase) element, delta);
 			}
-		}
 
-		Set<String> addedBSNs = new HashSet<>();
-		// Adds to the master table and the state newly created plug-ins in the workspace
-		// (ie. new plug-in project or a closed project that has just been re-opened).
-		// Also, if the target location changes, we add all plug-ins from the new target
-		if ((e.getEventTypes() & IModelProviderEvent.MODELS_ADDED) != 0) {
-			IModel[] added = e.getAddedModels();
-			for (IModel element : added) {
-				IPluginModelBase model = (IPluginModelBase) element;
-				String id = model.getPluginBase().getId();
-				if (id != null) {
-					handleAdd(id, model, delta);
-					addedBSNs.add(id);
+			if (fState != null) {
+				// if the target location has not changed, incrementally re-resolve the state after processing all the add/remove/modify changes
+				// Otherwise, the state is in a good resolved state
+				if (addedBSNs.isEmpty()) {
+					// resolve incrementally
+					stateDelta = fState.resolveState(true);
+				} else {
+					// resolve based on added bundles, in case there are multiple versions of the added bundles
+					stateDelta = fState.resolveState(addedBSNs.toArray(new String[addedBSNs.size()]));
 				}
+				fDependencyIndex.update(stateDelta);
+				resolved = true;
 			}
-		}
 
-		// Update the bundle description of plug-ins whose state has changed.
-		// A plug-in changes state if the MANIFEST.MF has been touched.
-		// or if a plug-in on the Target Platform has changed state (from checked to unchecked,
-		// and vice versa.
-		if ((e.getEventTypes() & IModelProviderEvent.MODELS_CHANGED) != 0) {
-			IModel[] changed = e.getChangedModels();
-			for (IModel element : changed)
-				handleChange((IPluginModelBase) element, delta);
+			// make the changes visible to readers
+			if (fEntries != null)
+				publishTable();
 		}
 
-		if (fState != null) {
-			// if the target location has not changed, incrementally re-resolve the state after processing all the add/remove/modify changes
-			// Otherwise, the state is in a good resolved state
-			StateDelta stateDelta = null;
-			if (addedBSNs.isEmpty()) {
-				// resolve incrementally
-				stateDelta = fState.resolveState(true);
-			} else {
-				// resolve based on added bundles, in case there are multiple versions of the added bundles
-				stateDelta = fState.resolveState(addedBSNs.toArray(new String[addedBSNs.size()]));
-			}
+		if (resolved) {
 			// trigger a classpath update for all workspace plug-ins affected by the
 			// processed batch of changes, run asynch for manifest changes
 			updateAffectedEntries(stateDelta, (e.getEventTypes() & IModelProviderEvent.MODELS_CHANGED) != 0);
 			fireStateDelta(stateDelta);
-
 		}
 
 		// notify all interested listeners in the changes made to the master table of entries
@@ -436,7 +504,7 @@ public class PluginModelManager implements IModelProviderListener {
 	 * 		<code>false</code> otherwise.
 	 */
 	public boolean isEmpty() {
-		return getEntryTable().size() == 0;
+		return getModelTable().entries.isEmpty();
 	}
 
 	/**
@@ -447,7 +515,7 @@ public class PluginModelManager implements IModelProviderListener {
 	 * 		<code>false</code> otherwise.
 	 */
 	public boolean isInitialized() {
-		return fEntries != null;
+		return fTable != null;
 	}
 
 	/**
@@ -467,22 +535,46 @@ public class PluginModelManager implements IModelProviderListener {
 	 * Clears all existing models and recreates them
 	 */
 	public void targetReloaded(IProgressMonitor monitor) {
-		fEntries = null;
+		synchronized (this) {
+			fEntries = null;
+			fTable = null;
+		}
 		initializeTable(monitor);
 	}
 
 	/**
-	 * Allow access to the table only through this getter.
+	 * Allow read access to the table only through this getter.
 	 * It always calls initialize to make sure the table is initialized.
 	 * If more than one thread tries to read the table at the same time,
 	 * and the table is not initialized yet, thread2 would wait.
-	 * This way there are no partial reads.
+	 * This way there are no partial reads. Once initialized, readers
+	 * get the last published snapshot without locking.
+	 */
+	private ModelTable getModelTable() {
+		ModelTable table = fTable;
+		if (table == null) {
+			initializeTable(null);
+			table = fTable;
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the modifiable master table. Must only be called while holding the
+	 * manager's lock, and {@link #publishTable()} must be called once the changes are complete.
 	 */
 	private Map<String, LocalModelEntry> getEntryTable() {
 		initializeTable(null);
 		return fEntries;
 	}
 
+	/**
+	 * Publishes a new snapshot of the master table for readers.
+	 */
+	private synchronized void publishTable() {
+		fTable = new ModelTable(fEntries);
+	}
+
 	/**
 	 *
 	 * This method must be synchronized so that only one thread
@@ -491,14 +583,15 @@ public class PluginModelManager implements IModelProviderListener {
 	 *
 	 */
 	private synchronized void initializeTable(IProgressMonitor monitor) {
-		if (fEntries != null)
+		if (fTable != null)
 			return;
 
 		// Check if PlatformAdmin service is available (Bug 413450)
 		PlatformAdmin pAdmin = Platform.getPlatformAdmin();
 		if (pAdmin == null) {
 			PDECore.logErrorMessage(PDECoreMessages.PluginModelManager_PlatformAdminMissingErrorMessage);
-			fEntries = Collections.emptyMap();
+			fEntries = new TreeMap<>();
+			publishTable();
 			return;
 		}
 
@@ -514,8 +607,8 @@ public class PluginModelManager implements IModelProviderListener {
 		PDEState oldState = fState;
 		long startTime = System.currentTimeMillis();
 
-		// Cannot assign to fEntries here - will create a race condition with isInitialized()
-		Map<String, LocalModelEntry> entries = Collections.synchronizedMap(new TreeMap<String, LocalModelEntry>());
+		// Cannot publish the table here - will create a race condition with isInitialized()
+		Map<String, LocalModelEntry> entries = new TreeMap<>();
 		fCancelled = false;
 
 		ITargetDefinition unresolvedRepoBasedtarget = null;
@@ -528,8 +621,10 @@ public class PluginModelManager implements IModelProviderListener {
 			//Workspace target contains unresolved p2 repositories,
 			//set empty fState, fExternalManager, fEntries- scheduling target platform resolve
 			fState = new PDEState(new URL[0], true, true, subMon);
+			fDependencyIndex.reset(fState.getState());
 			fExternalManager.setModels(new IPluginModelBase[0]);
 			fEntries = entries;
+			publishTable();
 			LoadTargetDefinitionJob.load(unresolvedRepoBasedtarget);
 			return;
 		}
@@ -576,9 +671,11 @@ public class PluginModelManager implements IModelProviderListener {
 
 		// Resolve the state for all external and workspace models
 		fState.resolveState(true);
+		fDependencyIndex.reset(fState.getState());
 		subMon.split(5);
 
 		fEntries = entries;
+		publishTable();
 		// flush the extension registry cache since workspace data (BundleDescription id's) have changed.
 		PDECore.getDefault().getExtensionsRegistry().targetReloaded();
 		if (oldState != null) {
@@ -954,7 +1051,7 @@ public class PluginModelManager implements IModelProviderListener {
 				// if the target plug-in has become disabled/unchecked, remove its bundle
 				// description from the state
 				fState.removeBundleDescription(model.getBundleDescription());
-			delta.addEntry(findEntry(oldID), PluginModelDelta.CHANGED);
+			delta.addEntry(getEntryTable().get(oldID), PluginModelDelta.CHANGED);
 		} else {
 			// if the symbolic name of the bundle has completely changed,
 			// remove the model from the old entry, and add the model to the new entry
@@ -973,7 +1070,7 @@ public class PluginModelManager implements IModelProviderListener {
 	public ModelEntry findEntry(String id) {
 		if ("system.bundle".equals(id)) //$NON-NLS-1$
 			id = getSystemBundleId();
-		return id == null ? null : (ModelEntry) getEntryTable().get(id);
+		return id == null ? null : (ModelEntry) getModelTable().entries.get(id);
 	}
 
 	/**
@@ -1063,18 +1160,7 @@ public class PluginModelManager implements IModelProviderListener {
 	 * (possibly) fragments that are checked on the Target Platform preference page.
 	 */
 	public IPluginModelBase[] getActiveModels(boolean includeFragments) {
-		int size = getEntryTable().size();
-		ArrayList<IPluginModelBase> result = new ArrayList<>(size);
-		Iterator<LocalModelEntry> iter = getEntryTable().values().iterator();
-		while (iter.hasNext()) {
-			ModelEntry entry = iter.next();
-			IPluginModelBase[] models = entry.getActiveModels();
-			for (IPluginModelBase model : models) {
-				if (model instanceof IPluginModel || includeFragments)
-					result.add(model);
-			}
-		}
-		return result.toArray(new IPluginModelBase[result.size()]);
+		return getModelTable().getActiveModels(includeFragments).clone();
 	}
 
 	/**
@@ -1114,18 +1200,7 @@ public class PluginModelManager implements IModelProviderListener {
 	 * checked on the Target Platform preference page.
 	 */
 	public IPluginModelBase[] getAllModels(boolean includeFragments) {
-		int size = getEntryTable().size();
-		ArrayList<IPluginModelBase> result = new ArrayList<>(size);
-		Iterator<LocalModelEntry> iter = getEntryTable().values().iterator();
-		while (iter.hasNext()) {
-			ModelEntry entry = iter.next();
-			IPluginModelBase[] models = entry.hasWorkspaceModels() ? entry.getWorkspaceModels() : entry.getExternalModels();
-			for (IPluginModelBase model : models) {
-				if (model instanceof IPluginModel || includeFragments)
-					result.add(model);
-			}
-		}
-		return result.toArray(new IPluginModelBase[result.size()]);
+		return getModelTable().getAllModels(includeFragments).clone();
 	}
 
 	/**
@@ -1167,6 +1242,17 @@ public class PluginModelManager implements IModelProviderListener {
 		return fState;
 	}
 
+	/**
+	 * Returns the index of the forward and reverse dependencies between the bundles
+	 * of the current PDE state. The index is kept up to date as the state is re-resolved.
+	 *
+	 * @return the dependency index of the current state
+	 */
+	public BundleDependencyIndex getDependencyIndex() {
+		initializeTable(null);
+		return fDependencyIndex;
+	}
+
 	/**
 	 * Returns the id of the system bundle currently in the resolver state
 	 *
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.core;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Index of the source archives found by the {@link SourceLocationManager}, so that
+ * repeated source lookups for the same bundle and relative path are answered without
+ * searching the source locations again.
+ * <p>
+ * An index is built for one target platform, identified by a stamp computed from the
+ * locations of the target's bundles and the user specified source locations. It is
+ * persisted and reused as long as the stamp is unchanged. Found paths are checked for
+ * existence before they are returned, since the files may have been deleted since they
+ * were indexed. Lookups that found nothing are only remembered until the index is
+ * dropped, as source may be added to the source locations in the meantime.
+ * </p>
+ */
+class SourceLocationIndex {
+
+	/**
+	 * Key of the stamp, which is not a valid relative path
+	 */
+	private static final String STAMP_KEY = "@stamp"; //$NON-NLS-1$
+
+	/**
+	 * Value recorded for lookups that did not find a source archive
+	 */
+	private static final String NOT_FOUND = ""; //$NON-NLS-1$
+
+	private final String fStamp;
+	private final File fFile;
+	private final Map<String, String> fEntries = new ConcurrentHashMap<>();
+	private volatile boolean fDirty;
+
+	/**
+	 * Names of the files contained in each source location directory
+	 */
+	private final Map<IPath, Set<String>> fChildren = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates an index for the target platform with the given stamp, reading the
+	 * persisted index if it was built for the same target platform.
+	 *
+	 * @param stamp stamp of the current target platform
+	 * @param file file the index is persisted in
+	 */
+	SourceLocationIndex(String stamp, File file) {
+		fStamp = stamp;
+		fFile = file;
+		if (file.isFile()) {
+			Properties properties = new Properties();
+			try (InputStream stream = new BufferedInputStream(new FileInputStream(file))) {
+				properties.load(stream);
+			} catch (IOException e) {
+				// start with an empty index
+				return;
+			}
+			if (stamp.equals(properties.getProperty(STAMP_KEY))) {
+				properties.remove(STAMP_KEY);
+				for (String key : properties.stringPropertyNames()) {
+					fEntries.put(key, properties.getProperty(key));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the given lookup has been indexed.
+	 *
+	 * @param key key of the lookup
+	 * @return whether the lookup has been indexed
+	 */
+	boolean contains(String key) {
+		String value = fEntries.get(key);
+		if (value == null)
+			return false;
+		if (value.equals(NOT_FOUND))
+			return true;
+		if (new File(value).exists())
+			return true;
+		fEntries.remove(key);
+		return false;
+	}
+
+	/**
+	 * Returns the indexed result of a lookup. Must only be called if {@link #contains(String)}
+	 * returned <code>true</code> for the key.
+	 *
+	 * @param key key of the lookup
+	 * @return the path found, or <code>null</code> if the lookup did not find a source archive
+	 */
+	IPath get(String key) {
+		String value = fEntries.get(key);
+		return value == null || value.equals(NOT_FOUND) ? null : new Path(value);
+	}
+
+	/**
+	 * Records the result of a lookup.
+	 *
+	 * @param key key of the lookup
+	 * @param path the path found, or <code>null</code> if the lookup did not find a source archive
+	 */
+	void put(String key, IPath path) {
+		fEntries.put(key, path == null ? NOT_FOUND : path.toOSString());
+		fDirty = true;
+	}
+
+	/**
+	 * Returns whether a source location directory contains a file or directory with the
+	 * given name. The content of each directory is only read once.
+	 *
+	 * @param location source location directory
+	 * @param name name of the file or directory
+	 * @return whether the directory contains the file or directory
+	 */
+	boolean hasChild(IPath location, String name) {
+		Set<String> children = fChildren.get(location);
+		if (children == null) {
+			String[] names = location.toFile().list();
+			children = names == null ? Collections.<String> emptySet() : new HashSet<>(Arrays.asList(names));
+			fChildren.put(location, children);
+		}
+		return children.contains(name);
+	}
+
+	/**
+	 * Persists the found paths of the index if it changed since it was read.
+	 */
+	void save() {
+		if (!fDirty)
+			return;
+		Properties properties = new Properties();
+		for (Map.Entry<String, String> entry : fEntries.entrySet()) {
+			if (!entry.getValue().equals(NOT_FOUND))
+				properties.setProperty(entry.getKey(), entry.getValue());
+		}
+		properties.setProperty(STAMP_KEY, fStamp);
+		fFile.getParentFile().mkdirs();
+		try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(fFile))) {
+			properties.store(stream, "Source location index"); //$NON-NLS-1$
+			fDirty = false;
+		} catch (IOException e) {
+			PDECore.log(e);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2013 IBM Corporation and others.
+ *  Copyright (c) 2000, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -12,7 +12,9 @@ package org.eclipse.pde.internal.core;
 
 import java.io.File;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.zip.CRC32;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.spi.RegistryContributor;
 import org.eclipse.osgi.service.resolver.BundleDescription;
@@ -25,6 +27,8 @@ import org.osgi.framework.Version;
  */
 public class SourceLocationManager implements ICoreConstants {
 
+	private static final String INDEX_FILENAME = ".source_index.properties"; //$NON-NLS-1$
+
 	/**
 	 * List of source locations that have been discovered using extension points
 	 */
@@ -35,6 +39,38 @@ public class SourceLocationManager implements ICoreConstants {
 	 */
 	private BundleManifestSourceLocationManager fBundleManifestLocator = null;
 
+	/**
+	 * Index of the results of previous searches for the current target platform
+	 */
+	private SourceLocationIndex fIndex = null;
+
+	/**
+	 * User specified source locations the index was built for
+	 */
+	private String fIndexedUserLocations = null;
+
+	/**
+	 * File the index is persisted in
+	 */
+	private final File fIndexFile;
+
+	/**
+	 * Creates a manager persisting its index of source archives in PDE's
+	 * metadata location.
+	 */
+	public SourceLocationManager() {
+		this(new File(PDECore.getDefault().getStateLocation().toFile(), INDEX_FILENAME));
+	}
+
+	/**
+	 * Creates a manager persisting its index of source archives in the given file.
+	 *
+	 * @param indexFile file to persist the index in
+	 */
+	public SourceLocationManager(File indexFile) {
+		fIndexFile = indexFile;
+	}
+
 	/**
 	 * Searches source locations for one that provides source for the given pluginBase.
 	 * Will search user specified locations, then bundle manifest specified locations, then
@@ -169,11 +205,70 @@ public class SourceLocationManager implements ICoreConstants {
 	}
 
 	/**
-	 * Clears the cache of all known extension and bundle manifest locations.
+	 * Clears the cache of all known extension and bundle manifest locations and
+	 * the index of source archives found for the previous target platform.
 	 */
 	public void reset() {
 		fExtensionLocations = null;
 		fBundleManifestLocator = null;
+		synchronized (this) {
+			if (fIndex != null) {
+				fIndex.save();
+				fIndex = null;
+			}
+		}
+	}
+
+	/**
+	 * Persists the index of source archives found for the current target platform.
+	 */
+	public synchronized void shutdown() {
+		if (fIndex != null)
+			fIndex.save();
+	}
+
+	/**
+	 * Returns the index of source archives found for the current target platform.
+	 * The target platform drops the index through {@link #reset()} when it is
+	 * loaded, and the index is rebuilt when the user specified source locations
+	 * changed since it was built.
+	 *
+	 * @return index of source archives found for the current target platform
+	 */
+	private synchronized SourceLocationIndex getIndex() {
+		String userLocations = getUserLocationsPreference();
+		if (fIndex != null && !userLocations.equals(fIndexedUserLocations)) {
+			fIndex.save();
+			fIndex = null;
+		}
+		if (fIndex == null) {
+			fIndex = new SourceLocationIndex(computeTargetStamp(userLocations), fIndexFile);
+			fIndexedUserLocations = userLocations;
+		}
+		return fIndex;
+	}
+
+	@SuppressWarnings("deprecation")
+	private static String getUserLocationsPreference() {
+		return PDECore.getDefault().getPreferencesManager().getString(P_SOURCE_LOCATIONS);
+	}
+
+	/**
+	 * Computes a stamp identifying the current target platform and user specified
+	 * source locations, which determine the results of source searches.
+	 * @param userLocations the user specified source locations preference
+	 * @return stamp of the current target platform
+	 */
+	private String computeTargetStamp(String userLocations) {
+		CRC32 crc = new CRC32();
+		crc.update(userLocations.getBytes(StandardCharsets.UTF_8));
+		IPluginModelBase[] models = PDECore.getDefault().getModelManager().getExternalModels();
+		for (IPluginModelBase model : models) {
+			String location = model.getInstallLocation();
+			if (location != null)
+				crc.update(location.getBytes(StandardCharsets.UTF_8));
+		}
+		return Long.toHexString(crc.getValue()) + '_' + models.length;
 	}
 
 	/**
@@ -182,10 +277,9 @@ public class SourceLocationManager implements ICoreConstants {
 	 *
 	 * @return array of source locations that have been specified by the user
 	 */
-	@SuppressWarnings("deprecation")
 	public List<SourceLocation> getUserLocations() {
 		List<SourceLocation> userLocations = new ArrayList<>();
-		String pref = PDECore.getDefault().getPreferencesManager().getString(P_SOURCE_LOCATIONS);
+		String pref = getUserLocationsPreference();
 		if (pref.length() > 0) {
 			parseSavedSourceLocations(pref, userLocations);
 		}
@@ -259,15 +353,13 @@ public class SourceLocationManager implements ICoreConstants {
 	 * @return path to the source file or <code>null</code> if one could not be found or if the file does not exist
 	 */
 	private IPath searchUserSpecifiedLocations(IPath relativePath) {
-		List<SourceLocation> userLocations = getUserLocations();
-		for (SourceLocation location : userLocations) {
-			IPath fullPath = location.getPath().append(relativePath);
-			File file = fullPath.toFile();
-			if (file.exists()) {
-				return fullPath;
-			}
-		}
-		return null;
+		SourceLocationIndex index = getIndex();
+		String key = "user/" + (relativePath == null ? "" : relativePath.toPortableString()); //$NON-NLS-1$ //$NON-NLS-2$
+		if (index.contains(key))
+			return index.get(key);
+		IPath result = searchLocations(getUserLocations(), relativePath, index);
+		index.put(key, result);
+		return result;
 	}
 
 	/**
@@ -277,8 +369,28 @@ public class SourceLocationManager implements ICoreConstants {
 	 * @return path to the source file or <code>null</code> if one could not be found or if the file does not exist
 	 */
 	private IPath searchExtensionLocations(IPath relativePath) {
-		List<SourceLocation> extensionLocations = getExtensionLocations();
-		for (SourceLocation location : extensionLocations) {
+		SourceLocationIndex index = getIndex();
+		String key = "extension/" + (relativePath == null ? "" : relativePath.toPortableString()); //$NON-NLS-1$ //$NON-NLS-2$
+		if (index.contains(key))
+			return index.get(key);
+		IPath result = searchLocations(getExtensionLocations(), relativePath, index);
+		index.put(key, result);
+		return result;
+	}
+
+	/**
+	 * Searches the given source locations, appending the relative path and checking if
+	 * that file exists.  Only locations containing the first segment of the relative path
+	 * are checked.
+	 * @param locations source locations to search
+	 * @param relativePath location of source file within the source location
+	 * @param index index providing the content of the source locations
+	 * @return path to the source file or <code>null</code> if one could not be found or if the file does not exist
+	 */
+	private IPath searchLocations(List<SourceLocation> locations, IPath relativePath, SourceLocationIndex index) {
+		for (SourceLocation location : locations) {
+			if (relativePath != null && relativePath.segmentCount() > 0 && !index.hasChild(location.getPath(), relativePath.segment(0)))
+				continue;
 			IPath fullPath = location.getPath().append(relativePath);
 			File file = fullPath.toFile();
 			if (file.exists()) {
@@ -296,11 +408,17 @@ public class SourceLocationManager implements ICoreConstants {
 	 * @return path to the source file or <code>null</code> if one could not be found or if the file does not exist
 	 */
 	private IPath searchBundleManifestLocations(IPluginBase pluginBase) {
+		SourceLocationIndex index = getIndex();
+		String key = "bundle/" + pluginBase.getId() + '_' + pluginBase.getVersion(); //$NON-NLS-1$
+		if (index.contains(key))
+			return index.get(key);
+		IPath result = null;
 		SourceLocation location = getBundleManifestLocation(pluginBase.getId(), new Version(pluginBase.getVersion()));
 		if (location != null && location.getPath().toFile().exists()) {
-			return location.getPath();
+			result = location.getPath();
 		}
-		return null;
+		index.put(key, result);
+		return result;
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -157,6 +157,15 @@ public class BuildErrorReporter extends ErrorReporter implements IBuildPropertie
 
 	@Override
 	public void validate(IProgressMonitor monitor) {
+		collectProblems();
+		reportProblems(monitor);
+	}
+
+	/**
+	 * Checks the build.properties file and stores all problems found. No markers
+	 * are created, so this may be called from a thread other than the builder's.
+	 */
+	void collectProblems() {
 		/*if (fBuildSeverity == CompilerFlags.IGNORE && fClasspathSeverity == CompilerFlags.IGNORE)
 			return;*/
 		WorkspaceBuildModel wbm = new WorkspaceBuildModel(fFile);
@@ -165,7 +174,14 @@ public class BuildErrorReporter extends ErrorReporter implements IBuildPropertie
 			return;
 		// check build and store all found errors
 		validateBuild(wbm.getBuild(true));
+	}
 
+	/**
+	 * Creates markers for the problems stored by {@link #collectProblems()}.
+	 *
+	 * @param monitor progress monitor
+	 */
+	void reportProblems(IProgressMonitor monitor) {
 		// if there are any errors report using the text model
 		if (fProblemList.size() > 0)
 			reportErrors(prepareTextBuildModel(monitor));
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2012 IBM Corporation and others.
+ *  Copyright (c) 2000, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -10,13 +10,70 @@
  *******************************************************************************/
 package org.eclipse.pde.internal.core.builders;
 
-import java.util.Vector;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.osgi.service.resolver.State;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.pde.core.plugin.*;
+import org.eclipse.pde.internal.core.PDECore;
 import org.eclipse.pde.internal.core.PDECoreMessages;
 
+/**
+ * Finds the loops of required plug-ins through a plug-in.
+ * <p>
+ * The dependency graph of all plug-ins and its strongly connected components
+ * are computed once for each version of the resolver state. Only plug-ins in the same
+ * component as the root can be part of its loops, so the loops of plug-ins that are not
+ * part of a cycle are found without any search, and the search for the others does not
+ * leave the root's component.
+ * </p>
+ */
 public class DependencyLoopFinder {
 
+	/**
+	 * Graph of the plug-ins required by all plug-ins, for one version of the state.  Each id
+	 * is resolved with {@link PluginRegistry#findModel(String)} like the required plug-ins
+	 * were by the search of all required plug-ins, so disabled plug-ins are part of the graph.
+	 */
+	private static final class Graph {
+
+		final State fState;
+		final long fTimeStamp;
+
+		final Map<String, Integer> fNodes = new HashMap<>();
+		final List<IPlugin> fPlugins = new ArrayList<>();
+		int[][] fRequired;
+		int[][] fRequiring;
+
+		/**
+		 * Strongly connected component of each node
+		 */
+		int[] fComponents;
+
+		/**
+		 * Whether each component contains a loop, i.e. has more than one node or a node
+		 * requiring itself
+		 */
+		boolean[] fLoopComponents;
+
+		/**
+		 * Loops through each plug-in, as node paths starting with the plug-in
+		 */
+		final Map<String, List<int[]>> fLoops = new ConcurrentHashMap<>();
+
+		Graph(State state) {
+			fState = state;
+			fTimeStamp = state.getTimeStamp();
+		}
+
+		int getNode(String id) {
+			Integer node = fNodes.get(id);
+			return node == null ? -1 : node.intValue();
+		}
+	}
+
+	private static volatile Graph fGraph;
+
 	public static DependencyLoop[] findLoops(IPlugin root) {
 		return findLoops(root, null);
 	}
@@ -26,93 +83,296 @@ public class DependencyLoopFinder {
 	}
 
 	public static DependencyLoop[] findLoops(IPlugin root, IPlugin[] candidates, boolean onlyCandidates) {
-		Vector<DependencyLoop> loops = new Vector<>();
-
-		Vector<IPlugin> path = new Vector<>();
-		findLoops(loops, path, root, candidates, onlyCandidates, new Vector<String>());
-		return loops.toArray(new DependencyLoop[loops.size()]);
-	}
+		Graph graph = getGraph();
+		int rootNode = graph.getNode(root.getId());
+		if (rootNode == -1)
+			return new DependencyLoop[0];
 
-	private static void findLoops(Vector<DependencyLoop> loops, Vector<IPlugin> path, IPlugin subroot, IPlugin[] candidates, boolean onlyCandidates, Vector<String> exploredPlugins) {
-		if (path.size() > 0) {
-			// test the path so far
-			// is the subroot the same as root - if yes, that's it
-
-			IPlugin root = path.elementAt(0);
-			if (isEquivalent(root, subroot)) {
-				// our loop!!
-				DependencyLoop loop = new DependencyLoop();
-				loop.setMembers(path.toArray(new IPlugin[path.size()]));
-				int no = loops.size() + 1;
-				loop.setName(NLS.bind(PDECoreMessages.Builders_DependencyLoopFinder_loopName, ("" + no))); //$NON-NLS-1$
-				loops.add(loop);
-				return;
+		List<int[]> paths;
+		if ((candidates == null || candidates.length == 0) && !onlyCandidates && hasRequiredPlugins(graph, rootNode, root)) {
+			// the root requires the same plug-ins as in the graph, its loops only depend on the graph
+			paths = graph.fLoops.get(root.getId());
+			if (paths == null) {
+				paths = findLoops(graph, rootNode, graph.fRequired[rootNode], getComponent(graph, rootNode));
+				graph.fLoops.put(root.getId(), paths);
 			}
-			// is the subroot the same as any other node?
-			// if yes, abort - local loop that is not ours
-			for (int i = 1; i < path.size(); i++) {
-				IPlugin node = path.elementAt(i);
-				if (isEquivalent(subroot, node)) {
-					// local loop
-					return;
+		} else {
+			List<Integer> children = new ArrayList<>();
+			if (!onlyCandidates) {
+				for (int child : getRequired(graph, root)) {
+					children.add(Integer.valueOf(child));
 				}
 			}
+			if (candidates != null) {
+				for (IPlugin candidate : candidates) {
+					int node = graph.getNode(candidate.getId());
+					if (node != -1)
+						children.add(Integer.valueOf(node));
+				}
+			}
+			int[] rootChildren = new int[children.size()];
+			for (int i = 0; i < rootChildren.length; i++) {
+				rootChildren[i] = children.get(i).intValue();
+			}
+			paths = findLoops(graph, rootNode, rootChildren, getRequiringNodes(graph, rootNode));
 		}
-		@SuppressWarnings("unchecked")
-		Vector<IPlugin> newPath = path.size() > 0 ? ((Vector<IPlugin>) path.clone()) : path;
-		newPath.add(subroot);
 
-		if (!onlyCandidates) {
-			IPluginImport[] iimports = subroot.getImports();
-			for (IPluginImport iimport : iimports) {
-				String id = iimport.getId();
-				//Be paranoid
-				if (id == null)
-					continue;
-				if (!exploredPlugins.contains(id)) {
-					// is plugin in list of non loop yielding plugins
-					//Commenting linear lookup - was very slow
-					//when called from here. We will use
-					//model manager instead because it
-					//has a hash table lookup that is much faster.
-					//IPlugin child = PDECore.getDefault().findPlugin(id);
-					IPlugin child = findPlugin(id);
-					if (child != null) {
-						// number of loops before traversing plugin
-						int oldLoopSize = loops.size();
-
-						findLoops(loops, newPath, child, null, false, exploredPlugins);
-
-						// number of loops after traversing plugin
-						int newLoopsSize = loops.size();
-
-						if (oldLoopSize == newLoopsSize) {// no change in number of loops
-							// no loops from going to this node, skip next time
-							exploredPlugins.add(id);
-						}
-					}
+		DependencyLoop[] loops = new DependencyLoop[paths.size()];
+		for (int i = 0; i < loops.length; i++) {
+			int[] path = paths.get(i);
+			IPlugin[] members = new IPlugin[path.length];
+			members[0] = root;
+			for (int j = 1; j < path.length; j++) {
+				members[j] = graph.fPlugins.get(path[j]);
+			}
+			DependencyLoop loop = new DependencyLoop();
+			loop.setMembers(members);
+			loop.setName(NLS.bind(PDECoreMessages.Builders_DependencyLoopFinder_loopName, ("" + (i + 1)))); //$NON-NLS-1$
+			loops[i] = loop;
+		}
+		return loops;
+	}
+
+	/**
+	 * Finds the loops through the root, visiting only the given nodes besides the root.
+	 *
+	 * @param graph the dependency graph
+	 * @param root node of the root plug-in
+	 * @param rootChildren nodes required by the root
+	 * @param allowed nodes that can be part of a loop through the root
+	 * @return loops as node paths starting with the root
+	 */
+	private static List<int[]> findLoops(Graph graph, int root, int[] rootChildren, boolean[] allowed) {
+		List<int[]> loops = new ArrayList<>();
+		if (allowed == null)
+			return loops;
+
+		int[] path = new int[graph.fPlugins.size() + 1];
+		boolean[] onPath = new boolean[graph.fPlugins.size()];
+		boolean[] explored = new boolean[graph.fPlugins.size()];
+		path[0] = root;
+		onPath[root] = true;
+		for (int child : rootChildren) {
+			visit(graph, child, path, 1, onPath, explored, allowed, loops);
+		}
+		return loops;
+	}
+
+	/**
+	 * Visits a node required by the last node of the path.  A node from which no loop
+	 * through the root was found is not visited again.
+	 */
+	private static void visit(Graph graph, int node, int[] path, int length, boolean[] onPath, boolean[] explored, boolean[] allowed, List<int[]> loops) {
+		if (explored[node] || !allowed[node])
+			return;
+		if (node == path[0]) {
+			loops.add(Arrays.copyOf(path, length));
+			return;
+		}
+		if (onPath[node]) {
+			// local loop that does not go through the root
+			return;
+		}
+
+		int oldLoopSize = loops.size();
+		path[length] = node;
+		onPath[node] = true;
+		for (int child : graph.fRequired[node]) {
+			visit(graph, child, path, length + 1, onPath, explored, allowed, loops);
+		}
+		onPath[node] = false;
+		if (oldLoopSize == loops.size()) {
+			// no loops from going to this node, skip next time
+			explored[node] = true;
+		}
+	}
+
+	/**
+	 * Returns the nodes of the root's strongly connected component, or <code>null</code>
+	 * if the root is not part of a loop.
+	 */
+	private static boolean[] getComponent(Graph graph, int root) {
+		int component = graph.fComponents[root];
+		if (!graph.fLoopComponents[component])
+			return null;
+		boolean[] members = new boolean[graph.fComponents.length];
+		for (int node = 0; node < members.length; node++) {
+			members[node] = graph.fComponents[node] == component;
+		}
+		return members;
+	}
+
+	/**
+	 * Returns the nodes that directly or indirectly require the root, including the root.
+	 */
+	private static boolean[] getRequiringNodes(Graph graph, int root) {
+		boolean[] requiring = new boolean[graph.fPlugins.size()];
+		Deque<Integer> queue = new ArrayDeque<>();
+		requiring[root] = true;
+		queue.add(Integer.valueOf(root));
+		while (!queue.isEmpty()) {
+			int node = queue.remove().intValue();
+			for (int parent : graph.fRequiring[node]) {
+				if (!requiring[parent]) {
+					requiring[parent] = true;
+					queue.add(Integer.valueOf(parent));
 				}
+			}
+		}
+		return requiring;
+	}
+
+	/**
+	 * Returns whether the plug-in requires the same plug-ins as the graph's node, which is
+	 * not the case when the plug-in is being edited.
+	 */
+	private static boolean hasRequiredPlugins(Graph graph, int node, IPlugin plugin) {
+		return plugin == graph.fPlugins.get(node) || Arrays.equals(getRequired(graph, plugin), graph.fRequired[node]);
+	}
+
+	private static int[] getRequired(Graph graph, IPlugin plugin) {
+		IPluginImport[] imports = plugin.getImports();
+		int[] required = new int[imports.length];
+		int count = 0;
+		for (IPluginImport pluginImport : imports) {
+			String id = pluginImport.getId();
+			int node = id == null ? -1 : graph.getNode(id);
+			if (node != -1)
+				required[count++] = node;
+		}
+		return Arrays.copyOf(required, count);
+	}
+
+	/**
+	 * Returns the dependency graph for the current state, computing it if the state
+	 * changed since it was computed last.
+	 */
+	private static Graph getGraph() {
+		State state = PDECore.getDefault().getModelManager().getState().getState();
+		Graph graph = fGraph;
+		if (graph == null || graph.fState != state || graph.fTimeStamp != state.getTimeStamp()) {
+			graph = createGraph(state);
+			fGraph = graph;
+		}
+		return graph;
+	}
 
+	private static Graph createGraph(State state) {
+		Graph graph = new Graph(state);
+		for (IPluginModelBase model : PluginRegistry.getAllModels(false)) {
+			String id = model.getPluginBase().getId();
+			if (id != null && !graph.fNodes.containsKey(id)) {
+				IPlugin plugin = findPlugin(id);
+				if (plugin != null) {
+					graph.fNodes.put(id, Integer.valueOf(graph.fPlugins.size()));
+					graph.fPlugins.add(plugin);
+				}
 			}
+		}
 
+		int size = graph.fPlugins.size();
+		graph.fRequired = new int[size][];
+		List<List<Integer>> requiring = new ArrayList<>(size);
+		for (int node = 0; node < size; node++) {
+			requiring.add(new ArrayList<Integer>());
+		}
+		for (int node = 0; node < size; node++) {
+			graph.fRequired[node] = getRequired(graph, graph.fPlugins.get(node));
+			for (int child : graph.fRequired[node]) {
+				requiring.get(child).add(Integer.valueOf(node));
+			}
 		}
-		if (candidates != null) {
-			for (IPlugin candidate : candidates) {
-				// number of loops before traversing plugin
-				int oldLoopSize = loops.size();
+		graph.fRequiring = new int[size][];
+		for (int node = 0; node < size; node++) {
+			List<Integer> parents = requiring.get(node);
+			graph.fRequiring[node] = new int[parents.size()];
+			for (int i = 0; i < parents.size(); i++) {
+				graph.fRequiring[node][i] = parents.get(i).intValue();
+			}
+		}
+
+		computeComponents(graph);
+		return graph;
+	}
+
+	/**
+	 * Computes the strongly connected components of the graph using Tarjan's algorithm,
+	 * with an explicit stack so that long dependency chains do not overflow the call stack.
+	 */
+	private static void computeComponents(Graph graph) {
+		int size = graph.fPlugins.size();
+		int[] index = new int[size];
+		int[] lowLink = new int[size];
+		int[] nextChild = new int[size];
+		boolean[] onStack = new boolean[size];
+		int[] stack = new int[size];
+		int stackSize = 0;
+		int[] callStack = new int[size];
+		int nextIndex = 1;
 
-				findLoops(loops, newPath, candidate, null, false, exploredPlugins);
+		int[] components = new int[size];
+		List<Boolean> loopComponents = new ArrayList<>();
 
-				// number of loops after traversing plugin
-				int newLoopsSize = loops.size();
+		for (int start = 0; start < size; start++) {
+			if (index[start] != 0)
+				continue;
 
-				if (oldLoopSize == newLoopsSize) { // no change in number of loops
-					// no loops from going to this node, skip next time
-					exploredPlugins.add(candidate.getId());
+			int depth = 0;
+			callStack[0] = start;
+			index[start] = lowLink[start] = nextIndex++;
+			stack[stackSize++] = start;
+			onStack[start] = true;
+
+			while (depth >= 0) {
+				int node = callStack[depth];
+				int[] required = graph.fRequired[node];
+				if (nextChild[node] < required.length) {
+					int child = required[nextChild[node]++];
+					if (index[child] == 0) {
+						index[child] = lowLink[child] = nextIndex++;
+						stack[stackSize++] = child;
+						onStack[child] = true;
+						callStack[++depth] = child;
+					} else if (onStack[child]) {
+						lowLink[node] = Math.min(lowLink[node], index[child]);
+					}
+					continue;
+				}
+
+				if (lowLink[node] == index[node]) {
+					// node is the root of a component, pop its members
+					int component = loopComponents.size();
+					int count = 0;
+					int member;
+					do {
+						member = stack[--stackSize];
+						onStack[member] = false;
+						components[member] = component;
+						count++;
+					} while (member != node);
+					loopComponents.add(Boolean.valueOf(count > 1 || requiresItself(graph, node)));
+				}
+				depth--;
+				if (depth >= 0) {
+					int parent = callStack[depth];
+					lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
 				}
 			}
 		}
 
+		graph.fComponents = components;
+		graph.fLoopComponents = new boolean[loopComponents.size()];
+		for (int i = 0; i < graph.fLoopComponents.length; i++) {
+			graph.fLoopComponents[i] = loopComponents.get(i).booleanValue();
+		}
+	}
+
+	private static boolean requiresItself(Graph graph, int node) {
+		for (int child : graph.fRequired[node]) {
+			if (child == node)
+				return true;
+		}
+		return false;
 	}
 
 	private static IPlugin findPlugin(String id) {
@@ -121,8 +381,4 @@ public class DependencyLoopFinder {
 			return null;
 		return (IPlugin) childModel.getPluginBase();
 	}
-
-	private static boolean isEquivalent(IPlugin left, IPlugin right) {
-		return left.getId().equals(right.getId());
-	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2005, 2013 IBM Corporation and others.
+ *  Copyright (c) 2005, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -37,12 +37,9 @@ public abstract class ErrorReporter {
 
 	protected IMarker addMarker(String message, int lineNumber, int severity, int problemID, String category) {
 		try {
-			IMarker marker = getMarkerFactory().createMarker(fFile, problemID, category);
-			marker.setAttribute(IMarker.MESSAGE, message);
-			marker.setAttribute(IMarker.SEVERITY, severity);
 			if (lineNumber == -1)
 				lineNumber = 1;
-			marker.setAttribute(IMarker.LINE_NUMBER, lineNumber);
+			IMarker marker = getMarkerFactory().createMarker(fFile, problemID, category, message, lineNumber, severity);
 			if (severity == IMarker.SEVERITY_ERROR) {
 				fErrorCount += 1;
 			}
@@ -83,7 +80,7 @@ public abstract class ErrorReporter {
 		return fMarkerFactory;
 	}
 
-	private void removeFileMarkers() {
+	void removeFileMarkers() {
 		try {
 			fFile.deleteMarkers(IMarker.PROBLEM, false, IResource.DEPTH_ZERO);
 			fFile.deleteMarkers(PDEMarkerFactory.MARKER_ID, false, IResource.DEPTH_ZERO);
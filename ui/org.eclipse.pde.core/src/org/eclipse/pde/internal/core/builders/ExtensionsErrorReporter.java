@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,7 @@ import org.eclipse.pde.core.plugin.*;
 import org.eclipse.pde.internal.core.*;
 import org.eclipse.pde.internal.core.ischema.*;
 import org.eclipse.pde.internal.core.project.PDEProject;
+import org.eclipse.pde.internal.core.schema.CompiledSchema;
 import org.eclipse.pde.internal.core.schema.SchemaRegistry;
 import org.eclipse.pde.internal.core.util.*;
 import org.w3c.dom.*;
@@ -36,6 +37,12 @@ public class ExtensionsErrorReporter extends ManifestErrorReporter {
 	private IPluginModelBase fModel;
 	private IBuild fBuildModel;
 
+	/**
+	 * Number of top level elements that were validated while the file was parsed.
+	 * They come first in the document, their children have been discarded.
+	 */
+	private int fValidatedElements;
+
 	public ExtensionsErrorReporter(IFile file) {
 		super(file);
 		fModel = PluginRegistry.findModel(file.getProject());
@@ -53,13 +60,45 @@ public class ExtensionsErrorReporter extends ManifestErrorReporter {
 	public void characters(char[] characters, int start, int length) throws SAXException {
 	}
 
+	/**
+	 * Validates top level elements as soon as they have been parsed, then releases
+	 * their children. Only the elements themselves are kept in the document so the
+	 * location paths used by quick fixes remain valid.
+	 */
+	@Override
+	protected void elementEnded(Element element) {
+		if (!validatesWhileParsing())
+			return;
+		Node parent = element.getParentNode();
+		if (parent == null || parent.getParentNode() != null || !isValidRoot((Element) parent))
+			return;
+		validateTopLevelElement(element);
+		discardChildren(element);
+		fValidatedElements++;
+	}
+
+	/**
+	 * Returns whether top level elements are validated as soon as they are parsed.
+	 * Subclasses that validate the complete document in {@link #validateContent(IProgressMonitor)}
+	 * must return <code>false</code>.
+	 *
+	 * @return whether elements are validated while parsing
+	 */
+	protected boolean validatesWhileParsing() {
+		return true;
+	}
+
+	private boolean isValidRoot(Element root) {
+		String elementName = root.getNodeName();
+		return "plugin".equals(elementName) || "fragment".equals(elementName); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
 	@Override
 	public void validateContent(IProgressMonitor monitor) {
 		Element element = getDocumentRoot();
 		if (element == null)
 			return;
-		String elementName = element.getNodeName();
-		if (!"plugin".equals(elementName) && !"fragment".equals(elementName)) { //$NON-NLS-1$ //$NON-NLS-2$
+		if (!isValidRoot(element)) {
 			reportIllegalElement(element, CompilerFlags.ERROR);
 		} else {
 			int severity = CompilerFlags.getFlag(fProject, CompilerFlags.P_DEPRECATED);
@@ -70,27 +109,12 @@ public class ExtensionsErrorReporter extends ManifestErrorReporter {
 				}
 			}
 
+			// elements that were validated while parsing are skipped
 			NodeList children = element.getChildNodes();
-			for (int i = 0; i < children.getLength(); i++) {
+			for (int i = fValidatedElements; i < children.getLength(); i++) {
 				if (monitor.isCanceled())
 					break;
-				Element child = (Element) children.item(i);
-				String name = child.getNodeName();
-				if (name.equals("extension")) { //$NON-NLS-1$
-					validateExtension(child);
-				} else if (name.equals("extension-point")) { //$NON-NLS-1$
-					validateExtensionPoint(child);
-				} else {
-					if (!name.equals("runtime") && !name.equals("requires")) { //$NON-NLS-1$ //$NON-NLS-2$
-						severity = CompilerFlags.getFlag(fProject, CompilerFlags.P_UNKNOWN_ELEMENT);
-						if (severity != CompilerFlags.IGNORE)
-							reportIllegalElement(child, severity);
-					} else {
-						severity = CompilerFlags.getFlag(fProject, CompilerFlags.P_DEPRECATED);
-						if (severity != CompilerFlags.IGNORE)
-							reportUnusedElement(child, severity);
-					}
-				}
+				validateTopLevelElement((Element) children.item(i));
 			}
 
 			if (fModel != null) {
@@ -101,6 +125,25 @@ public class ExtensionsErrorReporter extends ManifestErrorReporter {
 		}
 	}
 
+	private void validateTopLevelElement(Element child) {
+		String name = child.getNodeName();
+		if (name.equals("extension")) { //$NON-NLS-1$
+			validateExtension(child);
+		} else if (name.equals("extension-point")) { //$NON-NLS-1$
+			validateExtensionPoint(child);
+		} else {
+			if (!name.equals("runtime") && !name.equals("requires")) { //$NON-NLS-1$ //$NON-NLS-2$
+				int severity = CompilerFlags.getFlag(fProject, CompilerFlags.P_UNKNOWN_ELEMENT);
+				if (severity != CompilerFlags.IGNORE)
+					reportIllegalElement(child, severity);
+			} else {
+				int severity = CompilerFlags.getFlag(fProject, CompilerFlags.P_DEPRECATED);
+				if (severity != CompilerFlags.IGNORE)
+					reportUnusedElement(child, severity);
+			}
+		}
+	}
+
 	protected void validateExtension(Element element) {
 		if (!assertAttributeDefined(element, "point", CompilerFlags.ERROR)) //$NON-NLS-1$
 			return;
@@ -112,7 +155,7 @@ public class ExtensionsErrorReporter extends ManifestErrorReporter {
 			}
 		} else {
 			SchemaRegistry reg = PDECore.getDefault().getSchemaRegistry();
-			ISchema schema = reg.getSchema(pointID);
+			CompiledSchema schema = reg.getCompiledSchema(pointID);
 			if (schema != null) {
 				validateElement(element, schema, true);
 			}
@@ -144,16 +187,20 @@ public class ExtensionsErrorReporter extends ManifestErrorReporter {
 	}
 
 	protected void validateElement(Element element, ISchema schema, boolean isTopLevel) {
+		validateElement(element, PDECore.getDefault().getSchemaRegistry().getCompiledSchema(schema), isTopLevel);
+	}
+
+	protected void validateElement(Element element, CompiledSchema schema, boolean isTopLevel) {
 		String elementName = element.getNodeName();
-		ISchemaElement schemaElement = schema.findElement(elementName);
+		CompiledSchema.Element schemaElement = schema.findElement(elementName);
 
 		// Validate element occurrence violations
-		if ((schemaElement != null) && (schemaElement.getType() instanceof ISchemaComplexType)) {
-			validateMaxElementMult(element, schemaElement);
-			validateMinElementMult(element, schemaElement);
+		if ((schemaElement != null) && schemaElement.isComplex()) {
+			validateMaxElementMult(element, schemaElement.getSchemaElement());
+			validateMinElementMult(element, schemaElement.getSchemaElement());
 		}
 
-		ISchemaElement parentSchema = null;
+		CompiledSchema.Element parentSchema = null;
 		if (!"extension".equals(elementName)) { //$NON-NLS-1$
 			Node parent = element.getParentNode();
 			parentSchema = schema.findElement(parent.getNodeName());
@@ -172,9 +219,7 @@ public class ExtensionsErrorReporter extends ManifestErrorReporter {
 		if (parentSchema != null) {
 			int severity = CompilerFlags.getFlag(fProject, CompilerFlags.P_UNKNOWN_ELEMENT);
 			if (severity != CompilerFlags.IGNORE) {
-				HashSet<String> allowedElements = new HashSet<>();
-				computeAllowedElements(parentSchema.getType(), allowedElements);
-				if (!allowedElements.contains(elementName)) {
+				if (!parentSchema.allowsChild(elementName)) {
 					reportIllegalElement(element, severity);
 					return;
 				}
@@ -182,27 +227,29 @@ public class ExtensionsErrorReporter extends ManifestErrorReporter {
 
 		}
 		if (schemaElement == null && parentSchema != null) {
-			ISchemaAttribute attr = parentSchema.getAttribute(elementName);
+			CompiledSchema.Attribute attr = parentSchema.getAttribute(elementName);
 			if (attr != null && attr.getKind() == IMetaAttribute.JAVA) {
-				if (attr.isDeprecated())
+				if (attr.getSchemaAttribute().isDeprecated())
 					reportDeprecatedAttribute(element, element.getAttributeNode("class")); //$NON-NLS-1$
 				validateJavaAttribute(element, element.getAttributeNode("class")); //$NON-NLS-1$
 			}
 		} else {
 			if (schemaElement != null) {
+				ISchemaElement elementInfo = schemaElement.getSchemaElement();
 				validateRequiredExtensionAttributes(element, schemaElement);
 				validateExistingExtensionAttributes(element, element.getAttributes(), schemaElement);
-				validateInternalExtensionAttribute(element, schemaElement);
-				if (schemaElement.isDeprecated()) {
-					if (schemaElement instanceof ISchemaRootElement)
-						reportDeprecatedRootElement(element, ((ISchemaRootElement) schemaElement).getDeprecatedSuggestion());
+				validateInternalExtensionAttribute(element, elementInfo);
+				if (elementInfo.isDeprecated()) {
+					if (elementInfo instanceof ISchemaRootElement)
+						reportDeprecatedRootElement(element, ((ISchemaRootElement) elementInfo).getDeprecatedSuggestion());
 					else
 						reportDeprecatedElement(element);
 				}
-				if (schemaElement.hasTranslatableContent())
+				if (elementInfo.hasTranslatableContent())
 					validateTranslatableElementContent(element);
 				// Bug 213457 - look up elements based on the schema in which the parent is found
-				schema = schemaElement.getSchema();
+				if (elementInfo.getSchema() != schema.getSchema())
+					schema = PDECore.getDefault().getSchemaRegistry().getCompiledSchema(elementInfo.getSchema());
 			}
 			NodeList children = element.getChildNodes();
 			for (int i = 0; i < children.getLength(); i++) {
@@ -266,68 +313,35 @@ public class ExtensionsErrorReporter extends ManifestErrorReporter {
 		}
 	}
 
-	private void computeAllowedElements(ISchemaType type, HashSet<String> elementSet) {
-		if (type instanceof ISchemaComplexType) {
-			ISchemaComplexType complexType = (ISchemaComplexType) type;
-			ISchemaCompositor compositor = complexType.getCompositor();
-			if (compositor != null)
-				computeAllowedElements(compositor, elementSet);
-
-			ISchemaAttribute[] attrs = complexType.getAttributes();
-			for (ISchemaAttribute attr : attrs) {
-				if (attr.getKind() == IMetaAttribute.JAVA)
-					elementSet.add(attr.getName());
-			}
-		}
-	}
-
-	private void computeAllowedElements(ISchemaCompositor compositor, HashSet<String> elementSet) {
-		ISchemaObject[] children = compositor.getChildren();
-		for (ISchemaObject child : children) {
-			if (child instanceof ISchemaObjectReference) {
-				ISchemaObjectReference ref = (ISchemaObjectReference) child;
-				ISchemaElement refElement = (ISchemaElement) ref.getReferencedObject();
-				if (refElement != null)
-					elementSet.add(refElement.getName());
-			} else if (child instanceof ISchemaCompositor) {
-				computeAllowedElements((ISchemaCompositor) child, elementSet);
-			}
-		}
-	}
-
-	private void validateRequiredExtensionAttributes(Element element, ISchemaElement schemaElement) {
+	private void validateRequiredExtensionAttributes(Element element, CompiledSchema.Element schemaElement) {
 		int severity = CompilerFlags.getFlag(fProject, CompilerFlags.P_NO_REQUIRED_ATT);
 		if (severity == CompilerFlags.IGNORE)
 			return;
 
-		ISchemaAttribute[] attInfos = schemaElement.getAttributes();
-		for (ISchemaAttribute attInfo : attInfos) {
-			if (attInfo.getUse() == ISchemaAttribute.REQUIRED) {
-				boolean found = element.getAttributeNode(attInfo.getName()) != null;
-				if (!found && attInfo.getKind() == IMetaAttribute.JAVA) {
-					NodeList children = element.getChildNodes();
-					for (int j = 0; j < children.getLength(); j++) {
-						if (attInfo.getName().equals(children.item(j).getNodeName())) {
-							found = true;
-							break;
-						}
+		CompiledSchema.Attribute[] attInfos = schemaElement.getRequiredAttributes();
+		for (CompiledSchema.Attribute attInfo : attInfos) {
+			boolean found = element.getAttributeNode(attInfo.getName()) != null;
+			if (!found && attInfo.getKind() == IMetaAttribute.JAVA) {
+				NodeList children = element.getChildNodes();
+				for (int j = 0; j < children.getLength(); j++) {
+					if (attInfo.getName().equals(children.item(j).getNodeName())) {
+						found = true;
+						break;
 					}
 				}
-				if (!found) {
-					reportMissingRequiredAttribute(element, attInfo.getName(), severity);
-				}
+			}
+			if (!found) {
+				reportMissingRequiredAttribute(element, attInfo.getName(), severity);
 			}
 		}
 	}
 
-	private void validateExistingExtensionAttributes(Element element, NamedNodeMap attrs, ISchemaElement schemaElement) {
+	private void validateExistingExtensionAttributes(Element element, NamedNodeMap attrs, CompiledSchema.Element schemaElement) {
 		for (int i = 0; i < attrs.getLength(); i++) {
 			Attr attr = (Attr) attrs.item(i);
-			ISchemaAttribute attInfo = schemaElement.getAttribute(attr.getName());
+			CompiledSchema.Attribute attInfo = schemaElement.getAttribute(attr.getName());
 			if (attInfo == null) {
-				HashSet<String> allowedElements = new HashSet<>();
-				computeAllowedElements(schemaElement.getType(), allowedElements);
-				if (allowedElements.contains(attr.getName())) {
+				if (schemaElement.allowsChild(attr.getName())) {
 					validateJavaAttribute(element, attr);
 				} else {
 					int flag = CompilerFlags.getFlag(fProject, CompilerFlags.P_UNKNOWN_ATTRIBUTE);
@@ -340,10 +354,10 @@ public class ExtensionsErrorReporter extends ManifestErrorReporter {
 		}
 	}
 
-	private void validateExtensionAttribute(Element element, Attr attr, ISchemaAttribute attInfo) {
-		ISchemaSimpleType type = attInfo.getType();
+	private void validateExtensionAttribute(Element element, Attr attr, CompiledSchema.Attribute compiledInfo) {
+		ISchemaAttribute attInfo = compiledInfo.getSchemaAttribute();
 
-		int kind = attInfo.getKind();
+		int kind = compiledInfo.getKind();
 		if (kind == IMetaAttribute.JAVA) {
 			validateJavaAttribute(element, attr);
 		} else if (kind == IMetaAttribute.RESOURCE) {
@@ -351,11 +365,10 @@ public class ExtensionsErrorReporter extends ManifestErrorReporter {
 		} else if (kind == IMetaAttribute.IDENTIFIER) {
 			validateIdentifierAttribute(element, attr, attInfo);
 		} else if (kind == IMetaAttribute.STRING) {
-			ISchemaRestriction restriction = type.getRestriction();
-			if (restriction != null) {
-				validateRestrictionAttribute(element, attr, restriction);
+			if (compiledInfo.isRestricted()) {
+				validateRestrictionAttribute(element, attr, compiledInfo);
 			}
-		} else if (type.getName().equals("boolean")) { //$NON-NLS-1$
+		} else if (compiledInfo.isBoolean()) {
 			validateBoolean(element, attr);
 		}
 
@@ -567,6 +580,16 @@ public class ExtensionsErrorReporter extends ManifestErrorReporter {
 		}
 	}
 
+	/**
+	 * Validates the value of a restricted attribute against the compiled enumeration.
+	 * Values outside of it are passed to {@link #validateRestrictionAttribute(Element, Attr, ISchemaRestriction)}.
+	 */
+	protected void validateRestrictionAttribute(Element element, Attr attr, CompiledSchema.Attribute attInfo) {
+		if (!attInfo.isAllowedValue(attr.getValue())) {
+			validateRestrictionAttribute(element, attr, attInfo.getSchemaAttribute().getType().getRestriction());
+		}
+	}
+
 	protected void validateRestrictionAttribute(Element element, Attr attr, ISchemaRestriction restriction) {
 		Object[] children = restriction.getChildren();
 		String value = attr.getValue();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,9 +14,12 @@ package org.eclipse.pde.internal.core.builders;
 
 import java.io.File;
 import java.io.FilenameFilter;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.pde.internal.core.*;
 import org.eclipse.pde.internal.core.project.PDEProject;
@@ -31,6 +34,15 @@ public class ManifestConsistencyChecker extends IncrementalProjectBuilder {
 
 	private static IProject[] EMPTY_LIST = new IProject[0];
 
+	/**
+	 * Shared pool collecting the build.properties problems of the projects while
+	 * their manifest files are validated. Threads time out when idle, the pool is
+	 * shut down when PDE Core is stopped and is not created again afterwards.
+	 */
+	private static ExecutorService fValidationPool;
+
+	private static boolean fShutdown;
+
 	private SelfVisitor fSelfVisitor = new SelfVisitor();
 
 	private ClassChangeVisitor fClassFileVisitor = new ClassChangeVisitor();
@@ -144,6 +156,49 @@ public class ManifestConsistencyChecker extends IncrementalProjectBuilder {
 		return file.equals(PDEProject.getLocalizationFile(getProject()));
 	}
 
+	/**
+	 * @return the validation pool or <code>null</code> if PDE Core has been stopped
+	 */
+	private static synchronized ExecutorService getValidationPool() {
+		if (fValidationPool == null && !fShutdown) {
+			final AtomicInteger count = new AtomicInteger();
+			int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "PDE Manifest Validation " + count.incrementAndGet()); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			pool.allowCoreThreadTimeOut(true);
+			fValidationPool = pool;
+		}
+		return fValidationPool;
+	}
+
+	/**
+	 * Shuts down the pool collecting build.properties problems. Called when PDE Core is stopped.
+	 */
+	public static synchronized void shutdown() {
+		fShutdown = true;
+		if (fValidationPool != null) {
+			fValidationPool.shutdownNow();
+			fValidationPool = null;
+		}
+	}
+
+	/**
+	 * Only resources of the built project are modified: markers are created on the
+	 * project and its manifest files, other projects are only read through the
+	 * plug-in models. Scoping the rule to the project allows independent projects
+	 * to be validated concurrently.
+	 */
+	@Override
+	public ISchedulingRule getRule(int kind, Map<String, String> args) {
+		return getProject();
+	}
+
 	@Override
 	protected IProject[] build(int kind, Map<String, String> args, IProgressMonitor monitor) throws CoreException {
 		if (PDECore.getDefault().getBundle().getState() != Bundle.ACTIVE || monitor.isCanceled())
@@ -213,22 +268,36 @@ public class ManifestConsistencyChecker extends IncrementalProjectBuilder {
 			validateProjectStructure(type, subMonitor.split(1));
 		}
 
+		// The build.properties problems are collected in the validation pool while the
+		// manifest files are validated on this thread. Markers are only deleted and
+		// created on this thread, which holds the builder's scheduling rule. The
+		// plugin.xml and MANIFEST.MF reporters create markers while validating, so
+		// they run one after the other. Marker changes made during the build are
+		// already reported in one resource delta when the build ends.
+		Future<BuildErrorReporter> buildProblems = null;
+		if ((type & BUILD) != 0) {
+			buildProblems = collectBuildProblems();
+		}
 		if ((type & MANIFEST | EXTENSIONS) != 0) {
-			IProject project = getProject();
-			IFile file = PDEProject.getPluginXml(project);
-			if (!file.exists())
-				file = PDEProject.getFragmentXml(project);
-
-			if (file.exists()) {
-				validateFiles(file, type, monitor);
-			} else if ((type & MANIFEST) != 0) {
-				IFile manifestFile = PDEProject.getManifest(project);
-				if (manifestFile.exists())
-					validateManifestFile(manifestFile, subMonitor.split(1));
-			}
+			validateManifestFiles(type, subMonitor.split(1));
 		}
-		if ((type & BUILD) != 0) {
-			validateBuildProperties(subMonitor.split(1));
+		if (buildProblems != null) {
+			reportBuildProblems(buildProblems, subMonitor.split(1));
+		}
+	}
+
+	private void validateManifestFiles(int type, IProgressMonitor monitor) {
+		IProject project = getProject();
+		IFile file = PDEProject.getPluginXml(project);
+		if (!file.exists())
+			file = PDEProject.getFragmentXml(project);
+
+		if (file.exists()) {
+			validateFiles(file, type, monitor);
+		} else if ((type & MANIFEST) != 0) {
+			IFile manifestFile = PDEProject.getManifest(project);
+			if (manifestFile.exists())
+				validateManifestFile(manifestFile, monitor);
 		}
 	}
 
@@ -303,16 +372,54 @@ public class ManifestConsistencyChecker extends IncrementalProjectBuilder {
 		monitor.done();
 	}
 
-	private void validateBuildProperties(IProgressMonitor monitor) {
-		if (monitor.isCanceled())
+	/**
+	 * Starts collecting the problems of the project's build.properties in the
+	 * validation pool. Once the pool is shut down, the problems are collected on
+	 * the calling thread.
+	 *
+	 * @return the reporter holding the problems, or <code>null</code> if the project has no build.properties
+	 */
+	private Future<BuildErrorReporter> collectBuildProblems() {
+		IFile file = PDEProject.getBuildProperties(getProject());
+		if (!file.exists())
+			return null;
+		final BuildErrorReporter reporter = new BuildErrorReporter(file);
+		Callable<BuildErrorReporter> task = new Callable<BuildErrorReporter>() {
+			@Override
+			public BuildErrorReporter call() {
+				reporter.collectProblems();
+				return reporter;
+			}
+		};
+		ExecutorService pool = getValidationPool();
+		if (pool != null) {
+			try {
+				return pool.submit(task);
+			} catch (RejectedExecutionException e) {
+				// shut down after it was returned
+			}
+		}
+		FutureTask<BuildErrorReporter> future = new FutureTask<>(task);
+		future.run();
+		return future;
+	}
+
+	private void reportBuildProblems(Future<BuildErrorReporter> buildProblems, IProgressMonitor monitor) {
+		BuildErrorReporter reporter;
+		try {
+			reporter = buildProblems.get();
+		} catch (ExecutionException e) {
+			PDECore.log(e.getCause());
+			return;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 			return;
-		IProject project = getProject();
-		IFile file = PDEProject.getBuildProperties(project);
-		if (file.exists()) {
-			monitor.subTask(PDECoreMessages.ManifestConsistencyChecker_buildPropertiesSubtask);
-			BuildErrorReporter ber = new BuildErrorReporter(file);
-			ber.validateContent(monitor);
 		}
+		if (monitor.isCanceled())
+			return;
+		monitor.subTask(PDECoreMessages.ManifestConsistencyChecker_buildPropertiesSubtask);
+		reporter.removeFileMarkers();
+		reporter.reportProblems(monitor);
 	}
 
 	// Will place a marker on the project if the build.properties does not exist
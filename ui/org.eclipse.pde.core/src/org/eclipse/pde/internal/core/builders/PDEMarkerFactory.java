@@ -108,4 +108,23 @@ public class PDEMarkerFactory {
 		return marker;
 	}
 
+	/**
+	 * Creates a problem marker and sets all of its standard attributes in a
+	 * single marker operation.
+	 *
+	 * @param file the file to create the marker on
+	 * @param id the problem id, one of the constants of this factory
+	 * @param category the problem category, one of the CAT_... constants
+	 * @param message the problem message
+	 * @param lineNumber the 1-based line number
+	 * @param severity one of the {@link IMarker} severity constants
+	 * @return the new marker
+	 * @throws CoreException if the marker cannot be created
+	 */
+	public IMarker createMarker(IFile file, int id, String category, String message, int lineNumber, int severity) throws CoreException {
+		IMarker marker = file.createMarker(MARKER_ID);
+		marker.setAttributes(new String[] {PROBLEM_ID, CAT_ID, IMarker.MESSAGE, IMarker.SEVERITY, IMarker.LINE_NUMBER}, new Object[] {Integer.valueOf(id), category, message, Integer.valueOf(severity), Integer.valueOf(lineNumber)});
+		return marker;
+	}
+
 }
@@ -26,6 +26,11 @@ public abstract class PluginBaseErrorReporter extends ExtensionsErrorReporter {
 		super(file);
 	}
 
+	@Override
+	protected boolean validatesWhileParsing() {
+		return false;
+	}
+
 	@Override
 	public void validateContent(IProgressMonitor monitor) {
 		Element element = getDocumentRoot();
@@ -11,15 +11,13 @@
  *******************************************************************************/
 package org.eclipse.pde.internal.core.builders;
 
-import java.io.StringReader;
+import java.io.*;
 import java.util.*;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import org.eclipse.core.filebuffers.*;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.jface.text.*;
 import org.eclipse.pde.internal.core.*;
 import org.w3c.dom.*;
 import org.w3c.dom.Document;
@@ -32,12 +30,21 @@ public class XMLErrorReporter extends DefaultHandler {
 	public static final char F_ATT_VALUE_PREFIX = '!';
 	public static final char F_CHILD_SEP = '>';
 
+	/**
+	 * Offsets of an element in the text, recorded while the file is parsed.
+	 */
 	class ElementData {
+		/** offset of the '&lt;' opening the start tag */
 		int offset;
+		/** offset just after the '&gt;' closing the start tag */
+		int startTagEnd;
+		/** offset just after the end tag, or -1 if the element has not been closed */
+		int end = -1;
 		boolean fErrorNode;
 
-		public ElementData(int offset) {
+		public ElementData(int offset, int startTagEnd) {
 			this.offset = offset;
+			this.startTagEnd = startTagEnd;
 		}
 	}
 
@@ -51,7 +58,16 @@ public class XMLErrorReporter extends DefaultHandler {
 
 	private org.w3c.dom.Document fXMLDocument;
 
-	private IDocument fTextDocument;
+	/**
+	 * Content of the file, used to compute element and attribute offsets.
+	 * May be <code>null</code> if the file could not be read.
+	 */
+	private String fText;
+
+	/**
+	 * Offsets at which each line of {@link #fText} starts
+	 */
+	private int[] fLineOffsets;
 
 	private Stack<Element> fElementStack;
 
@@ -59,29 +75,64 @@ public class XMLErrorReporter extends DefaultHandler {
 
 	private Locator fLocator;
 
-	private int fHighestOffset;
-
 	private HashMap<Element, ElementData> fOffsetTable;
 
-	private FindReplaceDocumentAdapter fFindReplaceAdapter;
-
 	private double fSchemaVersion = 2.1;
 
 	public XMLErrorReporter(IFile file) {
-		ITextFileBufferManager manager = FileBuffers.getTextFileBufferManager();
+		fFile = file;
+		fProject = file.getProject();
+		fOffsetTable = new HashMap<>();
+		fElementStack = new Stack<>();
 		try {
-			fFile = file;
-			fProject = file.getProject();
-			manager.connect(file.getFullPath(), LocationKind.NORMALIZE, null);
-			fTextDocument = manager.getTextFileBuffer(file.getFullPath(), LocationKind.NORMALIZE).getDocument();
-			manager.disconnect(file.getFullPath(), LocationKind.NORMALIZE, null);
-			fFindReplaceAdapter = new FindReplaceDocumentAdapter(fTextDocument);
-			fOffsetTable = new HashMap<>();
-			fElementStack = new Stack<>();
-			removeFileMarkers();
+			fText = readText(file);
+			fLineOffsets = computeLineOffsets(fText);
 		} catch (CoreException e) {
 			PDECore.log(e);
+		} catch (IOException e) {
+			PDECore.log(e);
+		}
+		removeFileMarkers();
+	}
+
+	/**
+	 * Reads the content of the file once so offsets can be computed without
+	 * connecting a text file buffer.
+	 */
+	private static String readText(IFile file) throws CoreException, IOException {
+		StringBuilder buffer = new StringBuilder();
+		Reader reader = new BufferedReader(new InputStreamReader(file.getContents(true), file.getCharset()));
+		try {
+			char[] chars = new char[8192];
+			int read;
+			while ((read = reader.read(chars)) != -1) {
+				buffer.append(chars, 0, read);
+			}
+		} finally {
+			reader.close();
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Returns the start offsets of all lines of the given text. Line delimiters are
+	 * counted the same way as by the SAX parser (\n, \r\n and \r).
+	 */
+	private static int[] computeLineOffsets(String text) {
+		int[] offsets = new int[64];
+		int count = 1; // offsets[0] == 0
+		int length = text.length();
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			if (c == '\r' && i + 1 < length && text.charAt(i + 1) == '\n')
+				i++;
+			else if (c != '\r' && c != '\n')
+				continue;
+			if (count == offsets.length)
+				offsets = Arrays.copyOf(offsets, count * 2);
+			offsets[count++] = i + 1;
 		}
+		return Arrays.copyOf(offsets, count);
 	}
 
 	public IFile getFile() {
@@ -90,12 +141,9 @@ public class XMLErrorReporter extends DefaultHandler {
 
 	private IMarker addMarker(String message, int lineNumber, int severity, int fixId, String category) {
 		try {
-			IMarker marker = getMarkerFactory().createMarker(fFile, fixId, category);
-			marker.setAttribute(IMarker.MESSAGE, message);
-			marker.setAttribute(IMarker.SEVERITY, severity);
 			if (lineNumber == -1)
 				lineNumber = 1;
-			marker.setAttribute(IMarker.LINE_NUMBER, lineNumber);
+			IMarker marker = getMarkerFactory().createMarker(fFile, fixId, category, message, lineNumber, severity);
 			if (severity == IMarker.SEVERITY_ERROR)
 				fErrorCount += 1;
 			return marker;
@@ -223,16 +271,54 @@ public class XMLErrorReporter extends DefaultHandler {
 		else
 			fElementStack.peek().appendChild(element);
 		fElementStack.push(element);
-		try {
-			if (fTextDocument != null)
-				fOffsetTable.put(element, new ElementData(getStartOffset(qName)));
-		} catch (BadLocationException e) {
+		if (fText != null) {
+			// the locator is positioned right after the start tag
+			int startTagEnd = getLocatorOffset();
+			if (startTagEnd != -1) {
+				// '<' cannot appear in attribute values, so the last one is the start of the tag
+				int offset = fText.lastIndexOf('<', startTagEnd - 1);
+				if (offset != -1)
+					fOffsetTable.put(element, new ElementData(offset, startTagEnd));
+			}
 		}
 	}
 
 	@Override
 	public void endElement(String uri, String localName, String qName) throws SAXException {
-		fElementStack.pop();
+		Element element = fElementStack.pop();
+		ElementData data = fOffsetTable.get(element);
+		if (data != null)
+			data.end = getLocatorOffset();
+		elementEnded(element);
+	}
+
+	/**
+	 * Called once an element and all its children have been parsed. The element
+	 * offsets are available at this point, so subclasses may validate it without
+	 * waiting for the end of the document.
+	 *
+	 * @param element the element that was completed
+	 */
+	protected void elementEnded(Element element) {
+	}
+
+	/**
+	 * Removes the children of the given element from the document once they are
+	 * no longer needed, along with their recorded offsets.
+	 *
+	 * @param element the element to prune
+	 */
+	protected void discardChildren(Element element) {
+		Node child = element.getFirstChild();
+		while (child != null) {
+			Node next = child.getNextSibling();
+			if (child instanceof Element) {
+				discardChildren((Element) child);
+				fOffsetTable.remove(child);
+			}
+			element.removeChild(child);
+			child = next;
+		}
 	}
 
 	private void generateErrorElementHierarchy() {
@@ -261,81 +347,50 @@ public class XMLErrorReporter extends DefaultHandler {
 		fLocator = locator;
 	}
 
-	private int getStartOffset(String elementName) throws BadLocationException {
+	/**
+	 * Returns the offset in the text corresponding to the current position of the
+	 * locator, or -1 if it cannot be determined.
+	 */
+	private int getLocatorOffset() {
+		if (fLocator == null || fLineOffsets == null)
+			return -1;
 		int line = fLocator.getLineNumber();
+		if (line < 1 || line > fLineOffsets.length)
+			return -1;
 		int col = fLocator.getColumnNumber();
-		if (col < 0)
-			col = fTextDocument.getLineLength(line);
-		String text = fTextDocument.get(fHighestOffset + 1, fTextDocument.getLineOffset(line) - fHighestOffset - 1);
-
-		ArrayList<Position> commentPositions = new ArrayList<>();
-		for (int idx = 0; idx < text.length();) {
-			idx = text.indexOf("<!--", idx); //$NON-NLS-1$
-			if (idx == -1)
-				break;
-			int end = text.indexOf("-->", idx); //$NON-NLS-1$
-			if (end == -1)
-				break;
-
-			commentPositions.add(new Position(idx, end - idx));
-			idx = end + 1;
-		}
-
-		int idx = 0;
-		for (; idx < text.length(); idx += 1) {
-			idx = text.indexOf("<" + elementName, idx); //$NON-NLS-1$
-			if (idx == -1)
-				break;
-			boolean valid = true;
-			for (int i = 0; i < commentPositions.size(); i++) {
-				Position pos = commentPositions.get(i);
-				if (pos.includes(idx)) {
-					valid = false;
-					break;
-				}
-			}
-			if (valid)
-				break;
+		int offset;
+		if (col < 1) {
+			offset = line < fLineOffsets.length ? fLineOffsets[line] : fText.length();
+		} else {
+			offset = fLineOffsets[line - 1] + col - 1;
 		}
-		if (idx > -1)
-			fHighestOffset += idx + 1;
-		return fHighestOffset;
+		return Math.min(offset, fText.length());
 	}
 
-	private int getAttributeOffset(String name, String value, int offset) throws BadLocationException {
-		IRegion nameRegion = fFindReplaceAdapter.find(offset, name + "=\"" + getWritableString(value), true, false, false, false); //$NON-NLS-1$
-		if (nameRegion != null) {
-			return nameRegion.getOffset();
-		}
-		return -1;
+	/**
+	 * Returns the zero-based line of the given offset
+	 */
+	private int getLineOfOffset(int offset) {
+		int line = Arrays.binarySearch(fLineOffsets, offset);
+		return line >= 0 ? line : -line - 2;
 	}
 
-	private String getWritableString(String source) {
-		StringBuffer buf = new StringBuffer();
-		for (int i = 0; i < source.length(); i++) {
-			char c = source.charAt(i);
-			switch (c) {
-				case '&' :
-					buf.append("&amp;"); //$NON-NLS-1$
-					break;
-				case '<' :
-					buf.append("&lt;"); //$NON-NLS-1$
-					break;
-				case '>' :
-					buf.append("&gt;"); //$NON-NLS-1$
-					break;
-				case '\'' :
-					buf.append("&apos;"); //$NON-NLS-1$
-					break;
-				case '\"' :
-					buf.append("&quot;"); //$NON-NLS-1$
-					break;
-				default :
-					buf.append(c);
-					break;
-			}
+	/**
+	 * Returns the offset of the given attribute in the start tag of an element, or
+	 * -1 if it cannot be found. Only the start tag is searched.
+	 */
+	private int getAttributeOffset(String name, ElementData data) {
+		int limit = data.startTagEnd;
+		for (int idx = data.offset + 1; idx + name.length() < limit; idx++) {
+			if (!Character.isWhitespace(fText.charAt(idx - 1)) || !fText.startsWith(name, idx))
+				continue;
+			int next = idx + name.length();
+			while (next < limit && Character.isWhitespace(fText.charAt(next)))
+				next++;
+			if (next < limit && fText.charAt(next) == '=')
+				return idx;
 		}
-		return buf.toString();
+		return -1;
 	}
 
 	/**
@@ -348,41 +403,29 @@ public class XMLErrorReporter extends DefaultHandler {
 	 */
 	protected String getTextContent(Element element) {
 		ElementData data = fOffsetTable.get(element);
-		if (data == null)
+		if (data == null || data.end == -1)
+			return null;
+		if (element.hasChildNodes()) {
 			return null;
-		try {
-			if (element.hasChildNodes()) {
-				return null;
-			}
-			IRegion openElement = fFindReplaceAdapter.find(data.offset, ">", true, true, false, false); //$NON-NLS-1$
-			IRegion closeElement = fFindReplaceAdapter.find(data.offset, "</" + element.getNodeName() + ">", true, true, false, false); //$NON-NLS-1$ //$NON-NLS-2$
-			if (openElement != null && closeElement != null) {
-				int endOfOpenElement = openElement.getOffset() + openElement.getLength();
-				return fTextDocument.get(endOfOpenElement, closeElement.getOffset() - endOfOpenElement).trim();
-			}
-		} catch (BadLocationException e) {
 		}
-		return null;
+		// the end tag starts at the last '<' of the element, an empty element tag has no content
+		int closeElement = fText.lastIndexOf('<', data.end - 1);
+		if (closeElement < data.startTagEnd)
+			return null;
+		return fText.substring(data.startTagEnd, closeElement).trim();
 	}
 
 	protected int getLine(Element element) {
 		ElementData data = fOffsetTable.get(element);
-		try {
-			return (data == null) ? 1 : fTextDocument.getLineOfOffset(data.offset) + 1;
-		} catch (Exception e) {
-			return 1;
-		}
+		return (data == null) ? 1 : getLineOfOffset(data.offset) + 1;
 	}
 
 	protected int getLine(Element element, String attName) {
 		ElementData data = fOffsetTable.get(element);
 		if (data != null) {
-			try {
-				int offset = getAttributeOffset(attName, element.getAttribute(attName), data.offset);
-				if (offset != -1)
-					return fTextDocument.getLineOfOffset(offset) + 1;
-			} catch (BadLocationException e) {
-			}
+			int offset = getAttributeOffset(attName, data);
+			if (offset != -1)
+				return getLineOfOffset(offset) + 1;
 		}
 		return getLine(element);
 	}
@@ -415,13 +458,10 @@ public class XMLErrorReporter extends DefaultHandler {
 
 	@Override
 	public InputSource resolveEntity(String publicId, String systemId) throws SAXException {
-		int x = fTextDocument.get().indexOf("!DOCTYPE"); //$NON-NLS-1$
+		int x = fText == null ? -1 : fText.indexOf("!DOCTYPE"); //$NON-NLS-1$
 		if (x > 0) {
-			try {
-				int line = fTextDocument.getLineOfOffset(x) + 1;
-				report(PDECoreMessages.XMLErrorReporter_ExternalEntityResolution, line, CompilerFlags.WARNING, PDEMarkerFactory.CAT_OTHER);
-			} catch (BadLocationException e) {
-			}
+			int line = getLineOfOffset(x) + 1;
+			report(PDECoreMessages.XMLErrorReporter_ExternalEntityResolution, line, CompilerFlags.WARNING, PDEMarkerFactory.CAT_OTHER);
 		}
 		// Prevent the resolution of external entities in order to
 		// prevent the parser from accessing the Internet
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2003, 2013 IBM Corporation and others.
+ *  Copyright (c) 2003, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -22,6 +22,7 @@ import org.eclipse.pde.core.plugin.*;
 import org.eclipse.pde.internal.core.*;
 import org.eclipse.pde.internal.core.ibundle.*;
 import org.eclipse.pde.internal.core.plugin.*;
+import org.eclipse.pde.internal.core.text.AbstractEditingModel;
 import org.eclipse.pde.internal.core.text.bundle.*;
 import org.osgi.framework.*;
 
@@ -66,6 +67,41 @@ public class BundlePluginBase extends PlatformObject implements IBundlePluginBas
 			getModel().fireModelChanged(event);
 		} else if (!event.getChangeProvider().equals(model.getBundleModel())) {
 			getModel().fireModelChanged(event);
+		} else if (AbstractEditingModel.isSynchronizing(event)) {
+			// the bundle model was updated from its edited document, not through
+			// this plug-in base, so the plug-in model listeners were not notified
+			headerChanged(event);
+		}
+	}
+
+	/**
+	 * Notifies the listeners of the plug-in model about a header changed while
+	 * updating the bundle model from its edited document.
+	 */
+	private void headerChanged(IModelChangedEvent event) {
+		String header = event.getChangedProperty();
+		if (Constants.REQUIRE_BUNDLE.equals(header) || Constants.BUNDLE_CLASSPATH.equals(header) || Constants.BUNDLE_MANIFESTVERSION.equals(header)) {
+			// the imports or libraries derived from the header are replaced
+			reset();
+			getModel().fireModelChanged(new ModelChangedEvent(getModel(), IModelChangedEvent.WORLD_CHANGED, new Object[] {getModel()}, null));
+			return;
+		}
+
+		String property = null;
+		if (Constants.BUNDLE_SYMBOLICNAME.equals(header))
+			property = IIdentifiable.P_ID;
+		else if (Constants.BUNDLE_NAME.equals(header))
+			property = IPluginObject.P_NAME;
+		else if (Constants.BUNDLE_VERSION.equals(header))
+			property = IPluginBase.P_VERSION;
+		else if (Constants.BUNDLE_VENDOR.equals(header))
+			property = IPluginBase.P_PROVIDER;
+
+		if (property != null) {
+			// report the header as the property of this plug-in base its setter would fire
+			getModel().fireModelChanged(new ModelChangedEvent(getModel(), this, property, event.getOldValue(), event.getNewValue()));
+		} else {
+			getModel().fireModelChanged(event);
 		}
 	}
 
@@ -0,0 +1,297 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.core.exports;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.*;
+import org.eclipse.pde.core.build.IBuildEntry;
+import org.eclipse.pde.core.build.IBuildModel;
+import org.eclipse.pde.core.plugin.IPluginModelBase;
+import org.eclipse.pde.internal.build.IBuildPropertiesConstants;
+import org.eclipse.pde.internal.core.ICoreConstants;
+import org.eclipse.pde.internal.core.build.WorkspaceBuildModel;
+import org.eclipse.pde.internal.core.project.PDEProject;
+import org.eclipse.pde.internal.core.util.CoreUtility;
+
+/**
+ * Cache of the bundle jars built by previous exports, so that exports can
+ * reuse the jars of workspace bundles that did not change instead of building
+ * them again.
+ *
+ * A cached jar is stored for each bundle id and built version, together with a
+ * key computed from the export settings, the content the jar is built from and
+ * the bundles it is compiled against. The content consists of the files
+ * included in the binary build, the source folders of its libraries, the
+ * project's compiler settings and, when workspace compiled classes are
+ * exported, their output folders.
+ *
+ * As the built version is part of the cache entry, jars of bundles whose
+ * <code>.qualifier</code> is replaced by a different qualifier on each export
+ * are never reused.
+ *
+ * The cache keeps the {@link #MAX_JARS} most recently used jars, the others are
+ * deleted when the cache is saved.
+ */
+public class ExportCache {
+
+	private static final String INDEX_FILENAME = "index.properties"; //$NON-NLS-1$
+	private static final String JAR_EXTENSION = ".jar"; //$NON-NLS-1$
+	private static final String COMPILER_SETTINGS = ".settings/org.eclipse.jdt.core.prefs"; //$NON-NLS-1$
+	private static final char[] HEX = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+	/**
+	 * Maximum number of jars kept in the cache.
+	 */
+	public static final int MAX_JARS = 200;
+
+	private final File fLocation;
+	private final Properties fIndex = new Properties();
+
+	/**
+	 * Creates a cache stored in the given directory, reading the index of
+	 * the jars already cached there.
+	 *
+	 * @param location directory of the cache
+	 */
+	public ExportCache(File location) {
+		fLocation = location;
+		File index = new File(location, INDEX_FILENAME);
+		if (index.exists()) {
+			try (InputStream stream = new BufferedInputStream(new FileInputStream(index))) {
+				fIndex.load(stream);
+			} catch (IOException e) {
+				// start with an empty cache
+				fIndex.clear();
+			}
+		}
+	}
+
+	/**
+	 * Computes the key of the content of a workspace bundle's jar.
+	 *
+	 * @param model the workspace bundle
+	 * @param settings export settings affecting the content of the jar
+	 * @param outputFolders output folders of the bundle's libraries, relative
+	 *  to the project, or <code>null</code> if classes are compiled by the export
+	 * @return the key of the bundle's content
+	 * @throws CoreException if the bundle's build properties cannot be read
+	 * @throws IOException if the bundle's content cannot be read
+	 */
+	public String computeKey(IPluginModelBase model, String settings, Collection<IPath> outputFolders) throws CoreException, IOException {
+		MessageDigest digest = createDigest();
+		digest.update(settings.getBytes(StandardCharsets.UTF_8));
+
+		File root = new File(model.getInstallLocation());
+		SortedSet<String> paths = new TreeSet<>();
+		paths.add(ICoreConstants.BUILD_FILENAME_DESCRIPTOR);
+		// project specific compiler settings are used by the export
+		paths.add(COMPILER_SETTINGS);
+
+		IFile buildFile = PDEProject.getBuildProperties(model.getUnderlyingResource().getProject());
+		if (buildFile.exists()) {
+			IBuildModel buildModel = new WorkspaceBuildModel(buildFile);
+			buildModel.load();
+			Set<String> libraries = new HashSet<>();
+			for (IBuildEntry entry : buildModel.getBuild().getBuildEntries()) {
+				String name = entry.getName();
+				if (name.startsWith(IBuildPropertiesConstants.PROPERTY_SOURCE_PREFIX)) {
+					libraries.add(name.substring(IBuildPropertiesConstants.PROPERTY_SOURCE_PREFIX.length()));
+					paths.addAll(Arrays.asList(entry.getTokens()));
+				}
+			}
+			IBuildEntry binIncludes = buildModel.getBuild().getEntry(IBuildEntry.BIN_INCLUDES);
+			if (binIncludes != null) {
+				for (String token : binIncludes.getTokens()) {
+					// libraries are built from their source folders
+					if (!libraries.contains(token))
+						paths.add(getIncludedPath(token));
+				}
+			}
+		}
+		if (outputFolders != null) {
+			for (IPath folder : outputFolders) {
+				paths.add(folder.toString());
+			}
+		}
+
+		byte[] buffer = new byte[8192];
+		for (String path : paths) {
+			update(digest, new File(root, path), path, buffer);
+		}
+
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * Computes the key of a workspace bundle's jar from the key of its content
+	 * and the bundles it is compiled against.
+	 *
+	 * @param contentKey key of the bundle's content, see {@link #computeKey(IPluginModelBase, String, Collection)}
+	 * @param dependencies a description of each bundle the bundle is compiled against,
+	 *  which must change whenever that bundle changes
+	 * @return the key of the bundle's jar
+	 * @throws IOException if the key cannot be computed
+	 */
+	public String computeKey(String contentKey, Collection<String> dependencies) throws IOException {
+		MessageDigest digest = createDigest();
+		digest.update(contentKey.getBytes(StandardCharsets.UTF_8));
+		for (String dependency : new TreeSet<>(dependencies)) {
+			digest.update((byte) 0);
+			digest.update(dependency.getBytes(StandardCharsets.UTF_8));
+		}
+		return toHex(digest.digest());
+	}
+
+	private static MessageDigest createDigest() throws IOException {
+		try {
+			return MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static String toHex(byte[] hash) {
+		char[] key = new char[hash.length * 2];
+		for (int i = 0; i < hash.length; i++) {
+			key[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+			key[i * 2 + 1] = HEX[hash[i] & 0xf];
+		}
+		return new String(key);
+	}
+
+	/**
+	 * Returns the path of the file or folder included by a bin.includes token,
+	 * which is the folder containing the first wildcard for patterns.
+	 */
+	private static String getIncludedPath(String token) {
+		int wildcard = token.indexOf('*');
+		if (wildcard == -1)
+			return token;
+		int separator = token.lastIndexOf('/', wildcard);
+		return separator == -1 ? "." : token.substring(0, separator); //$NON-NLS-1$
+	}
+
+	private static void update(MessageDigest digest, File file, String path, byte[] buffer) throws IOException {
+		digest.update(path.getBytes(StandardCharsets.UTF_8));
+		if (file.isDirectory()) {
+			String[] children = file.list();
+			if (children == null)
+				return;
+			Arrays.sort(children);
+			for (String child : children) {
+				update(digest, new File(file, child), path + '/' + child, buffer);
+			}
+		} else if (file.isFile()) {
+			try (InputStream stream = new FileInputStream(file)) {
+				int read;
+				while ((read = stream.read(buffer)) != -1) {
+					digest.update(buffer, 0, read);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the cached jar of the given bundle version, if it was built with
+	 * the given key. The jar is marked as used, so it is kept in the cache.
+	 *
+	 * @param id symbolic name of the bundle
+	 * @param version built version of the bundle
+	 * @param key key of the bundle's current content
+	 * @return the cached jar, or <code>null</code> if there is none for the key
+	 */
+	public File getJar(String id, String version, String key) {
+		String name = id + '_' + version;
+		if (!key.equals(fIndex.getProperty(name)))
+			return null;
+		File jar = new File(fLocation, name + JAR_EXTENSION);
+		if (!jar.isFile())
+			return null;
+		jar.setLastModified(System.currentTimeMillis());
+		return jar;
+	}
+
+	/**
+	 * Stores a copy of a built jar, replacing the jar cached for the same
+	 * bundle version.
+	 *
+	 * @param id symbolic name of the bundle
+	 * @param version built version of the bundle
+	 * @param key key of the content the jar was built from
+	 * @param jar the built jar
+	 * @throws IOException if the jar cannot be copied
+	 */
+	public void putJar(String id, String version, String key, File jar) throws IOException {
+		String name = id + '_' + version;
+		fLocation.mkdirs();
+		fIndex.remove(name);
+		try (InputStream stream = new FileInputStream(jar)) {
+			CoreUtility.readFile(stream, new File(fLocation, name + JAR_EXTENSION));
+		}
+		fIndex.setProperty(name, key);
+	}
+
+	/**
+	 * Evicts the least recently used jars beyond {@link #MAX_JARS} and jars
+	 * not listed in the index, then saves the index of the remaining jars.
+	 *
+	 * @throws IOException if the index cannot be written
+	 */
+	public void save() throws IOException {
+		fLocation.mkdirs();
+		evict();
+		try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(new File(fLocation, INDEX_FILENAME)))) {
+			fIndex.store(stream, "Export cache"); //$NON-NLS-1$
+		}
+	}
+
+	private void evict() {
+		List<File> jars = new ArrayList<>();
+		File[] files = fLocation.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				String name = file.getName();
+				if (!name.endsWith(JAR_EXTENSION))
+					continue;
+				if (fIndex.containsKey(name.substring(0, name.length() - JAR_EXTENSION.length())))
+					jars.add(file);
+				else
+					file.delete();
+			}
+		}
+
+		// drop index entries whose jar is gone
+		Set<String> names = new HashSet<>();
+		for (File jar : jars) {
+			String name = jar.getName();
+			names.add(name.substring(0, name.length() - JAR_EXTENSION.length()));
+		}
+		fIndex.keySet().retainAll(names);
+
+		if (jars.size() <= MAX_JARS)
+			return;
+		Map<File, Long> lastUsed = new HashMap<>();
+		for (File jar : jars) {
+			lastUsed.put(jar, Long.valueOf(jar.lastModified()));
+		}
+		jars.sort((jar1, jar2) -> lastUsed.get(jar2).compareTo(lastUsed.get(jar1)));
+		for (File jar : jars.subList(MAX_JARS, jars.size())) {
+			String name = jar.getName();
+			fIndex.remove(name.substring(0, name.length() - JAR_EXTENSION.length()));
+			jar.delete();
+		}
+	}
+}
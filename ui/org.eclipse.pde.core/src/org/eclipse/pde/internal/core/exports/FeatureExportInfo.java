@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2009 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -27,5 +27,7 @@ public class FeatureExportInfo {
 	public String[] jnlpInfo;
 	public String[][] targets;
 	public String categoryDefinition;
+	public boolean parallelAssembly;
+	public boolean useExportCache;
 
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2016 IBM Corporation and others.
+ * Copyright (c) 2006, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,8 +26,7 @@ import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.launching.JavaRuntime;
 import org.eclipse.jdt.launching.environments.IExecutionEnvironment;
 import org.eclipse.jdt.launching.environments.IExecutionEnvironmentsManager;
-import org.eclipse.osgi.service.resolver.BundleDescription;
-import org.eclipse.osgi.service.resolver.State;
+import org.eclipse.osgi.service.resolver.*;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.pde.core.IModel;
 import org.eclipse.pde.core.build.*;
@@ -37,12 +36,12 @@ import org.eclipse.pde.internal.build.site.QualifierReplacer;
 import org.eclipse.pde.internal.core.*;
 import org.eclipse.pde.internal.core.build.WorkspaceBuildModel;
 import org.eclipse.pde.internal.core.feature.ExternalFeatureModel;
-import org.eclipse.pde.internal.core.feature.FeatureChild;
 import org.eclipse.pde.internal.core.ifeature.*;
 import org.eclipse.pde.internal.core.project.PDEProject;
 import org.eclipse.pde.internal.core.target.TargetMetadataCollector;
 import org.eclipse.pde.internal.core.util.CoreUtility;
 import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.Version;
 import org.w3c.dom.*;
 
 public class FeatureExportOperation extends Job {
@@ -52,6 +51,8 @@ public class FeatureExportOperation extends Job {
 	protected String fBuildTempMetadataLocation;
 	private String fDevProperties;
 	private static boolean fHasErrors;
+	// start and end time of the configurations assembled in parallel
+	private static final Map<String, long[]> fConfigurationTimes = new LinkedHashMap<>();
 	protected HashMap<String, String> fAntBuildProperties;
 	protected WorkspaceExportHelper fWorkspaceExportHelper;
 
@@ -60,9 +61,23 @@ public class FeatureExportOperation extends Job {
 	protected static String FEATURE_POST_PROCESSING = "features.postProcessingSteps.properties"; //$NON-NLS-1$
 	protected static String PLUGIN_POST_PROCESSING = "plugins.postProcessingSteps.properties"; //$NON-NLS-1$
 
+	/**
+	 * Property identifying the configuration assembled by the builds started
+	 * from the parallel assembly script.
+	 */
+	public static final String PROPERTY_CONFIGURATION = "pde.export.configuration"; //$NON-NLS-1$
+
 	private static final String[] GENERIC_CONFIG = new String[] {"*", "*", "*", ""}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 	protected FeatureExportInfo fInfo;
 
+	private final String fQualifier;
+	private ExportCache fExportCache;
+	private long fExportStart;
+	// keys of the workspace bundles built by this export, by built bundle name
+	private final Map<String, String> fBuiltBundleKeys = new LinkedHashMap<>();
+	private final List<String> fReusedBundles = new ArrayList<>();
+	private final List<String> fRebuiltBundles = new ArrayList<>();
+
 	public FeatureExportOperation(FeatureExportInfo info, String name) {
 		super(name);
 		fInfo = info;
@@ -70,6 +85,7 @@ public class FeatureExportOperation extends Job {
 		if (qualifier == null)
 			qualifier = QualifierReplacer.getDateQualifier();
 		QualifierReplacer.setGlobalQualifier(qualifier);
+		fQualifier = qualifier;
 		fBuildTempLocation = PDECore.getDefault().getStateLocation().append("temp").toString(); //$NON-NLS-1$
 		fBuildTempMetadataLocation = PDECore.getDefault().getStateLocation().append("tempp2metadata").toString(); //$NON-NLS-1$
 	}
@@ -89,7 +105,7 @@ public class FeatureExportOperation extends Job {
 				// create a feature to contain all plug-ins and features depth first
 				String featureID = "org.eclipse.pde.container.feature"; //$NON-NLS-1$
 				String fFeatureLocation = fBuildTempLocation + File.separator + featureID;
-				createFeature(featureID, fFeatureLocation, fInfo.items, null, null, null);
+				createFeature(featureID, fFeatureLocation, fInfo.items);
 				ExternalFeatureModel model = new ExternalFeatureModel();
 				model.setInstallLocation(fFeatureLocation);
 				InputStream stream = null;
@@ -249,6 +265,8 @@ public class FeatureExportOperation extends Job {
 		SubMonitor subMonitor = SubMonitor.convert(monitor, PDECoreMessages.FeatureExportJob_taskName, subTaskLength);
 
 		HashMap<String, String> properties = createAntBuildProperties(configs);
+		if (useExportCache() && fExportCache == null)
+			reuseCachedBundles(properties);
 		BuildScriptGenerator generator = new BuildScriptGenerator();
 		setupGenerator(generator, featureID, version, configs, featureLocation);
 		generator.generate();
@@ -271,20 +289,377 @@ public class FeatureExportOperation extends Job {
 
 		}
 
-		subMonitor.setTaskName(PDECoreMessages.FeatureExportOperation_runningAssemblyScript);
-		for (String[] config : configs) {
-			setArchiveLocation(properties, config[0], config[1], config[2]);
-			runScript(getAssemblyScriptName(featureID, config[0], config[1], config[2], featureLocation), new String[] {"main"}, //$NON-NLS-1$
-					properties, subMonitor.split(2));
-		}
+		if (fInfo.parallelAssembly && configs.length > 1) {
+			subMonitor.setTaskName(NLS.bind(PDECoreMessages.FeatureExportOperation_runningAssemblyInParallel, Integer.toString(configs.length)));
+			runAssemblyInParallel(featureID, featureLocation, configs, properties, subMonitor.split(configs.length * 4));
+		} else {
+			subMonitor.setTaskName(PDECoreMessages.FeatureExportOperation_runningAssemblyScript);
+			for (String[] config : configs) {
+				setArchiveLocation(properties, config[0], config[1], config[2]);
+				runScript(getAssemblyScriptName(featureID, config[0], config[1], config[2], featureLocation), new String[] {"main"}, //$NON-NLS-1$
+						properties, subMonitor.split(2));
+			}
 
-		subMonitor.setTaskName(PDECoreMessages.FeatureExportOperation_runningPackagerScript);
-		for (String[] config : configs) {
-			setArchiveLocation(properties, config[0], config[1], config[2]);
-			runScript(getPackagerScriptName(featureID, config[0], config[1], config[2], featureLocation), null, properties, subMonitor.split(2));
+			subMonitor.setTaskName(PDECoreMessages.FeatureExportOperation_runningPackagerScript);
+			for (String[] config : configs) {
+				setArchiveLocation(properties, config[0], config[1], config[2]);
+				runScript(getPackagerScriptName(featureID, config[0], config[1], config[2], featureLocation), null, properties, subMonitor.split(2));
+			}
 		}
 		properties.put("destination.temp.folder", fBuildTempLocation + "/pde.logs"); //$NON-NLS-1$ //$NON-NLS-2$
 		runScript(getBuildScriptName(featureLocation), new String[] {"gather.logs"}, properties, subMonitor.split(2)); //$NON-NLS-1$
+
+		if (fExportCache != null)
+			updateExportCache(configs);
+	}
+
+	/**
+	 * Whether the jars of unchanged workspace bundles may be reused from
+	 * previous exports. Only jars exported to a directory without source are
+	 * cached, as the jars of all other exports cannot be taken from the
+	 * destination or are built together with their source.
+	 */
+	private boolean useExportCache() {
+		return fInfo.useExportCache && fInfo.toDirectory && fInfo.useJarFormat && !fInfo.exportSource;
+	}
+
+	/**
+	 * Replaces the exported workspace bundles whose content did not change
+	 * since a previous export by their cached jars in the build state, so the
+	 * export copies them like binary bundles instead of building them.
+	 * <p>
+	 * Bundles with a <code>.qualifier</code> version are only cached when the
+	 * export uses a fixed qualifier: the qualifier generated from the time of
+	 * each export is part of the built jar, so their jars could never be reused.
+	 * </p>
+	 *
+	 * @param properties the Ant properties of the export
+	 * @throws CoreException
+	 */
+	private void reuseCachedBundles(Map<String, String> properties) throws CoreException {
+		fExportCache = new ExportCache(PDECore.getDefault().getStateLocation().append("exportCache").toFile()); //$NON-NLS-1$
+		fExportStart = System.currentTimeMillis();
+
+		StringBuffer settings = new StringBuffer();
+		settings.append(fInfo.useWorkspaceCompiledClasses).append(',');
+		settings.append(fInfo.allowBinaryCycles).append(',');
+		settings.append(properties.get(IXMLConstants.PROPERTY_JAVAC_SOURCE)).append(',');
+		settings.append(properties.get(IXMLConstants.PROPERTY_JAVAC_TARGET)).append(',');
+		if (fInfo.signingInfo != null)
+			settings.append(fInfo.signingInfo[0]).append(',').append(fInfo.signingInfo[1]);
+
+		Map<String, Map<String, Set<IPath>>> outputFolders = null;
+		if (fInfo.useWorkspaceCompiledClasses)
+			outputFolders = getWorkspaceExportHelper().getWorkspaceOutputFolders(fInfo.items);
+
+		// compute all keys before the state is changed
+		State state = getBuildState();
+		Map<BundleDescription, String> contentKeys = new HashMap<>();
+		Map<BundleDescription, String> keys = new LinkedHashMap<>();
+		for (IPluginModelBase model : getExportedWorkspaceModels()) {
+			BundleDescription bundle = state.getBundle(model.getBundleDescription().getBundleId());
+			if (bundle == null)
+				continue;
+			if (fInfo.qualifier == null && "qualifier".equals(bundle.getVersion().getQualifier())) //$NON-NLS-1$
+				continue;
+
+			try {
+				String contentKey = getContentKey(bundle, settings.toString(), outputFolders, contentKeys);
+				if (contentKey != null)
+					keys.put(bundle, fExportCache.computeKey(contentKey, getDependencyKeys(bundle, settings.toString(), outputFolders, contentKeys)));
+			} catch (IOException e) {
+				PDECore.log(e);
+			}
+		}
+
+		for (Map.Entry<BundleDescription, String> entry : keys.entrySet()) {
+			BundleDescription bundle = entry.getKey();
+			String key = entry.getValue();
+			String id = bundle.getSymbolicName();
+			Version version = bundle.getVersion();
+			if ("qualifier".equals(version.getQualifier())) //$NON-NLS-1$
+				version = new Version(version.getMajor(), version.getMinor(), version.getMicro(), fQualifier);
+
+			String name = id + '_' + version;
+			File jar = fExportCache.getJar(id, version.toString(), key);
+			if (jar == null) {
+				fBuiltBundleKeys.put(name, key);
+				fRebuiltBundles.add(name);
+				continue;
+			}
+
+			// build the cached jar as a binary bundle in place of the project
+			state.removeBundle(bundle.getBundleId());
+			BundleDescription cached = state.getFactory().createBundleDescription(bundle.getBundleId(), id, version, jar.getAbsolutePath(), bundle.getRequiredBundles(), bundle.getHost(), bundle.getImportPackages(), bundle.getExportPackages(), bundle.isSingleton(), bundle.attachFragments(), bundle.dynamicFragments(), bundle.getPlatformFilter(), bundle.getExecutionEnvironments(), bundle.getGenericRequires(), bundle.getGenericCapabilities());
+			state.addBundle(cached);
+			fReusedBundles.add(name);
+		}
+	}
+
+	/**
+	 * Returns the key of the content of a workspace bundle, see
+	 * {@link ExportCache#computeKey(IPluginModelBase, String, Collection)}.
+	 *
+	 * @param bundle a bundle of the build state
+	 * @param settings the export settings
+	 * @param outputFolders output folders of the workspace bundles by id and library,
+	 *  or <code>null</code> if classes are compiled by the export
+	 * @param contentKeys keys computed so far
+	 * @return the key, or <code>null</code> if the bundle is not a workspace bundle
+	 * @throws IOException if the bundle's content cannot be read
+	 * @throws CoreException if the bundle's build properties cannot be read
+	 */
+	private String getContentKey(BundleDescription bundle, String settings, Map<String, Map<String, Set<IPath>>> outputFolders, Map<BundleDescription, String> contentKeys) throws IOException, CoreException {
+		if (contentKeys.containsKey(bundle))
+			return contentKeys.get(bundle);
+
+		String key = null;
+		IPluginModelBase model = PluginRegistry.findModel(bundle);
+		if (model != null && model.getUnderlyingResource() != null) {
+			Set<IPath> outputs = null;
+			if (outputFolders != null) {
+				outputs = new HashSet<>();
+				Map<String, Set<IPath>> libraries = outputFolders.get(bundle.getSymbolicName());
+				if (libraries != null) {
+					for (Set<IPath> folders : libraries.values()) {
+						outputs.addAll(folders);
+					}
+				}
+			}
+			key = fExportCache.computeKey(model, settings, outputs);
+		}
+		contentKeys.put(bundle, key);
+		return key;
+	}
+
+	/**
+	 * Returns a description of each bundle that a bundle is compiled against,
+	 * which are all bundles it depends on directly or indirectly in the build
+	 * state. A description consists of the bundle's id and version, and the key
+	 * of its content for workspace bundles or the location and time stamp of
+	 * other bundles.
+	 */
+	private Collection<String> getDependencyKeys(BundleDescription bundle, String settings, Map<String, Map<String, Set<IPath>>> outputFolders, Map<BundleDescription, String> contentKeys) throws IOException, CoreException {
+		Set<BundleDescription> dependencies = new HashSet<>();
+		Deque<BundleDescription> stack = new ArrayDeque<>();
+		stack.push(bundle);
+		while (!stack.isEmpty()) {
+			BundleDescription current = stack.pop();
+			List<BundleDescription> required = new ArrayList<>(Arrays.asList(current.getResolvedRequires()));
+			for (ExportPackageDescription export : current.getResolvedImports()) {
+				required.add(export.getExporter());
+			}
+			HostSpecification host = current.getHost();
+			if (host != null)
+				required.addAll(Arrays.asList(host.getHosts()));
+			for (BundleDescription dependency : required) {
+				if (dependency != bundle && dependencies.add(dependency))
+					stack.push(dependency);
+			}
+		}
+
+		List<String> result = new ArrayList<>(dependencies.size());
+		for (BundleDescription dependency : dependencies) {
+			String key = getContentKey(dependency, settings, outputFolders, contentKeys);
+			if (key == null) {
+				String location = dependency.getLocation();
+				key = location == null ? "" : location + ',' + new File(location).lastModified(); //$NON-NLS-1$
+			}
+			result.add(dependency.getSymbolicName() + '_' + dependency.getVersion() + ',' + key);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the workspace bundles exported directly or as part of an exported
+	 * feature.
+	 */
+	private List<IPluginModelBase> getExportedWorkspaceModels() {
+		Set<IPluginModelBase> models = new LinkedHashSet<>();
+		for (Object item : fInfo.items) {
+			if (item instanceof IPluginModelBase) {
+				models.add((IPluginModelBase) item);
+			} else if (item instanceof IFeatureModel) {
+				for (IFeaturePlugin plugin : ((IFeatureModel) item).getFeature().getPlugins()) {
+					IPluginModelBase model = PluginRegistry.findModel(plugin.getId());
+					if (model != null)
+						models.add(model);
+				}
+			}
+		}
+
+		List<IPluginModelBase> result = new ArrayList<>(models.size());
+		for (IPluginModelBase model : models) {
+			if (model.getUnderlyingResource() != null && model.getBundleDescription() != null)
+				result.add(model);
+		}
+		return result;
+	}
+
+	/**
+	 * Stores the jars of the workspace bundles built by this export in the
+	 * export cache and logs which bundles were reused and which were built.
+	 * Bundles restricted to some platforms are only assembled for those
+	 * configurations, so the destinations of all configurations are searched.
+	 *
+	 * @param configs the configurations whose destinations hold the jars
+	 */
+	private void updateExportCache(String[][] configs) {
+		for (String[] config : configs) {
+			Map<String, String> locations = new HashMap<>();
+			setArchiveLocation(locations, config[0], config[1], config[2]);
+			File plugins = new File(locations.get(IXMLConstants.PROPERTY_ASSEMBLY_TMP), "plugins"); //$NON-NLS-1$
+
+			for (Iterator<Map.Entry<String, String>> iter = fBuiltBundleKeys.entrySet().iterator(); iter.hasNext();) {
+				Map.Entry<String, String> entry = iter.next();
+				File jar = new File(plugins, entry.getKey() + ".jar"); //$NON-NLS-1$
+				// ignore jars left over from earlier exports
+				if (!jar.isFile() || jar.lastModified() < fExportStart)
+					continue;
+
+				String name = entry.getKey();
+				int separator = name.lastIndexOf('_');
+				try {
+					fExportCache.putJar(name.substring(0, separator), name.substring(separator + 1), entry.getValue(), jar);
+					iter.remove();
+				} catch (IOException e) {
+					PDECore.log(e);
+				}
+			}
+		}
+
+		try {
+			fExportCache.save();
+		} catch (IOException e) {
+			PDECore.log(e);
+		}
+
+		MultiStatus status = new MultiStatus(PDECore.PLUGIN_ID, 0, NLS.bind(PDECoreMessages.FeatureExportOperation_exportCacheSummary, Integer.toString(fReusedBundles.size()), Integer.toString(fRebuiltBundles.size())), null);
+		for (String name : fReusedBundles) {
+			status.add(new Status(IStatus.INFO, PDECore.PLUGIN_ID, NLS.bind(PDECoreMessages.FeatureExportOperation_reusedBundle, name)));
+		}
+		for (String name : fRebuiltBundles) {
+			status.add(new Status(IStatus.INFO, PDECore.PLUGIN_ID, NLS.bind(PDECoreMessages.FeatureExportOperation_rebuiltBundle, name)));
+		}
+		PDECore.log(status);
+	}
+
+	/**
+	 * Returns the names of the bundles whose jars were reused from previous
+	 * exports, if the export cache is used.
+	 *
+	 * @return the names of the reused bundles, formed by their id and version
+	 */
+	public List<String> getReusedBundles() {
+		return Collections.unmodifiableList(fReusedBundles);
+	}
+
+	/**
+	 * Returns the names of the workspace bundles built by this export, if the
+	 * export cache is used.
+	 *
+	 * @return the names of the rebuilt bundles, formed by their id and version
+	 */
+	public List<String> getRebuiltBundles() {
+		return Collections.unmodifiableList(fRebuiltBundles);
+	}
+
+	/**
+	 * Runs the assembly and packager scripts of all configurations concurrently.
+	 * As the AntRunner only runs one build at a time, the scripts are called
+	 * from a generated script using Ant's parallel task. Each configuration is
+	 * assembled in its own temporary folder and logs to its own files, which are
+	 * gathered with the other build logs.
+	 *
+	 * @param featureID id of the exported feature
+	 * @param featureLocation location of the generated scripts
+	 * @param configs configurations to assemble
+	 * @param properties map of user properties
+	 * @param monitor progress monitor
+	 * @throws InvocationTargetException
+	 * @throws CoreException
+	 */
+	private void runAssemblyInParallel(String featureID, String featureLocation, String[][] configs, Map<String, String> properties, IProgressMonitor monitor) throws InvocationTargetException, CoreException {
+		File logLocation = new File(fBuildTempLocation, "pde.logs"); //$NON-NLS-1$
+		logLocation.mkdirs();
+		File scriptFile = new File(featureLocation, "assemble.parallel.xml"); //$NON-NLS-1$
+		synchronized (fConfigurationTimes) {
+			fConfigurationTimes.clear();
+		}
+		long start = System.currentTimeMillis();
+		try {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			Document doc = factory.newDocumentBuilder().newDocument();
+
+			Element root = doc.createElement("project"); //$NON-NLS-1$
+			root.setAttribute("name", "assemble.parallel"); //$NON-NLS-1$ //$NON-NLS-2$
+			root.setAttribute("default", "main"); //$NON-NLS-1$ //$NON-NLS-2$
+			root.setAttribute("basedir", "."); //$NON-NLS-1$ //$NON-NLS-2$
+			doc.appendChild(root);
+
+			Element target = doc.createElement("target"); //$NON-NLS-1$
+			target.setAttribute("name", "main"); //$NON-NLS-1$ //$NON-NLS-2$
+			root.appendChild(target);
+
+			Element parallel = doc.createElement("parallel"); //$NON-NLS-1$
+			int threads = Math.min(configs.length, Runtime.getRuntime().availableProcessors());
+			parallel.setAttribute("threadCount", Integer.toString(threads)); //$NON-NLS-1$
+			target.appendChild(parallel);
+
+			for (String[] config : configs) {
+				String name = config[0] + '.' + config[1] + '.' + config[2];
+				Map<String, String> configProperties = new LinkedHashMap<>();
+				setArchiveLocation(configProperties, config[0], config[1], config[2]);
+				if (!configProperties.containsKey(IXMLConstants.PROPERTY_ASSEMBLY_TMP))
+					configProperties.put(IXMLConstants.PROPERTY_ASSEMBLY_TMP, fBuildTempLocation + "/assemblyTemp/" + name); //$NON-NLS-1$
+				configProperties.put(PROPERTY_CONFIGURATION, name);
+
+				Element sequential = doc.createElement("sequential"); //$NON-NLS-1$
+				sequential.appendChild(createAntCall(doc, getAssemblyScriptName(featureID, config[0], config[1], config[2], featureLocation), "main", //$NON-NLS-1$
+						new File(logLocation, "assemble." + name + ".log"), configProperties)); //$NON-NLS-1$ //$NON-NLS-2$
+				sequential.appendChild(createAntCall(doc, getPackagerScriptName(featureID, config[0], config[1], config[2], featureLocation), null, new File(logLocation, "package." + name + ".log"), configProperties)); //$NON-NLS-1$ //$NON-NLS-2$
+				parallel.appendChild(sequential);
+			}
+			XMLPrintHandler.writeFile(doc, scriptFile);
+
+			runScript(scriptFile.getAbsolutePath(), new String[] {"main"}, properties, monitor); //$NON-NLS-1$
+		} catch (ParserConfigurationException e) {
+			throw new InvocationTargetException(e);
+		} catch (IOException e) {
+			throw new InvocationTargetException(e);
+		} finally {
+			scriptFile.delete();
+		}
+		logConfigurationTimes(featureID, System.currentTimeMillis() - start);
+	}
+
+	private Element createAntCall(Document doc, String script, String target, File output, Map<String, String> properties) {
+		Element ant = doc.createElement("ant"); //$NON-NLS-1$
+		ant.setAttribute("antfile", script); //$NON-NLS-1$
+		if (target != null)
+			ant.setAttribute("target", target); //$NON-NLS-1$
+		ant.setAttribute("output", output.getAbsolutePath()); //$NON-NLS-1$
+		ant.setAttribute("inheritAll", "false"); //$NON-NLS-1$ //$NON-NLS-2$
+		// user properties are always passed on, nested properties override them for this configuration
+		for (Map.Entry<String, String> entry : properties.entrySet()) {
+			Element property = doc.createElement("property"); //$NON-NLS-1$
+			property.setAttribute("name", entry.getKey()); //$NON-NLS-1$
+			property.setAttribute("value", entry.getValue()); //$NON-NLS-1$
+			ant.appendChild(property);
+		}
+		return ant;
+	}
+
+	private void logConfigurationTimes(String featureID, long time) {
+		synchronized (fConfigurationTimes) {
+			MultiStatus status = new MultiStatus(PDECore.PLUGIN_ID, 0, NLS.bind(PDECoreMessages.FeatureExportOperation_assemblyTimes, new String[] {Integer.toString(fConfigurationTimes.size()), featureID, Long.toString(time)}), null);
+			for (Map.Entry<String, long[]> entry : fConfigurationTimes.entrySet()) {
+				long[] times = entry.getValue();
+				status.add(new Status(IStatus.INFO, PDECore.PLUGIN_ID, NLS.bind(PDECoreMessages.FeatureExportOperation_configurationTime, entry.getKey(), Long.toString(times[1] - times[0]))));
+			}
+			fConfigurationTimes.clear();
+			PDECore.log(status);
+		}
 	}
 
 	protected boolean groupedConfigurations() {
@@ -319,6 +694,33 @@ public class FeatureExportOperation extends Job {
 		if (model == null)
 			return;
 
+		if (!(model instanceof IFeatureModel)) {
+			deleteGeneratedFiles(model);
+			return;
+		}
+
+		// the feature, the features it includes and all their plug-ins
+		Set<IModel> models = new LinkedHashSet<>();
+		models.add(model);
+		IFeature feature = ((IFeatureModel) model).getFeature();
+		FeatureClosure closure = PDECore.getDefault().getFeatureModelManager().getFeatureClosure(feature.getId(), feature.getVersion());
+		models.addAll(Arrays.asList(closure.getFeatures()));
+		List<IFeaturePlugin> plugins = new ArrayList<>(Arrays.asList(feature.getPlugins()));
+		plugins.addAll(Arrays.asList(closure.getPlugins()));
+		for (IFeaturePlugin featurePlugin : plugins) {
+			IPluginModelBase plugin = PluginRegistry.findModel(featurePlugin.getId());
+			if (plugin != null)
+				models.add(plugin);
+		}
+		for (IModel current : models) {
+			deleteGeneratedFiles(current);
+		}
+	}
+
+	/**
+	 * Deletes the build files generated for a single workspace model.
+	 */
+	private void deleteGeneratedFiles(IModel model) throws CoreException {
 		if (model.getUnderlyingResource() != null && !isCustomBuild(model)) {
 			String directory = (model instanceof IFeatureModel) ? ((IFeatureModel) model).getInstallLocation() : ((IPluginModelBase) model).getInstallLocation();
 			File dir = new File(directory);
@@ -341,25 +743,6 @@ public class FeatureExportOperation extends Job {
 				}
 			}
 		}
-
-		if (model instanceof IFeatureModel) {
-			IFeature feature = ((IFeatureModel) model).getFeature();
-			IFeatureChild[] children = feature.getIncludedFeatures();
-			for (IFeatureChild featureChild : children) {
-				IFeature ref = ((FeatureChild) featureChild).getReferencedFeature();
-				if (ref != null) {
-					deleteBuildFiles(ref.getModel());
-				}
-			}
-
-			IFeaturePlugin[] plugins = feature.getPlugins();
-			for (IFeaturePlugin featurePlugin : plugins) {
-				IPluginModelBase plugin = PluginRegistry.findModel(featurePlugin.getId());
-				if (plugin != null) {
-					deleteBuildFiles(plugin);
-				}
-			}
-		}
 	}
 
 	private String getBuildScriptName(String featureLocation) {
@@ -869,70 +1252,48 @@ public class FeatureExportOperation extends Job {
 	}
 
 	/**
-	 * This method recurses on the feature list and creates feature.xml and build.properties.
+	 * Creates the feature.xml and build.properties of a feature including the
+	 * exported features and the source features of them and of all features
+	 * they include.
 	 *
 	 * @param featureID
 	 * @param featureLocation
 	 * @param featuresExported
-	 * @param doc
-	 * @param root
-	 * @param prop
 	 * @throws IOException
 	 */
-	private void createFeature(String featureID, String featureLocation, Object[] featuresExported, Document doc, Element root, Properties prop) throws IOException {
+	private void createFeature(String featureID, String featureLocation, Object[] featuresExported) throws IOException {
 		try {
-			if (doc == null) {
-				DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-				doc = factory.newDocumentBuilder().newDocument();
-				root = doc.createElement("feature"); //$NON-NLS-1$
-				root.setAttribute("id", featureID); //$NON-NLS-1$
-				root.setAttribute("version", "1.0"); //$NON-NLS-1$ //$NON-NLS-2$
-				doc.appendChild(root);
-
-				prop = new Properties();
-				prop.put("pde", "marker"); //$NON-NLS-1$ //$NON-NLS-2$
-				prop.put("individualSourceBundles", "true"); //$NON-NLS-1$ //$NON-NLS-2$
-			}
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			Document doc = factory.newDocumentBuilder().newDocument();
+			Element root = doc.createElement("feature"); //$NON-NLS-1$
+			root.setAttribute("id", featureID); //$NON-NLS-1$
+			root.setAttribute("version", "1.0"); //$NON-NLS-1$ //$NON-NLS-2$
+			doc.appendChild(root);
 
-			boolean returnAfterLoop = false;
+			Properties prop = new Properties();
+			prop.put("pde", "marker"); //$NON-NLS-1$ //$NON-NLS-2$
+			prop.put("individualSourceBundles", "true"); //$NON-NLS-1$ //$NON-NLS-2$
+
+			FeatureModelManager manager = PDECore.getDefault().getFeatureModelManager();
 			for (final Object element : featuresExported) {
 				if (element instanceof IFeatureModel) {
 					IFeature feature = ((IFeatureModel) element).getFeature();
 
-					if (feature.getIncludedFeatures().length > 0) {
-						createFeature(featureID, featureLocation, feature.getIncludedFeatures(), doc, root, prop);
+					// source features of included features precede the ones of
+					// the features including them, ending with the feature itself
+					IFeatureModel[] features = manager.getFeatureClosure(feature.getId(), feature.getVersion()).getFeaturesInPostOrder();
+					for (IFeatureModel model : features) {
+						addSourceFeature(model.getFeature(), doc, root, prop);
 					}
+					if (features.length == 0)
+						addSourceFeature(feature, doc, root, prop);
 
 					Element includes = doc.createElement("includes"); //$NON-NLS-1$
-					includes.setAttribute("id", feature.getId() + ".source"); //$NON-NLS-1$ //$NON-NLS-2$
-					includes.setAttribute("version", feature.getVersion()); //$NON-NLS-1$
-					root.appendChild(includes);
-
-					prop.put("generate.feature@" + feature.getId() + ".source", feature.getId()); //$NON-NLS-1$ //$NON-NLS-2$
-
-					includes = doc.createElement("includes"); //$NON-NLS-1$
 					includes.setAttribute("id", feature.getId()); //$NON-NLS-1$
 					includes.setAttribute("version", feature.getVersion()); //$NON-NLS-1$
 					root.appendChild(includes);
-				} else if (element instanceof IFeatureChild) {
-					returnAfterLoop = true;
-					IFeature feature = ((FeatureChild) element).getReferencedFeature();
-					if (feature != null) {
-						if (feature.getIncludedFeatures().length > 0) {
-							createFeature(featureID, featureLocation, feature.getIncludedFeatures(), doc, root, prop);
-						}
-
-						Element includes = doc.createElement("includes"); //$NON-NLS-1$
-						includes.setAttribute("id", feature.getId() + ".source"); //$NON-NLS-1$ //$NON-NLS-2$
-						includes.setAttribute("version", feature.getVersion()); //$NON-NLS-1$
-						root.appendChild(includes);
-
-						prop.put("generate.feature@" + feature.getId() + ".source", feature.getId()); //$NON-NLS-1$ //$NON-NLS-2$
-					}
 				}
 			}
-			if (returnAfterLoop)
-				return;
 
 			File file = new File(featureLocation);
 			if (!file.exists() || !file.isDirectory())
@@ -980,6 +1341,15 @@ public class FeatureExportOperation extends Job {
 		return (idx > -1 && symbolicName.regionMatches(true, idx + 1, "nl", 0, 2)); //$NON-NLS-1$
 	}
 
+	private static void addSourceFeature(IFeature feature, Document doc, Element root, Properties prop) {
+		Element includes = doc.createElement("includes"); //$NON-NLS-1$
+		includes.setAttribute("id", feature.getId() + ".source"); //$NON-NLS-1$ //$NON-NLS-2$
+		includes.setAttribute("version", feature.getVersion()); //$NON-NLS-1$
+		root.appendChild(includes);
+
+		prop.put("generate.feature@" + feature.getId() + ".source", feature.getId()); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
 	protected void createFeature(String featureID, String featureLocation, String[][] configurations, boolean includeLauncher) throws IOException {
 		File file = new File(featureLocation);
 		if (!file.exists() || !file.isDirectory())
@@ -1118,6 +1488,34 @@ public class FeatureExportOperation extends Job {
 		fHasErrors = true;
 	}
 
+	/**
+	 * Notes that a build for the given configuration started. A configuration
+	 * is timed from its first build started to its last build finished.
+	 *
+	 * @param configuration configuration being assembled
+	 */
+	public static void configurationStarted(String configuration) {
+		long time = System.currentTimeMillis();
+		synchronized (fConfigurationTimes) {
+			if (!fConfigurationTimes.containsKey(configuration))
+				fConfigurationTimes.put(configuration, new long[] {time, time});
+		}
+	}
+
+	/**
+	 * Notes that a build for the given configuration finished.
+	 *
+	 * @param configuration configuration being assembled
+	 */
+	public static void configurationFinished(String configuration) {
+		long time = System.currentTimeMillis();
+		synchronized (fConfigurationTimes) {
+			long[] times = fConfigurationTimes.get(configuration);
+			if (times != null)
+				times[1] = time;
+		}
+	}
+
 	public boolean hasAntErrors() {
 		return fHasErrors;
 	}
@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.core.schema;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.pde.internal.core.ischema.*;
+
+/**
+ * A form of an {@link ISchema} prepared for validating extension elements.
+ * For each element, the required attributes, the allowed child elements and
+ * the enumeration values of restricted attributes are computed once, when the
+ * element is first looked up, instead of walking the schema tree for every
+ * validated extension element. The plug-in editor's content assist looks up
+ * elements and attribute values in the same instances.
+ * <p>
+ * Instances are obtained from {@link SchemaRegistry#getCompiledSchema(ISchema)}
+ * and are safe to use from several threads.
+ * </p>
+ */
+public class CompiledSchema {
+
+	/**
+	 * Validation data of a schema element
+	 */
+	public static class Element {
+		private final ISchemaElement fElement;
+		private final boolean fComplex;
+		private final Set<String> fAllowedChildren;
+		private final Map<String, Attribute> fAttributes;
+		private final Attribute[] fRequiredAttributes;
+
+		Element(ISchemaElement element) {
+			fElement = element;
+			ISchemaType type = element.getType();
+			fComplex = type instanceof ISchemaComplexType;
+			Set<String> allowed = new HashSet<>();
+			computeAllowedElements(type, allowed);
+			fAllowedChildren = Collections.unmodifiableSet(allowed);
+
+			ISchemaAttribute[] attributes = element.getAttributes();
+			Map<String, Attribute> map = new HashMap<>(attributes.length * 2);
+			List<Attribute> required = new ArrayList<>();
+			for (ISchemaAttribute attribute : attributes) {
+				Attribute compiled = new Attribute(attribute);
+				map.put(attribute.getName(), compiled);
+				if (attribute.getUse() == ISchemaAttribute.REQUIRED)
+					required.add(compiled);
+			}
+			fAttributes = map;
+			fRequiredAttributes = required.toArray(new Attribute[required.size()]);
+		}
+
+		/**
+		 * @return the schema element this data was computed from
+		 */
+		public ISchemaElement getSchemaElement() {
+			return fElement;
+		}
+
+		/**
+		 * @return whether the element has a complex type
+		 */
+		public boolean isComplex() {
+			return fComplex;
+		}
+
+		/**
+		 * Returns whether an element with the given name may be a child of this element.
+		 * Java attributes of this element may be specified as child elements.
+		 *
+		 * @param name the name of the child element
+		 * @return whether the child element is allowed
+		 */
+		public boolean allowsChild(String name) {
+			return fAllowedChildren.contains(name);
+		}
+
+		/**
+		 * @param name the attribute name
+		 * @return the attribute with the given name or <code>null</code>
+		 */
+		public Attribute getAttribute(String name) {
+			return fAttributes.get(name);
+		}
+
+		/**
+		 * @return the attributes that must be specified for this element
+		 */
+		public Attribute[] getRequiredAttributes() {
+			return fRequiredAttributes;
+		}
+	}
+
+	/**
+	 * Validation data of a schema attribute
+	 */
+	public static class Attribute {
+		private final ISchemaAttribute fAttribute;
+		private final String fName;
+		private final int fKind;
+		private final boolean fBoolean;
+		private final Set<String> fEnumeration;
+
+		Attribute(ISchemaAttribute attribute) {
+			fAttribute = attribute;
+			fName = attribute.getName();
+			fKind = attribute.getKind();
+			ISchemaSimpleType type = attribute.getType();
+			fBoolean = type != null && "boolean".equals(type.getName()); //$NON-NLS-1$
+			ISchemaRestriction restriction = type == null ? null : type.getRestriction();
+			if (restriction != null) {
+				Set<String> values = new LinkedHashSet<>();
+				for (Object child : restriction.getChildren()) {
+					if (child instanceof ISchemaEnumeration)
+						values.add(((ISchemaEnumeration) child).getName());
+				}
+				fEnumeration = Collections.unmodifiableSet(values);
+			} else {
+				fEnumeration = null;
+			}
+		}
+
+		/**
+		 * @return the schema attribute this data was computed from
+		 */
+		public ISchemaAttribute getSchemaAttribute() {
+			return fAttribute;
+		}
+
+		public String getName() {
+			return fName;
+		}
+
+		/**
+		 * @return the kind of the attribute, one of the {@link IMetaAttribute} constants
+		 */
+		public int getKind() {
+			return fKind;
+		}
+
+		/**
+		 * @return whether the attribute is of type boolean
+		 */
+		public boolean isBoolean() {
+			return fBoolean;
+		}
+
+		/**
+		 * @return whether the values of this attribute are restricted to an enumeration
+		 */
+		public boolean isRestricted() {
+			return fEnumeration != null;
+		}
+
+		/**
+		 * @return the allowed values of this attribute in schema order or <code>null</code>
+		 * if the attribute is not restricted
+		 */
+		public Set<String> getEnumeration() {
+			return fEnumeration;
+		}
+
+		/**
+		 * Returns whether the given value is allowed by the restriction of this attribute.
+		 * Values of attributes that are not restricted are always allowed.
+		 *
+		 * @param value the value to check
+		 * @return whether the value is allowed
+		 */
+		public boolean isAllowedValue(String value) {
+			return fEnumeration == null || fEnumeration.contains(value);
+		}
+	}
+
+	private final ISchema fSchema;
+	private final long fTimestamp;
+	private final Map<String, Element> fElements = new ConcurrentHashMap<>();
+	// names that are not defined in the schema, as the element map cannot hold null values
+	private final Set<String> fUndefined = ConcurrentHashMap.newKeySet();
+
+	CompiledSchema(ISchema schema, long timestamp) {
+		fSchema = schema;
+		fTimestamp = timestamp;
+	}
+
+	/**
+	 * @return the schema this validator was computed from
+	 */
+	public ISchema getSchema() {
+		return fSchema;
+	}
+
+	/**
+	 * Returns whether this was compiled from the given schema at the given time stamp
+	 */
+	boolean isCompiledFrom(ISchema schema, long timestamp) {
+		return fSchema == schema && fTimestamp == timestamp;
+	}
+
+	/**
+	 * Returns the validation data for the element with the given name. Elements
+	 * of included schemas are found as well.
+	 *
+	 * @param name the element name
+	 * @return the element or <code>null</code> if the schema does not define it
+	 */
+	public Element findElement(String name) {
+		Element element = fElements.get(name);
+		if (element == null && !fUndefined.contains(name)) {
+			ISchemaElement schemaElement = fSchema.findElement(name);
+			if (schemaElement == null) {
+				fUndefined.add(name);
+			} else {
+				element = new Element(schemaElement);
+				fElements.put(name, element);
+			}
+		}
+		return element;
+	}
+
+	private static void computeAllowedElements(ISchemaType type, Set<String> elementSet) {
+		if (type instanceof ISchemaComplexType) {
+			ISchemaComplexType complexType = (ISchemaComplexType) type;
+			ISchemaCompositor compositor = complexType.getCompositor();
+			if (compositor != null)
+				computeAllowedElements(compositor, elementSet);
+
+			ISchemaAttribute[] attrs = complexType.getAttributes();
+			for (ISchemaAttribute attr : attrs) {
+				if (attr.getKind() == IMetaAttribute.JAVA)
+					elementSet.add(attr.getName());
+			}
+		}
+	}
+
+	private static void computeAllowedElements(ISchemaCompositor compositor, Set<String> elementSet) {
+		ISchemaObject[] children = compositor.getChildren();
+		for (ISchemaObject child : children) {
+			if (child instanceof ISchemaObjectReference) {
+				ISchemaObjectReference ref = (ISchemaObjectReference) child;
+				ISchemaElement refElement = (ISchemaElement) ref.getReferencedObject();
+				if (refElement != null)
+					elementSet.add(refElement.getName());
+			} else if (child instanceof ISchemaCompositor) {
+				computeAllowedElements((ISchemaCompositor) child, elementSet);
+			}
+		}
+	}
+
+}
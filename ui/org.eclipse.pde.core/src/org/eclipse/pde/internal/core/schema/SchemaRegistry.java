@@ -14,6 +14,8 @@ import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.pde.core.plugin.*;
@@ -28,12 +30,18 @@ public class SchemaRegistry {
 
 	private HashMap<String, ISchemaDescriptor> fRegistry = new HashMap<>();
 
+	/**
+	 * Validators compiled from loaded schemas, keyed by schema URL
+	 */
+	private Map<String, CompiledSchema> fCompiledSchemas = new ConcurrentHashMap<>();
+
 	public ISchema getSchema(String extPointID) {
 		IPluginExtensionPoint point = PDECore.getDefault().getExtensionsRegistry().findExtensionPoint(extPointID);
 		if (point == null) {
 			// if there is an old schema associated with this extension point, release it.
-			if (fRegistry.containsKey(extPointID))
+			synchronized (fRegistry) {
 				fRegistry.remove(extPointID);
+			}
 			return null;
 		}
 
@@ -44,12 +52,49 @@ public class SchemaRegistry {
 		ISchemaDescriptor desc = getExistingDescriptor(extPointID, url);
 		if (desc == null) {
 			desc = new SchemaDescriptor(extPointID, url);
-			fRegistry.put(extPointID, desc);
+			synchronized (fRegistry) {
+				fRegistry.put(extPointID, desc);
+			}
 		}
 
 		return desc.getSchema(true);
 	}
 
+	/**
+	 * Returns the validator compiled from the schema of the given extension point.
+	 *
+	 * @param extPointID the extension point id
+	 * @return the compiled schema or <code>null</code> if the extension point has no schema
+	 */
+	public CompiledSchema getCompiledSchema(String extPointID) {
+		ISchema schema = getSchema(extPointID);
+		return schema == null ? null : getCompiledSchema(schema);
+	}
+
+	/**
+	 * Returns the validator compiled from the given schema. Compiled schemas are
+	 * cached by schema URL and reused as long as the schema has not been reloaded
+	 * or modified.
+	 *
+	 * @param schema the schema
+	 * @return the compiled schema
+	 */
+	public CompiledSchema getCompiledSchema(ISchema schema) {
+		ISchemaDescriptor desc = schema.getSchemaDescriptor();
+		long timestamp = desc == null ? 0 : desc.getLastModified();
+		URL url = schema.getURL();
+		if (url == null)
+			return new CompiledSchema(schema, timestamp);
+
+		String key = url.toString();
+		CompiledSchema compiled = fCompiledSchemas.get(key);
+		if (compiled == null || !compiled.isCompiledFrom(schema, timestamp)) {
+			compiled = new CompiledSchema(schema, timestamp);
+			fCompiledSchemas.put(key, compiled);
+		}
+		return compiled;
+	}
+
 	public ISchema getIncludedSchema(ISchemaDescriptor parent, String schemaLocation) {
 		try {
 			URL url = IncludedSchemaDescriptor.computeURL(parent, schemaLocation, null);
@@ -59,7 +104,9 @@ public class SchemaRegistry {
 			ISchemaDescriptor desc = getExistingDescriptor(url.toString(), url);
 			if (desc == null) {
 				desc = new IncludedSchemaDescriptor(url);
-				fRegistry.put(url.toString(), desc);
+				synchronized (fRegistry) {
+					fRegistry.put(url.toString(), desc);
+				}
 			}
 			return desc.getSchema(true);
 		} catch (MalformedURLException e) {
@@ -68,12 +115,12 @@ public class SchemaRegistry {
 	}
 
 	private ISchemaDescriptor getExistingDescriptor(String key, URL url) {
-		ISchemaDescriptor desc = null;
-		if (fRegistry.containsKey(key)) {
+		ISchemaDescriptor desc;
+		synchronized (fRegistry) {
 			desc = fRegistry.get(key);
-			if (hasSchemaChanged(desc, url))
-				desc = null;
 		}
+		if (desc != null && hasSchemaChanged(desc, url))
+			desc = null;
 		return desc;
 	}
 
@@ -161,7 +208,10 @@ public class SchemaRegistry {
 	}
 
 	public void shutdown() {
-		fRegistry.clear();
+		synchronized (fRegistry) {
+			fRegistry.clear();
+		}
+		fCompiledSchemas.clear();
 	}
 
 	private static String getId(IPluginExtensionPoint point, IPluginModelBase base) {
@@ -0,0 +1,476 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.core.search;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import org.eclipse.osgi.service.resolver.State;
+import org.eclipse.osgi.service.resolver.StateDelta;
+import org.eclipse.pde.core.plugin.*;
+import org.eclipse.pde.internal.core.*;
+import org.eclipse.pde.internal.core.ifeature.IFeatureModel;
+import org.eclipse.pde.internal.core.ifeature.IFeaturePlugin;
+import org.eclipse.pde.internal.core.util.PatternConstructor;
+
+/**
+ * Inverted index of the ids declared and referenced by plug-in and feature models,
+ * used by {@link PluginSearchOperation} to find the models containing matches
+ * without visiting every model.
+ * <p>
+ * The index is built on the first search and kept up to date with the changes of
+ * the plug-in and feature model managers. The extensions and extension points are
+ * only indexed on the first search for them, since reading them requires parsing the
+ * <code>plugin.xml</code> of every plug-in. The index is discarded when the target
+ * platform is reloaded.
+ * </p>
+ */
+public class PluginSearchIndex implements IPluginModelListener, IExtensionDeltaListener, IFeatureModelListener, IStateDeltaListener {
+
+	/**
+	 * Ids of plug-ins
+	 */
+	public static final int PLUGIN_DECLARATIONS = 0;
+
+	/**
+	 * Ids of fragments
+	 */
+	public static final int FRAGMENT_DECLARATIONS = 1;
+
+	/**
+	 * Ids of required plug-ins and fragment hosts
+	 */
+	public static final int PLUGIN_REFERENCES = 2;
+
+	/**
+	 * Full ids of extension points
+	 */
+	public static final int EXTENSION_POINT_DECLARATIONS = 3;
+
+	/**
+	 * Ids of the extension points extended
+	 */
+	public static final int EXTENSION_POINT_REFERENCES = 4;
+
+	private static final int PLUGIN_TABLE_COUNT = 5;
+
+	/**
+	 * Maps the terms of one kind to the models containing them.
+	 */
+	private static class Table<T> {
+
+		private final Map<String, Set<T>> fModels = new HashMap<>();
+		private final Map<T, Set<String>> fTerms = new HashMap<>();
+
+		void add(String term, T model) {
+			if (term == null)
+				return;
+			Set<T> models = fModels.get(term);
+			if (models == null) {
+				models = new HashSet<>(2);
+				fModels.put(term, models);
+			}
+			models.add(model);
+			Set<String> terms = fTerms.get(model);
+			if (terms == null) {
+				terms = new HashSet<>(2);
+				fTerms.put(model, terms);
+			}
+			terms.add(term);
+		}
+
+		void remove(T model) {
+			Set<String> terms = fTerms.remove(model);
+			if (terms == null)
+				return;
+			for (String term : terms) {
+				Set<T> models = fModels.get(term);
+				models.remove(model);
+				if (models.isEmpty())
+					fModels.remove(term);
+			}
+		}
+
+		void find(Pattern pattern, String searchString, boolean exact, Set<T> result) {
+			if (exact) {
+				Set<T> models = fModels.get(searchString);
+				if (models != null)
+					result.addAll(models);
+				return;
+			}
+			for (Map.Entry<String, Set<T>> entry : fModels.entrySet()) {
+				if (pattern.matcher(entry.getKey()).matches())
+					result.addAll(entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * The terms of a plug-in model. Terms are read before the index is locked, since
+	 * reading them may take the locks of the model managers or parse the
+	 * <code>plugin.xml</code>, and the model managers notify the index while holding
+	 * their locks.
+	 */
+	private static class PluginTerms {
+		final IPluginModelBase model;
+		final String id;
+		// PLUGIN_DECLARATIONS, FRAGMENT_DECLARATIONS or -1
+		final int kind;
+		final List<String> references = new ArrayList<>();
+		// null unless the extensions were read
+		final List<String> extensionPoints;
+		final List<String> extensions;
+
+		PluginTerms(IPluginModelBase model, boolean readExtensions) {
+			this.model = model;
+			IPluginBase pluginBase = model.getPluginBase();
+			id = pluginBase.getId();
+			if (pluginBase instanceof IFragment) {
+				kind = FRAGMENT_DECLARATIONS;
+				references.add(((IFragment) pluginBase).getPluginId());
+			} else {
+				kind = pluginBase instanceof IPlugin ? PLUGIN_DECLARATIONS : -1;
+			}
+			for (IPluginImport pluginImport : pluginBase.getImports()) {
+				references.add(pluginImport.getId());
+			}
+			if (!readExtensions) {
+				extensionPoints = null;
+				extensions = null;
+				return;
+			}
+			extensionPoints = new ArrayList<>();
+			for (IPluginExtensionPoint extensionPoint : pluginBase.getExtensionPoints()) {
+				extensionPoints.add(extensionPoint.getFullId());
+			}
+			extensions = new ArrayList<>();
+			for (IPluginExtension extension : pluginBase.getExtensions()) {
+				extensions.add(extension.getPoint());
+			}
+		}
+	}
+
+	/**
+	 * The ids of the plug-ins included by a feature model, read before the index is locked.
+	 */
+	private static class FeatureTerms {
+		final IFeatureModel model;
+		final List<String> plugins = new ArrayList<>();
+
+		FeatureTerms(IFeatureModel model) {
+			this.model = model;
+			for (IFeaturePlugin plugin : model.getFeature().getPlugins()) {
+				plugins.add(plugin.getId());
+			}
+		}
+	}
+
+	private List<Table<IPluginModelBase>> fPluginTables;
+	private Table<IFeatureModel> fFeatureTable;
+	private Map<String, Set<IPluginModelBase>> fModelsById;
+	private boolean fExtensionsIndexed;
+
+	/**
+	 * Number of changes the index was notified of, used to detect changes made while
+	 * the models are read to build the index
+	 */
+	private int fChangeCount;
+
+	public PluginSearchIndex() {
+		PluginModelManager manager = PDECore.getDefault().getModelManager();
+		manager.addPluginModelListener(this);
+		manager.addExtensionDeltaListener(this);
+		manager.addStateDeltaListener(this);
+		PDECore.getDefault().getFeatureModelManager().addFeatureModelListener(this);
+	}
+
+	public void shutdown() {
+		PluginModelManager manager = PDECore.getDefault().getModelManager();
+		manager.removePluginModelListener(this);
+		manager.removeExtensionDeltaListener(this);
+		manager.removeStateDeltaListener(this);
+		PDECore.getDefault().getFeatureModelManager().removeFeatureModelListener(this);
+	}
+
+	/**
+	 * Returns the plug-in models containing a term of the given kinds that matches the search.
+	 *
+	 * @param kinds kinds of terms to search, such as {@link #PLUGIN_DECLARATIONS}
+	 * @param searchString the search string, which may contain <code>*</code> and <code>?</code> wildcards
+	 * @param caseSensitive whether the search is case sensitive
+	 * @return the models containing a match, in no particular order
+	 */
+	public Set<IPluginModelBase> findPlugins(int[] kinds, String searchString, boolean caseSensitive) {
+		Set<IPluginModelBase> result = new HashSet<>();
+		Pattern pattern = PatternConstructor.createPattern(searchString, caseSensitive);
+		boolean exact = isExact(searchString, caseSensitive);
+		boolean extensions = false;
+		for (int kind : kinds) {
+			extensions |= kind == EXTENSION_POINT_DECLARATIONS || kind == EXTENSION_POINT_REFERENCES;
+		}
+		while (true) {
+			initialize(extensions);
+			synchronized (this) {
+				// the index may have been discarded again
+				if (fPluginTables == null || (extensions && !fExtensionsIndexed))
+					continue;
+				for (int kind : kinds) {
+					fPluginTables.get(kind).find(pattern, searchString, exact, result);
+				}
+				return result;
+			}
+		}
+	}
+
+	/**
+	 * Returns the feature models including a plug-in whose id matches the search.
+	 *
+	 * @param searchString the search string, which may contain <code>*</code> and <code>?</code> wildcards
+	 * @param caseSensitive whether the search is case sensitive
+	 * @return the models containing a match, in no particular order
+	 */
+	public Set<IFeatureModel> findFeatures(String searchString, boolean caseSensitive) {
+		Set<IFeatureModel> result = new HashSet<>();
+		Pattern pattern = PatternConstructor.createPattern(searchString, caseSensitive);
+		while (true) {
+			initialize(false);
+			synchronized (this) {
+				// the index may have been discarded again
+				if (fFeatureTable == null)
+					continue;
+				fFeatureTable.find(pattern, searchString, isExact(searchString, caseSensitive), result);
+				return result;
+			}
+		}
+	}
+
+	private static boolean isExact(String searchString, boolean caseSensitive) {
+		return caseSensitive && searchString.indexOf('*') == -1 && searchString.indexOf('?') == -1;
+	}
+
+	/**
+	 * Builds the index unless it is built already.  The terms of the models are read
+	 * without holding the index's lock and are read again if the index is notified of
+	 * a change meanwhile.  The first search for extensions builds the index again with
+	 * the extensions.
+	 *
+	 * @param extensions whether the extensions and extension points must be indexed
+	 */
+	private void initialize(boolean extensions) {
+		while (true) {
+			int changeCount;
+			synchronized (this) {
+				if (fPluginTables != null && (!extensions || fExtensionsIndexed))
+					return;
+				// keep the extensions indexed once they were searched
+				extensions |= fExtensionsIndexed;
+				changeCount = fChangeCount;
+			}
+			List<PluginTerms> plugins = readTerms(PluginRegistry.getAllModels(), extensions);
+			List<FeatureTerms> features = new ArrayList<>();
+			for (IFeatureModel model : PDECore.getDefault().getFeatureModelManager().getModels()) {
+				features.add(new FeatureTerms(model));
+			}
+			synchronized (this) {
+				if (changeCount == fChangeCount)
+					build(plugins, features, extensions);
+			}
+		}
+	}
+
+	private static List<PluginTerms> readTerms(IPluginModelBase[] models, boolean extensions) {
+		List<PluginTerms> terms = new ArrayList<>(models.length);
+		for (IPluginModelBase model : models) {
+			terms.add(new PluginTerms(model, extensions));
+		}
+		return terms;
+	}
+
+	private void build(List<PluginTerms> plugins, List<FeatureTerms> features, boolean extensions) {
+		fPluginTables = new ArrayList<>(PLUGIN_TABLE_COUNT);
+		for (int i = 0; i < PLUGIN_TABLE_COUNT; i++) {
+			fPluginTables.add(new Table<IPluginModelBase>());
+		}
+		fFeatureTable = new Table<>();
+		fModelsById = new HashMap<>();
+		fExtensionsIndexed = extensions;
+
+		for (PluginTerms terms : plugins) {
+			add(terms);
+		}
+		for (FeatureTerms terms : features) {
+			add(terms);
+		}
+	}
+
+	/**
+	 * Returns whether the extensions of changed models must be read
+	 */
+	private synchronized boolean isExtensionsIndexed() {
+		return fExtensionsIndexed;
+	}
+
+	/**
+	 * Adds the terms of a model to the index.  If the extensions are indexed but were not
+	 * read for the model, because the first search for them started meanwhile, the index
+	 * is discarded and rebuilt on the next search.
+	 */
+	private void add(PluginTerms terms) {
+		if (terms.id == null)
+			return;
+		if (fExtensionsIndexed && terms.extensions == null) {
+			discard();
+			return;
+		}
+
+		Set<IPluginModelBase> models = fModelsById.get(terms.id);
+		if (models == null) {
+			models = new HashSet<>(2);
+			fModelsById.put(terms.id, models);
+		}
+		models.add(terms.model);
+
+		if (terms.kind != -1)
+			fPluginTables.get(terms.kind).add(terms.id, terms.model);
+		for (String reference : terms.references) {
+			fPluginTables.get(PLUGIN_REFERENCES).add(reference, terms.model);
+		}
+		if (!fExtensionsIndexed)
+			return;
+		for (String extensionPoint : terms.extensionPoints) {
+			fPluginTables.get(EXTENSION_POINT_DECLARATIONS).add(extensionPoint, terms.model);
+		}
+		for (String extension : terms.extensions) {
+			fPluginTables.get(EXTENSION_POINT_REFERENCES).add(extension, terms.model);
+		}
+	}
+
+	private void remove(IPluginModelBase model) {
+		for (Table<IPluginModelBase> table : fPluginTables) {
+			table.remove(model);
+		}
+		for (Iterator<Set<IPluginModelBase>> iter = fModelsById.values().iterator(); iter.hasNext();) {
+			Set<IPluginModelBase> models = iter.next();
+			if (models.remove(model) && models.isEmpty())
+				iter.remove();
+		}
+	}
+
+	private void removeAll(String id) {
+		Set<IPluginModelBase> models = fModelsById.get(id);
+		if (models == null)
+			return;
+		for (IPluginModelBase model : models.toArray(new IPluginModelBase[models.size()])) {
+			remove(model);
+		}
+	}
+
+	private void add(FeatureTerms terms) {
+		for (String plugin : terms.plugins) {
+			fFeatureTable.add(plugin, terms.model);
+		}
+	}
+
+	private void discard() {
+		fPluginTables = null;
+		fFeatureTable = null;
+		fModelsById = null;
+		fExtensionsIndexed = false;
+	}
+
+	@Override
+	public void modelsChanged(PluginModelDelta delta) {
+		boolean extensions = isExtensionsIndexed();
+		List<ModelEntry> entries = new ArrayList<>();
+		entries.addAll(Arrays.asList(delta.getAddedEntries()));
+		entries.addAll(Arrays.asList(delta.getChangedEntries()));
+		List<PluginTerms> added = new ArrayList<>();
+		for (ModelEntry entry : entries) {
+			added.addAll(readTerms(entry.getWorkspaceModels(), extensions));
+			added.addAll(readTerms(entry.getExternalModels(), extensions));
+		}
+
+		synchronized (this) {
+			fChangeCount++;
+			if (fPluginTables == null)
+				return;
+			for (ModelEntry entry : delta.getRemovedEntries()) {
+				removeAll(entry.getId());
+			}
+			for (ModelEntry entry : entries) {
+				removeAll(entry.getId());
+			}
+			for (PluginTerms terms : added) {
+				if (fPluginTables == null)
+					return;
+				add(terms);
+			}
+		}
+	}
+
+	@Override
+	public void extensionsChanged(IExtensionDeltaEvent event) {
+		boolean extensions = isExtensionsIndexed();
+		List<PluginTerms> added = new ArrayList<>();
+		added.addAll(readTerms(event.getChangedModels(), extensions));
+		added.addAll(readTerms(event.getAddedModels(), extensions));
+
+		synchronized (this) {
+			fChangeCount++;
+			if (fPluginTables == null)
+				return;
+			for (IPluginModelBase model : event.getRemovedModels()) {
+				remove(model);
+			}
+			for (PluginTerms terms : added) {
+				if (fPluginTables == null)
+					return;
+				remove(terms.model);
+				add(terms);
+			}
+		}
+	}
+
+	@Override
+	public void modelsChanged(IFeatureModelDelta delta) {
+		List<FeatureTerms> added = new ArrayList<>();
+		for (IFeatureModel model : delta.getChanged()) {
+			added.add(new FeatureTerms(model));
+		}
+		for (IFeatureModel model : delta.getAdded()) {
+			added.add(new FeatureTerms(model));
+		}
+
+		synchronized (this) {
+			fChangeCount++;
+			if (fFeatureTable == null)
+				return;
+			for (IFeatureModel model : delta.getRemoved()) {
+				fFeatureTable.remove(model);
+			}
+			for (FeatureTerms terms : added) {
+				fFeatureTable.remove(terms.model);
+				add(terms);
+			}
+		}
+	}
+
+	@Override
+	public void stateResolved(StateDelta delta) {
+		// the ids indexed do not depend on the resolution of the state
+	}
+
+	@Override
+	public synchronized void stateChanged(State newState) {
+		// the target platform was reloaded, rebuild the index on the next search
+		fChangeCount++;
+		discard();
+	}
+}
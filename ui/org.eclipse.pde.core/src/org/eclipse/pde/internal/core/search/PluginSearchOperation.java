@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,13 +11,13 @@
  *******************************************************************************/
 package org.eclipse.pde.internal.core.search;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 import java.util.regex.Pattern;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.pde.core.IIdentifiable;
 import org.eclipse.pde.core.plugin.*;
+import org.eclipse.pde.internal.core.PDECore;
 import org.eclipse.pde.internal.core.ifeature.IFeatureModel;
 import org.eclipse.pde.internal.core.ifeature.IFeaturePlugin;
 import org.eclipse.pde.internal.core.util.PatternConstructor;
@@ -34,8 +34,15 @@ public class PluginSearchOperation {
 	}
 
 	public void execute(IProgressMonitor monitor) {
-		IPluginModelBase[] plugins = fInput.getSearchScope().getMatchingModels();
-		IFeatureModel[] features = fInput.getSearchScope().getMatchingFeatureModels();
+		PluginSearchIndex index = PDECore.getDefault().getPluginSearchIndex();
+		// only visit the models of the scope the index found matches in
+		Set<IPluginModelBase> pluginCandidates = index.findPlugins(getSearchedKinds(), fInput.getSearchString(), fInput.isCaseSensitive());
+		IPluginModelBase[] plugins = filter(fInput.getSearchScope().getMatchingModels(), pluginCandidates);
+		IFeatureModel[] features = new IFeatureModel[0];
+		if (fInput.getSearchElement() == PluginSearchInput.ELEMENT_PLUGIN && fInput.getSearchLimit() != PluginSearchInput.LIMIT_DECLARATIONS) {
+			Set<IFeatureModel> featureCandidates = index.findFeatures(fInput.getSearchString(), fInput.isCaseSensitive());
+			features = filter(fInput.getSearchScope().getMatchingFeatureModels(), featureCandidates);
+		}
 		SubMonitor subMonitor = SubMonitor.convert(monitor, plugins.length + features.length);
 
 		for (IPluginModelBase candidate : plugins) {
@@ -49,6 +56,48 @@ public class PluginSearchOperation {
 		}
 	}
 
+	/**
+	 * Returns the kinds of terms of the {@link PluginSearchIndex} the search matches.
+	 */
+	private int[] getSearchedKinds() {
+		int searchLimit = fInput.getSearchLimit();
+		switch (fInput.getSearchElement()) {
+			case PluginSearchInput.ELEMENT_PLUGIN :
+				if (searchLimit == PluginSearchInput.LIMIT_DECLARATIONS)
+					return new int[] {PluginSearchIndex.PLUGIN_DECLARATIONS};
+				if (searchLimit == PluginSearchInput.LIMIT_REFERENCES)
+					return new int[] {PluginSearchIndex.PLUGIN_REFERENCES};
+				return new int[] {PluginSearchIndex.PLUGIN_DECLARATIONS, PluginSearchIndex.PLUGIN_REFERENCES};
+			case PluginSearchInput.ELEMENT_FRAGMENT :
+				return new int[] {PluginSearchIndex.FRAGMENT_DECLARATIONS};
+			case PluginSearchInput.ELEMENT_EXTENSION_POINT :
+				if (searchLimit == PluginSearchInput.LIMIT_DECLARATIONS)
+					return new int[] {PluginSearchIndex.EXTENSION_POINT_DECLARATIONS};
+				if (searchLimit == PluginSearchInput.LIMIT_REFERENCES)
+					return new int[] {PluginSearchIndex.EXTENSION_POINT_REFERENCES};
+				return new int[] {PluginSearchIndex.EXTENSION_POINT_DECLARATIONS, PluginSearchIndex.EXTENSION_POINT_REFERENCES};
+		}
+		return new int[0];
+	}
+
+	private static IPluginModelBase[] filter(IPluginModelBase[] models, Set<IPluginModelBase> candidates) {
+		List<IPluginModelBase> result = new ArrayList<>();
+		for (IPluginModelBase model : models) {
+			if (candidates.contains(model))
+				result.add(model);
+		}
+		return result.toArray(new IPluginModelBase[result.size()]);
+	}
+
+	private static IFeatureModel[] filter(IFeatureModel[] models, Set<IFeatureModel> candidates) {
+		List<IFeatureModel> result = new ArrayList<>();
+		for (IFeatureModel model : models) {
+			if (candidates.contains(model))
+				result.add(model);
+		}
+		return result.toArray(new IFeatureModel[result.size()]);
+	}
+
 	private void visit(IPluginModelBase model) {
 		ArrayList<IIdentifiable> matches = findMatch(model);
 		for (int i = 0; i < matches.size(); i++) {
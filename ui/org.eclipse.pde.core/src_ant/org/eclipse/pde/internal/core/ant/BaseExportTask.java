@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2015 IBM Corporation and others.
+ * Copyright (c) 2003, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -32,6 +32,7 @@ public abstract class BaseExportTask extends Task {
 	protected String fQualifier;
 	protected boolean fAllowBinaryCycles;
 	protected boolean fUseWorkspaceCompiledClasses;
+	protected boolean fUseExportCache;
 
 	public BaseExportTask() {
 	}
@@ -110,6 +111,16 @@ public abstract class BaseExportTask extends Task {
 		fUseWorkspaceCompiledClasses = Boolean.parseBoolean(useWorkspaceCompiledClasses);
 	}
 
+	/**
+	 * Whether the jars of workspace bundles that did not change since a previous
+	 * export to a directory in JAR format may be reused instead of being built again.
+	 *
+	 * @param useExportCache whether to reuse the jars of unchanged bundles
+	 */
+	public void setUseExportCache(String useExportCache) {
+		fUseExportCache = Boolean.parseBoolean(useExportCache);
+	}
+
 	public boolean isAntRunner() {
 		String args[] = Platform.getCommandLineArgs();
 		for (int i = 0; i < args.length; i++) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,7 +14,7 @@ import org.apache.tools.ant.*;
 import org.eclipse.pde.internal.core.exports.FeatureExportOperation;
 import org.eclipse.pde.internal.core.exports.ProductExportOperation;
 
-public class ExportBuildListener implements BuildListener {
+public class ExportBuildListener implements SubBuildListener {
 
 	@Override
 	public void buildStarted(BuildEvent event) {
@@ -53,6 +53,20 @@ public class ExportBuildListener implements BuildListener {
 		}
 	}
 
+	@Override
+	public void subBuildStarted(BuildEvent event) {
+		String configuration = event.getProject().getProperty(FeatureExportOperation.PROPERTY_CONFIGURATION);
+		if (configuration != null)
+			FeatureExportOperation.configurationStarted(configuration);
+	}
+
+	@Override
+	public void subBuildFinished(BuildEvent event) {
+		String configuration = event.getProject().getProperty(FeatureExportOperation.PROPERTY_CONFIGURATION);
+		if (configuration != null)
+			FeatureExportOperation.configurationFinished(configuration);
+	}
+
 	@Override
 	public void messageLogged(BuildEvent event) {
 		if (event.getPriority() == Project.MSG_ERR) {
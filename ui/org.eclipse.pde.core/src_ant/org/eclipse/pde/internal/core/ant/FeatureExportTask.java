@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2003, 2013 IBM Corporation and others.
+ * Copyright (c) 2003, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -35,6 +35,7 @@ public class FeatureExportTask extends BaseExportTask {
 		info.qualifier = fQualifier;
 		info.allowBinaryCycles = fAllowBinaryCycles;
 		info.useWorkspaceCompiledClasses = fUseWorkspaceCompiledClasses;
+		info.useExportCache = fUseExportCache;
 		// if destination is relative, then make it absolute
 		if (!new File(fDestination).isAbsolute()) {
 			File home = new File(getLocation().getFileName()).getParentFile();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -33,6 +33,7 @@ public abstract class AbstractEditingModel extends PlatformObject implements IEd
 	private IResource fUnderlyingResource;
 	private String fInstallLocation;
 	private boolean fStale;
+	private boolean fSynchronizing;
 
 	public AbstractEditingModel(IDocument document, boolean isReconciling) {
 		fDocument = document;
@@ -136,7 +137,12 @@ public abstract class AbstractEditingModel extends PlatformObject implements IEd
 					adjustOffsets(document);
 					setStale(false);
 				} else {
-					reload(getInputStream(document), false);
+					fSynchronizing = true;
+					try {
+						reconcile(document);
+					} finally {
+						fSynchronizing = false;
+					}
 				}
 			} catch (UnsupportedEncodingException e) {
 			} catch (CoreException e) {
@@ -146,6 +152,46 @@ public abstract class AbstractEditingModel extends PlatformObject implements IEd
 		}
 	}
 
+	/**
+	 * Updates the model from the given document after the document was edited.
+	 * The default implementation loads the whole model again and notifies
+	 * listeners of a world change. Subclasses may instead update only the
+	 * changed parts of the model, keeping all other model objects, and fire
+	 * events for the changed parts.
+	 *
+	 * @param document the edited document
+	 * @throws CoreException if the model cannot be loaded
+	 * @throws UnsupportedEncodingException if the charset of the model is not supported
+	 */
+	protected void reconcile(IDocument document) throws CoreException, UnsupportedEncodingException {
+		reload(getInputStream(document), false);
+	}
+
+	/**
+	 * Returns whether the model is currently being updated from its document.
+	 * Change events fired in the meantime reflect edits already made to the
+	 * document, so they must not be turned into text edits or undo operations.
+	 *
+	 * @return <code>true</code> while the model is updated from its document
+	 */
+	public boolean isSynchronizing() {
+		return fSynchronizing;
+	}
+
+	/**
+	 * Returns whether the event was fired by an editing model while it was
+	 * updated from its document.
+	 *
+	 * @param event the model change event
+	 * @return <code>true</code> if the provider of the event is an editing model
+	 * that is synchronizing
+	 * @see #isSynchronizing()
+	 */
+	public static boolean isSynchronizing(IModelChangedEvent event) {
+		IModelChangeProvider provider = event.getChangeProvider();
+		return provider instanceof AbstractEditingModel && ((AbstractEditingModel) provider).isSynchronizing();
+	}
+
 	public abstract void adjustOffsets(IDocument document) throws CoreException;
 
 	protected InputStream getInputStream(IDocument document) throws UnsupportedEncodingException {
@@ -187,7 +233,7 @@ public abstract class AbstractEditingModel extends PlatformObject implements IEd
 	public void fireModelChanged(IModelChangedEvent event) {
 		if (event.getChangeType() == IModelChangedEvent.CHANGE && event.getOldValue() != null && event.getOldValue().equals(event.getNewValue()))
 			return;
-		setDirty(event.getChangeType() != IModelChangedEvent.WORLD_CHANGED);
+		setDirty(!fSynchronizing && event.getChangeType() != IModelChangedEvent.WORLD_CHANGED);
 		for (int i = 0; i < fListeners.size(); i++) {
 			fListeners.get(i).modelChanged(event);
 		}
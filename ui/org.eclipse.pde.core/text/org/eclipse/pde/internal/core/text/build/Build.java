@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2012 IBM Corporation and others.
+ *  Copyright (c) 2000, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -13,8 +13,12 @@ package org.eclipse.pde.internal.core.text.build;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import org.eclipse.core.runtime.CoreException;
@@ -76,6 +80,44 @@ public class Build implements IBuild {
 		adjustOffsets(fModel.getDocument());
 	}
 
+	/**
+	 * Updates the entries to the properties read from the given stream. Unlike
+	 * {@link #load(InputStream)}, unchanged entries are kept, and changed entries
+	 * are updated in place.
+	 *
+	 * @param source stream to read the properties from
+	 * @return events describing the added, changed and removed entries, to be fired by the caller
+	 * @throws IOException if the properties cannot be read
+	 */
+	public List<IModelChangedEvent> reconcile(InputStream source) throws IOException {
+		Properties properties = new Properties();
+		properties.load(source);
+
+		List<IModelChangedEvent> events = new ArrayList<>();
+		Iterator<IBuildEntry> iter = fEntries.values().iterator();
+		while (iter.hasNext()) {
+			BuildEntry entry = (BuildEntry) iter.next();
+			Object value = properties.remove(entry.getName());
+			if (value == null) {
+				iter.remove();
+				events.add(new ModelChangedEvent(fModel, IModelChangedEvent.REMOVE, new Object[] {entry}, null));
+			} else {
+				entry.reconcile(value.toString(), events);
+			}
+		}
+
+		for (Map.Entry<Object, Object> property : properties.entrySet()) {
+			String name = property.getKey().toString();
+			BuildEntry entry = (BuildEntry) fModel.getFactory().createEntry(name);
+			entry.processEntry(property.getValue().toString());
+			fEntries.put(name, entry);
+			events.add(new ModelChangedEvent(fModel, IModelChangedEvent.INSERT, new Object[] {entry}, null));
+		}
+
+		adjustOffsets(fModel.getDocument());
+		return events;
+	}
+
 	public void adjustOffsets(IDocument document) {
 		int lines = document.getNumberOfLines();
 		try {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,11 +12,14 @@ package org.eclipse.pde.internal.core.text.build;
 
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.StringTokenizer;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.TextUtilities;
+import org.eclipse.pde.core.IModelChangedEvent;
+import org.eclipse.pde.core.ModelChangedEvent;
 import org.eclipse.pde.core.build.*;
 import org.eclipse.pde.internal.core.PDECore;
 import org.eclipse.pde.internal.core.project.PDEProject;
@@ -133,13 +136,49 @@ public class BuildEntry implements IBuildEntry, IDocumentKey {
 	}
 
 	public void processEntry(String value) {
+		fTokens.addAll(parseTokens(value));
+	}
+
+	/**
+	 * Replaces the tokens of this entry with the ones of the given value
+	 * without notifying the model. Events for the removed and added tokens are
+	 * added to the given list, in the form fired when tokens are removed or
+	 * added one by one.
+	 *
+	 * @param value the new value of the entry
+	 * @param events list to add the change events to
+	 */
+	void reconcile(String value, List<IModelChangedEvent> events) {
+		ArrayList<Object> tokens = parseTokens(value);
+		if (tokens.equals(fTokens))
+			return;
+
+		int count = events.size();
+		for (Object token : fTokens) {
+			if (!tokens.contains(token))
+				events.add(new ModelChangedEvent(fModel, this, fName, token, null));
+		}
+		for (Object token : tokens) {
+			if (!fTokens.contains(token))
+				events.add(new ModelChangedEvent(fModel, this, fName, null, token));
+		}
+		if (events.size() == count) {
+			// only the order of the tokens changed
+			events.add(new ModelChangedEvent(fModel, this, fName, null, null));
+		}
+		fTokens = tokens;
+	}
+
+	private ArrayList<Object> parseTokens(String value) {
+		ArrayList<Object> tokens = new ArrayList<>();
 		StringTokenizer stok = new StringTokenizer(value, ","); //$NON-NLS-1$
 		IPath root = getRootPath();
 		while (stok.hasMoreTokens()) {
 			String token = stok.nextToken().trim();
 			token = fromRelative(token, root);
-			fTokens.add(token);
+			tokens.add(token);
 		}
+		return tokens;
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2008 IBM Corporation and others.
+ *  Copyright (c) 2000, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -12,9 +12,12 @@ package org.eclipse.pde.internal.core.text.build;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.List;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.pde.core.IModelChangedEvent;
 import org.eclipse.pde.core.build.IBuild;
 import org.eclipse.pde.core.build.IBuildModel;
 import org.eclipse.pde.core.build.IBuildModelFactory;
@@ -50,6 +53,29 @@ public class BuildModel extends AbstractEditingModel implements IBuildModel {
 		}
 	}
 
+	@Override
+	protected void reconcile(IDocument document) throws CoreException, UnsupportedEncodingException {
+		if (!isLoaded()) {
+			super.reconcile(document);
+			return;
+		}
+
+		InputStream source = getInputStream(document);
+		List<IModelChangedEvent> events;
+		try {
+			events = ((Build) getBuild()).reconcile(source);
+		} catch (IOException e) {
+			// let a full load mark the model as not loaded
+			super.reconcile(document);
+			return;
+		}
+
+		// only notify about the entries that actually changed
+		for (IModelChangedEvent event : events) {
+			fireModelChanged(event);
+		}
+	}
+
 	@Override
 	public void adjustOffsets(IDocument document) {
 		((Build) getBuild()).adjustOffsets(document);
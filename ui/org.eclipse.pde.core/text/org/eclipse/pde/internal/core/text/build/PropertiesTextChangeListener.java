@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2006, 2008 IBM Corporation and others.
+ *  Copyright (c) 2006, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -14,6 +14,7 @@ import org.eclipse.jface.text.IDocument;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.pde.core.IModelChangedEvent;
 import org.eclipse.pde.internal.core.PDECoreMessages;
+import org.eclipse.pde.internal.core.text.AbstractEditingModel;
 import org.eclipse.pde.internal.core.text.AbstractKeyValueTextChangeListener;
 import org.eclipse.pde.internal.core.text.IDocumentKey;
 
@@ -29,6 +30,8 @@ public class PropertiesTextChangeListener extends AbstractKeyValueTextChangeList
 
 	@Override
 	public void modelChanged(IModelChangedEvent event) {
+		if (AbstractEditingModel.isSynchronizing(event))
+			return;
 		Object[] objects = event.getChangedObjects();
 		for (Object object : objects) {
 			IDocumentKey key = (IDocumentKey) object;
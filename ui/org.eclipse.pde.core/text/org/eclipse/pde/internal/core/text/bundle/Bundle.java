@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2012 IBM Corporation and others.
+ *  Copyright (c) 2000, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -10,9 +10,10 @@
  *******************************************************************************/
 package org.eclipse.pde.internal.core.text.bundle;
 
-import java.util.Iterator;
-import java.util.Map;
+import java.util.*;
 import org.eclipse.jface.text.*;
+import org.eclipse.pde.core.IModelChangedEvent;
+import org.eclipse.pde.core.ModelChangedEvent;
 import org.eclipse.pde.internal.core.ibundle.*;
 import org.eclipse.pde.internal.core.text.IDocumentKey;
 import org.eclipse.pde.internal.core.util.HeaderMap;
@@ -59,6 +60,47 @@ public class Bundle implements IBundle {
 		adjustOffsets(fModel.getDocument());
 	}
 
+	/**
+	 * Updates the headers of this bundle to the given ones. Unlike {@link #load(Map)},
+	 * the header objects of unchanged headers are kept, and changed headers are
+	 * parsed again in place, so that references to them stay valid.
+	 *
+	 * @param headers the headers of the edited manifest, string header keys to string values
+	 * @return events describing the added, changed and removed headers, to be fired by the caller
+	 */
+	public List<IModelChangedEvent> reconcile(Map<?, ?> headers) {
+		Map<String, String> newHeaders = new HeaderMap<>();
+		for (Map.Entry<?, ?> entry : headers.entrySet()) {
+			newHeaders.put(entry.getKey().toString(), entry.getValue().toString());
+		}
+
+		List<IModelChangedEvent> events = new ArrayList<>();
+		Iterator<Map.Entry<String, IManifestHeader>> iter = fDocumentHeaders.entrySet().iterator();
+		while (iter.hasNext()) {
+			Map.Entry<String, IManifestHeader> entry = iter.next();
+			ManifestHeader header = (ManifestHeader) entry.getValue();
+			String value = newHeaders.remove(entry.getKey());
+			String old = header.getValue();
+			if (value == null) {
+				iter.remove();
+				events.add(new ModelChangedEvent(fModel, header, entry.getKey(), old, null));
+			} else if (!value.equals(old)) {
+				header.reload(value);
+				events.add(new ModelChangedEvent(fModel, header, entry.getKey(), old, value));
+			}
+		}
+
+		for (Map.Entry<String, String> entry : newHeaders.entrySet()) {
+			IManifestHeader header = fModel.getFactory().createHeader(entry.getKey(), entry.getValue());
+			fDocumentHeaders.put(entry.getKey(), header);
+			events.add(new ModelChangedEvent(fModel, header, entry.getKey(), null, entry.getValue()));
+		}
+
+		clearOffsets();
+		adjustOffsets(fModel.getDocument());
+		return events;
+	}
+
 	public void clearOffsets() {
 		Iterator<IManifestHeader> iter = fDocumentHeaders.values().iterator();
 		while (iter.hasNext()) {
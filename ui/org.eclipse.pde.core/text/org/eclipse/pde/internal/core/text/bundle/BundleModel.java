@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2012 IBM Corporation and others.
+ *  Copyright (c) 2000, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -10,11 +10,12 @@
  *******************************************************************************/
 package org.eclipse.pde.internal.core.text.bundle;
 
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.*;
+import java.util.Map;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.osgi.util.ManifestElement;
+import org.eclipse.pde.core.IModelChangedEvent;
 import org.eclipse.pde.internal.core.NLResourceHelper;
 import org.eclipse.pde.internal.core.ibundle.*;
 import org.eclipse.pde.internal.core.text.AbstractEditingModel;
@@ -57,6 +58,29 @@ public class BundleModel extends AbstractEditingModel implements IBundleModel {
 		}
 	}
 
+	@Override
+	protected void reconcile(IDocument document) throws CoreException, UnsupportedEncodingException {
+		if (!isLoaded()) {
+			super.reconcile(document);
+			return;
+		}
+
+		InputStream source = getInputStream(document);
+		Map<String, String> headers;
+		try {
+			headers = ManifestElement.parseBundleManifest(source, null);
+		} catch (BundleException | IOException e) {
+			// let a full load mark the model as not loaded
+			super.reconcile(document);
+			return;
+		}
+
+		// only notify about the headers that actually changed
+		for (IModelChangedEvent event : ((Bundle) getBundle()).reconcile(headers)) {
+			fireModelChanged(event);
+		}
+	}
+
 	@Override
 	public void adjustOffsets(IDocument document) {
 		((Bundle) getBundle()).clearOffsets();
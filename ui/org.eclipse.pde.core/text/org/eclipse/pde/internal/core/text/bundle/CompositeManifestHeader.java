@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2005, 2012 IBM Corporation and others.
+ *  Copyright (c) 2005, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -56,6 +56,14 @@ public class CompositeManifestHeader extends ManifestHeader {
 		}
 	}
 
+	@Override
+	void reload(String value) {
+		fManifestElements = null;
+		fElementMap = null;
+		fValue = value;
+		processValue(value);
+	}
+
 	protected PDEManifestElement createElement(ManifestElement element) {
 		return new PDEManifestElement(this, element);
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2008 IBM Corporation and others.
+ *  Copyright (c) 2000, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -49,6 +49,16 @@ public class ManifestHeader extends BundleObject implements IManifestHeader {
 		fValue = value;
 	}
 
+	/**
+	 * Replaces the value of this header with the given one, parsing it again,
+	 * without notifying the model.
+	 *
+	 * @param value the new value
+	 */
+	void reload(String value) {
+		processValue(value);
+	}
+
 	public String getLineLimiter() {
 		return fLineDelimiter;
 	}
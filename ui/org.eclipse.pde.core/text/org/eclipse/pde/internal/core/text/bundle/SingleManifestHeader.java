@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2005, 2012 IBM Corporation and others.
+ *  Copyright (c) 2005, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -37,6 +37,12 @@ public class SingleManifestHeader extends ManifestHeader {
 		fValue = value;
 	}
 
+	@Override
+	void reload(String value) {
+		fElement = null;
+		super.reload(value);
+	}
+
 	public void setAttribute(String key, String value) {
 		fElement.setAttribute(key, value);
 		update();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Red Hat Inc. and others
+ * Copyright (c) 2016, 2017 Red Hat Inc. and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,8 +13,6 @@ package org.eclipse.pde.internal.genericeditor.target.extension.autocomplete;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.xml.stream.XMLStreamException;
-
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
@@ -26,7 +24,8 @@ import org.eclipse.jface.text.contentassist.IContextInformationValidator;
 import org.eclipse.pde.internal.genericeditor.target.extension.autocomplete.processors.AttributeNameCompletionProcessor;
 import org.eclipse.pde.internal.genericeditor.target.extension.autocomplete.processors.AttributeValueCompletionProcessor;
 import org.eclipse.pde.internal.genericeditor.target.extension.autocomplete.processors.TagCompletionProcessor;
-import org.eclipse.pde.internal.genericeditor.target.extension.model.xml.Parser;
+import org.eclipse.pde.internal.genericeditor.target.extension.model.TargetNode;
+import org.eclipse.pde.internal.genericeditor.target.extension.model.xml.TargetDocumentModel;
 
 /**
  *
@@ -65,11 +64,6 @@ public class TargetDefinitionContentAssist implements IContentAssistProcessor {
 	public ICompletionProposal[] computeCompletionProposals(ITextViewer viewer, int offset) {
 		IDocument document = viewer.getDocument();
 		String text = document.get();
-		try {
-			Parser.getDefault().parse(document);
-		} catch (XMLStreamException e) {
-			// TODO handle parsing errors
-		}
 
 		int completionType = detectCompletionType(document, text, offset);
 		if (completionType == COMPLETION_TYPE_UNKNOWN) {
@@ -87,7 +81,9 @@ public class TargetDefinitionContentAssist implements IContentAssistProcessor {
 		}
 
 		if (completionType == COMPLETION_TYPE_ATTRIBUTE_VALUE) {
-			AttributeValueCompletionProcessor processor = new AttributeValueCompletionProcessor(prefix, acKey, offset);
+			TargetNode rootNode = TargetDocumentModel.getModel(document).getRootNode();
+			AttributeValueCompletionProcessor processor = new AttributeValueCompletionProcessor(prefix, acKey, offset,
+					rootNode);
 			return processor.getCompletionProposals();
 		}
 
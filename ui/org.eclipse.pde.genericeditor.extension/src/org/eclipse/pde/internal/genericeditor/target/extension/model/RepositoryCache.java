@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Red Hat Inc. and others
+ * Copyright (c) 2016, 2017 Red Hat Inc. and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,12 +10,26 @@
  *******************************************************************************/
 package org.eclipse.pde.internal.genericeditor.target.extension.model;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.pde.internal.genericeditor.target.extension.p2.P2Fetcher;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
 
 /**
  * This class is used to cache the p2 repositories completion information order
@@ -24,15 +38,85 @@ import org.eclipse.pde.internal.genericeditor.target.extension.p2.P2Fetcher;
  *
  * There will be only one cache shared between editors. In the future a function
  * will be added for the user to be able to flush this cache.
+ *
+ * Units of each repository are kept sorted by id, so that prefix lookups do
+ * not need to scan all units. Fetched units are also stored in the state
+ * location of this bundle and reused by later sessions until they are
+ * considered stale.
  */
 public class RepositoryCache {
 
-	private static RepositoryCache instance;
+	/**
+	 * Age (in milliseconds) after which cached repository information should
+	 * be refreshed.
+	 */
+	public static final long STALE_AGE = 24 * 60 * 60 * 1000L;
+
+	private static final int FILE_MAGIC = 0x50325543;
+
+	private static final int FILE_VERSION = 1;
+
+	private static final String FILE_EXTENSION = ".units"; //$NON-NLS-1$
+
+	private static final Comparator<UnitNode> ID_COMPARATOR = new Comparator<UnitNode>() {
+		@Override
+		public int compare(UnitNode u1, UnitNode u2) {
+			return u1.getId().compareTo(u2.getId());
+		}
+	};
+
+	private static final RepositoryCache instance = new RepositoryCache(getDefaultStorage());
+
+	private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+	private final File storage;
+
+	/**
+	 * Units of a single repository, sorted by id.
+	 */
+	private static class Entry {
+
+		final UnitNode[] units;
+
+		final long timestamp;
+
+		/**
+		 * Time of the last attempt to refresh these units, failed attempts
+		 * included
+		 */
+		volatile long lastRefresh;
+
+		Entry(UnitNode[] units, long timestamp) {
+			this.units = units;
+			this.timestamp = timestamp;
+		}
+	}
+
+	/**
+	 * Creates a cache that stores fetched units in the given directory.
+	 * Editors share the {@link #getDefault() default} cache; separate caches
+	 * are only created by tests.
+	 *
+	 * @param storage
+	 *            directory to persist fetched units in, or <code>null</code>
+	 *            to keep them in memory only
+	 */
+	public RepositoryCache(File storage) {
+		this.storage = storage;
+	}
 
-	Map<String, List<UnitNode>> cache = new HashMap<>();
+	private static File getDefaultStorage() {
+		Bundle bundle = FrameworkUtil.getBundle(RepositoryCache.class);
+		if (bundle == null) {
+			return null;
+		}
 
-	private RepositoryCache() {
-		//avoid instantiation
+		try {
+			return Platform.getStateLocation(bundle).append("repositories").toFile(); //$NON-NLS-1$
+		} catch (IllegalStateException e) {
+			// no instance location
+			return null;
+		}
 	}
 
 	/**
@@ -40,9 +124,6 @@ public class RepositoryCache {
 	 */
 
 	public static RepositoryCache getDefault() {
-		if (instance == null) {
-			instance = new RepositoryCache();
-		}
 		return instance;
 	}
 
@@ -53,14 +134,38 @@ public class RepositoryCache {
 	 *            repository URL
 	 * @param flush
 	 *            whether a flush is needed
-	 * @return list of IUs available in the 'repo' repository
+	 * @return list of IUs available in the 'repo' repository, or
+	 *         <code>null</code> if the repository could not be fetched
 	 */
 	public List<UnitNode> fetchP2UnitsFromRepo(String repo, boolean flush) {
-		if ((flush) || (cache.get(repo) == null)) {
-			List<UnitNode> units = P2Fetcher.fetchAvailableUnits(repo);
-			cache.put(repo, units);
+		Entry entry = getEntry(repo);
+		if (entry == null || flush) {
+			if (entry != null) {
+				// do not retry on every completion request if the refresh fails
+				entry.lastRefresh = System.currentTimeMillis();
+			}
+			List<UnitNode> units = fetchUnits(repo);
+			if (units == null) {
+				return null;
+			}
+
+			entry = put(repo, units, System.currentTimeMillis());
+			save(repo, entry);
 		}
-		return cache.get(repo);
+
+		return Collections.unmodifiableList(Arrays.asList(entry.units));
+	}
+
+	/**
+	 * Fetches the units of the given repository.
+	 *
+	 * @param repo
+	 *            repository URL
+	 * @return list of IUs, or <code>null</code> if the repository could not
+	 *         be fetched
+	 */
+	protected List<UnitNode> fetchUnits(String repo) {
+		return P2Fetcher.fetchAvailableUnits(repo);
 	}
 
 	/**
@@ -81,16 +186,61 @@ public class RepositoryCache {
 	 * @return A list of IUs whose id starts with 'prefix'
 	 */
 	public List<UnitNode> getUnitsByPrefix(String repo, String prefix) {
-		List<UnitNode> allUnits = fetchP2UnitsFromRepo(repo, false);
-		List<UnitNode> result = new ArrayList<>();
-		for (UnitNode unit : allUnits) {
-			if (unit.getId().startsWith(prefix)) {
-				result.add(unit);
+		Entry entry = getEntry(repo);
+		if (entry == null) {
+			List<UnitNode> units = fetchP2UnitsFromRepo(repo, false);
+			if (units == null) {
+				return Collections.emptyList();
 			}
+
+			entry = getEntry(repo);
+		}
+
+		UnitNode[] units = entry.units;
+		List<UnitNode> result = new ArrayList<>();
+		for (int i = lowerBound(units, prefix); i < units.length && units[i].getId().startsWith(prefix); i++) {
+			result.add(units[i]);
 		}
 		return result;
 	}
 
+	/**
+	 * Returns the cached unit with the given id.
+	 *
+	 * @param repo
+	 *            repository URL
+	 * @param id
+	 *            unit id
+	 * @return the unit, or <code>null</code> if the repository is not cached
+	 *         or contains no unit with this id
+	 */
+	public UnitNode getUnit(String repo, String id) {
+		Entry entry = getEntry(repo);
+		if (entry == null) {
+			return null;
+		}
+
+		int index = lowerBound(entry.units, id);
+		if (index < entry.units.length && entry.units[index].getId().equals(id)) {
+			return entry.units[index];
+		}
+		return null;
+	}
+
+	private static int lowerBound(UnitNode[] units, String id) {
+		int low = 0;
+		int high = units.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (units[mid].getId().compareTo(id) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
 	/**
 	 * Classic cache up-to-date check.
 	 *
@@ -99,7 +249,26 @@ public class RepositoryCache {
 	 * @return whether the cache is up to date for this repo
 	 */
 	public boolean isUpToDate(String repo) {
-		return cache.get(repo) != null;
+		return getEntry(repo) != null;
+	}
+
+	/**
+	 * Checks whether cached information is old enough to be refreshed. Stale
+	 * information is still used for completion until it is replaced. After an
+	 * attempt to refresh it, the information is not considered stale again
+	 * before {@link #STALE_AGE} has passed, even if the attempt failed.
+	 *
+	 * @param repo
+	 *            repository URL
+	 * @return whether the cached information of this repo should be refreshed
+	 */
+	public boolean isStale(String repo) {
+		Entry entry = getEntry(repo);
+		if (entry == null) {
+			return true;
+		}
+		long now = System.currentTimeMillis();
+		return now - entry.timestamp > STALE_AGE && now - entry.lastRefresh > STALE_AGE;
 	}
 
 	/**
@@ -107,5 +276,116 @@ public class RepositoryCache {
 	 */
 	public void flush() {
 		cache.clear();
+		if (storage != null) {
+			File[] files = storage.listFiles();
+			if (files != null) {
+				for (File file : files) {
+					if (file.getName().endsWith(FILE_EXTENSION)) {
+						file.delete();
+					}
+				}
+			}
+		}
+	}
+
+	private Entry getEntry(String repo) {
+		Entry entry = cache.get(repo);
+		if (entry == null) {
+			entry = load(repo);
+			if (entry != null) {
+				Entry existing = cache.putIfAbsent(repo, entry);
+				if (existing != null) {
+					entry = existing;
+				}
+			}
+		}
+		return entry;
+	}
+
+	private Entry put(String repo, List<UnitNode> units, long timestamp) {
+		UnitNode[] sorted = units.toArray(new UnitNode[units.size()]);
+		Arrays.sort(sorted, ID_COMPARATOR);
+		Entry entry = new Entry(sorted, timestamp);
+		cache.put(repo, entry);
+		return entry;
+	}
+
+	private File getFile(String repo) {
+		if (storage == null) {
+			return null;
+		}
+		return new File(storage, Integer.toHexString(repo.hashCode()) + FILE_EXTENSION);
+	}
+
+	private Entry load(String repo) {
+		File file = getFile(repo);
+		if (file == null || !file.isFile()) {
+			return null;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION || !repo.equals(in.readUTF())) {
+				return null;
+			}
+
+			long timestamp = in.readLong();
+			int count = in.readInt();
+			UnitNode[] units = new UnitNode[count];
+			for (int i = 0; i < count; i++) {
+				UnitNode unit = new UnitNode();
+				unit.setId(in.readUTF());
+				unit.setVersion(readString(in));
+				int versionCount = in.readInt();
+				List<String> versions = new ArrayList<>(versionCount);
+				for (int j = 0; j < versionCount; j++) {
+					versions.add(readString(in));
+				}
+				unit.setAvailableVersions(versions);
+				units[i] = unit;
+			}
+			// units were stored in sorted order
+			return new Entry(units, timestamp);
+		} catch (IOException e) {
+			// treat as not cached
+			return null;
+		}
+	}
+
+	private void save(String repo, Entry entry) {
+		File file = getFile(repo);
+		if (file == null) {
+			return;
+		}
+
+		file.getParentFile().mkdirs();
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(FILE_MAGIC);
+			out.writeInt(FILE_VERSION);
+			out.writeUTF(repo);
+			out.writeLong(entry.timestamp);
+			out.writeInt(entry.units.length);
+			for (UnitNode unit : entry.units) {
+				out.writeUTF(unit.getId());
+				writeString(out, unit.getVersion());
+				out.writeInt(unit.getAvailableVersions().size());
+				for (String version : unit.getAvailableVersions()) {
+					writeString(out, version);
+				}
+			}
+		} catch (IOException e) {
+			// cache remains valid in memory
+			file.delete();
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
 	}
 }
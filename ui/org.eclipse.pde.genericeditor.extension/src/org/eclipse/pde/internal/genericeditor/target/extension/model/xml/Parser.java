@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Red Hat Inc. and others
+ * Copyright (c) 2016, 2017 Red Hat Inc. and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,7 @@
 package org.eclipse.pde.internal.genericeditor.target.extension.model.xml;
 
 import java.io.ByteArrayInputStream;
+import java.io.StringReader;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.Location;
@@ -34,8 +35,6 @@ import org.eclipse.pde.internal.genericeditor.target.extension.model.UnitNode;
  */
 public class Parser {
 
-	private static Parser instance;
-
 	private LocationNode locationNode;
 	private TargetNode target;
 	private UnitNode unit;
@@ -162,11 +161,59 @@ public class Parser {
 		}
 	}
 
-	public static Parser getDefault() {
-		if (instance == null) {
-			instance = new Parser();
+	/**
+	 * Updates a unit from the text of its element, without parsing the rest of
+	 * the document.
+	 *
+	 * @param unit
+	 *            the unit to update
+	 * @param text
+	 *            document text covered by the unit
+	 * @return <code>true</code> if the text consists of exactly one unit
+	 *         element, <code>false</code> if the unit could not be updated
+	 */
+	public boolean parseUnit(UnitNode unit, String text) {
+		String id = null;
+		String version = null;
+		int depth = 0;
+		int units = 0;
+		try {
+			XMLEventReader eventReader = inputFactory.createXMLEventReader(new StringReader("<unit-text>" + text + "</unit-text>")); //$NON-NLS-1$ //$NON-NLS-2$
+			while (eventReader.hasNext()) {
+				XMLEvent event = eventReader.nextEvent();
+				if (event.isStartElement()) {
+					depth++;
+					if (depth != 2) {
+						continue;
+					}
+					StartElement startElement = event.asStartElement();
+					if (!ITargetConstants.UNIT_TAG.equalsIgnoreCase(startElement.getName().getLocalPart())) {
+						return false;
+					}
+					units++;
+					Attribute idAttribute = startElement.getAttributeByName(new QName(ITargetConstants.UNIT_ID_ATTR));
+					if (idAttribute != null) {
+						id = idAttribute.getValue();
+					}
+					Attribute versionAttribute = startElement
+							.getAttributeByName(new QName(ITargetConstants.UNIT_VERSION_ATTR));
+					if (versionAttribute != null) {
+						version = versionAttribute.getValue();
+					}
+				} else if (event.isEndElement()) {
+					depth--;
+				}
+			}
+		} catch (XMLStreamException e) {
+			return false;
+		}
+
+		if (units != 1) {
+			return false;
 		}
-		return instance;
+		unit.setId(id);
+		unit.setVersion(version);
+		return true;
 	}
 
 	public TargetNode getRootNode() {
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Red Hat Inc. and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat Inc. - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.genericeditor.target.extension.model.xml;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.pde.internal.genericeditor.target.extension.model.LocationNode;
+import org.eclipse.pde.internal.genericeditor.target.extension.model.Node;
+import org.eclipse.pde.internal.genericeditor.target.extension.model.TargetNode;
+import org.eclipse.pde.internal.genericeditor.target.extension.model.UnitNode;
+
+/**
+ * Model of a single target definition document, kept up to date with the
+ * document's changes.
+ *
+ * The whole document is only parsed initially and after edits that may change
+ * its structure. Edits that stay within a single unit element just shift the
+ * offsets of the following nodes, and the edited unit is parsed again from its
+ * own text on next access. All other nodes are reused.
+ */
+public class TargetDocumentModel implements IDocumentListener {
+
+	private static final Map<IDocument, TargetDocumentModel> models = Collections
+			.synchronizedMap(new WeakHashMap<IDocument, TargetDocumentModel>());
+
+	// weak, as models are kept in a map with weak document keys
+	private final WeakReference<IDocument> document;
+
+	private final Parser parser = new Parser();
+
+	private TargetNode root;
+
+	private boolean fullParse = true;
+
+	private final Set<UnitNode> dirtyUnits = new LinkedHashSet<>();
+
+	private TargetDocumentModel(IDocument document) {
+		this.document = new WeakReference<>(document);
+	}
+
+	/**
+	 * Returns the model of the given document, creating it on first access.
+	 *
+	 * @param document
+	 *            target definition document
+	 * @return the model of the document
+	 */
+	public static TargetDocumentModel getModel(IDocument document) {
+		synchronized (models) {
+			TargetDocumentModel model = models.get(document);
+			if (model == null) {
+				model = new TargetDocumentModel(document);
+				document.addDocumentListener(model);
+				models.put(document, model);
+			}
+			return model;
+		}
+	}
+
+	/**
+	 * @return the up-to-date root node of the document, or <code>null</code>
+	 *         if the document contains no target
+	 */
+	public synchronized TargetNode getRootNode() {
+		IDocument document = this.document.get();
+		if (document == null) {
+			return null;
+		}
+
+		if (!fullParse && !dirtyUnits.isEmpty()) {
+			for (UnitNode unit : dirtyUnits) {
+				try {
+					String text = document.get(unit.getOffsetStart(), unit.getOffsetEnd() - unit.getOffsetStart());
+					if (!parser.parseUnit(unit, text)) {
+						fullParse = true;
+						break;
+					}
+				} catch (BadLocationException e) {
+					fullParse = true;
+					break;
+				}
+			}
+			dirtyUnits.clear();
+
+			if (!fullParse && root != null) {
+				try {
+					root.setNodeText(
+							document.get(root.getOffsetStart(), root.getOffsetEnd() - root.getOffsetStart()));
+				} catch (BadLocationException e) {
+					fullParse = true;
+				}
+			}
+		}
+
+		if (fullParse) {
+			Parser fullParser = new Parser();
+			try {
+				fullParser.parse(document);
+				fullParse = false;
+			} catch (XMLStreamException e) {
+				// use what could be parsed; parse again on next access
+			}
+			root = fullParser.getRootNode();
+			dirtyUnits.clear();
+		}
+
+		return root;
+	}
+
+	@Override
+	public void documentAboutToBeChanged(DocumentEvent event) {
+		// nothing to do
+	}
+
+	@Override
+	public synchronized void documentChanged(DocumentEvent event) {
+		if (fullParse || root == null) {
+			fullParse = true;
+			return;
+		}
+
+		int start = event.getOffset();
+		int end = start + event.getLength();
+		int delta = (event.getText() == null ? 0 : event.getText().length()) - event.getLength();
+
+		UnitNode edited = null;
+		for (LocationNode location : root.getNodes()) {
+			for (UnitNode unit : location.getUnits()) {
+				if (start >= unit.getOffsetStart() && end < unit.getOffsetEnd()) {
+					edited = unit;
+					break;
+				}
+			}
+			if (edited != null) {
+				break;
+			}
+		}
+
+		if (edited == null) {
+			// edit may change the structure of the document
+			fullParse = true;
+			return;
+		}
+
+		shift(root, start, delta);
+		for (LocationNode location : root.getNodes()) {
+			shift(location, start, delta);
+			for (UnitNode unit : location.getUnits()) {
+				shift(unit, start, delta);
+			}
+		}
+		dirtyUnits.add(edited);
+	}
+
+	private static void shift(Node node, int offset, int delta) {
+		if (node.getOffsetStart() > offset) {
+			node.setOffsetStart(node.getOffsetStart() + delta);
+		}
+		if (node.getOffsetEnd() > offset) {
+			node.setOffsetEnd(node.getOffsetEnd() + delta);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Red Hat Inc. and others
+ * Copyright (c) 2016, 2017 Red Hat Inc. and others
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,6 +24,8 @@ import org.osgi.framework.FrameworkUtil;
 /**
  * Fetching P2 repository information is a costly operation time-wise. Thus we
  * start a job to do it, as per the guidelines.
+ *
+ * Jobs belong to the family of the location of the repository they fetch.
  */
 public class UpdateJob extends Job {
 
@@ -43,4 +45,9 @@ public class UpdateJob extends Job {
 		return Status.OK_STATUS;
 	}
 
+	@Override
+	public boolean belongsTo(Object family) {
+		return node.getRepositoryLocation().equals(family);
+	}
+
 }
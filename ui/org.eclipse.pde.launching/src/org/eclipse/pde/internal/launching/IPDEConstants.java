@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2015 EclipseSource Corporation and others.
+ * Copyright (c) 2009, 2017 EclipseSource Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -38,4 +38,21 @@ public interface IPDEConstants {
 	String LAUNCHER_PDE_VERSION = "pde.version"; //$NON-NLS-1$
 	String APPEND_ARGS_EXPLICITLY = "append.args"; //$NON-NLS-1$
 
+	/**
+	 * Launch configuration attribute key. The value is a boolean specifying
+	 * whether the registry agent is started in the launched framework, so
+	 * that its registry can be inspected.
+	 */
+	String REGISTRY_AGENT = "registryAgent"; //$NON-NLS-1$
+	/**
+	 * Launch attribute key. The value is the port the registry agent of a
+	 * launched framework listens on.
+	 */
+	String LAUNCH_REGISTRY_AGENT_PORT = PLUGIN_ID + ".registryAgent.port"; //$NON-NLS-1$
+	/**
+	 * Launch attribute key. The value is the token clients have to send to the
+	 * registry agent of a launched framework.
+	 */
+	String LAUNCH_REGISTRY_AGENT_TOKEN = PLUGIN_ID + ".registryAgent.token"; //$NON-NLS-1$
+
 }
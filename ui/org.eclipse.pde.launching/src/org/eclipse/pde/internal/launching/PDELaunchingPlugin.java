@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2015 EclipseSource Corporation and others.
+ * Copyright (c) 2009, 2017 EclipseSource Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,16 +13,27 @@ package org.eclipse.pde.internal.launching;
 
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
+import java.util.Hashtable;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.*;
 import org.eclipse.debug.core.DebugPlugin;
 import org.eclipse.debug.core.ILaunchConfigurationListener;
+import org.eclipse.osgi.service.debug.DebugOptions;
+import org.eclipse.osgi.service.debug.DebugOptionsListener;
+import org.eclipse.osgi.service.debug.DebugTrace;
 import org.eclipse.pde.internal.core.PDEPreferencesManager;
 import org.eclipse.pde.internal.launching.launcher.*;
 import org.osgi.framework.*;
 
-public class PDELaunchingPlugin extends Plugin implements IPDEConstants {
+public class PDELaunchingPlugin extends Plugin implements IPDEConstants, DebugOptionsListener {
+
+	private static boolean DEBUG = false;
+	public static boolean DEBUG_LAUNCH = false;
+	private static final String DEBUG_FLAG = PLUGIN_ID + "/debug"; //$NON-NLS-1$
+	public static final String LAUNCH_OPTION = "/launch"; //$NON-NLS-1$
+	private static final String LAUNCH_DEBUG = PLUGIN_ID + LAUNCH_OPTION;
+	private static DebugTrace fgTrace;
 
 	// Shared instance
 	private static PDELaunchingPlugin fInstance;
@@ -98,6 +109,29 @@ public class PDELaunchingPlugin extends Plugin implements IPDEConstants {
 		super.start(context);
 		fBundleContext = context;
 		setupLaunchConfigurationListener();
+
+		// Register the debug options listener service (tracing)
+		Hashtable<String, String> props = new Hashtable<>(2);
+		props.put(DebugOptions.LISTENER_SYMBOLICNAME, PLUGIN_ID);
+		context.registerService(DebugOptionsListener.class.getName(), this, props);
+	}
+
+	@Override
+	public void optionsChanged(DebugOptions options) {
+		DEBUG = options.getBooleanOption(DEBUG_FLAG, false);
+		DEBUG_LAUNCH = DEBUG && options.getBooleanOption(LAUNCH_DEBUG, false);
+		fgTrace = options.newDebugTrace(PLUGIN_ID);
+	}
+
+	/**
+	 * Writes a message to the debug trace if tracing is enabled.
+	 *
+	 * @param option the debug option the message belongs to, such as {@link #LAUNCH_OPTION}
+	 * @param message the message to trace
+	 */
+	public static void trace(String option, String message) {
+		if (fgTrace != null)
+			fgTrace.trace(option, message);
 	}
 
 	/**
@@ -142,6 +176,7 @@ public class PDELaunchingPlugin extends Plugin implements IPDEConstants {
 			fDebugPluginUtil.removeListener();
 		}
 		LauncherUtils.shutdown();
+		LaunchConfigurationCache.shutdown();
 		super.stop(context);
 	}
 
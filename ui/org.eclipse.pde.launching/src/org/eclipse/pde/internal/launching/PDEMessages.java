@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 EclipseSource Corporation and others.
+ * Copyright (c) 2009, 2017 EclipseSource Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -40,5 +40,8 @@ public class PDEMessages extends NLS {
 
 	public static String EquinoxLaunchConfiguration_oldTarget;
 
+	public static String RegistryAgentHelper_missingAgent;
+	public static String RegistryAgentHelper_noPort;
+
 	public static String VMHelper_cannotFindExecEnv;
 }
\ No newline at end of file
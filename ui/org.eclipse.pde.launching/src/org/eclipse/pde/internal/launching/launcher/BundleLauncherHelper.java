@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2016 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -46,7 +46,30 @@ public class BundleLauncherHelper {
 		return getTargetBundleMap(configuration, null, IPDELauncherConstants.TARGET_BUNDLES);
 	}
 
+	/**
+	 * Returns the bundles to launch with the given configuration and their start levels.
+	 * The map computed for the previous launch is reused if neither the configuration
+	 * nor the plug-in models have changed since.
+	 *
+	 * @param configuration the launch configuration
+	 * @param osgi whether an OSGi framework or an Eclipse application is launched
+	 * @return map of the launched models to their start levels, owned by the caller
+	 * @throws CoreException if the configuration cannot be read
+	 */
 	public static Map<IPluginModelBase, String> getMergedBundleMap(ILaunchConfiguration configuration, boolean osgi) throws CoreException {
+		long start = LaunchProfiler.start();
+		Map<IPluginModelBase, String> map = LaunchConfigurationCache.getBundleMap(configuration, osgi);
+		if (map != null) {
+			LaunchProfiler.record("bundle map (cached)", start); //$NON-NLS-1$
+			return map;
+		}
+		map = computeMergedBundleMap(configuration, osgi);
+		LaunchConfigurationCache.putBundleMap(configuration, osgi, map);
+		LaunchProfiler.record("bundle map", start); //$NON-NLS-1$
+		return map;
+	}
+
+	private static Map<IPluginModelBase, String> computeMergedBundleMap(ILaunchConfiguration configuration, boolean osgi) throws CoreException {
 		Set<String> set = new HashSet<>();
 		Map<IPluginModelBase, String> map = new HashMap<>();
 
@@ -214,7 +237,7 @@ public class BundleLauncherHelper {
 	 * @param location
 	 * @return model
 	 */
-	private static IPluginModelBase findModel(ModelEntry modelEntry, String version, String location) {
+	static IPluginModelBase findModel(ModelEntry modelEntry, String version, String location) {
 		IPluginModelBase model = null;
 		if (IPDELauncherConstants.LOCATION_WORKSPACE.equalsIgnoreCase(location)) {
 			model = getBestCandidateModel(modelEntry.getWorkspaceModels(), version);
@@ -294,39 +317,13 @@ public class BundleLauncherHelper {
 	}
 
 	public static Map<IPluginModelBase, String> getWorkspaceBundleMap(ILaunchConfiguration configuration, Set<String> set, String attribute) throws CoreException {
-		String selected = configuration.getAttribute(attribute, ""); //$NON-NLS-1$
+		BundleSelection selection = BundleSelection.get(configuration, attribute);
 		Map<IPluginModelBase, String> map = new HashMap<>();
-		StringTokenizer tok = new StringTokenizer(selected, ","); //$NON-NLS-1$
-		while (tok.hasMoreTokens()) {
-			String token = tok.nextToken();
-			int index = token.indexOf('@');
-			if (index < 0) { // if no start levels, assume default
-				token = token.concat("@default:default"); //$NON-NLS-1$
-				index = token.indexOf('@');
-			}
-			String idVersion = token.substring(0, index);
-			int versionIndex = idVersion.indexOf(VERSION_SEPARATOR);
-			String id = (versionIndex > 0) ? idVersion.substring(0, versionIndex) : idVersion;
-			String version = (versionIndex > 0) ? idVersion.substring(versionIndex + 1) : null;
+		for (BundleSelection.Entry entry : selection.getEntries()) {
 			if (set != null)
-				set.add(id);
-			ModelEntry entry = PluginRegistry.findEntry(id);
-			if (entry != null) {
-				IPluginModelBase[] models = entry.getWorkspaceModels();
-				Set<String> versions = new HashSet<>();
-				for (IPluginModelBase model : models) {
-					IPluginBase base = model.getPluginBase();
-					String v = base.getVersion();
-					if (versions.add(v)) { // don't add exact same version more than once
-
-						// match only if...
-						// a) if we have the same version
-						// b) no version
-						// c) all else fails, if there's just one bundle available, use it
-						if (base.getVersion().equals(version) || version == null || models.length == 1)
-							addBundleToMap(map, model, token.substring(index + 1));
-					}
-				}
+				set.add(entry.getId());
+			for (IPluginModelBase model : selection.getWorkspaceMatches(entry)) {
+				addBundleToMap(map, model, entry.getStartData());
 			}
 		}
 
@@ -421,36 +418,13 @@ public class BundleLauncherHelper {
 	}
 
 	public static Map<IPluginModelBase, String> getTargetBundleMap(ILaunchConfiguration configuration, Set<String> set, String attribute) throws CoreException {
-		String selected = configuration.getAttribute(attribute, ""); //$NON-NLS-1$
+		BundleSelection selection = BundleSelection.get(configuration, attribute);
 		Map<IPluginModelBase, String> map = new HashMap<>();
-		StringTokenizer tok = new StringTokenizer(selected, ","); //$NON-NLS-1$
-		while (tok.hasMoreTokens()) {
-			String token = tok.nextToken();
-			int index = token.indexOf('@');
-			if (index < 0) { // if no start levels, assume default
-				token = token.concat("@default:default"); //$NON-NLS-1$
-				index = token.indexOf('@');
-			}
-			String idVersion = token.substring(0, index);
-			int versionIndex = idVersion.indexOf(VERSION_SEPARATOR);
-			String id = (versionIndex > 0) ? idVersion.substring(0, versionIndex) : idVersion;
-			String version = (versionIndex > 0) ? idVersion.substring(versionIndex + 1) : null;
-			if (set != null && set.contains(id))
+		for (BundleSelection.Entry entry : selection.getEntries()) {
+			if (set != null && set.contains(entry.getId()))
 				continue;
-			ModelEntry entry = PluginRegistry.findEntry(id);
-			if (entry != null) {
-				IPluginModelBase[] models = entry.getExternalModels();
-				for (IPluginModelBase model : models) {
-					if (model.isEnabled()) {
-						IPluginBase base = model.getPluginBase();
-						// match only if...
-						// a) if we have the same version
-						// b) no version
-						// c) all else fails, if there's just one bundle available, use it
-						if (base.getVersion().equals(version) || version == null || models.length == 1)
-							addBundleToMap(map, model, token.substring(index + 1));
-					}
-				}
+			for (IPluginModelBase model : selection.getTargetMatches(entry)) {
+				addBundleToMap(map, model, entry.getStartData());
 			}
 		}
 		return map;
@@ -597,26 +571,13 @@ public class BundleLauncherHelper {
 	 */
 	public static HashMap<IPluginModelBase, String> getAdditionalPlugins(ILaunchConfiguration config, boolean onlyEnabled) throws CoreException {
 		HashMap<IPluginModelBase, String> resolvedAdditionalPlugins = new HashMap<>();
-		Set<String> userAddedPlugins = config.getAttribute(IPDELauncherConstants.ADDITIONAL_PLUGINS, (Set<String>) null);
 		String defaultPluginResolution = config.getAttribute(IPDELauncherConstants.FEATURE_PLUGIN_RESOLUTION, IPDELauncherConstants.LOCATION_WORKSPACE);
-		if (userAddedPlugins != null) {
-			for (String addedPlugin : userAddedPlugins) {
-				String[] pluginData = addedPlugin.split(":"); //$NON-NLS-1$
-				boolean checked = Boolean.valueOf(pluginData[3]).booleanValue();
-				if (!onlyEnabled || checked) {
-					String id = pluginData[0];
-					String version = pluginData[1];
-					String pluginResolution = pluginData[2];
-					ModelEntry pluginModelEntry = PluginRegistry.findEntry(id);
-					if (pluginModelEntry != null) {
-						if (IPDELauncherConstants.LOCATION_DEFAULT.equalsIgnoreCase(pluginResolution)) {
-							pluginResolution = defaultPluginResolution;
-						}
-						IPluginModelBase model = findModel(pluginModelEntry, version, pluginResolution);
-						if (model != null) {
-							resolvedAdditionalPlugins.put(model, pluginData[2]);
-						}
-					}
+		BundleSelection selection = BundleSelection.getAdditionalPlugins(config);
+		for (BundleSelection.Entry entry : selection.getEntries()) {
+			if (!onlyEnabled || entry.isEnabled()) {
+				IPluginModelBase model = selection.getMatch(entry, defaultPluginResolution);
+				if (model != null) {
+					resolvedAdditionalPlugins.put(model, entry.getLocation());
 				}
 			}
 		}
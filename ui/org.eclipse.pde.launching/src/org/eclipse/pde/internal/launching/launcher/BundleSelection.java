@@ -0,0 +1,306 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.launching.launcher;
+
+import java.util.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.pde.core.plugin.*;
+import org.eclipse.pde.launching.IPDELauncherConstants;
+
+/**
+ * The parsed form of a launch configuration attribute listing selected bundles,
+ * such as {@link IPDELauncherConstants#SELECTED_WORKSPACE_PLUGINS}.
+ * Each comma separated entry has the form <code>id[*version][@startLevel:autoStart]</code>.
+ * The additional plug-ins of a feature based launch ({@link IPDELauncherConstants#ADDITIONAL_PLUGINS})
+ * are stored as a set of <code>id:version:location:enabled</code> entries instead.
+ * <p>
+ * Parsed selections are cached per configuration and attribute and reused as long
+ * as the attribute value is unchanged. The models matching each entry are cached
+ * until the plug-in models change.
+ * </p>
+ */
+public class BundleSelection {
+
+	private static final int CACHE_SIZE = 32;
+
+	private static final IPluginModelBase[] NO_MODELS = new IPluginModelBase[0];
+
+	private static final Map<String, BundleSelection> fgCache = new LinkedHashMap<String, BundleSelection>(CACHE_SIZE, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, BundleSelection> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	/**
+	 * A single selected bundle
+	 */
+	public static class Entry {
+		private final String fId;
+		private final String fVersion;
+		private final String fStartData;
+		private final String fLocation;
+		private final boolean fEnabled;
+
+		private long fGeneration = -1;
+		private IPluginModelBase[] fWorkspaceMatches;
+		private IPluginModelBase[] fTargetMatches;
+		// best matching model per resolution location, null values for missing models
+		private Map<String, IPluginModelBase> fLocationMatches;
+
+		Entry(String id, String version, String startData, String location, boolean enabled) {
+			fId = id;
+			fVersion = version;
+			fStartData = startData;
+			fLocation = location;
+			fEnabled = enabled;
+		}
+
+		/**
+		 * @return the bundle symbolic name
+		 */
+		public String getId() {
+			return fId;
+		}
+
+		/**
+		 * @return the selected version or <code>null</code> if no version was specified
+		 */
+		public String getVersion() {
+			return fVersion;
+		}
+
+		/**
+		 * @return the start information in the form <code>startLevel:autoStart</code>
+		 */
+		public String getStartData() {
+			return fStartData;
+		}
+
+		/**
+		 * @return the location the additional plug-in is resolved from, one of the
+		 * <code>LOCATION_*</code> constants of {@link IPDELauncherConstants}, or
+		 * <code>null</code> for entries of a bundle selection
+		 */
+		public String getLocation() {
+			return fLocation;
+		}
+
+		/**
+		 * @return whether the entry is checked, always <code>true</code> for entries
+		 * of a bundle selection
+		 */
+		public boolean isEnabled() {
+			return fEnabled;
+		}
+	}
+
+	private final Object fValue;
+	private final Entry[] fEntries;
+
+	private BundleSelection(String value) {
+		fValue = value;
+		List<Entry> entries = new ArrayList<>();
+		StringTokenizer tok = new StringTokenizer(value, ","); //$NON-NLS-1$
+		while (tok.hasMoreTokens()) {
+			String token = tok.nextToken();
+			int index = token.indexOf('@');
+			String idVersion = index < 0 ? token : token.substring(0, index);
+			// if no start levels, assume default
+			String startData = index < 0 ? "default:default" : token.substring(index + 1); //$NON-NLS-1$
+			int versionIndex = idVersion.indexOf(BundleLauncherHelper.VERSION_SEPARATOR);
+			String id = (versionIndex > 0) ? idVersion.substring(0, versionIndex) : idVersion;
+			String version = (versionIndex > 0) ? idVersion.substring(versionIndex + 1) : null;
+			entries.add(new Entry(id, version, startData, null, true));
+		}
+		fEntries = entries.toArray(new Entry[entries.size()]);
+	}
+
+	private BundleSelection(Set<String> value) {
+		fValue = value;
+		List<Entry> entries = new ArrayList<>(value.size());
+		for (String token : value) {
+			String[] pluginData = token.split(":"); //$NON-NLS-1$
+			if (pluginData.length < 4)
+				continue;
+			entries.add(new Entry(pluginData[0], pluginData[1], null, pluginData[2], Boolean.valueOf(pluginData[3]).booleanValue()));
+		}
+		fEntries = entries.toArray(new Entry[entries.size()]);
+	}
+
+	/**
+	 * Returns the parsed selection stored in the given attribute of the configuration.
+	 *
+	 * @param configuration the launch configuration
+	 * @param attribute the attribute listing the selected bundles
+	 * @return the parsed selection, never <code>null</code>
+	 * @throws CoreException if the attribute cannot be read
+	 */
+	public static BundleSelection get(ILaunchConfiguration configuration, String attribute) throws CoreException {
+		String value = configuration.getAttribute(attribute, ""); //$NON-NLS-1$
+		if (value == null)
+			value = ""; //$NON-NLS-1$
+		String key = configuration.getName() + '\u0000' + attribute;
+		synchronized (fgCache) {
+			BundleSelection selection = fgCache.get(key);
+			if (selection == null || !selection.fValue.equals(value)) {
+				selection = new BundleSelection(value);
+				fgCache.put(key, selection);
+			}
+			return selection;
+		}
+	}
+
+	/**
+	 * Returns the parsed additional plug-ins of a feature based launch configuration.
+	 *
+	 * @param configuration the launch configuration
+	 * @return the parsed additional plug-ins, never <code>null</code>
+	 * @throws CoreException if the attribute cannot be read
+	 */
+	public static BundleSelection getAdditionalPlugins(ILaunchConfiguration configuration) throws CoreException {
+		Set<String> value = configuration.getAttribute(IPDELauncherConstants.ADDITIONAL_PLUGINS, (Set<String>) null);
+		if (value == null)
+			value = Collections.emptySet();
+		String key = configuration.getName() + '\u0000' + IPDELauncherConstants.ADDITIONAL_PLUGINS;
+		synchronized (fgCache) {
+			BundleSelection selection = fgCache.get(key);
+			if (selection == null || !selection.fValue.equals(value)) {
+				selection = new BundleSelection(new LinkedHashSet<>(value));
+				fgCache.put(key, selection);
+			}
+			return selection;
+		}
+	}
+
+	/**
+	 * Discards the cached selections of the given configuration.
+	 *
+	 * @param configuration the changed or removed configuration
+	 */
+	public static void invalidate(ILaunchConfiguration configuration) {
+		String prefix = configuration.getName() + '\u0000';
+		synchronized (fgCache) {
+			for (Iterator<String> iter = fgCache.keySet().iterator(); iter.hasNext();) {
+				if (iter.next().startsWith(prefix))
+					iter.remove();
+			}
+		}
+	}
+
+	/**
+	 * @return the entries in the order they are listed in the attribute
+	 */
+	public Entry[] getEntries() {
+		return fEntries;
+	}
+
+	/**
+	 * Returns the workspace models matching the given entry. A model matches if it
+	 * has the selected version, if no version is selected, or if it is the only
+	 * workspace model with the entry's id. Models with the same version are only
+	 * returned once.
+	 *
+	 * @param entry an entry of this selection
+	 * @return the matching workspace models
+	 */
+	public IPluginModelBase[] getWorkspaceMatches(Entry entry) {
+		synchronized (entry) {
+			validate(entry);
+			if (entry.fWorkspaceMatches == null) {
+				ModelEntry modelEntry = PluginRegistry.findEntry(entry.fId);
+				if (modelEntry == null) {
+					entry.fWorkspaceMatches = NO_MODELS;
+				} else {
+					IPluginModelBase[] models = modelEntry.getWorkspaceModels();
+					List<IPluginModelBase> result = new ArrayList<>(1);
+					Set<String> versions = new HashSet<>();
+					for (IPluginModelBase model : models) {
+						String v = model.getPluginBase().getVersion();
+						// don't add exact same version more than once
+						if (versions.add(v) && (v.equals(entry.fVersion) || entry.fVersion == null || models.length == 1))
+							result.add(model);
+					}
+					entry.fWorkspaceMatches = result.toArray(new IPluginModelBase[result.size()]);
+				}
+			}
+			return entry.fWorkspaceMatches;
+		}
+	}
+
+	/**
+	 * Returns the enabled target models matching the given entry. A model matches
+	 * if it has the selected version, if no version is selected, or if it is the
+	 * only target model with the entry's id.
+	 *
+	 * @param entry an entry of this selection
+	 * @return the matching target models
+	 */
+	public IPluginModelBase[] getTargetMatches(Entry entry) {
+		synchronized (entry) {
+			validate(entry);
+			if (entry.fTargetMatches == null) {
+				ModelEntry modelEntry = PluginRegistry.findEntry(entry.fId);
+				if (modelEntry == null) {
+					entry.fTargetMatches = NO_MODELS;
+				} else {
+					IPluginModelBase[] models = modelEntry.getExternalModels();
+					List<IPluginModelBase> result = new ArrayList<>(1);
+					for (IPluginModelBase model : models) {
+						if (model.isEnabled() && (model.getPluginBase().getVersion().equals(entry.fVersion) || entry.fVersion == null || models.length == 1))
+							result.add(model);
+					}
+					entry.fTargetMatches = result.toArray(new IPluginModelBase[result.size()]);
+				}
+			}
+			return entry.fTargetMatches;
+		}
+	}
+
+	/**
+	 * Returns the model an additional plug-in entry resolves to. The model is looked
+	 * up in the entry's location first, entries with the default location use the
+	 * given feature plug-in resolution. The result is indexed by the resolved location.
+	 *
+	 * @param entry an entry of this selection
+	 * @param defaultLocation the location used for entries with the default location
+	 * @return the matching model or <code>null</code> if no enabled model exists
+	 */
+	public IPluginModelBase getMatch(Entry entry, String defaultLocation) {
+		String location = entry.fLocation;
+		if (location == null || IPDELauncherConstants.LOCATION_DEFAULT.equalsIgnoreCase(location))
+			location = defaultLocation;
+		synchronized (entry) {
+			validate(entry);
+			if (entry.fLocationMatches == null)
+				entry.fLocationMatches = new HashMap<>(4);
+			if (entry.fLocationMatches.containsKey(location))
+				return entry.fLocationMatches.get(location);
+			ModelEntry modelEntry = PluginRegistry.findEntry(entry.fId);
+			IPluginModelBase model = modelEntry != null ? BundleLauncherHelper.findModel(modelEntry, entry.fVersion, location) : null;
+			entry.fLocationMatches.put(location, model);
+			return model;
+		}
+	}
+
+	private void validate(Entry entry) {
+		long generation = LaunchConfigurationCache.getModelGeneration();
+		if (entry.fGeneration != generation) {
+			entry.fGeneration = generation;
+			entry.fWorkspaceMatches = null;
+			entry.fTargetMatches = null;
+			entry.fLocationMatches = null;
+		}
+	}
+}
@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.launching.launcher;
+
+import java.util.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.debug.core.*;
+import org.eclipse.osgi.service.resolver.State;
+import org.eclipse.osgi.service.resolver.StateDelta;
+import org.eclipse.pde.core.plugin.IPluginModelBase;
+import org.eclipse.pde.internal.core.*;
+
+/**
+ * Remembers the bundle map and the computed config.ini properties of previous launches
+ * so that they can be reused when a configuration is launched again and neither its
+ * attributes nor the plug-in and feature models have changed in the meantime.
+ * <p>
+ * Any change to the plug-in models (including target platform reloads and edited
+ * workspace manifests) or to the feature models invalidates all cached entries.
+ * The entries of a configuration are removed when it is saved or deleted.
+ * </p>
+ */
+public class LaunchConfigurationCache {
+
+	/**
+	 * Incremented whenever the plug-in, feature or target models change
+	 */
+	private static long fgGeneration;
+	private static ModelListener fgListener;
+
+	private static final Map<String, BundleMapEntry> fgBundleMaps = new HashMap<>();
+	private static final Map<String, ConfigIniEntry> fgConfigInis = new HashMap<>();
+
+	private static class BundleMapEntry {
+		Map<String, Object> attributes;
+		long generation;
+		Map<IPluginModelBase, String> bundles;
+	}
+
+	private static class ConfigIniEntry {
+		Object[] inputs;
+		long generation;
+		Properties properties;
+	}
+
+	private static class ModelListener implements IPluginModelListener, IFeatureModelListener, IStateDeltaListener, ILaunchConfigurationListener {
+		@Override
+		public void modelsChanged(PluginModelDelta delta) {
+			invalidate();
+		}
+
+		@Override
+		public void modelsChanged(IFeatureModelDelta delta) {
+			invalidate();
+		}
+
+		@Override
+		public void stateResolved(StateDelta delta) {
+			invalidate();
+		}
+
+		@Override
+		public void stateChanged(State newState) {
+			invalidate();
+		}
+
+		@Override
+		public void launchConfigurationAdded(ILaunchConfiguration configuration) {
+		}
+
+		@Override
+		public void launchConfigurationChanged(ILaunchConfiguration configuration) {
+			if (!configuration.isWorkingCopy())
+				remove(configuration.getName());
+		}
+
+		@Override
+		public void launchConfigurationRemoved(ILaunchConfiguration configuration) {
+			remove(configuration.getName());
+		}
+	}
+
+	private static synchronized void remove(String name) {
+		fgBundleMaps.remove(getKey(name, true));
+		fgBundleMaps.remove(getKey(name, false));
+		fgConfigInis.remove(name);
+	}
+
+	private static synchronized void invalidate() {
+		fgGeneration++;
+		fgBundleMaps.clear();
+		fgConfigInis.clear();
+	}
+
+	/**
+	 * Returns a counter that changes whenever plug-in, feature or target models change.
+	 * Values computed from the models may be cached as long as it returns the same value.
+	 *
+	 * @return the current model generation
+	 */
+	static synchronized long getModelGeneration() {
+		return getGeneration();
+	}
+
+	/**
+	 * Returns the current model generation, registering the model listeners on first use.
+	 */
+	private static long getGeneration() {
+		if (fgListener == null) {
+			fgListener = new ModelListener();
+			PDECore core = PDECore.getDefault();
+			core.getModelManager().addPluginModelListener(fgListener);
+			core.getModelManager().addStateDeltaListener(fgListener);
+			core.getFeatureModelManager().addFeatureModelListener(fgListener);
+			DebugPlugin.getDefault().getLaunchManager().addLaunchConfigurationListener(fgListener);
+		}
+		return fgGeneration;
+	}
+
+	/**
+	 * Returns a copy of the bundle map computed for the given configuration on a
+	 * previous launch, or <code>null</code> if it has to be computed again.
+	 *
+	 * @param configuration the launch configuration
+	 * @param osgi whether the map is computed for an OSGi framework launch
+	 * @return a copy of the cached map or <code>null</code>
+	 * @throws CoreException if the attributes of the configuration cannot be read
+	 */
+	public static synchronized Map<IPluginModelBase, String> getBundleMap(ILaunchConfiguration configuration, boolean osgi) throws CoreException {
+		BundleMapEntry entry = fgBundleMaps.get(getKey(configuration, osgi));
+		if (entry == null || entry.generation != getGeneration() || !entry.attributes.equals(configuration.getAttributes()))
+			return null;
+		return new HashMap<>(entry.bundles);
+	}
+
+	/**
+	 * Remembers the bundle map computed for the given configuration.
+	 *
+	 * @param configuration the launch configuration
+	 * @param osgi whether the map was computed for an OSGi framework launch
+	 * @param bundles the computed map, a copy is stored
+	 * @throws CoreException if the attributes of the configuration cannot be read
+	 */
+	public static synchronized void putBundleMap(ILaunchConfiguration configuration, boolean osgi, Map<IPluginModelBase, String> bundles) throws CoreException {
+		BundleMapEntry entry = new BundleMapEntry();
+		entry.attributes = configuration.getAttributes();
+		entry.generation = getGeneration();
+		entry.bundles = new HashMap<>(bundles);
+		fgBundleMaps.put(getKey(configuration, osgi), entry);
+	}
+
+	/**
+	 * Returns the config.ini properties computed for the given configuration by a
+	 * previous launch with the same inputs, or <code>null</code> if they have to be
+	 * computed again. Only the properties are cached, the configuration files are
+	 * written on every launch.
+	 *
+	 * @param configuration the launch configuration
+	 * @param productID the launched product, may be <code>null</code>
+	 * @param bundlesWithStartLevels the launched bundles and their start levels
+	 * @return a copy of the config.ini properties or <code>null</code>
+	 * @throws CoreException if the attributes of the configuration cannot be read
+	 */
+	public static synchronized Properties getConfigIni(ILaunchConfiguration configuration, String productID, Map<IPluginModelBase, String> bundlesWithStartLevels) throws CoreException {
+		ConfigIniEntry entry = fgConfigInis.get(configuration.getName());
+		if (entry == null || entry.generation != getGeneration() || !Arrays.equals(entry.inputs, getInputs(configuration, productID, bundlesWithStartLevels)))
+			return null;
+		return (Properties) entry.properties.clone();
+	}
+
+	/**
+	 * Remembers the config.ini properties computed for the given configuration.
+	 *
+	 * @param configuration the launch configuration
+	 * @param productID the launched product, may be <code>null</code>
+	 * @param bundlesWithStartLevels the start levels the properties were computed with
+	 * @param properties the computed properties, a copy is stored
+	 * @throws CoreException if the attributes of the configuration cannot be read
+	 */
+	public static synchronized void putConfigIni(ILaunchConfiguration configuration, String productID, Map<IPluginModelBase, String> bundlesWithStartLevels, Properties properties) throws CoreException {
+		ConfigIniEntry entry = new ConfigIniEntry();
+		entry.inputs = getInputs(configuration, productID, bundlesWithStartLevels);
+		entry.generation = getGeneration();
+		entry.properties = (Properties) properties.clone();
+		fgConfigInis.put(configuration.getName(), entry);
+	}
+
+	private static Object[] getInputs(ILaunchConfiguration configuration, String productID, Map<IPluginModelBase, String> bundlesWithStartLevels) throws CoreException {
+		return new Object[] {configuration.getName(), configuration.getAttributes(), productID, new HashMap<>(bundlesWithStartLevels)};
+	}
+
+	private static String getKey(ILaunchConfiguration configuration, boolean osgi) {
+		return getKey(configuration.getName(), osgi);
+	}
+
+	private static String getKey(String name, boolean osgi) {
+		return (osgi ? "osgi:" : "eclipse:") + name; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public static synchronized void shutdown() {
+		if (fgListener != null) {
+			PDECore core = PDECore.getDefault();
+			if (core != null) {
+				core.getModelManager().removePluginModelListener(fgListener);
+				core.getModelManager().removeStateDeltaListener(fgListener);
+				core.getFeatureModelManager().removeFeatureModelListener(fgListener);
+			}
+			DebugPlugin debug = DebugPlugin.getDefault();
+			if (debug != null)
+				debug.getLaunchManager().removeLaunchConfigurationListener(fgListener);
+			fgListener = null;
+		}
+		fgBundleMaps.clear();
+		fgConfigInis.clear();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2015 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -105,6 +105,27 @@ public class LaunchConfigurationHelper {
 	 * @throws CoreException
 	 */
 	public static Properties createConfigIniFile(ILaunchConfiguration configuration, String productID, Map<String, IPluginModelBase> bundles, Map<IPluginModelBase, String> bundlesWithStartLevels, File configurationDirectory) throws CoreException {
+		long start = LaunchProfiler.start();
+		// properties read from a template depend on the template contents, which are not tracked
+		boolean cacheable = configuration.getAttribute(IPDELauncherConstants.CONFIG_GENERATE_DEFAULT, true);
+		Properties properties = cacheable ? LaunchConfigurationCache.getConfigIni(configuration, productID, bundlesWithStartLevels) : null;
+		boolean reused = properties != null;
+		if (!reused) {
+			properties = computeConfigIniProperties(configuration, productID, bundles, bundlesWithStartLevels);
+			if (cacheable)
+				LaunchConfigurationCache.putConfigIni(configuration, productID, bundlesWithStartLevels, properties);
+		}
+		// the configuration files are always written, they may have been changed or deleted since the last launch
+		writeConfigurationFiles(configuration, productID, bundles, bundlesWithStartLevels, configurationDirectory, properties);
+		LaunchProfiler.record(reused ? "config.ini (properties reused)" : "config.ini", start); //$NON-NLS-1$ //$NON-NLS-2$
+		return properties;
+	}
+
+	/**
+	 * Computes the config.ini properties that only depend on the launch configuration, the
+	 * product and the launched bundles, before any configuration file is written.
+	 */
+	private static Properties computeConfigIniProperties(ILaunchConfiguration configuration, String productID, Map<String, IPluginModelBase> bundles, Map<IPluginModelBase, String> bundlesWithStartLevels) throws CoreException {
 		Properties properties = null;
 		// if we are to generate a config.ini, start with the values in the target platform's config.ini - bug 141918
 		if (configuration.getAttribute(IPDELauncherConstants.CONFIG_GENERATE_DEFAULT, true)) {
@@ -137,12 +158,21 @@ public class LaunchConfigurationHelper {
 		} else {
 			properties = new Properties();
 		}
+		int start = configuration.getAttribute(IPDELauncherConstants.DEFAULT_START_LEVEL, 4);
+		properties.put("osgi.bundles.defaultStartLevel", Integer.toString(start)); //$NON-NLS-1$
+		return properties;
+	}
+
+	/**
+	 * Writes the config.ini with the given properties after adding the bundle locations. Also
+	 * writes bundles.info and the p2 profile, or platform.xml, depending on the configurator used.
+	 */
+	private static void writeConfigurationFiles(ILaunchConfiguration configuration, String productID, Map<String, IPluginModelBase> bundles, Map<IPluginModelBase, String> bundlesWithStartLevels, File configurationDirectory, Properties properties) throws CoreException {
 		if (!configurationDirectory.exists()) {
 			configurationDirectory.mkdirs();
 		}
 		String osgiBundles = properties.getProperty(PROP_OSGI_BUNDLES);
 		int start = configuration.getAttribute(IPDELauncherConstants.DEFAULT_START_LEVEL, 4);
-		properties.put("osgi.bundles.defaultStartLevel", Integer.toString(start)); //$NON-NLS-1$
 		boolean autostart = configuration.getAttribute(IPDELauncherConstants.DEFAULT_AUTO_START, false);
 
 		// Special processing for launching with p2 (simple configurator)
@@ -200,7 +230,6 @@ public class LaunchConfigurationHelper {
 		setBundleLocations(bundles, properties, autostart);
 
 		save(new File(configurationDirectory, "config.ini"), properties); //$NON-NLS-1$
-		return properties;
 	}
 
 	private static void addRequiredProperties(Properties properties, String productID, Map<String, IPluginModelBase> bundles, Map<IPluginModelBase, String> bundlesWithStartLevels) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2005, 2015 IBM Corporation and others.
+ *  Copyright (c) 2005, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -24,10 +24,12 @@ public class LaunchConfigurationListener implements ILaunchConfigurationListener
 
 	@Override
 	public void launchConfigurationChanged(ILaunchConfiguration configuration) {
+		BundleSelection.invalidate(configuration);
 	}
 
 	@Override
 	public void launchConfigurationRemoved(ILaunchConfiguration configuration) {
+		BundleSelection.invalidate(configuration);
 		final File configDir = LaunchConfigurationHelper.getConfigurationLocation(configuration);
 		if (configDir.exists()) {
 			// rename the config area if it was auto-set by PDE when the launch configuration is renamed
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -51,18 +51,10 @@ public class LaunchPluginValidator {
 		HashSet<IPluginModelBase> set = new HashSet<>();
 		String ids = configuration.getAttribute(attribute, (String) null);
 		if (ids != null) {
-			String[] entries = ids.split(","); //$NON-NLS-1$
 			Map<String, IPluginModelBase> unmatchedEntries = new HashMap<>();
-			for (int i = 0; i < entries.length; i++) {
-				int index = entries[i].indexOf('@');
-				if (index < 0) { // if no start levels, assume default
-					entries[i] = entries[i].concat("@default:default"); //$NON-NLS-1$
-					index = entries[i].indexOf('@');
-				}
-				String idVersion = entries[i].substring(0, index);
-				int versionIndex = entries[i].indexOf(BundleLauncherHelper.VERSION_SEPARATOR);
-				String id = (versionIndex > 0) ? idVersion.substring(0, versionIndex) : idVersion;
-				String version = (versionIndex > 0) ? idVersion.substring(versionIndex + 1) : null;
+			for (BundleSelection.Entry selected : BundleSelection.get(configuration, attribute).getEntries()) {
+				String id = selected.getId();
+				String version = selected.getVersion();
 				ModelEntry entry = PluginRegistry.findEntry(id);
 				if (entry != null) {
 					IPluginModelBase matchingModels[] = attribute.equals(IPDELauncherConstants.SELECTED_TARGET_PLUGINS) ? entry.getExternalModels() : entry.getWorkspaceModels();
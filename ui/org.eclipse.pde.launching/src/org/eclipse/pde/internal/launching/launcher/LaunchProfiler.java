@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.launching.launcher;
+
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.pde.internal.launching.PDELaunchingPlugin;
+
+/**
+ * Records the time spent in the phases of preparing a launch and writes it to
+ * the debug trace when the <code>org.eclipse.pde.launching/launch</code> debug
+ * option is turned on. Otherwise all methods return immediately.
+ * <p>
+ * A profile is bound to the launching thread, so helpers called while preparing
+ * the launch can record their phases without access to the launch delegate.
+ * </p>
+ */
+public class LaunchProfiler {
+
+	private static final ThreadLocal<LaunchProfiler> fgCurrent = new ThreadLocal<>();
+
+	private final String fName;
+	private final long fStart;
+	private final StringBuilder fPhases = new StringBuilder();
+
+	private LaunchProfiler(String name) {
+		fName = name;
+		fStart = System.currentTimeMillis();
+	}
+
+	/**
+	 * Starts profiling the launch of the given configuration on the current thread.
+	 *
+	 * @param configuration the launch configuration being launched
+	 */
+	public static void begin(ILaunchConfiguration configuration) {
+		if (PDELaunchingPlugin.DEBUG_LAUNCH)
+			fgCurrent.set(new LaunchProfiler(configuration.getName()));
+	}
+
+	/**
+	 * Returns the start time of a phase, to be passed to {@link #record(String, long)}
+	 * once the phase has finished.
+	 *
+	 * @return the current time in milliseconds or 0 if no launch is profiled
+	 */
+	public static long start() {
+		return fgCurrent.get() != null ? System.currentTimeMillis() : 0;
+	}
+
+	/**
+	 * Records a finished phase of the launch profiled on the current thread.
+	 *
+	 * @param phase the name of the phase
+	 * @param start the start time returned by {@link #start()}
+	 */
+	public static void record(String phase, long start) {
+		LaunchProfiler profiler = fgCurrent.get();
+		if (profiler != null && start != 0) {
+			profiler.fPhases.append("\n  ").append(phase).append(": ").append(System.currentTimeMillis() - start).append(" ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+	}
+
+	/**
+	 * Ends profiling on the current thread and traces the recorded phases.
+	 */
+	public static void end() {
+		LaunchProfiler profiler = fgCurrent.get();
+		if (profiler != null) {
+			fgCurrent.remove();
+			PDELaunchingPlugin.trace(PDELaunchingPlugin.LAUNCH_OPTION, "Launch preparation of [" + profiler.fName + "] took " + (System.currentTimeMillis() - profiler.fStart) + " ms" + profiler.fPhases); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2007, 2015 IBM Corporation and others.
+ *  Copyright (c) 2007, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -40,7 +40,9 @@ public abstract class LaunchValidationOperation implements IWorkspaceRunnable {
 
 	@Override
 	public void run(IProgressMonitor monitor) throws CoreException {
-		fOperation = new BundleValidationOperation(getModels(), getPlatformProperties());
+		// reuse the state resolved for the last launch of this configuration with the same execution environments
+		Object cacheKey = fLaunchConfiguration != null ? fLaunchConfiguration.getName() : null;
+		fOperation = new BundleValidationOperation(getModels(), getPlatformProperties(), cacheKey);
 		fOperation.run(monitor);
 	}
 
@@ -151,9 +153,13 @@ public abstract class LaunchValidationOperation implements IWorkspaceRunnable {
 	}
 
 	public boolean isEmpty() {
-		return fOperation.getState().getHighestBundleId() == -1;
+		return fOperation.isEmpty();
 	}
 
+	/**
+	 * @return a read-only view of the resolved state, which is shared with later
+	 * validations of the same launch configuration
+	 */
 	protected State getState() {
 		return fOperation.getState();
 	}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.launching.launcher;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.security.SecureRandom;
+import java.util.Map;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.debug.core.ILaunch;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.pde.core.plugin.IPluginModelBase;
+import org.eclipse.pde.core.plugin.PluginRegistry;
+import org.eclipse.pde.internal.launching.IPDEConstants;
+import org.eclipse.pde.internal.launching.PDEMessages;
+
+/**
+ * Starts the registry agent in launched frameworks whose configuration has
+ * {@link IPDEConstants#REGISTRY_AGENT} set. The agent bundle is added to the
+ * launched bundles, and the port and token it is started with are passed as
+ * system properties and recorded on the launch.
+ */
+public class RegistryAgentHelper {
+
+	/**
+	 * Symbolic name of the agent bundle.
+	 */
+	public static final String AGENT_BUNDLE = "org.eclipse.pde.runtime.agent"; //$NON-NLS-1$
+
+	// properties read by the agent bundle's activator
+	private static final String PORT_PROPERTY = "org.eclipse.pde.runtime.registryAgent.port"; //$NON-NLS-1$
+	private static final String TOKEN_PROPERTY = "org.eclipse.pde.runtime.registryAgent.token"; //$NON-NLS-1$
+
+	private static final int TOKEN_LENGTH = 32;
+
+	/**
+	 * Returns whether the registry agent is started in frameworks launched
+	 * with the given configuration.
+	 *
+	 * @param configuration the launch configuration
+	 * @return whether the agent is enabled
+	 * @throws CoreException if the attribute cannot be read
+	 */
+	public static boolean isEnabled(ILaunchConfiguration configuration) throws CoreException {
+		return configuration.getAttribute(IPDEConstants.REGISTRY_AGENT, false);
+	}
+
+	/**
+	 * Adds the agent bundle to the launched bundles, started automatically.
+	 *
+	 * @param configuration the launch configuration
+	 * @param models the launched bundles and their start data
+	 * @return the model of the agent bundle, or <code>null</code> if the agent is not enabled
+	 * @throws CoreException if the agent is enabled but the bundle cannot be found
+	 */
+	public static IPluginModelBase addAgentBundle(ILaunchConfiguration configuration, Map<IPluginModelBase, String> models) throws CoreException {
+		if (!isEnabled(configuration))
+			return null;
+
+		IPluginModelBase agent = null;
+		for (IPluginModelBase model : models.keySet()) {
+			if (AGENT_BUNDLE.equals(model.getPluginBase().getId())) {
+				agent = model;
+				break;
+			}
+		}
+		if (agent == null)
+			agent = PluginRegistry.findModel(AGENT_BUNDLE);
+		if (agent == null)
+			throw new CoreException(LauncherUtils.createErrorStatus(NLS.bind(PDEMessages.RegistryAgentHelper_missingAgent, AGENT_BUNDLE)));
+
+		String startData = models.get(agent);
+		int index = startData == null ? -1 : startData.indexOf(':');
+		models.put(agent, (index > 0 ? startData.substring(0, index) : "default") + ":true"); //$NON-NLS-1$ //$NON-NLS-2$
+		return agent;
+	}
+
+	/**
+	 * Chooses the port and token of the agent of a launch and records them
+	 * as the launch attributes {@link IPDEConstants#LAUNCH_REGISTRY_AGENT_PORT}
+	 * and {@link IPDEConstants#LAUNCH_REGISTRY_AGENT_TOKEN}.
+	 *
+	 * @param configuration the launch configuration
+	 * @param launch the launch
+	 * @return the VM arguments passing the port and token to the agent, empty
+	 * if the agent is not enabled
+	 * @throws CoreException if no free port is found
+	 */
+	public static String[] configureLaunch(ILaunchConfiguration configuration, ILaunch launch) throws CoreException {
+		if (!isEnabled(configuration))
+			return new String[0];
+
+		int port;
+		try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			port = socket.getLocalPort();
+		} catch (IOException e) {
+			throw new CoreException(LauncherUtils.createErrorStatus(PDEMessages.RegistryAgentHelper_noPort));
+		}
+
+		byte[] bytes = new byte[TOKEN_LENGTH];
+		new SecureRandom().nextBytes(bytes);
+		StringBuilder token = new StringBuilder(TOKEN_LENGTH * 2);
+		for (byte b : bytes) {
+			token.append(Character.forDigit((b >> 4) & 0xF, 16));
+			token.append(Character.forDigit(b & 0xF, 16));
+		}
+
+		launch.setAttribute(IPDEConstants.LAUNCH_REGISTRY_AGENT_PORT, Integer.toString(port));
+		launch.setAttribute(IPDEConstants.LAUNCH_REGISTRY_AGENT_TOKEN, token.toString());
+		return new String[] {"-D" + PORT_PROPERTY + "=" + port, "-D" + TOKEN_PROPERTY + "=" + token}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+
+	/**
+	 * Returns the URI the registry view connects to the agent of a launch
+	 * with.
+	 *
+	 * @param launch the launch
+	 * @return the URI, or <code>null</code> if the launch has no agent
+	 */
+	public static String getRegistryURI(ILaunch launch) {
+		String port = launch.getAttribute(IPDEConstants.LAUNCH_REGISTRY_AGENT_PORT);
+		String token = launch.getAttribute(IPDEConstants.LAUNCH_REGISTRY_AGENT_TOKEN);
+		if (port == null || token == null)
+			return null;
+		return "remote://127.0.0.1:" + port + "?" + token; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2005, 2015 IBM Corporation and others.
+ *  Copyright (c) 2005, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -43,6 +43,9 @@ public abstract class AbstractPDELaunchConfiguration extends LaunchConfiguration
 
 	protected File fConfigDir = null;
 
+	// system properties passing the port and token to the registry agent of the launch
+	private String[] fRegistryAgentArguments = null;
+
 	@Override
 	protected boolean isLaunchProblem(IMarker problemMarker) throws CoreException {
 		return super.isLaunchProblem(problemMarker) && (problemMarker.getType().equals(IJavaModelMarker.JAVA_MODEL_PROBLEM_MARKER) || problemMarker.getType().equals(PDEMarkerFactory.MARKER_ID));
@@ -50,11 +53,15 @@ public abstract class AbstractPDELaunchConfiguration extends LaunchConfiguration
 
 	@Override
 	public void launch(ILaunchConfiguration configuration, String mode, ILaunch launch, IProgressMonitor monitor) throws CoreException {
+		LaunchProfiler.begin(configuration);
 		try {
 			fConfigDir = null;
+			fRegistryAgentArguments = null;
 			SubMonitor subMonitor = SubMonitor.convert(monitor, 4);
 			try {
+				long start = LaunchProfiler.start();
 				preLaunchCheck(configuration, launch, subMonitor.split(2));
+				LaunchProfiler.record("preLaunchCheck", start); //$NON-NLS-1$
 			} catch (CoreException e) {
 				if (e.getStatus().getSeverity() == IStatus.CANCEL) {
 					subMonitor.setCanceled(true);
@@ -63,9 +70,13 @@ public abstract class AbstractPDELaunchConfiguration extends LaunchConfiguration
 				throw e;
 			}
 
+			long start = LaunchProfiler.start();
 			VMRunnerConfiguration runnerConfig = new VMRunnerConfiguration(getMainClass(), getClasspath(configuration));
 			runnerConfig.setVMArguments(getVMArguments(configuration));
+			LaunchProfiler.record("VM arguments", start); //$NON-NLS-1$
+			start = LaunchProfiler.start();
 			runnerConfig.setProgramArguments(getProgramArguments(configuration));
+			LaunchProfiler.record("program arguments", start); //$NON-NLS-1$
 			runnerConfig.setWorkingDirectory(getWorkingDirectory(configuration).getAbsolutePath());
 			runnerConfig.setEnvironment(getEnvironment(configuration));
 			runnerConfig.setVMSpecificAttributesMap(getVMSpecificAttributesMap(configuration));
@@ -82,6 +93,8 @@ public abstract class AbstractPDELaunchConfiguration extends LaunchConfiguration
 
 		} catch (final CoreException e) {
 			throw e;
+		} finally {
+			LaunchProfiler.end();
 		}
 	}
 
@@ -200,20 +213,30 @@ public abstract class AbstractPDELaunchConfiguration extends LaunchConfiguration
 		String[] vmArgs = new ExecutionArguments(LaunchArgumentsHelper.getUserVMArguments(configuration), "").getVMArgumentsArray(); //$NON-NLS-1$
 		// For p2 target, add "-Declipse.p2.data.area=@config.dir/p2" unless already specified by user
 		Map<IPluginModelBase, String> bundleMap = BundleLauncherHelper.getMergedBundleMap(configuration, false);
-		if (bundleMap.containsKey("org.eclipse.equinox.p2.core")) { //$NON-NLS-1$
-			for (String arg : vmArgs) {
-				if (arg.startsWith("-Declipse.p2.data.area=")) { //$NON-NLS-1$
-					return vmArgs;
-				}
-			}
+		if (bundleMap.containsKey("org.eclipse.equinox.p2.core") && !hasP2DataArea(vmArgs)) { //$NON-NLS-1$
 			String[] temp = new String[vmArgs.length + 1];
 			System.arraycopy(vmArgs, 0, temp, 0, vmArgs.length);
 			temp[vmArgs.length] = "-Declipse.p2.data.area=@config.dir" + File.separator + "p2"; //$NON-NLS-1$ //$NON-NLS-2$
-			return temp;
+			vmArgs = temp;
+		}
+		if (fRegistryAgentArguments != null && fRegistryAgentArguments.length > 0) {
+			String[] temp = new String[vmArgs.length + fRegistryAgentArguments.length];
+			System.arraycopy(vmArgs, 0, temp, 0, vmArgs.length);
+			System.arraycopy(fRegistryAgentArguments, 0, temp, vmArgs.length, fRegistryAgentArguments.length);
+			vmArgs = temp;
 		}
 		return vmArgs;
 	}
 
+	private static boolean hasP2DataArea(String[] vmArgs) {
+		for (String arg : vmArgs) {
+			if (arg.startsWith("-Declipse.p2.data.area=")) { //$NON-NLS-1$
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Returns the program arguments to launch with.
 	 * This list is a combination of arguments computed by PDE based on attributes
@@ -286,14 +309,23 @@ public abstract class AbstractPDELaunchConfiguration extends LaunchConfiguration
 	protected void preLaunchCheck(ILaunchConfiguration configuration, ILaunch launch, IProgressMonitor monitor) throws CoreException {
 		boolean autoValidate = configuration.getAttribute(IPDELauncherConstants.AUTOMATIC_VALIDATE, false);
 		SubMonitor subMonitor = SubMonitor.convert(monitor, autoValidate ? 3 : 4);
+		long start = LaunchProfiler.start();
 		if (autoValidate) {
 			validatePluginDependencies(configuration, subMonitor.split(1));
+			LaunchProfiler.record("validatePluginDependencies", start); //$NON-NLS-1$
+			start = LaunchProfiler.start();
 		}
 		validateProjectDependencies(configuration, subMonitor.split(1));
+		LaunchProfiler.record("validateProjectDependencies", start); //$NON-NLS-1$
 		LauncherUtils.setLastLaunchMode(launch.getLaunchMode());
+		start = LaunchProfiler.start();
 		clear(configuration, subMonitor.split(1));
+		LaunchProfiler.record("clear", start); //$NON-NLS-1$
 		launch.setAttribute(IPDELauncherConstants.CONFIG_LOCATION, getConfigDir(configuration).toString());
+		fRegistryAgentArguments = RegistryAgentHelper.configureLaunch(configuration, launch);
+		start = LaunchProfiler.start();
 		synchronizeManifests(configuration, subMonitor.split(1));
+		LaunchProfiler.record("synchronizeManifests", start); //$NON-NLS-1$
 	}
 
 	/**
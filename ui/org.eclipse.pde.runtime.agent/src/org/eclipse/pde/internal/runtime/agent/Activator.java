@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.runtime.agent;
+
+import java.io.IOException;
+import org.osgi.framework.*;
+
+/**
+ * Starts a {@link RegistryAgent} when the framework properties
+ * {@link RegistryAgent#PORT_PROPERTY} and {@link RegistryAgent#TOKEN_PROPERTY}
+ * are set.
+ */
+public class Activator implements BundleActivator {
+
+	private RegistryAgent agent;
+
+	@Override
+	public void start(BundleContext context) throws Exception {
+		String port = context.getProperty(RegistryAgent.PORT_PROPERTY);
+		String token = context.getProperty(RegistryAgent.TOKEN_PROPERTY);
+		if (port == null || token == null)
+			return;
+
+		agent = new RegistryAgent(context, token);
+		try {
+			agent.start(Integer.parseInt(port));
+		} catch (IOException | NumberFormatException e) {
+			agent = null;
+			throw new BundleException("Could not start the registry agent on port " + port, e); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	public void stop(BundleContext context) throws Exception {
+		if (agent != null) {
+			agent.stop();
+			agent = null;
+		}
+	}
+}
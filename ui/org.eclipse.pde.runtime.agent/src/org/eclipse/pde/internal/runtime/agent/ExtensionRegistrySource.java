@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.runtime.agent;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
+import org.eclipse.core.runtime.*;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+
+/**
+ * Sends the contents of the Equinox extension registry. Only loaded when the
+ * optional registry bundle is resolved.
+ *
+ * Registry objects become invalid once they are removed, so they are copied
+ * when an event is received instead of when its message is written.
+ */
+class ExtensionRegistrySource implements ExtensionSource, IRegistryEventListener {
+
+	/**
+	 * Copy of a configuration element or attribute.
+	 */
+	private static class ElementData {
+		final String name;
+		final String value;
+		// null for attributes
+		final ElementData[] children;
+
+		ElementData(String name, String value, ElementData[] children) {
+			this.name = name;
+			this.value = value;
+			this.children = children;
+		}
+
+		void write(RegistryProtocol.Output out) throws IOException {
+			out.writeString(name);
+			out.writeString(value);
+			out.writeBoolean(children != null);
+			if (children != null) {
+				out.writeLength(children.length);
+				for (ElementData child : children) {
+					child.write(out);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Copy of an extension.
+	 */
+	private static class ExtensionData {
+		final String extensionPointId;
+		final String namespace;
+		final String label;
+		final Long contributor;
+		final ElementData[] elements;
+
+		ExtensionData(IExtension extension, Map<String, Long> bundleIds) {
+			extensionPointId = extension.getExtensionPointUniqueIdentifier();
+			namespace = extension.getNamespaceIdentifier();
+			label = extension.getLabel();
+			contributor = bundleIds.get(extension.getContributor().getName());
+			elements = copyElements(extension.getConfigurationElements(), 0);
+		}
+
+		void write(RegistryProtocol.Output out) throws IOException {
+			out.writeString(extensionPointId);
+			out.writeString(namespace);
+			out.writeString(label);
+			out.writeId(contributor);
+			out.writeLength(elements.length);
+			for (ElementData element : elements) {
+				element.write(out);
+			}
+		}
+	}
+
+	/**
+	 * Copy of an extension point and its extensions.
+	 */
+	private static class ExtensionPointData {
+		final String id;
+		final String label;
+		final String namespace;
+		final Long contributor;
+		final ExtensionData[] extensions;
+
+		ExtensionPointData(IExtensionPoint extensionPoint, Map<String, Long> bundleIds) {
+			id = extensionPoint.getUniqueIdentifier();
+			label = extensionPoint.getLabel();
+			namespace = extensionPoint.getNamespaceIdentifier();
+			contributor = bundleIds.get(extensionPoint.getContributor().getName());
+			extensions = copyExtensions(extensionPoint.getExtensions(), bundleIds);
+		}
+
+		void write(RegistryProtocol.Output out) throws IOException {
+			out.writeString(id);
+			out.writeString(label);
+			out.writeString(namespace);
+			out.writeId(contributor);
+			out.writeLength(extensions.length);
+			for (ExtensionData extension : extensions) {
+				extension.write(out);
+			}
+		}
+	}
+
+	private final BundleContext context;
+	private final IExtensionRegistry registry;
+	private final Consumer<RegistryAgent.Message> sink;
+
+	private ExtensionRegistrySource(BundleContext context, IExtensionRegistry registry, Consumer<RegistryAgent.Message> sink) {
+		this.context = context;
+		this.registry = registry;
+		this.sink = sink;
+	}
+
+	/**
+	 * @param sink receives the messages for registry changes
+	 * @return the source, or <code>null</code> if the registry is not running
+	 */
+	static ExtensionSource create(BundleContext context, Consumer<RegistryAgent.Message> sink) {
+		IExtensionRegistry registry = RegistryFactory.getRegistry();
+		return registry == null ? null : new ExtensionRegistrySource(context, registry, sink);
+	}
+
+	@Override
+	public void connect() {
+		registry.addListener(this);
+	}
+
+	@Override
+	public void disconnect() {
+		registry.removeListener(this);
+	}
+
+	@Override
+	public RegistryAgent.Message getExtensionPoints() {
+		return extensionPointsMessage(RegistryProtocol.ADD_EXTENSION_POINTS, registry.getExtensionPoints());
+	}
+
+	@Override
+	public void added(IExtension[] extensions) {
+		sink.accept(extensionsMessage(RegistryProtocol.ADD_EXTENSIONS, extensions));
+	}
+
+	@Override
+	public void removed(IExtension[] extensions) {
+		sink.accept(extensionsMessage(RegistryProtocol.REMOVE_EXTENSIONS, extensions));
+	}
+
+	@Override
+	public void added(IExtensionPoint[] extensionPoints) {
+		sink.accept(extensionPointsMessage(RegistryProtocol.ADD_EXTENSION_POINTS, extensionPoints));
+	}
+
+	@Override
+	public void removed(IExtensionPoint[] extensionPoints) {
+		sink.accept(extensionPointsMessage(RegistryProtocol.REMOVE_EXTENSION_POINTS, extensionPoints));
+	}
+
+	private RegistryAgent.Message extensionsMessage(byte type, IExtension[] extensions) {
+		ExtensionData[] data = copyExtensions(extensions, getBundleIds());
+		return out -> {
+			out.writeByte(type);
+			out.writeLength(data.length);
+			for (ExtensionData extension : data) {
+				extension.write(out);
+			}
+		};
+	}
+
+	private RegistryAgent.Message extensionPointsMessage(byte type, IExtensionPoint[] extensionPoints) {
+		Map<String, Long> bundleIds = getBundleIds();
+		List<ExtensionPointData> data = new ArrayList<>(extensionPoints.length);
+		for (IExtensionPoint extensionPoint : extensionPoints) {
+			try {
+				data.add(new ExtensionPointData(extensionPoint, bundleIds));
+			} catch (InvalidRegistryObjectException e) {
+				// removed in the meantime
+			}
+		}
+		return out -> {
+			out.writeByte(type);
+			out.writeLength(data.size());
+			for (ExtensionPointData extensionPoint : data) {
+				extensionPoint.write(out);
+			}
+		};
+	}
+
+	/**
+	 * Returns the ids of the bundles by symbolic name, which is the name of
+	 * their registry contributor.
+	 */
+	private Map<String, Long> getBundleIds() {
+		Map<String, Long> ids = new HashMap<>();
+		for (Bundle bundle : context.getBundles()) {
+			if (bundle.getSymbolicName() != null && bundle.getState() != Bundle.UNINSTALLED)
+				ids.putIfAbsent(bundle.getSymbolicName(), Long.valueOf(bundle.getBundleId()));
+		}
+		return ids;
+	}
+
+	private static ExtensionData[] copyExtensions(IExtension[] extensions, Map<String, Long> bundleIds) {
+		List<ExtensionData> data = new ArrayList<>(extensions.length);
+		for (IExtension extension : extensions) {
+			try {
+				data.add(new ExtensionData(extension, bundleIds));
+			} catch (InvalidRegistryObjectException e) {
+				// removed in the meantime
+			}
+		}
+		return data.toArray(new ExtensionData[data.size()]);
+	}
+
+	private static ElementData[] copyElements(IConfigurationElement[] elements, int depth) {
+		if (depth >= RegistryProtocol.MAX_DEPTH)
+			return new ElementData[0];
+
+		ElementData[] data = new ElementData[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			data[i] = copyElement(elements[i], depth);
+		}
+		return data;
+	}
+
+	private static ElementData copyElement(IConfigurationElement element, int depth) {
+		ElementData[] children = copyElements(element.getChildren(), depth + 1);
+		String[] names = element.getAttributeNames();
+		// nested elements are listed before the attributes
+		ElementData[] attributes = Arrays.copyOf(children, children.length + names.length);
+		for (int i = 0; i < names.length; i++) {
+			attributes[children.length + i] = new ElementData(names[i], element.getAttribute(names[i]), null);
+		}
+		return new ElementData(getName(element), null, attributes);
+	}
+
+	private static String getName(IConfigurationElement element) {
+		String label = element.getAttribute("label"); //$NON-NLS-1$
+		if (label == null)
+			label = element.getName();
+
+		if (label == null)
+			label = element.getAttribute("name"); //$NON-NLS-1$
+
+		if (label == null && element.getAttribute("id") != null) { //$NON-NLS-1$
+			String[] labelSplit = element.getAttribute("id").split("\\."); //$NON-NLS-1$ //$NON-NLS-2$
+			label = labelSplit.length == 0 ? null : labelSplit[labelSplit.length - 1];
+		}
+
+		return label;
+	}
+}
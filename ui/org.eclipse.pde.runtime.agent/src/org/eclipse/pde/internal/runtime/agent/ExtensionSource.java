@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.runtime.agent;
+
+/**
+ * Source of the extension points and extensions of a framework. The agent
+ * only depends on the OSGi framework, so extensions are only available when
+ * the extension registry is running.
+ */
+interface ExtensionSource {
+
+	/**
+	 * Starts sending the changes of the extension registry.
+	 */
+	void connect();
+
+	/**
+	 * Stops sending the changes of the extension registry.
+	 */
+	void disconnect();
+
+	/**
+	 * Returns a message adding all extension points of the registry.
+	 */
+	RegistryAgent.Message getExtensionPoints();
+}
@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.runtime.agent;
+
+import java.io.IOException;
+import java.util.*;
+import org.osgi.framework.*;
+import org.osgi.framework.wiring.*;
+
+/**
+ * Writes the bundles and services of a framework, using nothing but the OSGi
+ * framework API.
+ */
+class FrameworkRegistry {
+
+	/**
+	 * A clause of a manifest header.
+	 */
+	static class Clause {
+		final String name;
+		final Map<String, String> attributes;
+		final Map<String, String> directives;
+
+		Clause(String name, Map<String, String> attributes, Map<String, String> directives) {
+			this.name = name;
+			this.attributes = attributes;
+			this.directives = directives;
+		}
+	}
+
+	private final BundleContext context;
+
+	FrameworkRegistry(BundleContext context) {
+		this.context = context;
+	}
+
+	void writeBundle(RegistryProtocol.Output out, Bundle bundle) throws IOException {
+		Dictionary<String, String> headers = bundle.getHeaders(""); //$NON-NLS-1$
+		out.writeLong(bundle.getBundleId());
+		out.writeString(bundle.getSymbolicName());
+		out.writeString(headers.get(Constants.BUNDLE_VERSION));
+		out.writeString(getLocation(bundle));
+		out.writeInt(bundle.getState());
+		// disabling bundles is not part of the framework API
+		out.writeBoolean(true);
+
+		List<Clause> host = parseHeader(headers.get(Constants.FRAGMENT_HOST));
+		out.writeString(host.isEmpty() ? null : host.get(0).name);
+		out.writeString(host.isEmpty() ? null : host.get(0).attributes.get(Constants.BUNDLE_VERSION_ATTRIBUTE));
+
+		List<Clause> requires = parseHeader(headers.get(Constants.REQUIRE_BUNDLE));
+		out.writeLength(requires.size());
+		for (Clause clause : requires) {
+			out.writeString(clause.name);
+			out.writeString(clause.attributes.get(Constants.BUNDLE_VERSION_ATTRIBUTE));
+			out.writeInt(Constants.VISIBILITY_REEXPORT.equals(clause.directives.get(Constants.VISIBILITY_DIRECTIVE)) ? RegistryProtocol.EXPORTED : 0);
+		}
+		writePackages(out, headers.get(Constants.IMPORT_PACKAGE));
+		writePackages(out, headers.get(Constants.EXPORT_PACKAGE));
+
+		List<Clause> libraries = parseHeader(headers.get(Constants.BUNDLE_CLASSPATH));
+		out.writeLength(libraries.size());
+		for (Clause clause : libraries) {
+			out.writeString(clause.name);
+		}
+	}
+
+	private static void writePackages(RegistryProtocol.Output out, String header) throws IOException {
+		List<Clause> packages = parseHeader(header);
+		out.writeLength(packages.size());
+		for (Clause clause : packages) {
+			out.writeString(clause.name);
+			out.writeString(clause.attributes.get(Constants.VERSION_ATTRIBUTE));
+			out.writeInt(RegistryProtocol.PACKAGE);
+		}
+	}
+
+	/**
+	 * Returns the file system path a bundle was installed from, as far as it
+	 * can be told from its location.
+	 */
+	private static String getLocation(Bundle bundle) {
+		String location = bundle.getLocation();
+		if (location.startsWith("initial@")) //$NON-NLS-1$
+			location = location.substring(8);
+		if (location.startsWith("reference:")) //$NON-NLS-1$
+			location = location.substring(10);
+		if (location.startsWith("file:")) //$NON-NLS-1$
+			location = location.substring(5);
+		if (location.length() > 1 && location.endsWith("/")) //$NON-NLS-1$
+			location = location.substring(0, location.length() - 1);
+		return location;
+	}
+
+	void writeService(RegistryProtocol.Output out, ServiceReference<?> reference) throws IOException {
+		out.writeLong(((Long) reference.getProperty(Constants.SERVICE_ID)).longValue());
+		Bundle bundle = reference.getBundle();
+		out.writeString(bundle == null ? null : bundle.getSymbolicName());
+
+		Bundle[] usingBundles = reference.getUsingBundles();
+		if (usingBundles == null)
+			usingBundles = new Bundle[0];
+		out.writeLength(usingBundles.length);
+		for (Bundle usingBundle : usingBundles) {
+			out.writeLong(usingBundle.getBundleId());
+		}
+
+		String[] classes = (String[]) reference.getProperty(Constants.OBJECTCLASS);
+		out.writeBoolean(classes != null);
+		if (classes == null) {
+			classes = new String[0];
+		} else {
+			classes = classes.clone();
+			Arrays.sort(classes);
+		}
+		out.writeLength(classes.length);
+		for (String clazz : classes) {
+			out.writeString(clazz);
+		}
+
+		String[] keys = reference.getPropertyKeys();
+		out.writeLength(keys.length);
+		for (String key : keys) {
+			out.writeString(key);
+			StringBuilder value = new StringBuilder();
+			appendValue(value, reference.getProperty(key));
+			out.writeString(value.toString());
+		}
+	}
+
+	private static void appendValue(StringBuilder buffer, Object value) {
+		if (value instanceof Object[]) {
+			Object[] objects = (Object[]) value;
+			buffer.append('[');
+			for (int i = 0; i < objects.length; i++) {
+				if (i > 0)
+					buffer.append(", "); //$NON-NLS-1$
+				appendValue(buffer, objects[i]);
+			}
+			buffer.append(']');
+		} else if (value != null) {
+			buffer.append(value);
+		}
+	}
+
+	/**
+	 * Returns the mandatory requirements of an unresolved bundle that no
+	 * installed bundle provides.
+	 */
+	List<String> diagnose(long id) {
+		List<String> problems = new ArrayList<>();
+		Bundle bundle = context.getBundle(id);
+		if (bundle == null || bundle.getState() != Bundle.INSTALLED)
+			return problems;
+
+		BundleRevision revision = bundle.adapt(BundleRevision.class);
+		FrameworkWiring wiring = context.getBundle(Constants.SYSTEM_BUNDLE_LOCATION).adapt(FrameworkWiring.class);
+		if (revision == null || wiring == null)
+			return problems;
+
+		for (BundleRequirement requirement : revision.getDeclaredRequirements(null)) {
+			if (Constants.RESOLUTION_OPTIONAL.equals(requirement.getDirectives().get(Constants.RESOLUTION_DIRECTIVE)))
+				continue;
+			if (wiring.findProviders(requirement).isEmpty()) {
+				String filter = requirement.getDirectives().get(Constants.FILTER_DIRECTIVE);
+				problems.add("Missing requirement: " + requirement.getNamespace() + (filter == null ? "" : "; " + filter)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+		}
+		return problems;
+	}
+
+	/**
+	 * Parses a manifest header into one clause per name.
+	 *
+	 * @param header value of the header, may be <code>null</code>
+	 * @return the clauses of the header, empty if there is none
+	 */
+	static List<Clause> parseHeader(String header) {
+		List<Clause> result = new ArrayList<>();
+		if (header == null)
+			return result;
+
+		for (String clause : split(header, ',')) {
+			List<String> names = new ArrayList<>();
+			Map<String, String> attributes = new HashMap<>();
+			Map<String, String> directives = new HashMap<>();
+			for (String part : split(clause, ';')) {
+				part = part.trim();
+				int index = part.indexOf('=');
+				if (part.length() == 0) {
+					continue;
+				} else if (index < 0) {
+					names.add(part);
+				} else if (index > 0 && part.charAt(index - 1) == ':') {
+					directives.put(part.substring(0, index - 1).trim(), unquote(part.substring(index + 1)));
+				} else {
+					String key = part.substring(0, index).trim();
+					// drop the type of typed attributes
+					int typeIndex = key.indexOf(':');
+					if (typeIndex > 0)
+						key = key.substring(0, typeIndex).trim();
+					attributes.put(key, unquote(part.substring(index + 1)));
+				}
+			}
+			for (String name : names) {
+				result.add(new Clause(name, attributes, directives));
+			}
+		}
+		return result;
+	}
+
+	private static List<String> split(String value, char separator) {
+		List<String> parts = new ArrayList<>();
+		boolean quoted = false;
+		int start = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"') {
+				quoted = !quoted;
+			} else if (c == separator && !quoted) {
+				parts.add(value.substring(start, i));
+				start = i + 1;
+			}
+		}
+		parts.add(value.substring(start));
+		return parts;
+	}
+
+	private static String unquote(String value) {
+		value = value.trim();
+		if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) //$NON-NLS-1$ //$NON-NLS-2$
+			value = value.substring(1, value.length() - 1);
+		return value;
+	}
+}
@@ -0,0 +1,423 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.runtime.agent;
+
+import java.io.IOException;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.*;
+import org.osgi.framework.*;
+
+/**
+ * Serves the bundles, services and extensions of the framework it runs in to a
+ * client like the remote registry backend of the PDE runtime bundle.
+ *
+ * The agent accepts one client at a time on a loopback socket. While a client
+ * is connected, all changes are sent to it in batches. Changes are queued for
+ * the client, and a client that falls {@link #MAX_QUEUE_SIZE} messages behind
+ * is disconnected instead of queuing further messages. It has to reconnect and
+ * initialize its model again.
+ *
+ * Clients must send the agent's token before anything else, since they may
+ * start and stop bundles. The agent bundle starts an agent when the framework
+ * properties {@link #PORT_PROPERTY} and {@link #TOKEN_PROPERTY} are set, which
+ * PDE sets for launches with the registry agent enabled.
+ */
+public class RegistryAgent {
+
+	/**
+	 * Framework property holding the port the agent should listen on.
+	 */
+	public static final String PORT_PROPERTY = "org.eclipse.pde.runtime.registryAgent.port"; //$NON-NLS-1$
+
+	/**
+	 * Framework property holding the token clients have to send to the agent.
+	 */
+	public static final String TOKEN_PROPERTY = "org.eclipse.pde.runtime.registryAgent.token"; //$NON-NLS-1$
+
+	/**
+	 * Maximum number of messages waiting to be sent to a client.
+	 */
+	public static final int MAX_QUEUE_SIZE = 10000;
+
+	// maximum number of messages sent in one batch
+	private static final int MAX_BATCH_SIZE = 1000;
+	// time (in milliseconds) to wait for further messages before sending a batch
+	private static final long BATCH_DELAY = 50;
+	// time (in milliseconds) a client has to complete the handshake
+	private static final int HANDSHAKE_TIMEOUT = 5000;
+
+	/**
+	 * A message waiting to be sent. Bundles and services are only encoded when
+	 * the batch is written, outside of the framework's event delivery.
+	 */
+	interface Message {
+		void write(RegistryProtocol.Output out) throws IOException;
+	}
+
+	private final BundleContext context;
+	private final FrameworkRegistry framework;
+	private final byte[] token;
+	private ServerSocket serverSocket;
+	private volatile Session session;
+
+	/**
+	 * A connected client.
+	 */
+	private class Session implements BundleListener, ServiceListener {
+
+		private final Socket socket;
+		private final List<Message> queue = new ArrayList<>();
+		private volatile boolean closed;
+		private ExtensionSource extensions;
+
+		Session(Socket socket) {
+			this.socket = socket;
+		}
+
+		void run() throws IOException {
+			RegistryProtocol.Input in = new RegistryProtocol.Input(socket.getInputStream());
+			RegistryProtocol.Output out = new RegistryProtocol.Output(socket.getOutputStream());
+			socket.setSoTimeout(HANDSHAKE_TIMEOUT);
+			in.readHeader();
+			if (!MessageDigest.isEqual(token, in.readToken()))
+				throw new IOException("Invalid token"); //$NON-NLS-1$
+			socket.setSoTimeout(0);
+			out.writeHeader();
+
+			Thread writer = new Thread("Registry Agent Writer") { //$NON-NLS-1$
+				@Override
+				public void run() {
+					try {
+						write(out);
+					} catch (IOException e) {
+						// client is gone
+					} finally {
+						close();
+					}
+				}
+			};
+			writer.setDaemon(true);
+			writer.start();
+
+			if (isExtensionRegistryAvailable())
+				extensions = ExtensionRegistrySource.create(context, this::post);
+			context.addBundleListener(this);
+			context.addServiceListener(this);
+			if (extensions != null)
+				extensions.connect();
+			try {
+				while (!closed) {
+					handleRequest(in);
+				}
+			} finally {
+				if (extensions != null)
+					extensions.disconnect();
+				context.removeServiceListener(this);
+				context.removeBundleListener(this);
+			}
+		}
+
+		private void handleRequest(RegistryProtocol.Input in) throws IOException {
+			byte request = in.readByte();
+			int requestId = in.readInt();
+
+			int severity = RegistryProtocol.OK;
+			String message = null;
+			List<String> problems = null;
+			switch (request) {
+				case RegistryProtocol.INITIALIZE_BUNDLES :
+					for (Bundle bundle : context.getBundles()) {
+						send(out -> {
+							out.writeByte(RegistryProtocol.ADD_BUNDLE);
+							framework.writeBundle(out, bundle);
+						});
+					}
+					break;
+				case RegistryProtocol.INITIALIZE_SERVICES :
+					ServiceReference<?>[] references = null;
+					try {
+						references = context.getAllServiceReferences(null, null);
+					} catch (InvalidSyntaxException e) { // nothing
+					}
+					if (references != null) {
+						for (ServiceReference<?> reference : references) {
+							send(serviceMessage(RegistryProtocol.ADD_SERVICE, reference));
+						}
+					}
+					break;
+				case RegistryProtocol.INITIALIZE_EXTENSION_POINTS :
+					if (extensions != null)
+						send(extensions.getExtensionPoints());
+					break;
+				case RegistryProtocol.START :
+				case RegistryProtocol.STOP :
+					Bundle target = context.getBundle(in.readLong());
+					try {
+						if (target == null) {
+							severity = RegistryProtocol.ERROR;
+							message = "Unknown bundle"; //$NON-NLS-1$
+						} else if (request == RegistryProtocol.START) {
+							target.start();
+						} else {
+							target.stop();
+						}
+					} catch (BundleException | IllegalStateException | SecurityException e) {
+						severity = RegistryProtocol.ERROR;
+						message = e.getMessage();
+					}
+					break;
+				case RegistryProtocol.SET_ENABLED :
+					in.readLong();
+					in.readBoolean();
+					severity = RegistryProtocol.ERROR;
+					message = "Disabling bundles is not supported by the registry agent"; //$NON-NLS-1$
+					break;
+				case RegistryProtocol.DIAGNOSE :
+					problems = framework.diagnose(in.readLong());
+					break;
+				default :
+					throw new IOException("Unknown request " + request); //$NON-NLS-1$
+			}
+
+			int replySeverity = severity;
+			String replyMessage = message;
+			List<String> replyProblems = problems;
+			send(out -> {
+				out.writeByte(RegistryProtocol.REPLY);
+				out.writeInt(requestId);
+				if (replyProblems == null) {
+					out.writeStatus(replySeverity, replyMessage);
+					return;
+				}
+				out.writeMultiStatus(RegistryProtocol.INFO, null, replyProblems.size());
+				for (String problem : replyProblems) {
+					out.writeStatus(RegistryProtocol.WARNING, problem);
+				}
+			});
+		}
+
+		private Message serviceMessage(byte type, ServiceReference<?> reference) {
+			return out -> {
+				out.writeByte(type);
+				framework.writeService(out, reference);
+			};
+		}
+
+		private void write(RegistryProtocol.Output out) throws IOException {
+			while (true) {
+				Message[] batch;
+				synchronized (queue) {
+					while (queue.isEmpty() && !closed) {
+						waitForMessages(0);
+					}
+					if (closed)
+						return;
+
+					// let further messages of a burst join this batch
+					if (queue.size() < MAX_BATCH_SIZE)
+						waitForMessages(BATCH_DELAY);
+
+					List<Message> messages = queue.subList(0, Math.min(queue.size(), MAX_BATCH_SIZE));
+					batch = messages.toArray(new Message[messages.size()]);
+					messages.clear();
+					// wake up requests waiting for room in the queue
+					queue.notifyAll();
+				}
+
+				out.writeBatch(batch.length);
+				for (Message message : batch) {
+					message.write(out);
+				}
+				out.flush();
+			}
+		}
+
+		private void waitForMessages(long timeout) {
+			try {
+				queue.wait(timeout);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				close();
+			}
+		}
+
+		/**
+		 * Queues a message in reply to a request of the client, waiting for
+		 * the client to catch up if the queue is full.
+		 */
+		private void send(Message message) {
+			synchronized (queue) {
+				while (queue.size() >= MAX_QUEUE_SIZE && !closed) {
+					waitForMessages(0);
+				}
+				if (closed)
+					return;
+				queue.add(message);
+				queue.notifyAll();
+			}
+		}
+
+		/**
+		 * Queues a message for a change of the framework. Changes are delivered
+		 * by the framework's threads, which must not wait for the client, so a
+		 * client whose queue is full is disconnected.
+		 */
+		private void post(Message message) {
+			boolean overflow;
+			synchronized (queue) {
+				if (closed)
+					return;
+				overflow = queue.size() >= MAX_QUEUE_SIZE;
+				if (!overflow) {
+					queue.add(message);
+					queue.notifyAll();
+				}
+			}
+			if (overflow)
+				close();
+		}
+
+		void close() {
+			closed = true;
+			synchronized (queue) {
+				queue.clear();
+				queue.notifyAll();
+			}
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+
+		@Override
+		public void bundleChanged(BundleEvent event) {
+			Bundle bundle = event.getBundle();
+			int type = event.getType();
+			post(out -> {
+				switch (type) {
+					case BundleEvent.INSTALLED :
+						out.writeByte(RegistryProtocol.ADD_BUNDLE);
+						break;
+					case BundleEvent.UNINSTALLED :
+						out.writeByte(RegistryProtocol.REMOVE_BUNDLE);
+						break;
+					default :
+						out.writeByte(RegistryProtocol.UPDATE_BUNDLE);
+						out.writeInt(type);
+				}
+				framework.writeBundle(out, bundle);
+			});
+		}
+
+		@Override
+		public void serviceChanged(ServiceEvent event) {
+			switch (event.getType()) {
+				case ServiceEvent.REGISTERED :
+					post(serviceMessage(RegistryProtocol.ADD_SERVICE, event.getServiceReference()));
+					break;
+				case ServiceEvent.UNREGISTERING :
+					post(serviceMessage(RegistryProtocol.REMOVE_SERVICE, event.getServiceReference()));
+					break;
+				default :
+					post(serviceMessage(RegistryProtocol.UPDATE_SERVICE, event.getServiceReference()));
+			}
+		}
+	}
+
+	/**
+	 * @param context context of the framework to serve
+	 * @param token token clients have to send, must not be empty
+	 */
+	public RegistryAgent(BundleContext context, String token) {
+		if (token == null || token.length() == 0)
+			throw new IllegalArgumentException("A token is required"); //$NON-NLS-1$
+		this.context = context;
+		this.framework = new FrameworkRegistry(context);
+		this.token = token.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns whether the optional extension registry bundle is wired to the
+	 * agent, without loading any of its classes if it is not.
+	 */
+	private static boolean isExtensionRegistryAvailable() {
+		try {
+			RegistryAgent.class.getClassLoader().loadClass("org.eclipse.core.runtime.RegistryFactory"); //$NON-NLS-1$
+			return true;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Starts listening for clients.
+	 *
+	 * @param port port to listen on, or <code>0</code> for any free port
+	 * @return the port the agent listens on
+	 * @throws IOException if the socket could not be opened
+	 */
+	public synchronized int start(int port) throws IOException {
+		if (serverSocket != null)
+			return serverSocket.getLocalPort();
+
+		final ServerSocket socket = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+		serverSocket = socket;
+
+		Thread acceptor = new Thread("Registry Agent") { //$NON-NLS-1$
+			@Override
+			public void run() {
+				while (!socket.isClosed()) {
+					try {
+						serve(socket.accept());
+					} catch (IOException e) {
+						// socket closed, or client is gone
+					}
+				}
+			}
+		};
+		acceptor.setDaemon(true);
+		acceptor.start();
+		return socket.getLocalPort();
+	}
+
+	private void serve(Socket socket) throws IOException {
+		Session current = new Session(socket);
+		session = current;
+		try {
+			current.run();
+		} finally {
+			current.close();
+			session = null;
+		}
+	}
+
+	/**
+	 * Stops listening and disconnects the current client, if any.
+	 */
+	public synchronized void stop() {
+		if (serverSocket == null)
+			return;
+
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			// ignore
+		}
+		serverSocket = null;
+
+		Session current = session;
+		if (current != null)
+			current.close();
+	}
+}
@@ -0,0 +1,337 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.runtime.agent;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Binary protocol spoken between a {@link RegistryAgent} running inside an OSGi
+ * framework and its client.
+ *
+ * After a handshake of magic number and version in both directions, in which
+ * the client also sends the agent's access token, the client sends requests,
+ * each identified by a request id. The agent sends batches of messages:
+ * registry changes, and a reply for each request. Replies are
+ * queued behind the changes that were caused by the request, so for example
+ * the reply to {@link #INITIALIZE_BUNDLES} is received after all bundles.
+ *
+ * Numbers are written as variable length integers. Strings are written with a
+ * string table that is reset for every batch and holds at most
+ * {@link #MAX_STRINGS} entries, so that repeated strings like package, class
+ * or bundle names are only sent once per batch without the table growing for
+ * the life of the connection. Lengths read from the stream are checked
+ * against fixed limits before anything is allocated for them.
+ */
+public final class RegistryProtocol {
+
+	public static final int MAGIC = 0x50524547;
+	public static final int VERSION = 2;
+
+	// requests, client to agent
+	public static final byte INITIALIZE_BUNDLES = 1;
+	public static final byte INITIALIZE_SERVICES = 2;
+	public static final byte INITIALIZE_EXTENSION_POINTS = 3;
+	public static final byte START = 4;
+	public static final byte STOP = 5;
+	public static final byte SET_ENABLED = 6;
+	public static final byte DIAGNOSE = 7;
+
+	// messages, agent to client
+	public static final byte ADD_BUNDLE = 1;
+	public static final byte REMOVE_BUNDLE = 2;
+	/** followed by the type of the OSGi bundle event and the bundle */
+	public static final byte UPDATE_BUNDLE = 3;
+	public static final byte ADD_SERVICE = 4;
+	public static final byte REMOVE_SERVICE = 5;
+	public static final byte UPDATE_SERVICE = 6;
+	public static final byte ADD_EXTENSIONS = 7;
+	public static final byte REMOVE_EXTENSIONS = 8;
+	public static final byte ADD_EXTENSION_POINTS = 9;
+	public static final byte REMOVE_EXTENSION_POINTS = 10;
+	public static final byte REPLY = 11;
+
+	// flags of a bundle prerequisite
+	public static final int EXPORTED = 1;
+	public static final int PACKAGE = 2;
+
+	// status severities, with the values of org.eclipse.core.runtime.IStatus
+	public static final int OK = 0;
+	public static final int INFO = 1;
+	public static final int WARNING = 2;
+	public static final int ERROR = 4;
+
+	/**
+	 * Maximum number of entries of a string table, further strings of a batch
+	 * are sent in full every time.
+	 */
+	public static final int MAX_STRINGS = 1 << 16;
+	/**
+	 * Maximum length of a string in bytes.
+	 */
+	public static final int MAX_STRING_LENGTH = 1 << 20;
+	/**
+	 * Maximum number of messages in a batch and of elements in an array.
+	 */
+	public static final int MAX_LENGTH = 1 << 20;
+	/**
+	 * Maximum nesting of statuses and configuration elements.
+	 */
+	public static final int MAX_DEPTH = 256;
+
+	private static final int MAX_TOKEN_LENGTH = 1024;
+
+	private static final int NULL_STRING = 0;
+	private static final int NEW_STRING = 1;
+	private static final int STRING_INDEX_OFFSET = 2;
+
+	private RegistryProtocol() {
+	}
+
+	/**
+	 * Writes to a stream. Not thread safe.
+	 */
+	public static class Output {
+
+		private final DataOutputStream out;
+		private final Map<String, Integer> strings = new HashMap<>();
+
+		public Output(OutputStream out) {
+			this.out = new DataOutputStream(new BufferedOutputStream(out));
+		}
+
+		public void writeHeader() throws IOException {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.flush();
+		}
+
+		/**
+		 * Writes the token the agent requires from its clients, after the header.
+		 */
+		public void writeToken(String token) throws IOException {
+			byte[] bytes = token.getBytes(StandardCharsets.UTF_8);
+			if (bytes.length > MAX_TOKEN_LENGTH)
+				throw new IOException("Token too long"); //$NON-NLS-1$
+			writeInt(bytes.length);
+			out.write(bytes);
+			out.flush();
+		}
+
+		/**
+		 * Starts a batch of messages, which resets the string table.
+		 *
+		 * @param count number of messages in the batch
+		 */
+		public void writeBatch(int count) throws IOException {
+			strings.clear();
+			writeLength(count);
+		}
+
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		public void writeByte(int value) throws IOException {
+			out.writeByte(value);
+		}
+
+		public void writeBoolean(boolean value) throws IOException {
+			out.writeBoolean(value);
+		}
+
+		public void writeInt(int value) throws IOException {
+			writeLong(value & 0xFFFFFFFFL);
+		}
+
+		/**
+		 * Writes the length of an array, which is read with
+		 * {@link Input#readLength()}.
+		 */
+		public void writeLength(int length) throws IOException {
+			if (length < 0 || length > MAX_LENGTH)
+				throw new IOException("Invalid length " + length); //$NON-NLS-1$
+			writeInt(length);
+		}
+
+		public void writeLong(long value) throws IOException {
+			while ((value & ~0x7FL) != 0) {
+				out.writeByte((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			out.writeByte((int) value);
+		}
+
+		/**
+		 * Writes an optional id.
+		 */
+		public void writeId(Long id) throws IOException {
+			writeBoolean(id != null);
+			if (id != null)
+				writeLong(id.longValue());
+		}
+
+		public void writeString(String value) throws IOException {
+			if (value == null) {
+				writeInt(NULL_STRING);
+				return;
+			}
+
+			Integer index = strings.get(value);
+			if (index != null) {
+				writeInt(index.intValue() + STRING_INDEX_OFFSET);
+				return;
+			}
+
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			if (bytes.length > MAX_STRING_LENGTH)
+				bytes = Arrays.copyOf(bytes, MAX_STRING_LENGTH);
+			if (strings.size() < MAX_STRINGS)
+				strings.put(value, Integer.valueOf(strings.size()));
+			writeInt(NEW_STRING);
+			writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+		/**
+		 * Writes a status without children.
+		 *
+		 * @param severity one of {@link #OK}, {@link #INFO}, {@link #WARNING}
+		 * or {@link #ERROR}
+		 */
+		public void writeStatus(int severity, String message) throws IOException {
+			writeInt(severity);
+			writeInt(0);
+			writeString(message);
+			writeBoolean(false);
+			writeInt(0);
+		}
+
+		/**
+		 * Writes the start of a multi status, which has to be followed by its
+		 * children.
+		 */
+		public void writeMultiStatus(int severity, String message, int children) throws IOException {
+			writeInt(severity);
+			writeInt(0);
+			writeString(message);
+			writeBoolean(true);
+			writeLength(children);
+		}
+	}
+
+	/**
+	 * Reads what was written by {@link Output} from a stream. Not thread safe.
+	 */
+	public static class Input {
+
+		private final DataInputStream in;
+		private final List<String> strings = new ArrayList<>();
+
+		public Input(InputStream in) {
+			this.in = new DataInputStream(new BufferedInputStream(in));
+		}
+
+		public void readHeader() throws IOException {
+			if (in.readInt() != MAGIC)
+				throw new IOException("Not a registry agent"); //$NON-NLS-1$
+			int version = in.readInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported registry protocol version " + version); //$NON-NLS-1$
+		}
+
+		/**
+		 * Reads the token sent by a client, which is not trusted yet.
+		 */
+		public byte[] readToken() throws IOException {
+			int length = readInt();
+			if (length < 0 || length > MAX_TOKEN_LENGTH)
+				throw new IOException("Invalid token"); //$NON-NLS-1$
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+			return bytes;
+		}
+
+		/**
+		 * Starts reading a batch of messages, which resets the string table.
+		 *
+		 * @return the number of messages in the batch
+		 */
+		public int readBatch() throws IOException {
+			strings.clear();
+			return readLength();
+		}
+
+		public byte readByte() throws IOException {
+			return in.readByte();
+		}
+
+		public boolean readBoolean() throws IOException {
+			return in.readBoolean();
+		}
+
+		public int readInt() throws IOException {
+			long value = readLong();
+			if ((value >>> 32) != 0)
+				throw new IOException("Malformed number"); //$NON-NLS-1$
+			return (int) value;
+		}
+
+		/**
+		 * Reads the length of an array and checks it against {@link #MAX_LENGTH}.
+		 */
+		public int readLength() throws IOException {
+			int length = readInt();
+			if (length < 0 || length > MAX_LENGTH)
+				throw new IOException("Invalid length " + length); //$NON-NLS-1$
+			return length;
+		}
+
+		public long readLong() throws IOException {
+			long value = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				int b = in.readUnsignedByte();
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					return value;
+			}
+			throw new IOException("Malformed number"); //$NON-NLS-1$
+		}
+
+		public Long readId() throws IOException {
+			return readBoolean() ? Long.valueOf(readLong()) : null;
+		}
+
+		public String readString() throws IOException {
+			int tag = readInt();
+			if (tag == NULL_STRING)
+				return null;
+
+			if (tag == NEW_STRING) {
+				int length = readInt();
+				if (length < 0 || length > MAX_STRING_LENGTH)
+					throw new IOException("Invalid string length " + length); //$NON-NLS-1$
+				byte[] bytes = new byte[length];
+				in.readFully(bytes);
+				String value = new String(bytes, StandardCharsets.UTF_8);
+				if (strings.size() < MAX_STRINGS)
+					strings.add(value);
+				return value;
+			}
+
+			int index = tag - STRING_INDEX_OFFSET;
+			if (index < 0 || index >= strings.size())
+				throw new IOException("Unknown string " + index); //$NON-NLS-1$
+			return strings.get(index);
+		}
+	}
+}
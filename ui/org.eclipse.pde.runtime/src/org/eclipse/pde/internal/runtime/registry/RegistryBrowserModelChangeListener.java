@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2015 IBM Corporation and others.
+ * Copyright (c) 2008, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,26 +10,79 @@
  *******************************************************************************/
 package org.eclipse.pde.internal.runtime.registry;
 
+import java.util.*;
 import org.eclipse.pde.internal.runtime.registry.model.*;
 
 public class RegistryBrowserModelChangeListener implements ModelChangeListener {
 
 	private RegistryBrowser fRegistryBrowser;
 
+	/**
+	 * Deltas not yet applied to the viewer. Pending deltas are applied in a
+	 * single UI runnable, so that bursts of bundle and service events do not
+	 * flood the display thread.
+	 */
+	private final List<ModelChangeDelta> fPendingDeltas = new ArrayList<>();
+	// index of the last pending delta of each object, if it is a state change
+	private final Map<ModelObject, Integer> fPendingStateChanges = new HashMap<>();
+	private boolean fUpdateScheduled;
+
 	public RegistryBrowserModelChangeListener(RegistryBrowser registryBrowser) {
 		fRegistryBrowser = registryBrowser;
 	}
 
 	@Override
 	public void modelChanged(final ModelChangeDelta[] delta) {
+		synchronized (fPendingDeltas) {
+			for (ModelChangeDelta d : delta) {
+				addPendingDelta(d);
+			}
+			if (fUpdateScheduled)
+				return;
+			fUpdateScheduled = true;
+		}
+
 		fRegistryBrowser.getSite().getWorkbenchWindow().getWorkbench().getDisplay().asyncExec(new Runnable() {
 			@Override
 			public void run() {
-				update(delta);
+				ModelChangeDelta[] deltas;
+				synchronized (fPendingDeltas) {
+					deltas = fPendingDeltas.toArray(new ModelChangeDelta[fPendingDeltas.size()]);
+					fPendingDeltas.clear();
+					fPendingStateChanges.clear();
+					fUpdateScheduled = false;
+				}
+				update(deltas);
 			}
 		});
 	}
 
+	/**
+	 * Adds a delta to the pending ones. All state changes result in the same
+	 * refresh of the viewer, so a state change of an object replaces a pending
+	 * state change of the same object.
+	 */
+	private void addPendingDelta(ModelChangeDelta delta) {
+		ModelObject object = delta.getModelObject();
+		if (isStateChange(delta.getFlag())) {
+			Integer index = fPendingStateChanges.get(object);
+			if (index != null) {
+				fPendingDeltas.set(index.intValue(), delta);
+			} else {
+				fPendingStateChanges.put(object, Integer.valueOf(fPendingDeltas.size()));
+				fPendingDeltas.add(delta);
+			}
+		} else {
+			// keep the order of state changes relative to additions and removals
+			fPendingStateChanges.remove(object);
+			fPendingDeltas.add(delta);
+		}
+	}
+
+	private static boolean isStateChange(int flag) {
+		return flag != ModelChangeDelta.ADDED && flag != ModelChangeDelta.REMOVED;
+	}
+
 	private boolean topLevelElement(Object object) {
 		switch (fRegistryBrowser.getGroupBy()) {
 			case (RegistryBrowser.BUNDLES) :
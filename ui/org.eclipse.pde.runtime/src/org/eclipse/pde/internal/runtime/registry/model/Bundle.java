@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,7 @@
 package org.eclipse.pde.internal.runtime.registry.model;
 
 import java.util.*;
+import java.util.function.Consumer;
 import org.eclipse.core.runtime.MultiStatus;
 import org.osgi.framework.BundleException;
 
@@ -34,6 +35,27 @@ public class Bundle extends ModelObject {
 	private String fragmentHost;
 	private String fragmentHostVersion;
 
+	private Consumer<Bundle> headersInitializer;
+
+	/**
+	 * Sets an initializer that fills in the imports, libraries, imported and
+	 * exported packages of this bundle when any of them is first requested,
+	 * so that manifest headers are only parsed for bundles that are shown.
+	 *
+	 * @param initializer initializer setting the header based properties of the bundle
+	 */
+	public synchronized void setHeadersInitializer(Consumer<Bundle> initializer) {
+		this.headersInitializer = initializer;
+	}
+
+	private synchronized void initializeHeaders() {
+		if (headersInitializer != null) {
+			Consumer<Bundle> initializer = headersInitializer;
+			headersInitializer = null;
+			initializer.accept(this);
+		}
+	}
+
 	public void setFragmentHost(String fragmentHost) {
 		this.fragmentHost = fragmentHost;
 	}
@@ -97,10 +119,12 @@ public class Bundle extends ModelObject {
 	}
 
 	public BundlePrerequisite[] getImports() {
+		initializeHeaders();
 		return imports;
 	}
 
 	public BundleLibrary[] getLibraries() {
+		initializeHeaders();
 		return libraries;
 	}
 
@@ -236,6 +260,7 @@ public class Bundle extends ModelObject {
 	}
 
 	public BundlePrerequisite[] getImportedPackages() {
+		initializeHeaders();
 		return importedPackages;
 	}
 
@@ -244,6 +269,7 @@ public class Bundle extends ModelObject {
 	}
 
 	public BundlePrerequisite[] getExportedPackages() {
+		initializeHeaders();
 		return exportedPackages;
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,18 +10,38 @@
  *******************************************************************************/
 package org.eclipse.pde.internal.runtime.registry.model;
 
+import java.util.function.Supplier;
+
 public class ConfigurationElement extends Attribute {
 
 	private Attribute[] elements = new Attribute[0];
+	private Supplier<Attribute[]> elementsProvider;
 
-	public void setElements(Attribute[] elements) {
+	public synchronized void setElements(Attribute[] elements) {
 		if (elements == null)
 			throw new IllegalArgumentException();
 
 		this.elements = elements;
+		this.elementsProvider = null;
+	}
+
+	/**
+	 * Sets a provider used to create the attributes and child elements when
+	 * they are first requested.
+	 *
+	 * @param provider provider of the elements, may return <code>null</code> if there are none
+	 */
+	public synchronized void setElementsProvider(Supplier<Attribute[]> provider) {
+		this.elementsProvider = provider;
 	}
 
-	public Attribute[] getElements() {
+	public synchronized Attribute[] getElements() {
+		if (elementsProvider != null) {
+			Attribute[] result = elementsProvider.get();
+			elementsProvider = null;
+			if (result != null)
+				elements = result;
+		}
 		return elements;
 	}
 }
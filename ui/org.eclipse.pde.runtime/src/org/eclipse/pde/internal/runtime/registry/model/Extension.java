@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,12 +10,15 @@
  *******************************************************************************/
 package org.eclipse.pde.internal.runtime.registry.model;
 
+import java.util.function.Supplier;
+
 public class Extension extends ModelObject {
 
 	private String namespaceIdentifier;
 	private String label;
 	private String extensionPointUniqueIdentifier;
 	private ConfigurationElement[] configurationElements = new ConfigurationElement[0];
+	private Supplier<ConfigurationElement[]> configurationElementsProvider;
 	private Long contributor;
 
 	public void setNamespaceIdentifier(String namespaceIdentifier) {
@@ -30,18 +33,36 @@ public class Extension extends ModelObject {
 		this.extensionPointUniqueIdentifier = extensionPointUniqueIdentifier;
 	}
 
-	public void setConfigurationElements(ConfigurationElement[] configurationElements) {
+	public synchronized void setConfigurationElements(ConfigurationElement[] configurationElements) {
 		if (configurationElements == null)
 			throw new IllegalArgumentException();
 
 		this.configurationElements = configurationElements;
+		this.configurationElementsProvider = null;
+	}
+
+	/**
+	 * Sets a provider used to create the configuration elements when they are
+	 * first requested, so that they are only materialized for extensions that
+	 * are actually shown.
+	 *
+	 * @param provider provider of the configuration elements, may return <code>null</code> if there are none
+	 */
+	public synchronized void setConfigurationElementsProvider(Supplier<ConfigurationElement[]> provider) {
+		this.configurationElementsProvider = provider;
 	}
 
 	public void setContributor(Long contributor) {
 		this.contributor = contributor;
 	}
 
-	public ConfigurationElement[] getConfigurationElements() {
+	public synchronized ConfigurationElement[] getConfigurationElements() {
+		if (configurationElementsProvider != null) {
+			ConfigurationElement[] elements = configurationElementsProvider.get();
+			configurationElementsProvider = null;
+			if (elements != null)
+				configurationElements = elements;
+		}
 		return configurationElements;
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2016 IBM Corporation and others.
+ * Copyright (c) 2008, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -183,6 +183,13 @@ public class LocalRegistryBackend implements IRegistryEventListener, BundleListe
 			}
 		}
 
+		// manifest headers are only parsed once the bundle is expanded in the view
+		adapter.setHeadersInitializer(a -> initializeHeaders(a, bundle));
+
+		return adapter;
+	}
+
+	private void initializeHeaders(Bundle adapter, org.osgi.framework.Bundle bundle) {
 		BundlePrerequisite[] imports = (BundlePrerequisite[]) getManifestHeaderArray(bundle, Constants.REQUIRE_BUNDLE);
 		if (imports != null)
 			adapter.setImports(imports);
@@ -198,8 +205,6 @@ public class LocalRegistryBackend implements IRegistryEventListener, BundleListe
 		BundlePrerequisite[] exportPackages = (BundlePrerequisite[]) getManifestHeaderArray(bundle, Constants.EXPORT_PACKAGE);
 		if (exportPackages != null)
 			adapter.setExportedPackages(exportPackages);
-
-		return adapter;
 	}
 
 	private Extension createExtensionAdapter(IExtension extension) {
@@ -209,24 +214,31 @@ public class LocalRegistryBackend implements IRegistryEventListener, BundleListe
 		adapter.setExtensionPointUniqueIdentifier(extension.getExtensionPointUniqueIdentifier());
 		adapter.setContributor(getBundleId(extension.getContributor().getName()));
 
-		IConfigurationElement[] elements = extension.getConfigurationElements();
-		if (elements.length > 0) {
-			ConfigurationElement[] configurationElements = new ConfigurationElement[elements.length];
-			for (int i = 0; i < elements.length; i++) {
-				configurationElements[i] = createConfigurationElement(elements[i]);
-			}
-			adapter.setConfigurationElements(configurationElements);
+		// configuration elements are only created once the extension is expanded in the view
+		adapter.setConfigurationElementsProvider(() -> createConfigurationElements(extension));
+		return adapter;
+	}
+
+	private ConfigurationElement[] createConfigurationElements(IExtension extension) {
+		IConfigurationElement[] elements;
+		try {
+			elements = extension.getConfigurationElements();
+		} catch (InvalidRegistryObjectException e) {
+			// extension was removed in the meantime
+			return null;
 		}
 
-		return adapter;
+		ConfigurationElement[] configurationElements = new ConfigurationElement[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			configurationElements[i] = createConfigurationElement(elements[i]);
+		}
+		return configurationElements;
 	}
 
 	private ConfigurationElement createConfigurationElement(IConfigurationElement config) {
 		ConfigurationElement element = new ConfigurationElement();
 		element.setName(createName(config));
-		Attribute[] attributes = createConfigurationElementAttributes(config);
-		if (attributes != null)
-			element.setElements(attributes);
+		element.setElementsProvider(() -> createConfigurationElementAttributes(config));
 		return element;
 	}
 
@@ -363,13 +375,21 @@ public class LocalRegistryBackend implements IRegistryEventListener, BundleListe
 	}
 
 	private Attribute[] createConfigurationElementAttributes(IConfigurationElement config) {
-		String[] atts = config.getAttributeNames();
+		String[] atts;
+		Attribute[] catts;
+		IConfigurationElement[] children;
+		try {
+			atts = config.getAttributeNames();
 
-		Attribute[] catts = new Attribute[atts.length];
-		for (int i = 0; i < atts.length; i++)
-			catts[i] = new Attribute(atts[i], config.getAttribute(atts[i]));
+			catts = new Attribute[atts.length];
+			for (int i = 0; i < atts.length; i++)
+				catts[i] = new Attribute(atts[i], config.getAttribute(atts[i]));
 
-		IConfigurationElement[] children = config.getChildren();
+			children = config.getChildren();
+		} catch (InvalidRegistryObjectException e) {
+			// extension was removed in the meantime
+			return null;
+		}
 		Attribute[] result = new Attribute[children.length + catts.length];
 		for (int i = 0; i < children.length; i++) {
 			IConfigurationElement child = children[i];
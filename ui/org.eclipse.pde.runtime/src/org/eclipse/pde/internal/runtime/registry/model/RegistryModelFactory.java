@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008 IBM Corporation and others.
+ * Copyright (c) 2008, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,22 +10,34 @@
  *******************************************************************************/
 package org.eclipse.pde.internal.runtime.registry.model;
 
+import java.net.URI;
+import java.net.URISyntaxException;
 
 /**
  * Produces RegistryModels for URLs. Valid URLs:
  * local
  * target
- * remote://host:port
+ * remote://host:port?token
  *
  */
 public class RegistryModelFactory {
 
+	private static final String REMOTE_SCHEME = "remote"; //$NON-NLS-1$
+
 	/**
 	 *
 	 * @param uri
 	 * @return never returns null
 	 */
 	public static RegistryModel getRegistryModel(String uri) {
+		if (uri != null && uri.startsWith(REMOTE_SCHEME + ':')) {
+			try {
+				URI remote = new URI(uri);
+				if (remote.getHost() != null && remote.getPort() != -1 && remote.getQuery() != null)
+					return new RegistryModel(new RemoteRegistryBackend(remote.getHost(), remote.getPort(), remote.getQuery()));
+			} catch (URISyntaxException e) { // use local registry
+			}
+		}
 		return new RegistryModel(new LocalRegistryBackend());
 	}
 }
@@ -0,0 +1,499 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.internal.runtime.registry.model;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.core.runtime.*;
+import org.eclipse.pde.internal.runtime.PDERuntimeMessages;
+import org.eclipse.pde.internal.runtime.PDERuntimePlugin;
+import org.eclipse.pde.internal.runtime.agent.RegistryAgent;
+import org.eclipse.pde.internal.runtime.agent.RegistryProtocol;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleException;
+
+/**
+ * Backend reading the registry of another framework from a {@link RegistryAgent}
+ * running in it.
+ *
+ * Everything read from the agent is checked against the limits of the
+ * {@link RegistryProtocol}, since the agent runs in another process.
+ */
+public class RemoteRegistryBackend implements RegistryBackend {
+
+	private static final int CONNECT_TIMEOUT = 5000;
+	// interval (in milliseconds) in which pending requests check for cancellation
+	private static final long POLL_INTERVAL = 100;
+
+	private final String host;
+	private final int port;
+	private final String token;
+
+	private BackendChangeListener listener;
+
+	private Socket socket;
+	private RegistryProtocol.Output out;
+	private volatile boolean connected;
+
+	private final AtomicInteger nextRequestId = new AtomicInteger();
+	private final Map<Integer, CompletableFuture<IStatus>> pendingRequests = new ConcurrentHashMap<>();
+
+	/**
+	 * A multi status read from the stream. Its severity is set as sent instead
+	 * of being derived from its children.
+	 */
+	private static class RemoteMultiStatus extends MultiStatus {
+
+		RemoteMultiStatus(int code, String message) {
+			super(PDERuntimePlugin.ID, code, message, null);
+		}
+
+		@Override
+		protected void setSeverity(int severity) {
+			super.setSeverity(severity);
+		}
+	}
+
+	/**
+	 * @param host host of the agent
+	 * @param port port the agent listens on
+	 * @param token token of the agent, see {@link RegistryAgent#TOKEN_PROPERTY}
+	 */
+	public RemoteRegistryBackend(String host, int port, String token) {
+		this.host = host;
+		this.port = port;
+		this.token = token;
+	}
+
+	@Override
+	public void setRegistryListener(BackendChangeListener listener) {
+		this.listener = listener;
+	}
+
+	@Override
+	public synchronized void connect(IProgressMonitor monitor) {
+		if (monitor.isCanceled() || connected)
+			return;
+
+		Socket newSocket = new Socket();
+		final RegistryProtocol.Input in;
+		try {
+			newSocket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+			out = new RegistryProtocol.Output(newSocket.getOutputStream());
+			out.writeHeader();
+			out.writeToken(token);
+			in = new RegistryProtocol.Input(newSocket.getInputStream());
+			// the agent closes the connection if the token is invalid
+			newSocket.setSoTimeout(CONNECT_TIMEOUT);
+			in.readHeader();
+			newSocket.setSoTimeout(0);
+		} catch (IOException e) {
+			PDERuntimePlugin.log(e);
+			close(newSocket);
+			return;
+		}
+
+		socket = newSocket;
+		connected = true;
+
+		Thread reader = new Thread("Remote Registry Reader") { //$NON-NLS-1$
+			@Override
+			public void run() {
+				try {
+					read(in);
+				} catch (IOException e) {
+					if (connected)
+						PDERuntimePlugin.log(e);
+				} finally {
+					disconnect();
+				}
+			}
+		};
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	@Override
+	public void disconnect() {
+		synchronized (this) {
+			connected = false;
+			if (socket != null) {
+				close(socket);
+				socket = null;
+			}
+		}
+
+		IStatus status = new Status(IStatus.ERROR, PDERuntimePlugin.ID, "Disconnected from registry agent"); //$NON-NLS-1$
+		for (CompletableFuture<IStatus> request : pendingRequests.values()) {
+			request.complete(status);
+		}
+		pendingRequests.clear();
+	}
+
+	private static void close(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+
+	private void read(RegistryProtocol.Input in) throws IOException {
+		while (connected) {
+			int count = in.readBatch();
+			for (int i = 0; i < count; i++) {
+				readMessage(in);
+			}
+		}
+	}
+
+	private void readMessage(RegistryProtocol.Input in) throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+			case RegistryProtocol.ADD_BUNDLE :
+				listener.addBundle(readBundle(in));
+				break;
+			case RegistryProtocol.REMOVE_BUNDLE :
+				listener.removeBundle(readBundle(in));
+				break;
+			case RegistryProtocol.UPDATE_BUNDLE :
+				int flag = getUpdateFlag(in.readInt());
+				listener.updateBundle(readBundle(in), flag);
+				break;
+			case RegistryProtocol.ADD_SERVICE :
+				listener.addService(readService(in));
+				break;
+			case RegistryProtocol.REMOVE_SERVICE :
+				listener.removeService(readService(in));
+				break;
+			case RegistryProtocol.UPDATE_SERVICE :
+				listener.updateService(readService(in));
+				break;
+			case RegistryProtocol.ADD_EXTENSIONS :
+				listener.addExtensions(readExtensions(in));
+				break;
+			case RegistryProtocol.REMOVE_EXTENSIONS :
+				listener.removeExtensions(readExtensions(in));
+				break;
+			case RegistryProtocol.ADD_EXTENSION_POINTS :
+				listener.addExtensionPoints(readExtensionPoints(in));
+				break;
+			case RegistryProtocol.REMOVE_EXTENSION_POINTS :
+				listener.removeExtensionPoints(readExtensionPoints(in));
+				break;
+			case RegistryProtocol.REPLY :
+				int requestId = in.readInt();
+				IStatus status = readStatus(in, 0);
+				CompletableFuture<IStatus> request = pendingRequests.remove(Integer.valueOf(requestId));
+				if (request != null)
+					request.complete(status);
+				break;
+			default :
+				throw new IOException("Unknown message " + type); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Returns the model change flag for the type of a bundle event.
+	 */
+	private static int getUpdateFlag(int eventType) {
+		switch (eventType) {
+			case BundleEvent.RESOLVED :
+				return ModelChangeDelta.RESOLVED;
+			case BundleEvent.UNRESOLVED :
+				return ModelChangeDelta.UNRESOLVED;
+			case BundleEvent.STARTING :
+				return ModelChangeDelta.STARTING;
+			case BundleEvent.STARTED :
+				return ModelChangeDelta.STARTED;
+			case BundleEvent.STOPPING :
+				return ModelChangeDelta.STOPPING;
+			case BundleEvent.STOPPED :
+				return ModelChangeDelta.STOPPED;
+			default :
+				return ModelChangeDelta.UPDATED;
+		}
+	}
+
+	private static IStatus readStatus(RegistryProtocol.Input in, int depth) throws IOException {
+		if (depth > RegistryProtocol.MAX_DEPTH)
+			throw new IOException("Status nested too deeply"); //$NON-NLS-1$
+
+		int severity = in.readInt();
+		int code = in.readInt();
+		String message = in.readString();
+		boolean multi = in.readBoolean();
+		int count = in.readLength();
+
+		if (!multi)
+			return new Status(severity, PDERuntimePlugin.ID, code, message, null);
+
+		RemoteMultiStatus status = new RemoteMultiStatus(code, message);
+		for (int i = 0; i < count; i++) {
+			status.add(readStatus(in, depth + 1));
+		}
+		// adding children only raises the severity, restore the sent one in case it had none
+		status.setSeverity(severity);
+		return status;
+	}
+
+	private static Bundle readBundle(RegistryProtocol.Input in) throws IOException {
+		Bundle bundle = new Bundle();
+		bundle.setId(in.readLong());
+		bundle.setSymbolicName(in.readString());
+		bundle.setVersion(in.readString());
+		bundle.setLocation(in.readString());
+		bundle.setState(in.readInt());
+		bundle.setEnabled(in.readBoolean());
+		bundle.setFragmentHost(in.readString());
+		bundle.setFragmentHostVersion(in.readString());
+		bundle.setImports(readPrerequisites(in));
+		bundle.setImportedPackages(readPrerequisites(in));
+		bundle.setExportedPackages(readPrerequisites(in));
+
+		BundleLibrary[] libraries = new BundleLibrary[in.readLength()];
+		for (int i = 0; i < libraries.length; i++) {
+			libraries[i] = new BundleLibrary();
+			libraries[i].setLibrary(in.readString());
+		}
+		bundle.setLibraries(libraries);
+		return bundle;
+	}
+
+	private static BundlePrerequisite[] readPrerequisites(RegistryProtocol.Input in) throws IOException {
+		BundlePrerequisite[] prerequisites = new BundlePrerequisite[in.readLength()];
+		for (int i = 0; i < prerequisites.length; i++) {
+			BundlePrerequisite prerequisite = new BundlePrerequisite();
+			prerequisite.setName(in.readString());
+			prerequisite.setVersion(in.readString());
+			int flags = in.readInt();
+			prerequisite.setExported((flags & RegistryProtocol.EXPORTED) != 0);
+			prerequisite.setPackage((flags & RegistryProtocol.PACKAGE) != 0);
+			prerequisites[i] = prerequisite;
+		}
+		return prerequisites;
+	}
+
+	private static ServiceRegistration readService(RegistryProtocol.Input in) throws IOException {
+		ServiceRegistration service = new ServiceRegistration();
+		service.setId(in.readLong());
+		service.setBundle(in.readString());
+
+		long[] usingBundles = new long[in.readLength()];
+		for (int i = 0; i < usingBundles.length; i++) {
+			usingBundles[i] = in.readLong();
+		}
+		service.setUsingBundles(usingBundles);
+
+		boolean hasName = in.readBoolean();
+		String[] classes = new String[in.readLength()];
+		for (int i = 0; i < classes.length; i++) {
+			classes[i] = in.readString();
+		}
+
+		Property[] properties = new Property[in.readLength()];
+		for (int i = 0; i < properties.length; i++) {
+			properties[i] = new Property(in.readString(), in.readString());
+		}
+
+		if (hasName) {
+			// service references are not available outside of the framework
+			service.setName(new ServiceName(classes, null));
+			service.setProperties(properties);
+		}
+		return service;
+	}
+
+	private static Extension[] readExtensions(RegistryProtocol.Input in) throws IOException {
+		Extension[] extensions = new Extension[in.readLength()];
+		for (int i = 0; i < extensions.length; i++) {
+			extensions[i] = readExtension(in);
+		}
+		return extensions;
+	}
+
+	private static ExtensionPoint[] readExtensionPoints(RegistryProtocol.Input in) throws IOException {
+		ExtensionPoint[] extensionPoints = new ExtensionPoint[in.readLength()];
+		for (int i = 0; i < extensionPoints.length; i++) {
+			extensionPoints[i] = readExtensionPoint(in);
+		}
+		return extensionPoints;
+	}
+
+	private static ExtensionPoint readExtensionPoint(RegistryProtocol.Input in) throws IOException {
+		ExtensionPoint extensionPoint = new ExtensionPoint();
+		extensionPoint.setUniqueIdentifier(in.readString());
+		extensionPoint.setLabel(in.readString());
+		extensionPoint.setNamespaceIdentifier(in.readString());
+		extensionPoint.setContributor(in.readId());
+		extensionPoint.setExtensions(new ArrayList<>(Arrays.asList(readExtensions(in))));
+		return extensionPoint;
+	}
+
+	private static Extension readExtension(RegistryProtocol.Input in) throws IOException {
+		Extension extension = new Extension();
+		extension.setExtensionPointUniqueIdentifier(in.readString());
+		extension.setNamespaceIdentifier(in.readString());
+		extension.setLabel(in.readString());
+		extension.setContributor(in.readId());
+
+		ConfigurationElement[] elements = new ConfigurationElement[in.readLength()];
+		for (int i = 0; i < elements.length; i++) {
+			Attribute element = readAttribute(in, 0);
+			if (!(element instanceof ConfigurationElement))
+				throw new IOException("Configuration element expected"); //$NON-NLS-1$
+			elements[i] = (ConfigurationElement) element;
+		}
+		extension.setConfigurationElements(elements);
+		return extension;
+	}
+
+	private static Attribute readAttribute(RegistryProtocol.Input in, int depth) throws IOException {
+		if (depth > RegistryProtocol.MAX_DEPTH)
+			throw new IOException("Configuration elements nested too deeply"); //$NON-NLS-1$
+
+		String name = in.readString();
+		String value = in.readString();
+		if (!in.readBoolean())
+			return new Attribute(name, value);
+
+		ConfigurationElement element = new ConfigurationElement();
+		element.setName(name);
+		element.setValue(value);
+		Attribute[] children = new Attribute[in.readLength()];
+		for (int i = 0; i < children.length; i++) {
+			children[i] = readAttribute(in, depth + 1);
+		}
+		element.setElements(children);
+		return element;
+	}
+
+	/**
+	 * Sends a request to the agent.
+	 *
+	 * @return future completed with the agent's reply
+	 */
+	private CompletableFuture<IStatus> send(byte request, long id, Boolean value) {
+		CompletableFuture<IStatus> reply = new CompletableFuture<>();
+		Integer requestId = Integer.valueOf(nextRequestId.incrementAndGet());
+
+		synchronized (this) {
+			if (!connected) {
+				reply.complete(new Status(IStatus.ERROR, PDERuntimePlugin.ID, "Not connected to registry agent")); //$NON-NLS-1$
+				return reply;
+			}
+
+			pendingRequests.put(requestId, reply);
+			try {
+				out.writeByte(request);
+				out.writeInt(requestId.intValue());
+				if (id >= 0)
+					out.writeLong(id);
+				if (value != null)
+					out.writeBoolean(value.booleanValue());
+				out.flush();
+			} catch (IOException e) {
+				PDERuntimePlugin.log(e);
+				pendingRequests.remove(requestId);
+				reply.complete(new Status(IStatus.ERROR, PDERuntimePlugin.ID, e.getMessage(), e));
+			}
+		}
+		return reply;
+	}
+
+	/**
+	 * Sends a request to the agent and waits for its reply.
+	 *
+	 * @param monitor monitor to check for cancellation, or <code>null</code>
+	 * @return the reply, or <code>null</code> if canceled
+	 */
+	private IStatus request(byte request, long id, IProgressMonitor monitor) {
+		CompletableFuture<IStatus> reply = send(request, id, null);
+		while (true) {
+			if (monitor != null && monitor.isCanceled())
+				return null;
+
+			try {
+				return reply.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check cancellation again
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			} catch (ExecutionException e) {
+				return new Status(IStatus.ERROR, PDERuntimePlugin.ID, e.getMessage(), e);
+			}
+		}
+	}
+
+	@Override
+	public void initializeBundles(IProgressMonitor monitor) {
+		if (monitor.isCanceled())
+			return;
+
+		request(RegistryProtocol.INITIALIZE_BUNDLES, -1, monitor);
+	}
+
+	@Override
+	public void initializeExtensionPoints(IProgressMonitor monitor) {
+		if (monitor.isCanceled())
+			return;
+
+		request(RegistryProtocol.INITIALIZE_EXTENSION_POINTS, -1, monitor);
+	}
+
+	@Override
+	public void initializeServices(IProgressMonitor monitor) {
+		if (monitor.isCanceled())
+			return;
+
+		request(RegistryProtocol.INITIALIZE_SERVICES, -1, monitor);
+	}
+
+	@Override
+	public void start(long id) throws BundleException {
+		IStatus status = request(RegistryProtocol.START, id, null);
+		if (status != null && !status.isOK())
+			throw new BundleException(status.getMessage());
+	}
+
+	@Override
+	public void stop(long id) throws BundleException {
+		IStatus status = request(RegistryProtocol.STOP, id, null);
+		if (status != null && !status.isOK())
+			throw new BundleException(status.getMessage());
+	}
+
+	@Override
+	public void setEnabled(long id, boolean enabled) {
+		send(RegistryProtocol.SET_ENABLED, id, Boolean.valueOf(enabled)).thenAccept(status -> {
+			if (!status.isOK())
+				PDERuntimePlugin.getDefault().getLog().log(status);
+		});
+	}
+
+	@Override
+	public MultiStatus diagnose(long id) {
+		IStatus status = request(RegistryProtocol.DIAGNOSE, id, null);
+		MultiStatus result = new MultiStatus(PDERuntimePlugin.ID, IStatus.INFO, PDERuntimeMessages.RegistryView_found_problems, null);
+		if (status instanceof MultiStatus) {
+			// the agent only sends the problems, the message is ours
+			result.addAll(status);
+		} else if (status != null) {
+			result.add(status);
+		}
+		return result;
+	}
+}
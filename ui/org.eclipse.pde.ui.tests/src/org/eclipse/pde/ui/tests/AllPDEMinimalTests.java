@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c)  2016 IBM Corporation and others.
+ * Copyright (c) 2016, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@ import junit.framework.TestSuite;
 import org.eclipse.pde.ui.tests.build.properties.AllValidatorTests;
 import org.eclipse.pde.ui.tests.classpathresolver.ClasspathResolverTest;
 import org.eclipse.pde.ui.tests.launcher.AllLauncherTests;
+import org.eclipse.pde.ui.tests.model.build.AllBuildModelTests;
 import org.eclipse.pde.ui.tests.model.bundle.AllBundleModelTests;
 import org.eclipse.pde.ui.tests.model.xml.AllXMLModelTests;
 import org.eclipse.pde.ui.tests.nls.AllNLSTests;
@@ -40,6 +41,7 @@ public class AllPDEMinimalTests {
 		suite.addTest(AllPreferenceTests.suite());
 		// suite.addTest(AllImportTests.suite());
 		suite.addTest(AllBundleModelTests.suite());
+		suite.addTest(AllBuildModelTests.suite());
 		suite.addTest(AllXMLModelTests.suite());
 		suite.addTest(AllValidatorTests.suite());
 		suite.addTest(AllNLSTests.suite());
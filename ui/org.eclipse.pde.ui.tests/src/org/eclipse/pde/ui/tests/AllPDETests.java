@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2015 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,6 +18,7 @@ import org.eclipse.pde.ui.tests.classpathresolver.ClasspathResolverTest;
 import org.eclipse.pde.ui.tests.ee.ExportBundleTests;
 import org.eclipse.pde.ui.tests.imports.AllImportTests;
 import org.eclipse.pde.ui.tests.launcher.AllLauncherTests;
+import org.eclipse.pde.ui.tests.model.build.AllBuildModelTests;
 import org.eclipse.pde.ui.tests.model.bundle.AllBundleModelTests;
 import org.eclipse.pde.ui.tests.model.xml.AllXMLModelTests;
 import org.eclipse.pde.ui.tests.nls.AllNLSTests;
@@ -38,6 +39,7 @@ public class AllPDETests {
 		suite.addTest(AllPreferenceTests.suite());
 		suite.addTest(AllImportTests.suite());
 		suite.addTest(AllBundleModelTests.suite());
+		suite.addTest(AllBuildModelTests.suite());
 		suite.addTest(AllXMLModelTests.suite());
 		suite.addTest(AllValidatorTests.suite());
 		suite.addTest(AllNLSTests.suite());
@@ -48,6 +50,18 @@ public class AllPDETests {
 		suite.addTest(ProjectCreationTests.suite());
 		suite.addTest(BundleRootTests.suite());
 		suite.addTest(PluginRegistryTests.suite());
+		suite.addTest(BundleDependencyIndexTests.suite());
+		suite.addTest(PluginModelSnapshotTests.suite());
+		suite.addTest(ExtensionsErrorReporterTests.suite());
+		suite.addTest(CompiledSchemaTests.suite());
+		suite.addTest(ManifestConsistencyCheckerTests.suite());
+		suite.addTest(BundleValidationOperationTests.suite());
+		suite.addTest(FeatureClosureTests.suite());
+		suite.addTest(FeatureTableTests.suite());
+		suite.addTest(PDEExtensionRegistryTests.suite());
+		suite.addTest(PluginSearchIndexTests.suite());
+		suite.addTest(SourceLocationManagerTests.suite());
+		suite.addTest(DependencyLoopFinderTests.suite());
 		suite.addTest(ClasspathResolverTest.suite());
 		suite.addTest(ClasspathContributorTest.suite());
 		return suite;
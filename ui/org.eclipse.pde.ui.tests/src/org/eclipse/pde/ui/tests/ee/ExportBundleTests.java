@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2015 IBM Corporation and others.
+ * Copyright (c) 2008, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,9 +10,11 @@
  *******************************************************************************/
 package org.eclipse.pde.ui.tests.ee;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import junit.framework.Test;
 import junit.framework.TestSuite;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.*;
@@ -245,4 +247,109 @@ public class ExportBundleTests extends PDETestCase {
 		}
 	}
 
+	/**
+	 * Exports a plug-in project twice using the export cache and validates that the
+	 * unchanged bundle is reused by the second export.
+	 *
+	 * @throws Exception
+	 */
+	public void testExportReusesCachedBundle() throws Exception {
+		try {
+			IExecutionEnvironment env = JavaRuntime.getExecutionEnvironmentsManager().getEnvironment("J2SE-1.5");
+			IJavaProject project = ProjectUtils.createPluginProject("cached.export", env);
+			assertTrue("Project was not created", project.exists());
+
+			final FeatureExportInfo info = new FeatureExportInfo();
+			info.toDirectory = true;
+			info.useJarFormat = true;
+			info.exportSource = false;
+			info.allowBinaryCycles = false;
+			info.useWorkspaceCompiledClasses = false;
+			info.useExportCache = true;
+			info.destinationDirectory = EXPORT_PATH.toOSString();
+			info.zipFileName = null;
+			info.items = new Object[]{PluginRegistry.findModel(project.getProject())};
+			info.signingInfo = null;
+			info.qualifier = "vXYZ";
+
+			PluginExportOperation job = new PluginExportOperation(info, "Test-Export");
+			job.schedule();
+			job.join();
+			assertFalse("Export job had ant errors", job.hasAntErrors());
+			assertTrue("Export job had errors", job.getResult().isOK());
+			assertEquals("Bundle should be built", 1, job.getRebuiltBundles().size());
+
+			IPath path = EXPORT_PATH.append("plugins/cached.export_1.0.0.jar");
+			assertTrue("Missing exported bundle", path.toFile().exists());
+			deleteFolder(EXPORT_PATH.toFile());
+
+			job = new PluginExportOperation(info, "Test-Export");
+			job.schedule();
+			job.join();
+			assertFalse("Export job had ant errors", job.hasAntErrors());
+			assertTrue("Export job had errors", job.getResult().isOK());
+			assertEquals("Bundle should be reused", 1, job.getReusedBundles().size());
+			assertTrue("Bundle should not be built", job.getRebuiltBundles().isEmpty());
+
+			assertTrue("Missing exported bundle", path.toFile().exists());
+			validateTargetLevel(path.toOSString(), "cached/export/Activator.class", 49);
+		} finally {
+			deleteProject("cached.export");
+			deleteFolder(EXPORT_PATH.toFile());
+		}
+	}
+
+	/**
+	 * Exports a plug-in project using the export cache, modifies its source and
+	 * validates that the second export builds the bundle again.
+	 *
+	 * @throws Exception
+	 */
+	public void testExportRebuildsModifiedBundle() throws Exception {
+		try {
+			IExecutionEnvironment env = JavaRuntime.getExecutionEnvironmentsManager().getEnvironment("J2SE-1.5");
+			IJavaProject project = ProjectUtils.createPluginProject("modified.export", env);
+			assertTrue("Project was not created", project.exists());
+
+			final FeatureExportInfo info = new FeatureExportInfo();
+			info.toDirectory = true;
+			info.useJarFormat = true;
+			info.exportSource = false;
+			info.allowBinaryCycles = false;
+			info.useWorkspaceCompiledClasses = false;
+			info.useExportCache = true;
+			info.destinationDirectory = EXPORT_PATH.toOSString();
+			info.zipFileName = null;
+			info.items = new Object[]{PluginRegistry.findModel(project.getProject())};
+			info.signingInfo = null;
+			info.qualifier = "vXYZ";
+
+			PluginExportOperation job = new PluginExportOperation(info, "Test-Export");
+			job.schedule();
+			job.join();
+			assertFalse("Export job had ant errors", job.hasAntErrors());
+			assertTrue("Export job had errors", job.getResult().isOK());
+			assertEquals("Bundle should be built", 1, job.getRebuiltBundles().size());
+			deleteFolder(EXPORT_PATH.toFile());
+
+			IFile activator = project.getProject().getFile(ProjectUtils.SRC_FOLDER + "/modified/export/Activator.java");
+			assertTrue("Missing activator", activator.exists());
+			activator.appendContents(new ByteArrayInputStream("// modified\n".getBytes()), true, false, null);
+
+			job = new PluginExportOperation(info, "Test-Export");
+			job.schedule();
+			job.join();
+			assertFalse("Export job had ant errors", job.hasAntErrors());
+			assertTrue("Export job had errors", job.getResult().isOK());
+			assertTrue("Bundle should not be reused", job.getReusedBundles().isEmpty());
+			assertEquals("Bundle should be built", 1, job.getRebuiltBundles().size());
+
+			IPath path = EXPORT_PATH.append("plugins/modified.export_1.0.0.jar");
+			assertTrue("Missing exported bundle", path.toFile().exists());
+		} finally {
+			deleteProject("modified.export");
+			deleteFolder(EXPORT_PATH.toFile());
+		}
+	}
+
 }
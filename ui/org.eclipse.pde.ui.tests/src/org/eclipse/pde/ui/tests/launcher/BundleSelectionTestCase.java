@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.launcher;
+
+import java.util.*;
+import junit.framework.*;
+import org.eclipse.debug.core.*;
+import org.eclipse.pde.core.plugin.IPluginModelBase;
+import org.eclipse.pde.internal.launching.launcher.BundleSelection;
+import org.eclipse.pde.launching.IPDELauncherConstants;
+
+/**
+ * Tests the parsing of the bundle selections of a launch configuration and
+ * the invalidation of the parsed selections
+ */
+public class BundleSelectionTestCase extends TestCase {
+
+	private static final String NAME = "BundleSelectionTestCase";
+
+	private static final String SELECTION = "sel.a*1.0.0@2:true,sel.b";
+
+	public static Test suite() {
+		return new TestSuite(BundleSelectionTestCase.class);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (ILaunchConfiguration configuration : getLaunchManager().getLaunchConfigurations()) {
+			if (configuration.getName().equals(NAME))
+				configuration.delete();
+		}
+	}
+
+	private static ILaunchManager getLaunchManager() {
+		return DebugPlugin.getDefault().getLaunchManager();
+	}
+
+	private static ILaunchConfiguration createConfiguration() throws Exception {
+		ILaunchConfigurationType type = getLaunchManager().getLaunchConfigurationType(IPDELauncherConstants.ECLIPSE_APPLICATION_LAUNCH_CONFIGURATION_TYPE);
+		ILaunchConfigurationWorkingCopy workingCopy = type.newInstance(null, NAME);
+		workingCopy.setAttribute(IPDELauncherConstants.SELECTED_TARGET_PLUGINS, SELECTION);
+		Set<String> additional = new HashSet<>();
+		additional.add("org.eclipse.pde.core:0.0.0:default:true");
+		additional.add("sel.missing:1.0.0:external:false");
+		additional.add("sel.broken");
+		workingCopy.setAttribute(IPDELauncherConstants.ADDITIONAL_PLUGINS, additional);
+		workingCopy.setAttribute(IPDELauncherConstants.LOCATION, "/tmp/selection");
+		return workingCopy.doSave();
+	}
+
+	private static BundleSelection getSelection(ILaunchConfiguration configuration) throws Exception {
+		return BundleSelection.get(configuration, IPDELauncherConstants.SELECTED_TARGET_PLUGINS);
+	}
+
+	private static BundleSelection.Entry findEntry(BundleSelection selection, String id) {
+		for (BundleSelection.Entry entry : selection.getEntries()) {
+			if (entry.getId().equals(id))
+				return entry;
+		}
+		return null;
+	}
+
+	public void testParseSelection() throws Exception {
+		BundleSelection.Entry[] entries = getSelection(createConfiguration()).getEntries();
+		assertEquals(2, entries.length);
+		assertEquals("sel.a", entries[0].getId());
+		assertEquals("1.0.0", entries[0].getVersion());
+		assertEquals("2:true", entries[0].getStartData());
+		assertNull(entries[0].getLocation());
+		assertTrue(entries[0].isEnabled());
+		assertEquals("sel.b", entries[1].getId());
+		assertNull(entries[1].getVersion());
+		assertEquals("default:default", entries[1].getStartData());
+	}
+
+	public void testParseAdditionalPlugins() throws Exception {
+		BundleSelection selection = BundleSelection.getAdditionalPlugins(createConfiguration());
+		// malformed entries are skipped
+		assertEquals(2, selection.getEntries().length);
+
+		BundleSelection.Entry core = findEntry(selection, "org.eclipse.pde.core");
+		assertNotNull(core);
+		assertEquals("0.0.0", core.getVersion());
+		assertEquals(IPDELauncherConstants.LOCATION_DEFAULT, core.getLocation());
+		assertTrue(core.isEnabled());
+		IPluginModelBase model = selection.getMatch(core, IPDELauncherConstants.LOCATION_EXTERNAL);
+		assertNotNull(model);
+		assertEquals("org.eclipse.pde.core", model.getPluginBase().getId());
+		assertSame(model, selection.getMatch(core, IPDELauncherConstants.LOCATION_EXTERNAL));
+
+		BundleSelection.Entry missing = findEntry(selection, "sel.missing");
+		assertNotNull(missing);
+		assertEquals(IPDELauncherConstants.LOCATION_EXTERNAL, missing.getLocation());
+		assertFalse(missing.isEnabled());
+		assertNull(selection.getMatch(missing, IPDELauncherConstants.LOCATION_WORKSPACE));
+	}
+
+	public void testWorkingCopyChange() throws Exception {
+		ILaunchConfiguration configuration = createConfiguration();
+		BundleSelection selection = getSelection(configuration);
+		assertSame(selection, getSelection(configuration));
+
+		ILaunchConfigurationWorkingCopy workingCopy = configuration.getWorkingCopy();
+		// an unchanged working copy shares the parsed selection
+		assertSame(selection, getSelection(workingCopy));
+
+		workingCopy.setAttribute(IPDELauncherConstants.SELECTED_TARGET_PLUGINS, "sel.c");
+		BundleSelection changed = getSelection(workingCopy);
+		assertNotSame(selection, changed);
+		assertEquals(1, changed.getEntries().length);
+		assertEquals("sel.c", changed.getEntries()[0].getId());
+
+		// the saved configuration still sees its own value
+		assertEquals(2, getSelection(configuration).getEntries().length);
+		assertEquals(1, getSelection(workingCopy).getEntries().length);
+	}
+
+	public void testSaveAndDelete() throws Exception {
+		ILaunchConfiguration configuration = createConfiguration();
+		BundleSelection selection = getSelection(configuration);
+		BundleSelection additional = BundleSelection.getAdditionalPlugins(configuration);
+
+		ILaunchConfigurationWorkingCopy workingCopy = configuration.getWorkingCopy();
+		workingCopy.setAttribute(IPDELauncherConstants.LOCATION, "/tmp/other");
+		configuration = workingCopy.doSave();
+		// the selections are unchanged, but the saved configuration drops them
+		assertNotSame(selection, getSelection(configuration));
+		assertNotSame(additional, BundleSelection.getAdditionalPlugins(configuration));
+
+		selection = getSelection(configuration);
+		configuration.delete();
+		configuration = createConfiguration();
+		assertNotSame(selection, getSelection(configuration));
+	}
+}
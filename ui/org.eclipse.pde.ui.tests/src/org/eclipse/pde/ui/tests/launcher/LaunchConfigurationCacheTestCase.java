@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.launcher;
+
+import java.util.*;
+import junit.framework.*;
+import org.eclipse.debug.core.*;
+import org.eclipse.pde.core.plugin.IPluginModelBase;
+import org.eclipse.pde.core.plugin.PluginRegistry;
+import org.eclipse.pde.internal.launching.launcher.LaunchConfigurationCache;
+import org.eclipse.pde.launching.IPDELauncherConstants;
+
+/**
+ * Tests that the bundle maps and config.ini properties cached for a launch
+ * configuration are dropped when the configuration is saved or deleted
+ */
+public class LaunchConfigurationCacheTestCase extends TestCase {
+
+	private static final String NAME = "LaunchConfigurationCacheTestCase";
+
+	public static Test suite() {
+		return new TestSuite(LaunchConfigurationCacheTestCase.class);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		for (ILaunchConfiguration configuration : getLaunchManager().getLaunchConfigurations()) {
+			if (configuration.getName().equals(NAME))
+				configuration.delete();
+		}
+	}
+
+	private static ILaunchManager getLaunchManager() {
+		return DebugPlugin.getDefault().getLaunchManager();
+	}
+
+	private static ILaunchConfiguration createConfiguration() throws Exception {
+		ILaunchConfigurationType type = getLaunchManager().getLaunchConfigurationType(IPDELauncherConstants.ECLIPSE_APPLICATION_LAUNCH_CONFIGURATION_TYPE);
+		ILaunchConfigurationWorkingCopy workingCopy = type.newInstance(null, NAME);
+		workingCopy.setAttribute(IPDELauncherConstants.LOCATION, "/tmp/cache");
+		return workingCopy.doSave();
+	}
+
+	private static Map<IPluginModelBase, String> getBundles() {
+		IPluginModelBase model = PluginRegistry.findModel("org.eclipse.pde.core");
+		assertNotNull(model);
+		return Collections.singletonMap(model, "default:default");
+	}
+
+	private static void cache(ILaunchConfiguration configuration) throws Exception {
+		LaunchConfigurationCache.putBundleMap(configuration, false, getBundles());
+		LaunchConfigurationCache.putConfigIni(configuration, null, getBundles(), new Properties());
+		assertCached(configuration, true);
+	}
+
+	private static void assertCached(ILaunchConfiguration configuration, boolean cached) throws Exception {
+		assertEquals(cached, LaunchConfigurationCache.getBundleMap(configuration, false) != null);
+		assertEquals(cached, LaunchConfigurationCache.getConfigIni(configuration, null, getBundles()) != null);
+	}
+
+	public void testUnchangedConfiguration() throws Exception {
+		ILaunchConfiguration configuration = createConfiguration();
+		cache(configuration);
+		assertEquals(getBundles(), LaunchConfigurationCache.getBundleMap(configuration, false));
+		// the maps of OSGi framework launches are cached separately
+		assertNull(LaunchConfigurationCache.getBundleMap(configuration, true));
+	}
+
+	public void testWorkingCopySave() throws Exception {
+		ILaunchConfiguration configuration = createConfiguration();
+		cache(configuration);
+
+		ILaunchConfigurationWorkingCopy workingCopy = configuration.getWorkingCopy();
+		workingCopy.setAttribute(IPDELauncherConstants.LOCATION, "/tmp/other");
+		// the unsaved working copy does not change the cached entries
+		assertCached(configuration, true);
+		configuration = workingCopy.doSave();
+		assertCached(configuration, false);
+
+		cache(configuration);
+		workingCopy = configuration.getWorkingCopy();
+		workingCopy.setAttribute(IPDELauncherConstants.LOCATION, "/tmp/cache");
+		workingCopy.doSave();
+		workingCopy = configuration.getWorkingCopy();
+		workingCopy.setAttribute(IPDELauncherConstants.LOCATION, "/tmp/other");
+		configuration = workingCopy.doSave();
+		// the attributes are the cached ones again, but the entries were dropped on save
+		assertCached(configuration, false);
+	}
+
+	public void testDeletion() throws Exception {
+		ILaunchConfiguration configuration = createConfiguration();
+		cache(configuration);
+
+		configuration.delete();
+		// a new configuration with the same name and attributes does not see the entries
+		configuration = createConfiguration();
+		assertCached(configuration, false);
+	}
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ *  Copyright (c) 2017 IBM Corporation and others.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.model.build;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.*;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.pde.core.IModelChangedEvent;
+import org.eclipse.pde.core.IModelChangedListener;
+import org.eclipse.pde.core.build.IBuildEntry;
+import org.eclipse.pde.internal.core.text.IDocumentKey;
+import org.eclipse.pde.internal.core.text.build.BuildModel;
+import org.eclipse.pde.internal.core.text.build.PropertiesTextChangeListener;
+
+/**
+ * Tests that a reconciling build model is updated in place when its document
+ * is edited.
+ */
+public class BuildReconcileTestCase extends TestCase implements IModelChangedListener {
+
+	private Document fDocument;
+	private BuildModel fModel;
+	private PropertiesTextChangeListener fListener;
+	private List<IModelChangedEvent> fEvents = new ArrayList<>();
+
+	public static Test suite() {
+		return new TestSuite(BuildReconcileTestCase.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append("source.. = src/\n");
+		buffer.append("output.. = bin/\n");
+		buffer.append("bin.includes = META-INF/,\\\n");
+		buffer.append("               .\n");
+		fDocument = new Document(buffer.toString());
+
+		fModel = new BuildModel(fDocument, true);
+		fModel.load();
+		assertTrue(fModel.isLoaded());
+		fListener = new PropertiesTextChangeListener(fDocument);
+		fModel.addModelChangedListener(fListener);
+		fModel.addModelChangedListener(this);
+	}
+
+	@Override
+	public void modelChanged(IModelChangedEvent event) {
+		fEvents.add(event);
+	}
+
+	private void replace(String text, String replacement) throws Exception {
+		String content = fDocument.get();
+		int offset = content.indexOf(text);
+		assertTrue(offset != -1);
+		fDocument.replace(offset, text.length(), replacement);
+		fModel.reconciled(fDocument);
+	}
+
+	private void assertClean() {
+		assertFalse(fModel.isDirty());
+		assertEquals(0, fListener.getTextOperations().length);
+	}
+
+	public void testAddedToken() throws Exception {
+		IBuildEntry source = fModel.getBuild().getEntry("source..");
+		IBuildEntry includes = fModel.getBuild().getEntry("bin.includes");
+
+		replace("               .\n", "               .,\\\n               plugin.xml\n");
+
+		assertClean();
+		assertSame(source, fModel.getBuild().getEntry("source.."));
+		assertSame(includes, fModel.getBuild().getEntry("bin.includes"));
+		assertEquals(3, includes.getTokens().length);
+		assertTrue(includes.contains("plugin.xml"));
+
+		assertEquals(1, fEvents.size());
+		IModelChangedEvent event = fEvents.get(0);
+		assertSame(includes, event.getChangedObjects()[0]);
+		assertNull(event.getOldValue());
+		assertEquals("plugin.xml", event.getNewValue());
+	}
+
+	public void testRemovedToken() throws Exception {
+		IBuildEntry includes = fModel.getBuild().getEntry("bin.includes");
+
+		replace("META-INF/,\\\n               .\n", "META-INF/\n");
+
+		assertClean();
+		assertSame(includes, fModel.getBuild().getEntry("bin.includes"));
+		assertEquals(1, includes.getTokens().length);
+
+		assertEquals(1, fEvents.size());
+		assertEquals(".", fEvents.get(0).getOldValue());
+		assertNull(fEvents.get(0).getNewValue());
+	}
+
+	public void testAddedAndRemovedEntry() throws Exception {
+		IBuildEntry source = fModel.getBuild().getEntry("source..");
+
+		replace("output.. = bin/\n", "jars.compile.order = .\n");
+
+		assertClean();
+		assertSame(source, fModel.getBuild().getEntry("source.."));
+		assertNull(fModel.getBuild().getEntry("output.."));
+		IBuildEntry order = fModel.getBuild().getEntry("jars.compile.order");
+		assertNotNull(order);
+		// the offsets of the entries are updated
+		assertEquals(fDocument.getLineOffset(1), ((IDocumentKey) order).getOffset());
+
+		assertEquals(2, fEvents.size());
+		assertEquals(IModelChangedEvent.REMOVE, fEvents.get(0).getChangeType());
+		assertEquals(IModelChangedEvent.INSERT, fEvents.get(1).getChangeType());
+		assertSame(order, fEvents.get(1).getChangedObjects()[0]);
+	}
+
+	public void testUnchangedEntries() throws Exception {
+		IBuildEntry includes = fModel.getBuild().getEntry("bin.includes");
+
+		// same tokens, different formatting
+		replace("META-INF/,\\\n               .\n", "META-INF/, .\n");
+
+		assertClean();
+		assertEquals(0, fEvents.size());
+		assertSame(includes, fModel.getBuild().getEntry("bin.includes"));
+	}
+}
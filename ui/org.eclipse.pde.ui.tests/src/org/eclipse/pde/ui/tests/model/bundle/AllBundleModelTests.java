@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2005, 2015 IBM Corporation and others.
+ *  Copyright (c) 2005, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -30,6 +30,7 @@ public class AllBundleModelTests {
 		suite.addTest(BundleVendorTestCase.suite());
 		suite.addTest(BundleVersionTestCase.suite());
 		suite.addTest(FragmentHostTestCase.suite());
+		suite.addTest(BundleReconcileTestCase.suite());
 		return suite;
 	}
 
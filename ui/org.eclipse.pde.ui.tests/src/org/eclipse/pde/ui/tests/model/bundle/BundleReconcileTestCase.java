@@ -0,0 +1,164 @@
+/*******************************************************************************
+ *  Copyright (c) 2017 IBM Corporation and others.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.model.bundle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.*;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.pde.core.IModelChangedEvent;
+import org.eclipse.pde.core.IModelChangedListener;
+import org.eclipse.pde.core.plugin.IPluginObject;
+import org.eclipse.pde.internal.core.bundle.BundlePluginModel;
+import org.eclipse.pde.internal.core.ibundle.IManifestHeader;
+import org.eclipse.pde.internal.core.text.bundle.BundleModel;
+import org.eclipse.pde.internal.core.text.bundle.BundleTextChangeListener;
+import org.osgi.framework.Constants;
+
+/**
+ * Tests that a reconciling bundle model is updated in place when its document
+ * is edited.
+ */
+public class BundleReconcileTestCase extends TestCase implements IModelChangedListener {
+
+	private Document fDocument;
+	private BundleModel fModel;
+	private BundleTextChangeListener fListener;
+	private List<IModelChangedEvent> fEvents = new ArrayList<>();
+
+	public static Test suite() {
+		return new TestSuite(BundleReconcileTestCase.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append("Manifest-Version: 1.0\n");
+		buffer.append("Bundle-ManifestVersion: 2\n");
+		buffer.append("Bundle-SymbolicName: com.example.xyz\n");
+		buffer.append("Bundle-Name: Old Name\n");
+		buffer.append("Bundle-Vendor: Example\n");
+		fDocument = new Document(buffer.toString());
+
+		fModel = new BundleModel(fDocument, true);
+		fModel.load();
+		assertTrue(fModel.isLoaded());
+		fListener = new BundleTextChangeListener(fDocument);
+		fModel.addModelChangedListener(fListener);
+		fModel.addModelChangedListener(this);
+	}
+
+	@Override
+	public void modelChanged(IModelChangedEvent event) {
+		fEvents.add(event);
+	}
+
+	private void replace(String text, String replacement) throws Exception {
+		String content = fDocument.get();
+		int offset = content.indexOf(text);
+		assertTrue(offset != -1);
+		fDocument.replace(offset, text.length(), replacement);
+		fModel.reconciled(fDocument);
+	}
+
+	private void assertClean() {
+		assertFalse(fModel.isDirty());
+		assertEquals(0, fListener.getTextOperations().length);
+	}
+
+	public void testChangedHeader() throws Exception {
+		IManifestHeader name = fModel.getBundle().getManifestHeader(Constants.BUNDLE_NAME);
+		IManifestHeader vendor = fModel.getBundle().getManifestHeader(Constants.BUNDLE_VENDOR);
+		IManifestHeader symbolicName = fModel.getBundle().getManifestHeader(Constants.BUNDLE_SYMBOLICNAME);
+
+		replace("Old Name", "New Name");
+
+		assertClean();
+		assertSame(name, fModel.getBundle().getManifestHeader(Constants.BUNDLE_NAME));
+		assertSame(vendor, fModel.getBundle().getManifestHeader(Constants.BUNDLE_VENDOR));
+		assertSame(symbolicName, fModel.getBundle().getManifestHeader(Constants.BUNDLE_SYMBOLICNAME));
+		assertEquals("New Name", name.getValue());
+
+		assertEquals(1, fEvents.size());
+		IModelChangedEvent event = fEvents.get(0);
+		assertEquals(IModelChangedEvent.CHANGE, event.getChangeType());
+		assertEquals(Constants.BUNDLE_NAME, event.getChangedProperty());
+		assertSame(name, event.getChangedObjects()[0]);
+	}
+
+	public void testAddedHeader() throws Exception {
+		IManifestHeader name = fModel.getBundle().getManifestHeader(Constants.BUNDLE_NAME);
+
+		replace("Bundle-Vendor: Example\n", "Bundle-Vendor: Example\nBundle-Version: 1.0.0\n");
+
+		assertClean();
+		assertSame(name, fModel.getBundle().getManifestHeader(Constants.BUNDLE_NAME));
+		IManifestHeader version = fModel.getBundle().getManifestHeader(Constants.BUNDLE_VERSION);
+		assertNotNull(version);
+		assertEquals("1.0.0", version.getValue());
+		assertEquals(fDocument.getLineOffset(5), version.getOffset());
+
+		assertEquals(1, fEvents.size());
+		assertEquals(Constants.BUNDLE_VERSION, fEvents.get(0).getChangedProperty());
+		assertNull(fEvents.get(0).getOldValue());
+	}
+
+	public void testRemovedHeader() throws Exception {
+		IManifestHeader vendor = fModel.getBundle().getManifestHeader(Constants.BUNDLE_VENDOR);
+
+		replace("Bundle-Name: Old Name\n", "");
+
+		assertClean();
+		assertNull(fModel.getBundle().getManifestHeader(Constants.BUNDLE_NAME));
+		assertSame(vendor, fModel.getBundle().getManifestHeader(Constants.BUNDLE_VENDOR));
+		// the offsets of the following headers are updated
+		assertEquals(fDocument.getLineOffset(3), vendor.getOffset());
+
+		assertEquals(1, fEvents.size());
+		assertEquals(Constants.BUNDLE_NAME, fEvents.get(0).getChangedProperty());
+		assertNull(fEvents.get(0).getNewValue());
+	}
+
+	public void testMovedHeader() throws Exception {
+		IManifestHeader vendor = fModel.getBundle().getManifestHeader(Constants.BUNDLE_VENDOR);
+
+		// the header values stay the same
+		replace("Bundle-Name: Old Name\nBundle-Vendor: Example\n", "Bundle-Vendor: Example\nBundle-Name: Old Name\n");
+
+		assertClean();
+		assertEquals(0, fEvents.size());
+		assertSame(vendor, fModel.getBundle().getManifestHeader(Constants.BUNDLE_VENDOR));
+		assertEquals(fDocument.getLineOffset(3), vendor.getOffset());
+	}
+
+	public void testChangeForwardedToPluginModel() throws Exception {
+		BundlePluginModel pluginModel = new BundlePluginModel();
+		pluginModel.setBundleModel(fModel);
+		pluginModel.getPluginBase();
+		final List<IModelChangedEvent> events = new ArrayList<>();
+		pluginModel.addModelChangedListener(new IModelChangedListener() {
+			@Override
+			public void modelChanged(IModelChangedEvent event) {
+				events.add(event);
+			}
+		});
+
+		replace("Old Name", "New Name");
+
+		assertClean();
+		assertEquals(1, events.size());
+		assertEquals(IPluginObject.P_NAME, events.get(0).getChangedProperty());
+		assertSame(pluginModel.getPluginBase(), events.get(0).getChangedObjects()[0]);
+		assertEquals("New Name", pluginModel.getPluginBase().getName());
+	}
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import java.util.*;
+import junit.framework.*;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.osgi.service.resolver.*;
+import org.eclipse.pde.internal.core.BundleDependencyIndex;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+
+/**
+ * Tests the forward and reverse dependency graph maintained for a resolver state
+ */
+public class BundleDependencyIndexTests extends TestCase {
+
+	private StateObjectFactory fFactory;
+	private State fState;
+	private BundleDependencyIndex fIndex;
+
+	public static Test suite() {
+		return new TestSuite(BundleDependencyIndexTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fFactory = Platform.getPlatformAdmin().getFactory();
+		fState = fFactory.createState(true);
+		fIndex = new BundleDependencyIndex();
+	}
+
+	private BundleDescription addBundle(long id, String name, String header, String value) throws BundleException {
+		Dictionary<String, String> manifest = new Hashtable<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, name);
+		manifest.put(Constants.BUNDLE_VERSION, "1.0.0");
+		if (header != null) {
+			manifest.put(header, value);
+		}
+		BundleDescription desc = fFactory.createBundleDescription(fState, manifest, name, id);
+		fState.addBundle(desc);
+		return desc;
+	}
+
+	private void assertBundles(Collection<BundleDescription> actual, String... expected) {
+		Set<String> names = new HashSet<>();
+		for (BundleDescription desc : actual) {
+			names.add(desc.getSymbolicName());
+		}
+		assertEquals(new HashSet<>(Arrays.asList(expected)), names);
+	}
+
+	public void testRequireImportAndHost() throws Exception {
+		addBundle(1, "a", Constants.EXPORT_PACKAGE, "a.pkg");
+		addBundle(2, "b", Constants.REQUIRE_BUNDLE, "a");
+		addBundle(3, "c", Constants.IMPORT_PACKAGE, "a.pkg");
+		addBundle(4, "b.fragment", Constants.FRAGMENT_HOST, "b");
+		fState.resolve(false);
+		fIndex.reset(fState);
+
+		BundleDescription a = fState.getBundle(1);
+		BundleDescription b = fState.getBundle(2);
+		assertBundles(Arrays.asList(fIndex.getDependents(a)), "b", "c");
+		assertBundles(Arrays.asList(fIndex.getDependents(b)), "b.fragment");
+		assertBundles(Arrays.asList(fIndex.getDependencies(fState.getBundle(3))), "a");
+		assertBundles(fIndex.getTransitiveDependents(Collections.singleton(a)), "b", "c", "b.fragment");
+		assertBundles(fIndex.getTransitiveDependencies(Collections.singleton(fState.getBundle(4))), "a", "b");
+	}
+
+	public void testIncrementalUpdate() throws Exception {
+		addBundle(1, "a", null, null);
+		addBundle(2, "b", Constants.REQUIRE_BUNDLE, "a");
+		fState.resolve(false);
+		fIndex.reset(fState);
+		BundleDescription a = fState.getBundle(1);
+		assertBundles(fIndex.getTransitiveDependents(Collections.singleton(a)), "b");
+
+		addBundle(3, "c", Constants.REQUIRE_BUNDLE, "b");
+		fIndex.update(fState.resolve(true));
+		assertBundles(fIndex.getTransitiveDependents(Collections.singleton(a)), "b", "c");
+
+		fState.removeBundle(2);
+		fIndex.update(fState.resolve(true));
+		assertBundles(fIndex.getTransitiveDependents(Collections.singleton(a)));
+		assertBundles(Arrays.asList(fIndex.getDependencies(fState.getBundle(3))));
+	}
+
+	public void testOtherStateNotIndexed() throws Exception {
+		BundleDescription a = addBundle(1, "a", null, null);
+		fState.resolve(false);
+		fIndex.reset(fFactory.createState(true));
+		assertFalse(fIndex.isIndexed(a));
+		assertEquals(0, fIndex.getDependents(a).length);
+	}
+}
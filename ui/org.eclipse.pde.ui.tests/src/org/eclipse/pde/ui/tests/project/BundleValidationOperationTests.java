@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import java.util.Dictionary;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.eclipse.osgi.service.resolver.BundleDescription;
+import org.eclipse.osgi.service.resolver.State;
+import org.eclipse.pde.core.plugin.IPluginModelBase;
+import org.eclipse.pde.core.plugin.PluginRegistry;
+import org.eclipse.pde.internal.core.*;
+import org.eclipse.pde.ui.tests.PDETestCase;
+import org.eclipse.pde.ui.tests.util.ProjectUtils;
+
+/**
+ * Tests the validation states that are cached between validations with the
+ * same cache key
+ */
+public class BundleValidationOperationTests extends PDETestCase {
+
+	public static Test suite() {
+		return new TestSuite(BundleValidationOperationTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		ProjectUtils.createBundleProject("validation.a", "validation.b", null);
+		ProjectUtils.createBundleProject("validation.b", null, null);
+	}
+
+	private static IPluginModelBase[] findModels(String... ids) {
+		IPluginModelBase[] models = new IPluginModelBase[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			models[i] = PluginRegistry.findModel(ids[i]);
+			assertNotNull(ids[i], models[i]);
+		}
+		return models;
+	}
+
+	private BundleValidationOperation validate(Dictionary<?, ?> properties, String... ids) throws Exception {
+		BundleValidationOperation operation = new BundleValidationOperation(findModels(ids), new Dictionary[] {properties}, getName());
+		operation.run(null);
+		return operation;
+	}
+
+	private BundleValidationOperation validate(String... ids) throws Exception {
+		return validate(TargetPlatformHelper.getTargetEnvironment(), ids);
+	}
+
+	public void testUnchangedBundles() throws Exception {
+		BundleValidationOperation first = validate("validation.a", "validation.b");
+		assertFalse(first.hasErrors());
+		long timeStamp = first.getState().getTimeStamp();
+
+		BundleValidationOperation second = validate("validation.a", "validation.b");
+		assertSame(first.getState(), second.getState());
+		assertEquals(timeStamp, second.getState().getTimeStamp());
+		assertFalse(second.hasErrors());
+	}
+
+	public void testChangedBundle() throws Exception {
+		BundleValidationOperation first = validate("validation.a", "validation.b");
+		assertFalse(first.hasErrors());
+
+		ProjectUtils.createBundleProject("validation.a", "validation.b,validation.missing", null);
+		BundleValidationOperation second = validate("validation.a", "validation.b");
+		assertSame(first.getState(), second.getState());
+		assertTrue(second.hasErrors());
+		BundleDescription bundle = second.getState().getBundle("validation.a", null);
+		assertNotNull(bundle);
+		assertFalse(bundle.isResolved());
+		assertTrue(second.getResolverErrors().containsKey(bundle));
+		assertEquals(2, second.getState().getBundles().length);
+	}
+
+	public void testRemovedBundle() throws Exception {
+		BundleValidationOperation first = validate("validation.a", "validation.b");
+		assertFalse(first.hasErrors());
+
+		BundleValidationOperation second = validate("validation.a");
+		assertNull(second.getState().getBundle("validation.b", null));
+		assertTrue(second.hasErrors());
+
+		BundleValidationOperation third = validate("validation.b");
+		assertNull(third.getState().getBundle("validation.a", null));
+		assertFalse(third.hasErrors());
+
+		BundleValidationOperation fourth = validate("validation.a", "validation.b");
+		assertEquals(2, fourth.getState().getBundles().length);
+		assertFalse(fourth.hasErrors());
+	}
+
+	public void testExecutionEnvironmentChange() throws Exception {
+		Dictionary<String, String> other = TargetPlatformHelper.getTargetEnvironment();
+		other.put(ICoreConstants.OSGI_OS, "validation.os");
+
+		State first = validate("validation.a", "validation.b").getState();
+		State second = validate(other, "validation.a", "validation.b").getState();
+		assertNotSame(first, second);
+		// one state is kept per platform properties
+		assertSame(first, validate("validation.a", "validation.b").getState());
+		assertSame(second, validate(other, "validation.a", "validation.b").getState());
+	}
+
+	public void testReadOnlyState() throws Exception {
+		State state = validate("validation.a", "validation.b").getState();
+		try {
+			state.removeBundle(state.getBundle("validation.b", null));
+			fail("cached states must not be modified");
+		} catch (UnsupportedOperationException e) {
+		}
+		assertNotNull(state.getBundle("validation.b", null));
+	}
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import org.eclipse.pde.internal.core.ischema.*;
+import org.eclipse.pde.internal.core.schema.*;
+
+/**
+ * Tests the validation data computed by {@link CompiledSchema} and its reuse
+ * by the {@link SchemaRegistry}
+ */
+public class CompiledSchemaTests extends TestCase {
+
+	private static final String SCHEMA = //
+	"<?xml version='1.0' encoding='UTF-8'?>\n" + //
+			"<schema targetNamespace=\"compiled.test\" xmlns=\"http://www.w3.org/2001/XMLSchema\">\n" + //
+			"   <annotation><appInfo><meta.schema plugin=\"compiled.test\" id=\"point\" name=\"Point\"/></appInfo></annotation>\n" + //
+			"   <element name=\"extension\">\n" + //
+			"      <complexType>\n" + //
+			"         <sequence><element ref=\"item\" minOccurs=\"0\" maxOccurs=\"unbounded\"/></sequence>\n" + //
+			"         <attribute name=\"point\" type=\"string\" use=\"required\"/>\n" + //
+			"      </complexType>\n" + //
+			"   </element>\n" + //
+			"   <element name=\"item\">\n" + //
+			"      <complexType>\n" + //
+			"         <attribute name=\"id\" type=\"string\" use=\"required\"/>\n" + //
+			"         <attribute name=\"class\" type=\"string\" use=\"required\">\n" + //
+			"            <annotation><appInfo><meta.attribute kind=\"java\"/></appInfo></annotation>\n" + //
+			"         </attribute>\n" + //
+			"         <attribute name=\"mode\">\n" + //
+			"            <simpleType><restriction base=\"string\">\n" + //
+			"               <enumeration value=\"fast\"/>\n" + //
+			"               <enumeration value=\"slow\"/>\n" + //
+			"            </restriction></simpleType>\n" + //
+			"         </attribute>\n" + //
+			"         <attribute name=\"enabled\" type=\"boolean\"/>\n" + //
+			"      </complexType>\n" + //
+			"   </element>\n" + //
+			"</schema>\n";
+
+	/**
+	 * Descriptor whose time stamp can be changed without reloading the schema
+	 */
+	private static class TestDescriptor extends SchemaDescriptor {
+		long fStamp = 1;
+
+		TestDescriptor(File file) {
+			super(file);
+		}
+
+		@Override
+		public long getLastModified() {
+			return fStamp;
+		}
+	}
+
+	private File fFile;
+	private SchemaRegistry fRegistry;
+
+	public static Test suite() {
+		return new TestSuite(CompiledSchemaTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fFile = File.createTempFile("compiled", ".exsd");
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(fFile), StandardCharsets.UTF_8)) {
+			writer.write(SCHEMA);
+		}
+		fRegistry = new SchemaRegistry();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		fRegistry.shutdown();
+		fFile.delete();
+	}
+
+	private static Set<String> getNames(CompiledSchema.Attribute[] attributes) {
+		Set<String> names = new TreeSet<>();
+		for (CompiledSchema.Attribute attribute : attributes) {
+			names.add(attribute.getName());
+		}
+		return names;
+	}
+
+	public void testRequiredAttributes() {
+		CompiledSchema schema = fRegistry.getCompiledSchema(new TestDescriptor(fFile).getSchema(false));
+		CompiledSchema.Element item = schema.findElement("item");
+		assertNotNull(item);
+		assertTrue(item.isComplex());
+		assertEquals(new TreeSet<>(Arrays.asList("class", "id")), getNames(item.getRequiredAttributes()));
+		assertEquals(IMetaAttribute.JAVA, item.getAttribute("class").getKind());
+		assertTrue(item.getAttribute("enabled").isBoolean());
+		assertNull(item.getAttribute("unknown"));
+
+		CompiledSchema.Element extension = schema.findElement("extension");
+		assertTrue(extension.allowsChild("item"));
+		assertFalse(extension.allowsChild("unknown"));
+		// java attributes may be given as child elements
+		assertTrue(item.allowsChild("class"));
+		assertNull(schema.findElement("unknown"));
+		assertSame(item, schema.findElement("item"));
+	}
+
+	public void testEnumeration() {
+		CompiledSchema schema = fRegistry.getCompiledSchema(new TestDescriptor(fFile).getSchema(false));
+		CompiledSchema.Attribute mode = schema.findElement("item").getAttribute("mode");
+		assertTrue(mode.isRestricted());
+		assertEquals(Arrays.asList("fast", "slow"), new ArrayList<>(mode.getEnumeration()));
+		assertTrue(mode.isAllowedValue("slow"));
+		assertFalse(mode.isAllowedValue("Slow"));
+
+		CompiledSchema.Attribute id = schema.findElement("item").getAttribute("id");
+		assertFalse(id.isRestricted());
+		assertNull(id.getEnumeration());
+		assertTrue(id.isAllowedValue("anything"));
+	}
+
+	public void testSchemaTimestamp() {
+		TestDescriptor descriptor = new TestDescriptor(fFile);
+		ISchema schema = descriptor.getSchema(false);
+		CompiledSchema compiled = fRegistry.getCompiledSchema(schema);
+		assertSame(compiled, fRegistry.getCompiledSchema(schema));
+
+		descriptor.fStamp++;
+		CompiledSchema recompiled = fRegistry.getCompiledSchema(schema);
+		assertNotSame(compiled, recompiled);
+		assertSame(recompiled, fRegistry.getCompiledSchema(schema));
+
+		// a schema reloaded from the same location is compiled again
+		ISchema reloaded = new TestDescriptor(fFile).getSchema(false);
+		assertNotSame(recompiled, fRegistry.getCompiledSchema(reloaded));
+		assertSame(reloaded, fRegistry.getCompiledSchema(reloaded).getSchema());
+	}
+}
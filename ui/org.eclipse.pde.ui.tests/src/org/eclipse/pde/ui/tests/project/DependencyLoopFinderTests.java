@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import java.util.*;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.eclipse.osgi.service.resolver.State;
+import org.eclipse.pde.core.plugin.*;
+import org.eclipse.pde.internal.core.PDECore;
+import org.eclipse.pde.internal.core.builders.DependencyLoop;
+import org.eclipse.pde.internal.core.builders.DependencyLoopFinder;
+import org.eclipse.pde.ui.tests.PDETestCase;
+import org.eclipse.pde.ui.tests.util.ProjectUtils;
+
+/**
+ * Tests the loops of required plug-ins found through a plug-in
+ */
+public class DependencyLoopFinderTests extends PDETestCase {
+
+	public static Test suite() {
+		return new TestSuite(DependencyLoopFinderTests.class);
+	}
+
+	private static void createPlugin(String id, String... requires) throws Exception {
+		StringBuffer requiredBundles = new StringBuffer();
+		for (String required : requires) {
+			if (requiredBundles.length() > 0)
+				requiredBundles.append(',');
+			requiredBundles.append(required);
+		}
+		ProjectUtils.createBundleProject(id, requires.length == 0 ? null : requiredBundles.toString(), null);
+	}
+
+	private static IPlugin findPlugin(String id) {
+		IPluginModelBase model = PluginRegistry.findModel(id);
+		if (model == null || !(model instanceof IPluginModel))
+			return null;
+		return (IPlugin) model.getPluginBase();
+	}
+
+	private static IPlugin[] findPlugins(String... ids) {
+		IPlugin[] plugins = new IPlugin[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			plugins[i] = findPlugin(ids[i]);
+			assertNotNull(ids[i], plugins[i]);
+		}
+		return plugins;
+	}
+
+	/**
+	 * Returns the loops found, as lists of plug-in ids
+	 */
+	private static List<List<String>> findLoops(String root, String[] candidates, boolean onlyCandidates) {
+		IPlugin[] candidatePlugins = candidates == null ? null : findPlugins(candidates);
+		DependencyLoop[] loops = DependencyLoopFinder.findLoops(findPlugin(root), candidatePlugins, onlyCandidates);
+		List<List<String>> result = new ArrayList<>();
+		for (DependencyLoop loop : loops) {
+			List<String> ids = new ArrayList<>();
+			for (IPluginBase member : loop.getMembers()) {
+				ids.add(member.getId());
+			}
+			result.add(ids);
+		}
+		return result;
+	}
+
+	private static void assertLoops(String root, String[] candidates, boolean onlyCandidates, String[]... expected) {
+		List<List<String>> expectedLoops = new ArrayList<>();
+		for (String[] loop : expected) {
+			expectedLoops.add(Arrays.asList(loop));
+		}
+		List<List<String>> loops = findLoops(root, candidates, onlyCandidates);
+		assertEquals(expectedLoops, loops);
+	}
+
+	private static void assertLoops(String root, String[]... expected) {
+		assertLoops(root, null, false, expected);
+	}
+
+	public void testNoLoop() throws Exception {
+		createPlugin("loop.a", "loop.b", "loop.c");
+		createPlugin("loop.b", "loop.c");
+		createPlugin("loop.c");
+
+		assertLoops("loop.a");
+		assertLoops("loop.b");
+		assertLoops("loop.c");
+	}
+
+	public void testSimpleLoop() throws Exception {
+		createPlugin("loop.a", "loop.b");
+		createPlugin("loop.b", "loop.c");
+		createPlugin("loop.c", "loop.a");
+		createPlugin("loop.d", "loop.a");
+
+		assertLoops("loop.a", new String[] {"loop.a", "loop.b", "loop.c"});
+		assertLoops("loop.c", new String[] {"loop.c", "loop.a", "loop.b"});
+		// requiring a loop does not make a plug-in part of it
+		assertLoops("loop.d");
+	}
+
+	public void testNestedLoops() throws Exception {
+		createPlugin("loop.a", "loop.b", "loop.d");
+		createPlugin("loop.b", "loop.a", "loop.c");
+		createPlugin("loop.c", "loop.a", "loop.d");
+		// local loop that does not go through loop.a
+		createPlugin("loop.d", "loop.e");
+		createPlugin("loop.e", "loop.d");
+
+		assertLoops("loop.a", new String[] {"loop.a", "loop.b"}, new String[] {"loop.a", "loop.b", "loop.c"});
+		assertLoops("loop.b", new String[] {"loop.b", "loop.a"}, new String[] {"loop.b", "loop.c", "loop.a"});
+		assertLoops("loop.d", new String[] {"loop.d", "loop.e"});
+	}
+
+	public void testSelfReference() throws Exception {
+		createPlugin("loop.a", "loop.a", "loop.b");
+		createPlugin("loop.b");
+
+		assertLoops("loop.a", new String[] {"loop.a"});
+		assertLoops("loop.b");
+	}
+
+	public void testCandidates() throws Exception {
+		createPlugin("loop.a", "loop.d");
+		createPlugin("loop.b", "loop.c");
+		createPlugin("loop.c", "loop.a");
+		createPlugin("loop.d");
+
+		// loops created by adding the candidates to the required plug-ins
+		assertLoops("loop.a", new String[] {"loop.b"}, false, new String[] {"loop.a", "loop.b", "loop.c"});
+		assertLoops("loop.a", new String[] {"loop.b", "loop.d"}, true, new String[] {"loop.a", "loop.b", "loop.c"});
+		assertLoops("loop.a", new String[] {"loop.d"}, true);
+		// the loop continues through the plug-ins required by loop.a
+		assertLoops("loop.d", new String[] {"loop.c"}, true, new String[] {"loop.d", "loop.c", "loop.a"});
+	}
+
+	public void testManifestChange() throws Exception {
+		createPlugin("loop.a", "loop.b");
+		createPlugin("loop.b");
+		assertLoops("loop.a");
+		State state = PDECore.getDefault().getModelManager().getState().getState();
+		long timeStamp = state.getTimeStamp();
+
+		createPlugin("loop.b", "loop.a");
+
+		State newState = PDECore.getDefault().getModelManager().getState().getState();
+		assertTrue(newState != state || newState.getTimeStamp() != timeStamp);
+		assertLoops("loop.a", new String[] {"loop.a", "loop.b"});
+		assertLoops("loop.b", new String[] {"loop.b", "loop.a"});
+	}
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import java.util.*;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.pde.internal.core.ICoreConstants;
+import org.eclipse.pde.internal.core.builders.*;
+import org.eclipse.pde.ui.tests.PDETestCase;
+import org.eclipse.pde.ui.tests.util.ProjectUtils;
+
+/**
+ * Tests that the markers reported for a <code>plugin.xml</code> while it is parsed
+ * are the markers reported when the whole document is validated after parsing.
+ */
+public class ExtensionsErrorReporterTests extends PDETestCase {
+
+	private static final String EXTENSIONS = //
+	"   <extension point=\"org.eclipse.ui.views\">\n" + //
+			"      <view id=\"reporter.view\" name=\"View\"/>\n" + //
+			"      <unknown/>\n" + //
+			"   </extension>\n" + //
+			"   <!-- <extension point=\"in.comment\"/> -->\n" + //
+			"   <extension id=\"noPoint\"/>\n" + //
+			"   <extension\n" + //
+			"         point=\"does.not.exist\">\n" + //
+			"   </extension>\n" + //
+			"   <runtime/>\n" + //
+			"   <bogus/>\n" + //
+			"   <extension-point id=\"point\" name=\"Point\"/>\n";
+
+	private boolean fAutoBuilding;
+
+	public static Test suite() {
+		return new TestSuite(ExtensionsErrorReporterTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		// the markers are created by the reporters of the test only
+		IWorkspaceDescription description = ResourcesPlugin.getWorkspace().getDescription();
+		fAutoBuilding = description.isAutoBuilding();
+		description.setAutoBuilding(false);
+		ResourcesPlugin.getWorkspace().setDescription(description);
+	}
+
+	@Override
+	protected void tearDown() {
+		super.tearDown();
+		try {
+			IWorkspaceDescription description = ResourcesPlugin.getWorkspace().getDescription();
+			description.setAutoBuilding(fAutoBuilding);
+			ResourcesPlugin.getWorkspace().setDescription(description);
+		} catch (Exception e) {
+		}
+	}
+
+	private static IFile createPluginXml(String name, String extensions) throws Exception {
+		IProject project = ProjectUtils.createBundleProject(name, "org.eclipse.ui", extensions);
+		return project.getFile(ICoreConstants.PLUGIN_FILENAME_DESCRIPTOR);
+	}
+
+	/**
+	 * Validates the file and returns its markers as line, severity, message and
+	 * location path, in order
+	 */
+	private static List<String> validate(IFile file, final boolean whileParsing) throws Exception {
+		ExtensionsErrorReporter reporter = new ExtensionsErrorReporter(file) {
+			@Override
+			protected boolean validatesWhileParsing() {
+				return whileParsing;
+			}
+		};
+		DefaultSAXParser.parse(file, reporter);
+		reporter.validateContent(new NullProgressMonitor());
+
+		List<String> markers = new ArrayList<>();
+		for (IMarker marker : file.findMarkers(PDEMarkerFactory.MARKER_ID, false, IResource.DEPTH_ZERO)) {
+			markers.add(marker.getAttribute(IMarker.LINE_NUMBER, -1) + ":" + marker.getAttribute(IMarker.SEVERITY, -1) + ":" + marker.getAttribute(IMarker.MESSAGE, "") + ":" + marker.getAttribute(PDEMarkerFactory.MPK_LOCATION_PATH, ""));
+		}
+		Collections.sort(markers);
+		return markers;
+	}
+
+	private static Set<Integer> getLines(List<String> markers) {
+		Set<Integer> lines = new TreeSet<>();
+		for (String marker : markers) {
+			lines.add(Integer.valueOf(marker.substring(0, marker.indexOf(':'))));
+		}
+		return lines;
+	}
+
+	public void testSameMarkers() throws Exception {
+		IFile file = createPluginXml("reporter.a", EXTENSIONS);
+
+		List<String> markers = validate(file, true);
+		// <view> without class, <unknown>, extension without point, the line of the unknown
+		// point attribute, <runtime> and <bogus>, but not the commented extension
+		assertEquals(new TreeSet<>(Arrays.asList(5, 6, 9, 11, 13, 14)), getLines(markers));
+		assertEquals(validate(file, false), markers);
+	}
+
+	public void testLineDelimiters() throws Exception {
+		IFile file = createPluginXml("reporter.a", EXTENSIONS);
+		List<String> markers = validate(file, true);
+
+		ProjectUtils.writeFile(file, ProjectUtils.readFile(file).replace("\n", "\r\n"));
+		assertEquals(markers, validate(file, true));
+		ProjectUtils.writeFile(file, ProjectUtils.readFile(file).replace("\r\n", "\r"));
+		assertEquals(markers, validate(file, true));
+	}
+}
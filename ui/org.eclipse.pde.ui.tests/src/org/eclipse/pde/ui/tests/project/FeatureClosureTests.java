@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import java.util.*;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.pde.internal.core.*;
+import org.eclipse.pde.internal.core.ifeature.IFeatureModel;
+import org.eclipse.pde.internal.core.ifeature.IFeaturePlugin;
+import org.eclipse.pde.ui.tests.PDETestCase;
+import org.eclipse.pde.ui.tests.util.ProjectUtils;
+
+/**
+ * Tests the feature closures computed and cached by the feature model manager
+ */
+public class FeatureClosureTests extends PDETestCase {
+
+	private FeatureModelManager fManager;
+
+	public static Test suite() {
+		return new TestSuite(FeatureClosureTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fManager = PDECore.getDefault().getFeatureModelManager();
+	}
+
+	private static IProject createFeature(String id, String content) throws Exception {
+		return ProjectUtils.createFeatureProject(id, content);
+	}
+
+	private static String includes(String id) {
+		return "   <includes id=\"" + id + "\" version=\"0.0.0\"/>\n";
+	}
+
+	private static String plugin(String id, String os) {
+		return "   <plugin id=\"" + id + "\" version=\"0.0.0\"" + (os == null ? "" : " os=\"" + os + "\"") + "/>\n";
+	}
+
+	private static void assertFeatures(FeatureClosure closure, String... expected) {
+		List<String> ids = new ArrayList<>();
+		for (IFeatureModel model : closure.getFeatures()) {
+			ids.add(model.getFeature().getId());
+		}
+		assertEquals(Arrays.asList(expected), ids);
+	}
+
+	private static void assertPlugins(FeatureClosure closure, String... expected) {
+		Set<String> ids = new HashSet<>();
+		for (IFeaturePlugin plugin : closure.getPlugins()) {
+			ids.add(plugin.getId());
+		}
+		assertEquals(new HashSet<>(Arrays.asList(expected)), ids);
+	}
+
+	public void testIncludedFeatures() throws Exception {
+		createFeature("closure.a", includes("closure.b") + includes("closure.c") + plugin("closure.a.plugin", null));
+		createFeature("closure.b", includes("closure.d") + plugin("closure.b.plugin", null));
+		createFeature("closure.c", includes("closure.d") + plugin("closure.c.plugin", null));
+		createFeature("closure.d", plugin("closure.d.plugin", null));
+
+		FeatureClosure closure = fManager.getFeatureClosure("closure.a", "1.0.0");
+		// depth first, features included twice are listed once
+		assertFeatures(closure, "closure.a", "closure.b", "closure.d", "closure.c");
+		assertPlugins(closure, "closure.a.plugin", "closure.b.plugin", "closure.c.plugin", "closure.d.plugin");
+		assertSame(closure, fManager.getFeatureClosure("closure.a", "1.0.0"));
+	}
+
+	public void testCycle() throws Exception {
+		createFeature("closure.a", includes("closure.b") + plugin("closure.a.plugin", null));
+		createFeature("closure.b", includes("closure.a") + plugin("closure.b.plugin", null));
+
+		FeatureClosure closure = fManager.getFeatureClosure("closure.a", "1.0.0");
+		assertFeatures(closure, "closure.a", "closure.b");
+		assertPlugins(closure, "closure.a.plugin", "closure.b.plugin");
+	}
+
+	public void testMissingFeatures() throws Exception {
+		assertFeatures(fManager.getFeatureClosure("closure.missing", "1.0.0"));
+
+		createFeature("closure.a", includes("closure.missing") + plugin("closure.a.plugin", null));
+		FeatureClosure closure = fManager.getFeatureClosure("closure.a", "1.0.0");
+		assertFeatures(closure, "closure.a");
+
+		// adding the missing feature invalidates the closure that looked it up
+		createFeature("closure.missing", plugin("closure.missing.plugin", null));
+		closure = fManager.getFeatureClosure("closure.a", "1.0.0");
+		assertFeatures(closure, "closure.a", "closure.missing");
+		assertPlugins(closure, "closure.a.plugin", "closure.missing.plugin");
+	}
+
+	public void testChangedFeature() throws Exception {
+		createFeature("closure.a", includes("closure.b"));
+		createFeature("closure.b", plugin("closure.b.plugin", null));
+		createFeature("closure.other", plugin("closure.other.plugin", null));
+		FeatureClosure closure = fManager.getFeatureClosure("closure.a", "1.0.0");
+		FeatureClosure other = fManager.getFeatureClosure("closure.other", "1.0.0");
+		assertPlugins(closure, "closure.b.plugin");
+
+		createFeature("closure.b", plugin("closure.b.plugin", null) + plugin("closure.b.added", null));
+
+		closure = fManager.getFeatureClosure("closure.a", "1.0.0");
+		assertPlugins(closure, "closure.b.plugin", "closure.b.added");
+		// closures not containing the changed feature are kept
+		assertSame(other, fManager.getFeatureClosure("closure.other", "1.0.0"));
+	}
+
+	public void testRemovedFeature() throws Exception {
+		createFeature("closure.a", includes("closure.b"));
+		IProject b = createFeature("closure.b", plugin("closure.b.plugin", null));
+		assertFeatures(fManager.getFeatureClosure("closure.a", "1.0.0"), "closure.a", "closure.b");
+
+		b.delete(true, null);
+
+		FeatureClosure closure = fManager.getFeatureClosure("closure.a", "1.0.0");
+		assertFeatures(closure, "closure.a");
+		assertPlugins(closure);
+	}
+
+	public void testEnvironment() throws Exception {
+		createFeature("closure.a", "   <includes id=\"closure.b\" version=\"0.0.0\" os=\"win32\"/>\n" + plugin("closure.all", null) + plugin("closure.win", "win32") + plugin("closure.linux", "linux"));
+		createFeature("closure.b", plugin("closure.macosx", "macosx") + plugin("closure.unix", "linux,macosx"));
+
+		// entries restricted to an environment are part of the closure
+		FeatureClosure closure = fManager.getFeatureClosure("closure.a", "1.0.0");
+		assertFeatures(closure, "closure.a", "closure.b");
+		assertPlugins(closure, "closure.all", "closure.win", "closure.linux", "closure.macosx", "closure.unix");
+	}
+
+	public void testPostOrder() throws Exception {
+		createFeature("closure.a", includes("closure.b") + includes("closure.c"));
+		createFeature("closure.b", includes("closure.d"));
+		createFeature("closure.c", includes("closure.a"));
+		createFeature("closure.d", "");
+
+		List<String> ids = new ArrayList<>();
+		for (IFeatureModel model : fManager.getFeatureClosure("closure.a", "1.0.0").getFeaturesInPostOrder()) {
+			ids.add(model.getFeature().getId());
+		}
+		// included features first, the cycle back to the root is not followed
+		assertEquals(Arrays.asList("closure.d", "closure.b", "closure.c", "closure.a"), ids);
+	}
+}
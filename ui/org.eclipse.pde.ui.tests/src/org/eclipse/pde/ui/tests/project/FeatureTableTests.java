@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import java.util.*;
+import junit.framework.*;
+import org.eclipse.pde.internal.core.FeatureTable;
+import org.eclipse.pde.internal.core.feature.WorkspaceFeatureModel;
+import org.eclipse.pde.internal.core.ifeature.IFeatureModel;
+
+/**
+ * Tests the version ordered feature table of the feature model manager
+ */
+public class FeatureTableTests extends TestCase {
+
+	private FeatureTable fTable;
+
+	public static Test suite() {
+		return new TestSuite(FeatureTableTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fTable = new FeatureTable();
+	}
+
+	private static IFeatureModel createModel(String id, String version) throws Exception {
+		WorkspaceFeatureModel model = new WorkspaceFeatureModel();
+		model.getFeature().setId(id);
+		model.getFeature().setVersion(version);
+		return model;
+	}
+
+	private static void assertVersions(IFeatureModel[] models, String... expected) {
+		List<String> versions = new ArrayList<>();
+		for (IFeatureModel model : models) {
+			versions.add(model.getFeature().getVersion());
+		}
+		assertEquals(Arrays.asList(expected), versions);
+	}
+
+	public void testOrderedByVersion() throws Exception {
+		fTable.add(createModel("a", "1.10.0"));
+		fTable.add(createModel("a", "1.2.0"));
+		fTable.add(createModel("a", "1.2.0.qualifier"));
+		fTable.add(createModel("a", "2.0.0"));
+		fTable.add(createModel("b", "1.0.0"));
+
+		// versions are compared as OSGi versions, not as text
+		assertVersions(fTable.get("a"), "1.2.0", "1.2.0.qualifier", "1.10.0", "2.0.0");
+		assertVersions(fTable.get("b"), "1.0.0");
+		assertEquals(5, fTable.getAll().length);
+	}
+
+	public void testSameVersion() throws Exception {
+		IFeatureModel model1 = createModel("a", "1.0.0");
+		IFeatureModel model2 = createModel("a", "1.0.0");
+		fTable.add(model1);
+		fTable.add(model2);
+		fTable.add(createModel("a", "2.0.0"));
+
+		IFeatureModel[] models = fTable.get("a", "1.0.0");
+		assertEquals(2, models.length);
+		assertSame(model1, models[0]);
+		assertSame(model2, models[1]);
+		assertEquals(0, fTable.get("a", "1.5.0").length);
+		assertTrue(fTable.get(model1).equals("a", "1.0.0"));
+	}
+
+	public void testInvalidVersions() throws Exception {
+		fTable.add(createModel("a", "1.0.0"));
+		fTable.add(createModel("a", "invalid"));
+		fTable.add(createModel("a", "also.invalid"));
+		fTable.add(createModel("a", null));
+
+		// invalid versions come first, ordered by their text
+		assertVersions(fTable.get("a"), null, "also.invalid", "invalid", "1.0.0");
+		assertEquals(1, fTable.get("a", "invalid").length);
+		assertEquals(1, fTable.get("a", null).length);
+		assertEquals(1, fTable.get("a", "1.0.0").length);
+	}
+
+	public void testUpdatedVersion() throws Exception {
+		IFeatureModel model = createModel("a", "1.0.0");
+		fTable.add(model);
+		fTable.add(createModel("a", "2.0.0"));
+
+		// adding a model again moves it to its new version
+		model.getFeature().setVersion("3.0.0");
+		fTable.add(model);
+		assertVersions(fTable.get("a"), "2.0.0", "3.0.0");
+		assertEquals(0, fTable.get("a", "1.0.0").length);
+		assertEquals(2, fTable.getAll().length);
+	}
+
+	public void testRemove() throws Exception {
+		IFeatureModel model1 = createModel("a", "1.0.0");
+		IFeatureModel model2 = createModel("a", "1.0.0");
+		IFeatureModel model3 = createModel("a", "2.0.0");
+		fTable.add(model1);
+		fTable.add(model2);
+		fTable.add(model3);
+
+		assertNotNull(fTable.remove(model1));
+		assertNull(fTable.remove(model1));
+		assertVersions(fTable.get("a"), "1.0.0", "2.0.0");
+		assertSame(model2, fTable.get("a", "1.0.0")[0]);
+
+		assertNotNull(fTable.remove(model3));
+		assertVersions(fTable.get("a"), "1.0.0");
+		assertEquals(0, fTable.get("a", "2.0.0").length);
+	}
+
+	public void testRemoveLastVersion() throws Exception {
+		IFeatureModel model = createModel("a", "1.0.0");
+		fTable.add(model);
+		fTable.add(createModel("b", "1.0.0"));
+
+		assertNotNull(fTable.remove(model));
+		assertEquals(0, fTable.get("a").length);
+		assertEquals(0, fTable.get("a", "1.0.0").length);
+		assertNull(fTable.get(model));
+		assertEquals(1, fTable.getAll().length);
+
+		// the id can be added again
+		fTable.add(model);
+		assertEquals(1, fTable.get("a").length);
+	}
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.eclipse.core.resources.*;
+import org.eclipse.pde.internal.core.ICoreConstants;
+import org.eclipse.pde.internal.core.builders.PDEMarkerFactory;
+import org.eclipse.pde.ui.tests.PDETestCase;
+import org.eclipse.pde.ui.tests.util.ProjectUtils;
+
+/**
+ * Tests the markers created by the manifest builder for the plug-in manifest,
+ * the extensions and the build.properties of a project
+ */
+public class ManifestConsistencyCheckerTests extends PDETestCase {
+
+	private static final String BUILD_PROPERTIES = "bin.includes = META-INF/,plugin.xml\n";
+
+	private boolean fAutoBuilding;
+
+	public static Test suite() {
+		return new TestSuite(ManifestConsistencyCheckerTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		// only the builds of the test run
+		IWorkspaceDescription description = ResourcesPlugin.getWorkspace().getDescription();
+		fAutoBuilding = description.isAutoBuilding();
+		description.setAutoBuilding(false);
+		ResourcesPlugin.getWorkspace().setDescription(description);
+	}
+
+	@Override
+	protected void tearDown() {
+		super.tearDown();
+		try {
+			IWorkspaceDescription description = ResourcesPlugin.getWorkspace().getDescription();
+			description.setAutoBuilding(fAutoBuilding);
+			ResourcesPlugin.getWorkspace().setDescription(description);
+		} catch (Exception e) {
+		}
+	}
+
+	private static IProject createProject() throws Exception {
+		IProject project = ProjectUtils.createBundleProject("checker.a", null, "   <bogus/>\n");
+		IFile manifest = project.getFile(ICoreConstants.BUNDLE_FILENAME_DESCRIPTOR);
+		ProjectUtils.writeFile(manifest, ProjectUtils.readFile(manifest).replace("Bundle-Version: 1.0.0", "Bundle-Version: not.a.version"));
+		// an empty entry is always reported
+		ProjectUtils.writeFile(project.getFile(ICoreConstants.BUILD_FILENAME_DESCRIPTOR), BUILD_PROPERTIES + "jars.extra.classpath =\n");
+		return project;
+	}
+
+	private static int countMarkers(IProject project, String path) throws Exception {
+		return project.getFile(path).findMarkers(PDEMarkerFactory.MARKER_ID, false, IResource.DEPTH_ZERO).length;
+	}
+
+	public void testFullBuild() throws Exception {
+		IProject project = createProject();
+		project.build(IncrementalProjectBuilder.FULL_BUILD, null);
+
+		assertTrue(countMarkers(project, ICoreConstants.BUNDLE_FILENAME_DESCRIPTOR) > 0);
+		assertTrue(countMarkers(project, ICoreConstants.PLUGIN_FILENAME_DESCRIPTOR) > 0);
+		assertTrue(countMarkers(project, ICoreConstants.BUILD_FILENAME_DESCRIPTOR) > 0);
+	}
+
+	public void testBuildPropertiesChange() throws Exception {
+		IProject project = createProject();
+		project.build(IncrementalProjectBuilder.FULL_BUILD, null);
+		int manifestMarkers = countMarkers(project, ICoreConstants.BUNDLE_FILENAME_DESCRIPTOR);
+		int extensionMarkers = countMarkers(project, ICoreConstants.PLUGIN_FILENAME_DESCRIPTOR);
+
+		ProjectUtils.writeFile(project.getFile(ICoreConstants.BUILD_FILENAME_DESCRIPTOR), BUILD_PROPERTIES);
+		project.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, null);
+
+		assertEquals(0, countMarkers(project, ICoreConstants.BUILD_FILENAME_DESCRIPTOR));
+		assertEquals(manifestMarkers, countMarkers(project, ICoreConstants.BUNDLE_FILENAME_DESCRIPTOR));
+		assertEquals(extensionMarkers, countMarkers(project, ICoreConstants.PLUGIN_FILENAME_DESCRIPTOR));
+	}
+
+	public void testManifestChange() throws Exception {
+		IProject project = createProject();
+		project.build(IncrementalProjectBuilder.FULL_BUILD, null);
+		int buildMarkers = countMarkers(project, ICoreConstants.BUILD_FILENAME_DESCRIPTOR);
+		int manifestMarkers = countMarkers(project, ICoreConstants.BUNDLE_FILENAME_DESCRIPTOR);
+
+		IFile manifest = project.getFile(ICoreConstants.BUNDLE_FILENAME_DESCRIPTOR);
+		ProjectUtils.writeFile(manifest, ProjectUtils.readFile(manifest).replace("not.a.version", "1.0.0"));
+		project.build(IncrementalProjectBuilder.INCREMENTAL_BUILD, null);
+
+		assertTrue(countMarkers(project, ICoreConstants.BUNDLE_FILENAME_DESCRIPTOR) < manifestMarkers);
+		// build.properties is validated with the manifest and still has its problem
+		assertEquals(buildMarkers, countMarkers(project, ICoreConstants.BUILD_FILENAME_DESCRIPTOR));
+	}
+}
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Dictionary;
+import java.util.Hashtable;
+import junit.framework.*;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.osgi.service.resolver.*;
+import org.eclipse.pde.core.plugin.IPluginModelBase;
+import org.eclipse.pde.internal.core.PDEExtensionRegistry;
+import org.eclipse.pde.internal.core.plugin.ExternalPluginModel;
+import org.eclipse.pde.internal.core.util.CoreUtility;
+import org.osgi.framework.Constants;
+
+/**
+ * Tests that the extension registry keeps its cache for the set of models it
+ * was created for when the models change.
+ */
+public class PDEExtensionRegistryTests extends TestCase {
+
+	/**
+	 * Registry whose models can be replaced, as on a target platform reload
+	 */
+	private static class TestRegistry extends PDEExtensionRegistry {
+
+		IPluginModelBase[] models;
+
+		TestRegistry(IPluginModelBase[] models, File stateDir) {
+			super(models, stateDir);
+			this.models = models;
+		}
+
+		@Override
+		protected IPluginModelBase[] getModels() {
+			return models;
+		}
+
+		void create() {
+			getRegistry();
+		}
+	}
+
+	private StateObjectFactory fFactory;
+	private State fState;
+	private TestRegistry fRegistry;
+	private File fRoot;
+
+	public static Test suite() {
+		return new TestSuite(PDEExtensionRegistryTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fFactory = Platform.getPlatformAdmin().getFactory();
+		fState = fFactory.createState(true);
+		fRoot = Files.createTempDirectory("registryTests").toFile();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (fRegistry != null)
+			fRegistry.dispose();
+		CoreUtility.deleteContent(fRoot);
+	}
+
+	private TestRegistry createRegistry(IPluginModelBase[] models) {
+		return new TestRegistry(models, new File(fRoot, "state"));
+	}
+
+	private IPluginModelBase createModel(String name, long id) throws Exception {
+		File dir = new File(fRoot, "bundles/" + name);
+		dir.mkdirs();
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(dir, "plugin.xml")), StandardCharsets.UTF_8)) {
+			writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<plugin>\n<extension-point id=\"point\" name=\"Point\"/>\n</plugin>\n");
+		}
+		String location = dir.getAbsolutePath();
+		Dictionary<String, String> manifest = new Hashtable<>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, name + ";singleton:=true");
+		manifest.put(Constants.BUNDLE_VERSION, "1.0.0");
+		BundleDescription desc = fFactory.createBundleDescription(fState, manifest, location, id);
+		ExternalPluginModel model = new ExternalPluginModel();
+		model.setInstallLocation(location);
+		model.setBundleDescription(desc);
+		return model;
+	}
+
+	private File getExtensionsDir() {
+		return new File(fRoot, "state/.extensions");
+	}
+
+	private static String readModelsKey(File dir) throws IOException {
+		File file = new File(dir, ".modelsKey");
+		if (!file.isFile())
+			return null;
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+			return reader.readLine();
+		}
+	}
+
+	/**
+	 * Creates the registry for the current models and reloads it for the given ones.
+	 *
+	 * @return the key written for the models the registry was created for
+	 */
+	private String reload(IPluginModelBase[] models) throws IOException {
+		fRegistry.create();
+		// the key is written for the models contributed to the registry
+		assertTrue(fRegistry.hasExtensionPoint(fRegistry.models[0].getBundleDescription().getSymbolicName() + ".point"));
+		fRegistry.models = models;
+		fRegistry.targetReloaded();
+		return readModelsKey(getExtensionsDir());
+	}
+
+	public void testSwitchTargets() throws Exception {
+		IPluginModelBase[] a = new IPluginModelBase[] {createModel("a1", 1), createModel("a2", 2)};
+		IPluginModelBase[] b = new IPluginModelBase[] {createModel("b1", 3)};
+		fRegistry = createRegistry(a);
+
+		String keyA = reload(b);
+		assertNotNull(keyA);
+		String keyB = reload(a);
+		assertNotNull(keyB);
+		assertFalse(keyA.equals(keyB));
+
+		// the cache of B is kept, the cache of A is restored
+		fRegistry.create();
+		File cacheDir = new File(fRoot, "state/.extensions_cache");
+		assertEquals(keyB, readModelsKey(new File(cacheDir, keyB)));
+		assertEquals(keyA, readModelsKey(getExtensionsDir()));
+		assertFalse(new File(cacheDir, keyA).exists());
+
+		// reloading the same models keeps the key
+		fRegistry.targetReloaded();
+		assertEquals(keyA, readModelsKey(getExtensionsDir()));
+	}
+
+	public void testChangedBundleIds() throws Exception {
+		IPluginModelBase[] models = new IPluginModelBase[] {createModel("a1", 1), createModel("a2", 2)};
+		// same locations, but different bundle ids
+		IPluginModelBase[] reloaded = new IPluginModelBase[] {createModel("a1", 11), createModel("a2", 12)};
+		fRegistry = createRegistry(models);
+
+		String key = reload(reloaded);
+		String reloadedKey = reload(reloaded);
+		assertNotNull(key);
+		assertNotNull(reloadedKey);
+		assertFalse(key.equals(reloadedKey));
+	}
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import java.util.*;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.pde.core.plugin.IPluginModelBase;
+import org.eclipse.pde.core.plugin.PluginRegistry;
+import org.eclipse.pde.internal.core.PDECore;
+import org.eclipse.pde.ui.tests.PDETestCase;
+import org.eclipse.pde.ui.tests.util.ProjectUtils;
+
+/**
+ * Tests that readers of the plug-in model manager see a complete table while
+ * workspace changes are processed and while the target platform is reloaded.
+ */
+public class PluginModelSnapshotTests extends PDETestCase {
+
+	private static final String STABLE_ID = "snapshot.stable";
+	private static final String TARGET_ID = "org.eclipse.pde.core";
+
+	/**
+	 * Reads the models until stopped and records the reads that did not see the
+	 * plug-ins present before and after the changes
+	 */
+	private static class Reader extends Thread {
+
+		volatile boolean fStopped;
+		int fReads;
+		final List<String> fErrors = new ArrayList<>();
+
+		@Override
+		public void run() {
+			while (!fStopped) {
+				IPluginModelBase[] models = PluginRegistry.getActiveModels();
+				Set<IPluginModelBase> seen = Collections.newSetFromMap(new IdentityHashMap<IPluginModelBase, Boolean>());
+				Set<String> ids = new HashSet<>();
+				for (IPluginModelBase model : models) {
+					if (model == null) {
+						fErrors.add("null model");
+						continue;
+					}
+					if (!seen.add(model))
+						fErrors.add("model listed twice: " + model);
+					ids.add(model.getPluginBase().getId());
+				}
+				if (!ids.contains(STABLE_ID) || !ids.contains(TARGET_ID))
+					fErrors.add("incomplete models: " + models.length);
+				if (PluginRegistry.findModel(STABLE_ID) == null || PluginRegistry.findModel(TARGET_ID) == null)
+					fErrors.add("model not found");
+				fReads++;
+			}
+		}
+	}
+
+	public static Test suite() {
+		return new TestSuite(PluginModelSnapshotTests.class);
+	}
+
+	private Reader[] fReaders;
+
+	@Override
+	protected void setUp() throws Exception {
+		ProjectUtils.createBundleProject(STABLE_ID, null, null);
+		assertNotNull(PluginRegistry.findModel(STABLE_ID));
+		assertNotNull(PluginRegistry.findModel(TARGET_ID));
+		fReaders = new Reader[3];
+		for (int i = 0; i < fReaders.length; i++) {
+			fReaders[i] = new Reader();
+			fReaders[i].start();
+		}
+	}
+
+	@Override
+	protected void tearDown() {
+		stopReaders();
+		super.tearDown();
+	}
+
+	private void stopReaders() {
+		for (Reader reader : fReaders) {
+			reader.fStopped = true;
+		}
+		for (Reader reader : fReaders) {
+			try {
+				reader.join();
+			} catch (InterruptedException e) {
+			}
+		}
+	}
+
+	private void assertConsistentReads() {
+		stopReaders();
+		for (Reader reader : fReaders) {
+			assertEquals(Collections.emptyList(), reader.fErrors);
+			assertTrue(reader.fReads > 0);
+		}
+	}
+
+	public void testWorkspaceChanges() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			IProject project = ProjectUtils.createBundleProject("snapshot.changed", STABLE_ID, null);
+			assertNotNull(PluginRegistry.findModel("snapshot.changed"));
+			// change the manifest of the plug-in all readers look for
+			ProjectUtils.createBundleProject(STABLE_ID, i % 2 == 0 ? "snapshot.changed" : null, null);
+			project.delete(true, null);
+			assertNull(PluginRegistry.findModel("snapshot.changed"));
+		}
+		assertConsistentReads();
+	}
+
+	public void testTargetReload() throws Exception {
+		PDECore.getDefault().getModelManager().targetReloaded(null);
+		assertConsistentReads();
+		assertNotNull(PluginRegistry.findModel(STABLE_ID));
+	}
+}
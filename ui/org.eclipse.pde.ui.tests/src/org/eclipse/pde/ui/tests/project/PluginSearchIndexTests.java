@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import java.util.*;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.eclipse.pde.core.plugin.IPluginModelBase;
+import org.eclipse.pde.core.plugin.PluginRegistry;
+import org.eclipse.pde.internal.core.search.PluginSearchIndex;
+import org.eclipse.pde.ui.tests.PDETestCase;
+import org.eclipse.pde.ui.tests.util.ProjectUtils;
+
+/**
+ * Tests the index of the ids declared and referenced by the plug-in models
+ */
+public class PluginSearchIndexTests extends PDETestCase {
+
+	private PluginSearchIndex fIndex;
+
+	public static Test suite() {
+		return new TestSuite(PluginSearchIndexTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fIndex = new PluginSearchIndex();
+	}
+
+	@Override
+	protected void tearDown() {
+		fIndex.shutdown();
+		super.tearDown();
+	}
+
+	private static void createPlugin(String id, String requires, String extensions) throws Exception {
+		ProjectUtils.createBundleProject(id, requires, extensions);
+	}
+
+	private void assertPlugins(int kind, String searchString, boolean caseSensitive, String... expected) {
+		Set<IPluginModelBase> expectedModels = new HashSet<>();
+		for (String id : expected) {
+			IPluginModelBase model = PluginRegistry.findModel(id);
+			assertNotNull(id, model);
+			expectedModels.add(model);
+		}
+		Set<IPluginModelBase> models = fIndex.findPlugins(new int[] {kind}, searchString, caseSensitive);
+		// the index also contains the models of the target platform
+		models.retainAll(getWorkspaceModels());
+		assertEquals(expectedModels, models);
+	}
+
+	private static Set<IPluginModelBase> getWorkspaceModels() {
+		return new HashSet<>(Arrays.asList(PluginRegistry.getWorkspaceModels()));
+	}
+
+	public void testExactSearch() throws Exception {
+		createPlugin("search.a", "search.b", null);
+		createPlugin("search.b", null, null);
+
+		assertPlugins(PluginSearchIndex.PLUGIN_DECLARATIONS, "search.a", true, "search.a");
+		assertPlugins(PluginSearchIndex.PLUGIN_REFERENCES, "search.b", true, "search.a");
+		assertPlugins(PluginSearchIndex.PLUGIN_DECLARATIONS, "search", true);
+	}
+
+	public void testWildcardSearch() throws Exception {
+		createPlugin("search.a", null, null);
+		createPlugin("search.b", null, null);
+		createPlugin("search.other", null, null);
+
+		assertPlugins(PluginSearchIndex.PLUGIN_DECLARATIONS, "search.*", true, "search.a", "search.b", "search.other");
+		assertPlugins(PluginSearchIndex.PLUGIN_DECLARATIONS, "search.?", true, "search.a", "search.b");
+		assertPlugins(PluginSearchIndex.PLUGIN_DECLARATIONS, "*.oth*", true, "search.other");
+	}
+
+	public void testCaseInsensitiveSearch() throws Exception {
+		createPlugin("search.a", "search.b", null);
+		createPlugin("search.b", null, null);
+
+		assertPlugins(PluginSearchIndex.PLUGIN_DECLARATIONS, "SEARCH.A", true);
+		assertPlugins(PluginSearchIndex.PLUGIN_DECLARATIONS, "SEARCH.A", false, "search.a");
+		assertPlugins(PluginSearchIndex.PLUGIN_REFERENCES, "Search.B", false, "search.a");
+		assertPlugins(PluginSearchIndex.PLUGIN_DECLARATIONS, "SEARCH.*", false, "search.a", "search.b");
+	}
+
+	public void testExtensionPoints() throws Exception {
+		createPlugin("search.a", "search.b", "   <extension point=\"search.b.point\"/>\n");
+		createPlugin("search.b", null, "   <extension-point id=\"point\" name=\"Point\"/>\n");
+
+		// the extensions are only indexed on the first search for them
+		assertPlugins(PluginSearchIndex.PLUGIN_DECLARATIONS, "search.b", true, "search.b");
+		assertPlugins(PluginSearchIndex.EXTENSION_POINT_DECLARATIONS, "search.b.point", true, "search.b");
+		assertPlugins(PluginSearchIndex.EXTENSION_POINT_REFERENCES, "search.b.point", true, "search.a");
+		assertPlugins(PluginSearchIndex.EXTENSION_POINT_REFERENCES, "*.POINT", false, "search.a");
+	}
+
+	public void testManifestEdit() throws Exception {
+		createPlugin("search.a", "search.b", null);
+		createPlugin("search.b", null, null);
+		createPlugin("search.c", null, null);
+		assertPlugins(PluginSearchIndex.PLUGIN_REFERENCES, "search.b", true, "search.a");
+		assertPlugins(PluginSearchIndex.PLUGIN_REFERENCES, "search.c", true);
+
+		createPlugin("search.a", "search.c", null);
+
+		assertPlugins(PluginSearchIndex.PLUGIN_REFERENCES, "search.b", true);
+		assertPlugins(PluginSearchIndex.PLUGIN_REFERENCES, "search.c", true, "search.a");
+		assertPlugins(PluginSearchIndex.PLUGIN_DECLARATIONS, "search.a", true, "search.a");
+	}
+}
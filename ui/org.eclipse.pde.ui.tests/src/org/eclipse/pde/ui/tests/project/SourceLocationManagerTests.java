@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.project;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.Properties;
+import junit.framework.*;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.pde.core.plugin.IPluginBase;
+import org.eclipse.pde.internal.core.*;
+import org.eclipse.pde.internal.core.plugin.WorkspacePluginModel;
+import org.eclipse.pde.internal.core.util.CoreUtility;
+
+/**
+ * Tests the index of source lookups kept by the source location manager
+ */
+@SuppressWarnings("deprecation")
+public class SourceLocationManagerTests extends TestCase {
+
+	private static final String SOURCE_DIR = "source.test_1.0.0";
+	private static final IPath SOURCE_ZIP = new Path("src.zip");
+
+	private File fRoot;
+	private File fIndexFile;
+	private String fOldLocations;
+	private IPluginBase fPlugin;
+
+	public static Test suite() {
+		return new TestSuite(SourceLocationManagerTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fRoot = Files.createTempDirectory("sourceLocations").toFile();
+		fIndexFile = new File(fRoot, "index.properties");
+		fOldLocations = getPreferences().getString(ICoreConstants.P_SOURCE_LOCATIONS);
+
+		WorkspacePluginModel model = new WorkspacePluginModel(ResourcesPlugin.getWorkspace().getRoot().getFile(new Path("/source.test/plugin.xml")), false);
+		fPlugin = model.getPluginBase();
+		fPlugin.setId("source.test");
+		fPlugin.setVersion("1.0.0");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		getPreferences().setValue(ICoreConstants.P_SOURCE_LOCATIONS, fOldLocations);
+		CoreUtility.deleteContent(fRoot);
+	}
+
+	private static PDEPreferencesManager getPreferences() {
+		return PDECore.getDefault().getPreferencesManager();
+	}
+
+	private File createLocation(String name, boolean withSource) throws IOException {
+		File location = new File(fRoot, name);
+		location.mkdirs();
+		if (withSource)
+			createSource(location);
+		return location;
+	}
+
+	private static File createSource(File location) throws IOException {
+		File zip = new File(location, SOURCE_DIR + "/" + SOURCE_ZIP);
+		zip.getParentFile().mkdirs();
+		zip.createNewFile();
+		return zip;
+	}
+
+	private static void setUserLocations(File... locations) {
+		StringBuilder value = new StringBuilder();
+		for (File location : locations) {
+			if (value.length() > 0)
+				value.append(File.pathSeparatorChar);
+			value.append(location.getAbsolutePath());
+		}
+		getPreferences().setValue(ICoreConstants.P_SOURCE_LOCATIONS, value.toString());
+	}
+
+	private static IPath expected(File location) {
+		return new Path(location.getAbsolutePath()).append(SOURCE_DIR).append(SOURCE_ZIP);
+	}
+
+	public void testUserLocation() throws Exception {
+		File location = createLocation("a", true);
+		setUserLocations(location);
+
+		SourceLocationManager manager = new SourceLocationManager(fIndexFile);
+		assertEquals(expected(location), manager.findSourcePath(fPlugin, SOURCE_ZIP));
+		// answered by the index
+		assertEquals(expected(location), manager.findSourcePath(fPlugin, SOURCE_ZIP));
+	}
+
+	public void testChangedUserLocations() throws Exception {
+		File first = createLocation("a", true);
+		File second = createLocation("b", true);
+		setUserLocations(first);
+
+		SourceLocationManager manager = new SourceLocationManager(fIndexFile);
+		assertEquals(expected(first), manager.findSourcePath(fPlugin, SOURCE_ZIP));
+
+		// results of the previous locations must not be returned
+		setUserLocations(second);
+		assertEquals(expected(second), manager.findSourcePath(fPlugin, SOURCE_ZIP));
+	}
+
+	public void testDeletedSource() throws Exception {
+		File first = createLocation("a", true);
+		File second = createLocation("b", true);
+		setUserLocations(first, second);
+
+		SourceLocationManager manager = new SourceLocationManager(fIndexFile);
+		assertEquals(expected(first), manager.findSourcePath(fPlugin, SOURCE_ZIP));
+
+		CoreUtility.deleteContent(new File(first, SOURCE_DIR));
+		assertEquals(expected(second), manager.findSourcePath(fPlugin, SOURCE_ZIP));
+	}
+
+	public void testPersistedIndex() throws Exception {
+		File location = createLocation("a", true);
+		setUserLocations(location);
+
+		SourceLocationManager manager = new SourceLocationManager(fIndexFile);
+		assertEquals(expected(location), manager.findSourcePath(fPlugin, SOURCE_ZIP));
+		assertNull(manager.findSourcePath(fPlugin, new Path("missing.zip")));
+		manager.shutdown();
+
+		// only found paths are persisted
+		Properties index = new Properties();
+		try (InputStream stream = new FileInputStream(fIndexFile)) {
+			index.load(stream);
+		}
+		assertTrue(index.containsValue(expected(location).toOSString()));
+		assertFalse(index.containsValue(""));
+
+		manager = new SourceLocationManager(fIndexFile);
+		assertEquals(expected(location), manager.findSourcePath(fPlugin, SOURCE_ZIP));
+	}
+
+	public void testMissNotPersisted() throws Exception {
+		File location = createLocation("a", false);
+		setUserLocations(location);
+
+		SourceLocationManager manager = new SourceLocationManager(fIndexFile);
+		assertNull(manager.findSourcePath(fPlugin, SOURCE_ZIP));
+		manager.shutdown();
+
+		// source added later is found by the next session
+		createSource(location);
+		manager = new SourceLocationManager(fIndexFile);
+		assertEquals(expected(location), manager.findSourcePath(fPlugin, SOURCE_ZIP));
+	}
+}
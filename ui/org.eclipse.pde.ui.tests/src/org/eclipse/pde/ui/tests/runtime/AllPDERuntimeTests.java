@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2008, 2015 IBM Corporation and others.
+ *  Copyright (c) 2008, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -18,6 +18,7 @@ public class AllPDERuntimeTests {
 	public static Test suite() {
 		TestSuite suite = new TestSuite("Test Suite to test the pde.runtime plug-in."); //$NON-NLS-1$
 		suite.addTest(LocalModelTest.suite());
+		suite.addTest(RemoteModelTest.suite());
 		return suite;
 	}
 
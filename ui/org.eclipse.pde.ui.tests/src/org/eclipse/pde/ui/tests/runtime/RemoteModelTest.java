@@ -0,0 +1,214 @@
+/*******************************************************************************
+ *  Copyright (c) 2017 IBM Corporation and others.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.runtime;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.*;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.debug.core.*;
+import org.eclipse.pde.internal.launching.IPDEConstants;
+import org.eclipse.pde.internal.launching.launcher.RegistryAgentHelper;
+import org.eclipse.pde.internal.runtime.registry.model.*;
+import org.eclipse.pde.launching.IPDELauncherConstants;
+import org.osgi.framework.BundleException;
+
+/**
+ * Tests a registry model reading the registry of a launched Equinox framework
+ * through the registry agent started in it.
+ */
+public class RemoteModelTest extends TestCase implements ModelChangeListener {
+
+	private static final String NAME = "RemoteModelTest";
+	private static final String COMMON_BUNDLE = "org.eclipse.equinox.common";
+	private static final long TIMEOUT = 30000;
+
+	private ILaunch launch;
+	private RegistryModel model;
+
+	private final List<ModelChangeDelta> deltas = new ArrayList<>();
+
+	public static Test suite() {
+		return new TestSuite(RemoteModelTest.class);
+	}
+
+	@Override
+	public void modelChanged(ModelChangeDelta[] delta) {
+		synchronized (deltas) {
+			for (ModelChangeDelta d : delta) {
+				deltas.add(d);
+			}
+			deltas.notifyAll();
+		}
+	}
+
+	private static ILaunchManager getLaunchManager() {
+		return DebugPlugin.getDefault().getLaunchManager();
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		ILaunchConfigurationType type = getLaunchManager().getLaunchConfigurationType(IPDELauncherConstants.OSGI_CONFIGURATION_TYPE);
+		ILaunchConfigurationWorkingCopy workingCopy = type.newInstance(null, NAME);
+		workingCopy.setAttribute(IPDELauncherConstants.TARGET_BUNDLES, COMMON_BUNDLE + "@default:true");
+		workingCopy.setAttribute(IPDELauncherConstants.AUTOMATIC_ADD, false);
+		workingCopy.setAttribute(IPDELauncherConstants.CONFIG_CLEAR_AREA, true);
+		workingCopy.setAttribute(IPDEConstants.REGISTRY_AGENT, true);
+		launch = workingCopy.launch(ILaunchManager.RUN_MODE, new NullProgressMonitor());
+
+		String uri = RegistryAgentHelper.getRegistryURI(launch);
+		assertNotNull(uri);
+		waitForAgent(Integer.parseInt(launch.getAttribute(IPDEConstants.LAUNCH_REGISTRY_AGENT_PORT)));
+
+		model = RegistryModelFactory.getRegistryModel(uri);
+		model.connect(new NullProgressMonitor(), false);
+		model.addModelChangeListener(this);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		if (model != null) {
+			model.removeModelChangeListener(this);
+			model.disconnect();
+		}
+		if (launch != null)
+			launch.terminate();
+	}
+
+	/**
+	 * Waits until the launched framework has started the agent.
+	 */
+	private void waitForAgent(int port) throws InterruptedException {
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (true) {
+			assertFalse("Launched framework terminated", launch.isTerminated());
+			try (Socket socket = new Socket()) {
+				socket.connect(new InetSocketAddress("127.0.0.1", port), 1000);
+				return;
+			} catch (IOException e) {
+				if (System.currentTimeMillis() > end)
+					fail("Registry agent not started");
+				Thread.sleep(100);
+			}
+		}
+	}
+
+	private ModelChangeDelta waitForDelta(int flag, String symbolicName) throws InterruptedException {
+		long end = System.currentTimeMillis() + TIMEOUT;
+		synchronized (deltas) {
+			while (true) {
+				for (ModelChangeDelta delta : deltas) {
+					if (delta.getFlag() == flag && delta.getModelObject() instanceof Bundle && symbolicName.equals(((Bundle) delta.getModelObject()).getSymbolicName()))
+						return delta;
+				}
+
+				long remaining = end - System.currentTimeMillis();
+				if (remaining <= 0)
+					fail("No delta received");
+				deltas.wait(remaining);
+			}
+		}
+	}
+
+	private Bundle findBundle(String symbolicName) {
+		for (Bundle bundle : model.getBundles()) {
+			if (symbolicName.equals(bundle.getSymbolicName()))
+				return bundle;
+		}
+		return null;
+	}
+
+	public void testInstalledBundles() {
+		model.initialize(new NullProgressMonitor());
+
+		assertEquals(3, model.getBundles().length);
+		Bundle system = model.getBundle(Long.valueOf(0));
+		assertNotNull(system);
+		assertEquals("org.eclipse.osgi", system.getSymbolicName());
+		assertEquals(org.osgi.framework.Bundle.ACTIVE, system.getState());
+
+		Bundle agent = findBundle(RegistryAgentHelper.AGENT_BUNDLE);
+		assertNotNull(agent);
+		assertEquals(org.osgi.framework.Bundle.ACTIVE, agent.getState());
+		assertTrue(agent.getImportedPackages().length > 0);
+		assertNotNull(findBundle(COMMON_BUNDLE));
+	}
+
+	public void testServices() {
+		model.initialize(new NullProgressMonitor());
+
+		ServiceRegistration found = null;
+		for (ServiceRegistration service : model.getServices()) {
+			if ("org.eclipse.osgi".equals(service.getBundle()) && service.getName() != null)
+				found = service;
+		}
+		assertNotNull(found);
+		assertTrue(found.getName().getClasses().length > 0);
+	}
+
+	public void testNoExtensionRegistry() {
+		model.initialize(new NullProgressMonitor());
+
+		// the extension registry is not launched
+		assertEquals(0, model.getExtensionPoints().length);
+	}
+
+	public void testStopAndStart() throws Exception {
+		model.initialize(new NullProgressMonitor());
+		Bundle common = findBundle(COMMON_BUNDLE);
+		assertNotNull(common);
+
+		common.stop();
+		waitForDelta(ModelChangeDelta.STOPPED, COMMON_BUNDLE);
+		common.start();
+		waitForDelta(ModelChangeDelta.STARTED, COMMON_BUNDLE);
+	}
+
+	public void testUnknownBundle() {
+		model.initialize(new NullProgressMonitor());
+		Bundle common = findBundle(COMMON_BUNDLE);
+		assertNotNull(common);
+
+		common.setId(Long.MAX_VALUE);
+		try {
+			common.start();
+			fail("Started an unknown bundle");
+		} catch (BundleException e) {
+		}
+	}
+
+	public void testDiagnose() {
+		model.initialize(new NullProgressMonitor());
+
+		MultiStatus status = findBundle(COMMON_BUNDLE).diagnose();
+		assertNotNull(status);
+		// the bundle is resolved
+		assertEquals(0, status.getChildren().length);
+	}
+
+	public void testInvalidToken() {
+		// the agent serves one client at a time
+		model.disconnect();
+		String port = launch.getAttribute(IPDEConstants.LAUNCH_REGISTRY_AGENT_PORT);
+		RegistryModel unauthorized = RegistryModelFactory.getRegistryModel("remote://127.0.0.1:" + port + "?invalid");
+		try {
+			unauthorized.connect(new NullProgressMonitor(), false);
+			unauthorized.initialize(new NullProgressMonitor());
+			assertEquals(0, unauthorized.getBundles().length);
+		} finally {
+			unauthorized.disconnect();
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.pde.ui.tests.target;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import junit.framework.*;
+import org.eclipse.pde.internal.genericeditor.target.extension.model.RepositoryCache;
+import org.eclipse.pde.internal.genericeditor.target.extension.model.UnitNode;
+
+/**
+ * Tests the completion information cached by the target editor for a local
+ * p2 repository
+ */
+public class RepositoryCacheTests extends TestCase {
+
+	/**
+	 * Cache counting the times the repository is fetched
+	 */
+	private static class CountingCache extends RepositoryCache {
+		int fFetches;
+
+		CountingCache(File storage) {
+			super(storage);
+		}
+
+		@Override
+		protected List<UnitNode> fetchUnits(String repo) {
+			fFetches++;
+			return super.fetchUnits(repo);
+		}
+	}
+
+	private File fRepository;
+	private File fStorage;
+	private String fLocation;
+
+	public static Test suite() {
+		return new TestSuite(RepositoryCacheTests.class);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		fRepository = Files.createTempDirectory("repository").toFile();
+		fStorage = Files.createTempDirectory("cache").toFile();
+		fLocation = fRepository.toURI().toString();
+		writeRepository("cache.a", "1.0.0", "cache.a", "2.0.0", "cache.b", "1.0.0");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		delete(fRepository);
+		delete(fStorage);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	/**
+	 * Writes a metadata repository containing the given units.
+	 *
+	 * @param units pairs of unit id and version
+	 */
+	private void writeRepository(String... units) throws IOException {
+		StringBuilder buffer = new StringBuilder();
+		buffer.append("<?xml version='1.0' encoding='UTF-8'?>\n");
+		buffer.append("<?metadataRepository version='1.1.0'?>\n");
+		buffer.append("<repository name='cache test' type='org.eclipse.equinox.internal.p2.metadata.repository.LocalMetadataRepository' version='1'>\n");
+		buffer.append("  <properties size='1'>\n");
+		buffer.append("    <property name='p2.timestamp' value='" + System.currentTimeMillis() + "'/>\n");
+		buffer.append("  </properties>\n");
+		buffer.append("  <units size='" + units.length / 2 + "'>\n");
+		for (int i = 0; i < units.length; i += 2) {
+			buffer.append("    <unit id='" + units[i] + "' version='" + units[i + 1] + "'>\n");
+			buffer.append("      <provides size='1'>\n");
+			buffer.append("        <provided namespace='org.eclipse.equinox.p2.iu' name='" + units[i] + "' version='" + units[i + 1] + "'/>\n");
+			buffer.append("      </provides>\n");
+			buffer.append("    </unit>\n");
+		}
+		buffer.append("  </units>\n");
+		buffer.append("</repository>\n");
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(fRepository, "content.xml")), StandardCharsets.UTF_8)) {
+			writer.write(buffer.toString());
+		}
+	}
+
+	private static Set<String> getIds(List<UnitNode> units) {
+		Set<String> ids = new TreeSet<>();
+		for (UnitNode unit : units) {
+			ids.add(unit.getId());
+		}
+		return ids;
+	}
+
+	public void testCacheHit() {
+		CountingCache cache = new CountingCache(fStorage);
+		assertFalse(cache.isUpToDate(fLocation));
+
+		List<UnitNode> units = cache.fetchP2UnitsFromRepo(fLocation, false);
+		assertNotNull(units);
+		assertEquals(new TreeSet<>(Arrays.asList("cache.a", "cache.b")), getIds(units));
+		assertEquals(1, cache.fFetches);
+		assertTrue(cache.isUpToDate(fLocation));
+		assertFalse(cache.isStale(fLocation));
+
+		assertSame(units.get(0), cache.fetchP2UnitsFromRepo(fLocation, false).get(0));
+		UnitNode unit = cache.getUnit(fLocation, "cache.a");
+		assertNotNull(unit);
+		assertEquals("2.0.0", unit.getVersion());
+		assertEquals(new TreeSet<>(Arrays.asList("1.0.0", "2.0.0")), new TreeSet<>(unit.getAvailableVersions()));
+		assertEquals(2, cache.getUnitsByPrefix(fLocation, "cache.").size());
+		assertEquals(1, cache.getUnitsByPrefix(fLocation, "cache.b").size());
+		assertEquals(0, cache.getUnitsByPrefix(fLocation, "other").size());
+		assertNull(cache.getUnit(fLocation, "cache"));
+		assertEquals(1, cache.fFetches);
+	}
+
+	public void testRepositoryChange() throws Exception {
+		CountingCache cache = new CountingCache(fStorage);
+		assertNotNull(cache.fetchP2UnitsFromRepo(fLocation, false));
+
+		writeRepository("cache.a", "2.0.0", "cache.c", "1.0.0");
+		// cached units are used until they are refreshed
+		assertNotNull(cache.getUnit(fLocation, "cache.b"));
+		assertNull(cache.getUnit(fLocation, "cache.c"));
+		assertEquals(1, cache.fFetches);
+
+		List<UnitNode> units = cache.fetchP2UnitsFromRepo(fLocation, true);
+		assertEquals(2, cache.fFetches);
+		assertEquals(new TreeSet<>(Arrays.asList("cache.a", "cache.c")), getIds(units));
+		assertNull(cache.getUnit(fLocation, "cache.b"));
+		assertEquals(Arrays.asList("2.0.0"), cache.getUnit(fLocation, "cache.a").getAvailableVersions());
+	}
+
+	public void testReload() {
+		CountingCache cache = new CountingCache(fStorage);
+		assertNotNull(cache.fetchP2UnitsFromRepo(fLocation, false));
+
+		// a new session reads the stored units instead of the repository
+		CountingCache reloaded = new CountingCache(fStorage);
+		assertTrue(reloaded.isUpToDate(fLocation));
+		assertEquals(getIds(cache.fetchP2UnitsFromRepo(fLocation, false)), getIds(reloaded.fetchP2UnitsFromRepo(fLocation, false)));
+		UnitNode unit = reloaded.getUnit(fLocation, "cache.a");
+		assertNotNull(unit);
+		assertEquals("2.0.0", unit.getVersion());
+		assertEquals(new TreeSet<>(Arrays.asList("1.0.0", "2.0.0")), new TreeSet<>(unit.getAvailableVersions()));
+		assertEquals(0, reloaded.fFetches);
+
+		// flushed units are fetched again
+		reloaded.flush();
+		CountingCache flushed = new CountingCache(fStorage);
+		assertFalse(flushed.isUpToDate(fLocation));
+		assertNull(flushed.getUnit(fLocation, "cache.b"));
+		assertNotNull(flushed.fetchP2UnitsFromRepo(fLocation, false));
+		assertEquals(1, flushed.fFetches);
+	}
+}
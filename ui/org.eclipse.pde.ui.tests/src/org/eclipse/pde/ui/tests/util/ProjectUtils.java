@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2015 IBM Corporation and others.
+ * Copyright (c) 2008, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,12 +10,15 @@
  *******************************************************************************/
 package org.eclipse.pde.ui.tests.util;
 
-import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.ResourcesPlugin;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.launching.environments.IExecutionEnvironment;
+import org.eclipse.pde.internal.core.ICoreConstants;
+import org.eclipse.pde.internal.core.natures.PDE;
 import org.eclipse.pde.internal.ui.wizards.IProjectProvider;
 import org.eclipse.pde.internal.ui.wizards.plugin.NewProjectCreationOperation;
 import org.eclipse.pde.internal.ui.wizards.plugin.PluginFieldData;
@@ -119,5 +122,102 @@ public class ProjectUtils {
 		return JavaCore.create(project);
 	}
 
+	/**
+	 * Creates a plug-in project consisting of a manifest and an optional <code>plugin.xml</code>,
+	 * without Java nature. If the project exists, its files are replaced.
+	 *
+	 * @param id symbolic name of the bundle, also used as project name
+	 * @param requiredBundles value of the Require-Bundle header or <code>null</code>
+	 * @param extensions content of the <code>plugin</code> element or <code>null</code> for no <code>plugin.xml</code>
+	 * @return the project
+	 * @throws CoreException
+	 */
+	public static IProject createBundleProject(String id, String requiredBundles, String extensions) throws CoreException {
+		IProject project = createProject(id, PDE.PLUGIN_NATURE);
+		if (extensions != null) {
+			String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<?eclipse version=\"3.4\"?>\n<plugin>\n" + extensions + "</plugin>\n";
+			writeFile(project.getFile(ICoreConstants.PLUGIN_FILENAME_DESCRIPTOR), xml);
+		}
+		StringBuffer manifest = new StringBuffer();
+		manifest.append("Manifest-Version: 1.0\n");
+		manifest.append("Bundle-ManifestVersion: 2\n");
+		manifest.append("Bundle-SymbolicName: " + id + ";singleton:=true\n");
+		manifest.append("Bundle-Version: 1.0.0\n");
+		if (requiredBundles != null)
+			manifest.append("Require-Bundle: " + requiredBundles + "\n");
+		writeFile(project.getFile(ICoreConstants.BUNDLE_FILENAME_DESCRIPTOR), manifest.toString());
+		return project;
+	}
+
+	/**
+	 * Creates a feature project with version 1.0.0. If the project exists, its
+	 * <code>feature.xml</code> is replaced.
+	 *
+	 * @param id id of the feature, also used as project name
+	 * @param content content of the <code>feature</code> element
+	 * @return the project
+	 * @throws CoreException
+	 */
+	public static IProject createFeatureProject(String id, String content) throws CoreException {
+		IProject project = createProject(id, PDE.FEATURE_NATURE);
+		String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<feature id=\"" + id + "\" version=\"1.0.0\">\n" + content + "</feature>\n";
+		writeFile(project.getFile(ICoreConstants.FEATURE_FILENAME_DESCRIPTOR), xml);
+		return project;
+	}
+
+	private static IProject createProject(String name, String natureId) throws CoreException {
+		IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(name);
+		if (!project.exists()) {
+			IProjectDescription description = ResourcesPlugin.getWorkspace().newProjectDescription(name);
+			description.setNatureIds(new String[] {natureId});
+			project.create(description, null);
+		}
+		project.open(null);
+		return project;
+	}
+
+	/**
+	 * Writes a file in UTF-8, creating its folders if needed.
+	 *
+	 * @param file the file to create or replace
+	 * @param content the new content
+	 * @throws CoreException
+	 */
+	public static void writeFile(IFile file, String content) throws CoreException {
+		ByteArrayInputStream stream = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+		if (file.exists()) {
+			file.setContents(stream, true, false, null);
+			return;
+		}
+		createFolder(file.getParent());
+		file.create(stream, true, null);
+	}
+
+	/**
+	 * Reads a file in UTF-8.
+	 *
+	 * @param file the file to read
+	 * @return the content of the file
+	 * @throws CoreException
+	 * @throws IOException
+	 */
+	public static String readFile(IFile file) throws CoreException, IOException {
+		StringBuilder buffer = new StringBuilder();
+		try (Reader reader = new InputStreamReader(file.getContents(true), StandardCharsets.UTF_8)) {
+			char[] chars = new char[4096];
+			int read;
+			while ((read = reader.read(chars)) != -1) {
+				buffer.append(chars, 0, read);
+			}
+		}
+		return buffer.toString();
+	}
+
+	private static void createFolder(IContainer container) throws CoreException {
+		if (container.exists() || !(container instanceof IFolder))
+			return;
+		createFolder(container.getParent());
+		((IFolder) container).create(true, true, null);
+	}
 
 }
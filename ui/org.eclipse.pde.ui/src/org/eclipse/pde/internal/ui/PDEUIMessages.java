@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2016 IBM Corporation and others.
+ * Copyright (c) 2014, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -2123,6 +2123,8 @@ public class PDEUIMessages extends NLS {
 
 	public static String CrossPlatformExportPage_desc;
 
+	public static String CrossPlatformExportPage_parallel;
+
 	public static String BaseImportWizardSecondPage_0;
 
 	public static String BaseImportWizardSecondPage_autobuild;
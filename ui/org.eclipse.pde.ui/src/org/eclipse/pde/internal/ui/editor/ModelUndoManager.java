@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2015 IBM Corporation and others.
+ *  Copyright (c) 2000, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@ import java.util.Vector;
 import org.eclipse.jface.action.IAction;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.pde.core.*;
+import org.eclipse.pde.internal.core.text.AbstractEditingModel;
 import org.eclipse.pde.internal.ui.PDEUIMessages;
 import org.eclipse.ui.forms.editor.IFormPage;
 
@@ -129,7 +130,7 @@ public abstract class ModelUndoManager implements IModelUndoManager, IModelChang
 		if (ignoreChanges)
 			return;
 
-		if (event.getChangeType() == IModelChangedEvent.WORLD_CHANGED) {
+		if (event.getChangeType() == IModelChangedEvent.WORLD_CHANGED || AbstractEditingModel.isSynchronizing(event)) {
 			initialize();
 			return;
 		}
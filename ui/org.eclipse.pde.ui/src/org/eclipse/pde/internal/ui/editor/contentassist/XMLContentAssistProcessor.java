@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2015 IBM Corporation and others.
+ * Copyright (c) 2006, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,7 +23,9 @@ import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.pde.core.IBaseModel;
 import org.eclipse.pde.core.IIdentifiable;
 import org.eclipse.pde.core.plugin.*;
+import org.eclipse.pde.internal.core.PDECore;
 import org.eclipse.pde.internal.core.ischema.*;
+import org.eclipse.pde.internal.core.schema.CompiledSchema;
 import org.eclipse.pde.internal.core.text.*;
 import org.eclipse.pde.internal.core.text.plugin.PluginModelBase;
 import org.eclipse.pde.internal.core.util.IdUtil;
@@ -212,9 +214,10 @@ public class XMLContentAssistProcessor extends TypePackageCompletionProcessor im
 			if (attr.getAttributeName().equals(IPluginExtension.P_POINT) && offset >= attr.getValueOffset()) {
 				return computeExtPointAttrProposals(attr, offset, attrValue);
 			}
-			ISchemaAttribute sAttr = XMLUtil.getSchemaAttribute(attr, ((IPluginExtension) obj).getPoint());
-			if (sAttr == null)
+			CompiledSchema.Attribute compiledAttr = XMLUtil.getCompiledAttribute(attr, ((IPluginExtension) obj).getPoint());
+			if (compiledAttr == null)
 				return null;
+			ISchemaAttribute sAttr = compiledAttr.getSchemaAttribute();
 
 			if (sAttr.getKind() == IMetaAttribute.JAVA) {
 				IResource resource = obj.getModel().getUnderlyingResource();
@@ -247,17 +250,13 @@ public class XMLContentAssistProcessor extends TypePackageCompletionProcessor im
 			} else { // we have an IMetaAttribute.STRING kind
 				if (sAttr.getType() == null)
 					return null;
-				ISchemaRestriction sRestr = (sAttr.getType()).getRestriction();
 				ArrayList<VirtualSchemaObject> objs = new ArrayList<>();
-				if (sRestr == null) {
-					ISchemaSimpleType type = sAttr.getType();
-					if (type != null && type.getName().equals("boolean")) //$NON-NLS-1$
+				if (!compiledAttr.isRestricted()) {
+					if (compiledAttr.isBoolean())
 						objs = F_V_BOOLS;
 				} else {
-					Object[] restrictions = sRestr.getChildren();
-					for (Object restriction : restrictions)
-						if (restriction instanceof ISchemaObject)
-							objs.add(new VirtualSchemaObject(((ISchemaObject) restriction).getName(), null, F_ATTRIBUTE_VALUE));
+					for (String value : compiledAttr.getEnumeration())
+						objs.add(new VirtualSchemaObject(value, null, F_ATTRIBUTE_VALUE));
 				}
 				return computeAttributeProposal(attr, offset, attrValue, objs);
 			}
@@ -509,9 +508,10 @@ public class XMLContentAssistProcessor extends TypePackageCompletionProcessor im
 			ISchemaElement sEle = XMLUtil.getSchemaElement(parent, point);
 			if (sEle == null)
 				return null;
-			sEle = sEle.getSchema().findElement(element);
-			if (sEle == null)
+			CompiledSchema.Element compiledEle = PDECore.getDefault().getSchemaRegistry().getCompiledSchema(sEle.getSchema()).findElement(element);
+			if (compiledEle == null)
 				return null;
+			sEle = compiledEle.getSchemaElement();
 
 			if (attr.indexOf('=') != -1)
 				// search for attribute content proposals
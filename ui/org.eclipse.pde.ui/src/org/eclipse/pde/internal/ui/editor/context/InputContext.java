@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2003, 2015 IBM Corporation and others.
+ *  Copyright (c) 2003, 2017 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -22,6 +22,7 @@ import org.eclipse.jface.text.source.IAnnotationModel;
 import org.eclipse.jface.window.Window;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.pde.core.*;
+import org.eclipse.pde.internal.core.text.AbstractEditingModel;
 import org.eclipse.pde.internal.core.text.IEditingModel;
 import org.eclipse.pde.internal.core.util.PropertiesUtil;
 import org.eclipse.pde.internal.ui.PDEPlugin;
@@ -142,7 +143,8 @@ public abstract class InputContext {
 				fModelListener = new IModelChangedListener() {
 					@Override
 					public void modelChanged(IModelChangedEvent e) {
-						if (e.getChangeType() != IModelChangedEvent.WORLD_CHANGED) {
+						// changes read from the document need not be saved or written back
+						if (e.getChangeType() != IModelChangedEvent.WORLD_CHANGED && !AbstractEditingModel.isSynchronizing(e)) {
 							if (!fEditor.getLastDirtyState())
 								fEditor.fireSaveNeeded(fEditorInput, true);
 							IModelChangeProvider provider = e.getChangeProvider();
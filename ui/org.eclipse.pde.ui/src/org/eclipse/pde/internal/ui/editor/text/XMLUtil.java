@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,6 +17,8 @@ import org.eclipse.jdt.core.JavaConventions;
 import org.eclipse.pde.core.plugin.*;
 import org.eclipse.pde.internal.core.PDECore;
 import org.eclipse.pde.internal.core.ischema.*;
+import org.eclipse.pde.internal.core.schema.CompiledSchema;
+import org.eclipse.pde.internal.core.schema.SchemaRegistry;
 import org.eclipse.pde.internal.core.text.*;
 import org.eclipse.pde.internal.core.util.PDEJavaHelper;
 import org.eclipse.pde.internal.ui.PDEPlugin;
@@ -72,18 +74,32 @@ public abstract class XMLUtil {
 	 * @return the ISchemaElement for <code>node</code>
 	 */
 	public static ISchemaElement getSchemaElement(IDocumentElementNode node, String extensionPoint) {
+		CompiledSchema.Element element = getCompiledElement(node, extensionPoint);
+		return element != null ? element.getSchemaElement() : null;
+	}
+
+	/**
+	 * Get the compiled schema element corresponding to this IDocumentElementNode.
+	 * The elements are looked up in the compiled schemas shared with the extension
+	 * validation of the builder.
+	 * @param node
+	 * @param extensionPoint the extension point of the schema, if <code>null</code> it will be deduced
+	 * @return the compiled schema element for <code>node</code>
+	 */
+	public static CompiledSchema.Element getCompiledElement(IDocumentElementNode node, String extensionPoint) {
 		if (extensionPoint == null) {
 			IPluginObject obj = getTopLevelParent(node);
 			if (!(obj instanceof IPluginExtension))
 				return null;
 			extensionPoint = ((IPluginExtension) obj).getPoint();
 		}
-		ISchema schema = PDECore.getDefault().getSchemaRegistry().getSchema(extensionPoint);
+		SchemaRegistry registry = PDECore.getDefault().getSchemaRegistry();
+		CompiledSchema schema = registry.getCompiledSchema(extensionPoint);
 		if (schema == null)
 			return null;
 
 		// Bug 213457 - look up elements based on the schema in which the parent is found
-		if (schema.getIncludes().length == 0 || "extension".equals(node.getXMLTagName())) //$NON-NLS-1$
+		if (schema.getSchema().getIncludes().length == 0 || "extension".equals(node.getXMLTagName())) //$NON-NLS-1$
 			return schema.findElement(node.getXMLTagName());
 
 		// if element is not "extension" & has multiple sub-schemas,
@@ -96,12 +112,12 @@ public abstract class XMLUtil {
 			stack.push(node.getXMLTagName());
 			node = node.getParentNode();
 		}
-		ISchemaElement element = null;
+		CompiledSchema.Element element = null;
 		while (!stack.isEmpty()) {
 			element = schema.findElement(stack.pop());
 			if (element == null)
 				return null;
-			schema = element.getSchema();
+			schema = registry.getCompiledSchema(element.getSchemaElement().getSchema());
 		}
 		return element;
 	}
@@ -113,7 +129,18 @@ public abstract class XMLUtil {
 	 * @return the ISchemaAttribute for <code>attr</code>
 	 */
 	public static ISchemaAttribute getSchemaAttribute(IDocumentAttributeNode attr, String extensionPoint) {
-		ISchemaElement ele = getSchemaElement(attr.getEnclosingElement(), extensionPoint);
+		CompiledSchema.Attribute attribute = getCompiledAttribute(attr, extensionPoint);
+		return attribute != null ? attribute.getSchemaAttribute() : null;
+	}
+
+	/**
+	 * Get the compiled schema attribute corresponding to this IDocumentAttributeNode
+	 * @param attr
+	 * @param extensionPoint the extension point of the schema, if <code>null</code> it will be deduced
+	 * @return the compiled schema attribute for <code>attr</code>
+	 */
+	public static CompiledSchema.Attribute getCompiledAttribute(IDocumentAttributeNode attr, String extensionPoint) {
+		CompiledSchema.Element ele = getCompiledElement(attr.getEnclosingElement(), extensionPoint);
 		if (ele == null)
 			return null;
 
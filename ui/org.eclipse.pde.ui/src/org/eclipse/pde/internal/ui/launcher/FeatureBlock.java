@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010, 2016 IBM Corporation and others.
+ * Copyright (c) 2010, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,6 +26,7 @@ import org.eclipse.pde.internal.core.*;
 import org.eclipse.pde.internal.core.ifeature.*;
 import org.eclipse.pde.internal.launching.PDELaunchingPlugin;
 import org.eclipse.pde.internal.launching.launcher.BundleLauncherHelper;
+import org.eclipse.pde.internal.launching.launcher.BundleSelection;
 import org.eclipse.pde.internal.launching.launcher.LaunchValidationOperation;
 import org.eclipse.pde.internal.ui.*;
 import org.eclipse.pde.internal.ui.dialogs.FeatureSelectionDialog;
@@ -1204,13 +1205,20 @@ public class FeatureBlock {
 		try {
 			fAdditionalPlugins = new ArrayList<>();
 			List<PluginLaunchModel> checkedAdditionalPlugins = new ArrayList<>();
-			HashMap<?, ?> allAdditionalMap = BundleLauncherHelper.getAdditionalPlugins(config, false);
-			HashMap<?, ?> checkedAdditionalMap = BundleLauncherHelper.getAdditionalPlugins(config, true);
-			for (Object name : allAdditionalMap.keySet()) {
-				IPluginModelBase model = (IPluginModelBase) name;
-				PluginLaunchModel launchModel = new PluginLaunchModel(model, (String) allAdditionalMap.get(model));
-				fAdditionalPlugins.add(launchModel);
-				if (checkedAdditionalMap.containsKey(model)) {
+			String pluginResolution = config.getAttribute(IPDELauncherConstants.FEATURE_PLUGIN_RESOLUTION, IPDELauncherConstants.LOCATION_WORKSPACE);
+			BundleSelection additionalPlugins = BundleSelection.getAdditionalPlugins(config);
+			Map<IPluginModelBase, PluginLaunchModel> launchModels = new HashMap<>();
+			for (BundleSelection.Entry entry : additionalPlugins.getEntries()) {
+				IPluginModelBase model = additionalPlugins.getMatch(entry, pluginResolution);
+				if (model == null)
+					continue;
+				PluginLaunchModel launchModel = launchModels.get(model);
+				if (launchModel == null) {
+					launchModel = new PluginLaunchModel(model, entry.getLocation());
+					launchModels.put(model, launchModel);
+					fAdditionalPlugins.add(launchModel);
+				}
+				if (entry.isEnabled() && !checkedAdditionalPlugins.contains(launchModel)) {
 					checkedAdditionalPlugins.add(launchModel);
 				}
 			}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -215,10 +215,7 @@ public class LaunchAction extends Action {
 	private IPluginModelBase[] getModels() {
 		Set<IPluginModelBase> launchPlugins = new HashSet<>();
 		if (fProduct.useFeatures()) {
-			IFeatureModel[] features = getUniqueFeatures();
-			for (IFeatureModel feature : features) {
-				addFeaturePlugins(feature.getFeature(), launchPlugins);
-			}
+			addFeaturePlugins(getUniquePlugins(), launchPlugins);
 		} else {
 			IProductPlugin[] plugins = fProduct.getPlugins();
 			for (IProductPlugin plugin : plugins) {
@@ -233,33 +230,18 @@ public class LaunchAction extends Action {
 		return launchPlugins.toArray(new IPluginModelBase[launchPlugins.size()]);
 	}
 
-	private IFeatureModel[] getUniqueFeatures() {
-		ArrayList<IFeatureModel> list = new ArrayList<>();
+	private IFeaturePlugin[] getUniquePlugins() {
+		FeatureModelManager manager = PDECore.getDefault().getFeatureModelManager();
+		Set<IFeaturePlugin> plugins = new LinkedHashSet<>();
 		IProductFeature[] features = fProduct.getFeatures();
 		for (IProductFeature feature : features) {
-			String id = feature.getId();
-			String version = feature.getVersion();
-			addFeatureAndChildren(id, version, list);
-		}
-		return list.toArray(new IFeatureModel[list.size()]);
-	}
-
-	private void addFeatureAndChildren(String id, String version, List<IFeatureModel> list) {
-		FeatureModelManager manager = PDECore.getDefault().getFeatureModelManager();
-		IFeatureModel model = manager.findFeatureModel(id, version);
-		if (model == null || list.contains(model))
-			return;
-
-		list.add(model);
-
-		IFeatureChild[] children = model.getFeature().getIncludedFeatures();
-		for (IFeatureChild element : children) {
-			addFeatureAndChildren(element.getId(), element.getVersion(), list);
+			FeatureClosure closure = manager.getFeatureClosure(feature.getId(), feature.getVersion());
+			plugins.addAll(Arrays.asList(closure.getPlugins()));
 		}
+		return plugins.toArray(new IFeaturePlugin[plugins.size()]);
 	}
 
-	private void addFeaturePlugins(IFeature feature, Set<IPluginModelBase> launchPlugins) {
-		IFeaturePlugin[] plugins = feature.getPlugins();
+	private void addFeaturePlugins(IFeaturePlugin[] plugins, Set<IPluginModelBase> launchPlugins) {
 		for (IFeaturePlugin plugin : plugins) {
 			String id = plugin.getId();
 			String version = plugin.getVersion();
@@ -12,6 +12,8 @@ package org.eclipse.pde.internal.ui.views.dependencies;
 
 import java.util.*;
 import org.eclipse.osgi.service.resolver.BundleDescription;
+import org.eclipse.pde.internal.core.BundleDependencyIndex;
+import org.eclipse.pde.internal.core.PDECore;
 
 public class CallersContentProvider extends DependenciesViewPageContentProvider {
 	public CallersContentProvider(DependenciesView view) {
@@ -22,11 +24,16 @@ public class CallersContentProvider extends DependenciesViewPageContentProvider
 		if (desc != null) {
 			// don't return any callers for fragments (since no one can depend on a fragment
 			if (desc.getHost() == null) {
-				BundleDescription[] dependents = desc.getDependents();
+				BundleDependencyIndex index = getDependencyIndex();
+				BundleDescription[] dependents = index.isIndexed(desc) ? index.getDependents(desc) : desc.getDependents();
 				return Arrays.asList(dependents);
 			}
 		}
 		return Collections.emptyList();
 	}
 
+	protected BundleDependencyIndex getDependencyIndex() {
+		return PDECore.getDefault().getModelManager().getDependencyIndex();
+	}
+
 }
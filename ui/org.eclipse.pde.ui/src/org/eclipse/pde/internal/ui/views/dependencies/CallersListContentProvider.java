@@ -14,6 +14,7 @@ import java.util.*;
 import org.eclipse.jface.viewers.IStructuredContentProvider;
 import org.eclipse.osgi.service.resolver.BundleDescription;
 import org.eclipse.pde.core.plugin.IPluginModelBase;
+import org.eclipse.pde.internal.core.BundleDependencyIndex;
 
 public class CallersListContentProvider extends CallersContentProvider implements IStructuredContentProvider {
 
@@ -34,6 +35,13 @@ public class CallersListContentProvider extends CallersContentProvider implement
 			desc = (BundleDescription) inputElement;
 		}
 		if (desc != null) {
+			BundleDependencyIndex index = getDependencyIndex();
+			if (index.isIndexed(desc)) {
+				// no one can depend on a fragment
+				if (desc.getHost() != null)
+					return new Object[0];
+				return index.getTransitiveDependents(Collections.singleton(desc)).toArray();
+			}
 			Set<BundleDescription> callers = new HashSet<>();
 			Set<BundleDescription> candidates = new HashSet<>();
 			candidates.addAll(findReferences(desc));
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,6 +22,7 @@ import org.eclipse.pde.internal.ui.IHelpContextIds;
 import org.eclipse.pde.internal.ui.PDEUIMessages;
 import org.eclipse.pde.internal.ui.parts.WizardCheckboxTablePart;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.*;
 import org.eclipse.ui.PlatformUI;
@@ -29,6 +30,7 @@ import org.eclipse.ui.PlatformUI;
 public class CrossPlatformExportPage extends AbstractExportWizardPage {
 
 	private static String CROSS_PLATFORM = "cross-platform"; //$NON-NLS-1$
+	private static String PARALLEL_ASSEMBLY = "parallelAssembly"; //$NON-NLS-1$
 
 	class Configuration {
 		String os;
@@ -88,6 +90,7 @@ public class CrossPlatformExportPage extends AbstractExportWizardPage {
 	}
 
 	private PlatformPart fPlatformPart;
+	private Button fParallelButton;
 	private IFeatureModel fModel;
 
 	public CrossPlatformExportPage(String pageName, IFeatureModel model) {
@@ -109,6 +112,12 @@ public class CrossPlatformExportPage extends AbstractExportWizardPage {
 		viewer.setLabelProvider(new LabelProvider());
 		fPlatformPart.getTableViewer().setInput(PDECore.getDefault().getFeatureModelManager());
 
+		fParallelButton = new Button(container, SWT.CHECK);
+		fParallelButton.setText(PDEUIMessages.CrossPlatformExportPage_parallel);
+		GridData gd = new GridData();
+		gd.horizontalSpan = 2;
+		fParallelButton.setLayoutData(gd);
+
 		initialize();
 		setControl(container);
 
@@ -116,6 +125,7 @@ public class CrossPlatformExportPage extends AbstractExportWizardPage {
 	}
 
 	private void initialize() {
+		fParallelButton.setSelection(getDialogSettings().getBoolean(PARALLEL_ASSEMBLY));
 		String value = getDialogSettings().get(CROSS_PLATFORM);
 		if (value != null) {
 			HashSet<String> set = new HashSet<>();
@@ -160,6 +170,7 @@ public class CrossPlatformExportPage extends AbstractExportWizardPage {
 			buffer.append(object.toString());
 		}
 		settings.put(CROSS_PLATFORM, buffer.toString());
+		settings.put(PARALLEL_ASSEMBLY, fParallelButton.getSelection());
 	}
 
 	private Configuration[] getListElements() {
@@ -203,6 +214,13 @@ public class CrossPlatformExportPage extends AbstractExportWizardPage {
 		setPageComplete(fPlatformPart.getSelectionCount() > 0);
 	}
 
+	/**
+	 * @return whether the selected platforms should be assembled concurrently
+	 */
+	public boolean doParallelAssembly() {
+		return fParallelButton.getSelection();
+	}
+
 	public String[][] getTargets() {
 		Object[] objects = fPlatformPart.getSelection();
 		String[][] targets = new String[objects.length][4];
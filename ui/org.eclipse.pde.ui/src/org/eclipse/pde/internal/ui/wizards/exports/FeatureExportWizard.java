@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -73,8 +73,10 @@ public class FeatureExportWizard extends AntGeneratingExportWizard {
 		info.useWorkspaceCompiledClasses = fPage.useWorkspaceCompiledClasses();
 		info.destinationDirectory = fPage.getDestination();
 		info.zipFileName = fPage.getFileName();
-		if (fPage2 != null && ((FeatureExportWizardPage) fPage).doMultiPlatform())
+		if (fPage2 != null && ((FeatureExportWizardPage) fPage).doMultiPlatform()) {
 			info.targets = fPage2.getTargets();
+			info.parallelAssembly = fPage2.doParallelAssembly();
+		}
 		info.exportMetadata = ((FeatureExportWizardPage) fPage).doExportMetadata();
 		info.items = fPage.getSelectedItems();
 		info.signingInfo = fPage.getSigningInfo();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2015 IBM Corporation and others.
+ * Copyright (c) 2005, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -77,8 +77,10 @@ public class ProductExportWizard extends BaseExportWizard {
 		info.exportMetadata = fPage.doExportMetadata();
 		info.destinationDirectory = fPage.getDestination();
 		info.zipFileName = fPage.getFileName();
-		if (fPage2 != null && fPage.doMultiPlatform())
+		if (fPage2 != null && fPage.doMultiPlatform()) {
 			info.targets = fPage2.getTargets();
+			info.parallelAssembly = fPage2.doParallelAssembly();
+		}
 		if (fProductModel.getProduct().useFeatures())
 			info.items = getFeatureModels();
 		else